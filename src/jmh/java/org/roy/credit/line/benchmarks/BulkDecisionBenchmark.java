@@ -0,0 +1,147 @@
+package org.roy.credit.line.benchmarks;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roy.credit.line.configs.BulkDecisionProperties;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.dtos.CreditLineDecisionColumns;
+import org.roy.credit.line.models.dtos.FinancialDataColumns;
+import org.roy.credit.line.models.dtos.RequesterFinancialData;
+import org.roy.credit.line.services.BulkCreditLineDecisionKernel;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.roy.credit.line.services.strategies.founding.type.SmeRequesterStrategy;
+import org.roy.credit.line.services.strategies.founding.type.StartUpRequesterStrategy;
+
+/**
+ * Time and allocation of re-scoring a portfolio of random SME and start-up requesters, half of
+ * them accepted:
+ *
+ * <ul>
+ *   <li>{@code perObjectStrategies}: the founding type strategies over financial data objects
+ *       already in memory
+ *   <li>{@code perObjectStrategiesFromColumns}: the same, building the financial data object of
+ *       each row, as a re-scoring reading rows into objects would
+ *   <li>{@code columnar}: the {@link BulkCreditLineDecisionKernel} on a single core
+ *   <li>{@code columnarForkJoin}: the kernel across all the cores
+ * </ul>
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="BulkDecisionBenchmark"}
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BulkDecisionBenchmark {
+
+  @Param({"10000000"})
+  private int rows;
+
+  private final RatioProperties ratioProperties = new RatioProperties();
+  private final CreditLineCalculationStrategyRegistry strategies =
+      new CreditLineCalculationStrategyRegistry(
+          List.of(
+              new SmeRequesterStrategy(ratioProperties),
+              new StartUpRequesterStrategy(ratioProperties)));
+
+  private FinancialDataColumns financialData;
+  private RequesterFinancialData[] financialDataObjects;
+  private FoundingType[] foundingTypes;
+  private CreditLineDecisionColumns decisions;
+  private BulkCreditLineDecisionKernel singleCoreKernel;
+  private BulkCreditLineDecisionKernel kernel;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var random = new SplittableRandom(42);
+    financialData = FinancialDataColumns.ofSize(rows);
+    financialDataObjects = new RequesterFinancialData[rows];
+    foundingTypes = new FoundingType[rows];
+
+    for (int i = 0; i < rows; i++) {
+      long requested = random.nextLong(100_000, 10_000_000);
+      financialData.requestedCreditLineCents()[i] = requested;
+      financialData.monthlyRevenueCents()[i] = requested * random.nextInt(2, 8);
+      financialData.cashBalanceCents()[i] = requested * random.nextInt(1, 5);
+      financialData.foundingTypes()[i] = (byte) random.nextInt(2);
+
+      foundingTypes[i] = FoundingType.values()[financialData.foundingTypes()[i]];
+      financialDataObjects[i] = financialDataOf(i);
+    }
+
+    decisions = CreditLineDecisionColumns.ofSize(rows);
+
+    var singleCore = new BulkDecisionProperties();
+    singleCore.setParallelism(1);
+    singleCoreKernel = new BulkCreditLineDecisionKernel(ratioProperties, singleCore);
+    kernel = new BulkCreditLineDecisionKernel(ratioProperties, new BulkDecisionProperties());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    singleCoreKernel.destroy();
+    kernel.destroy();
+  }
+
+  @Benchmark
+  public CreditLineDecisionColumns perObjectStrategies() {
+    for (int i = 0; i < rows; i++) {
+      long creditLine =
+          strategies
+              .getCreditLineCalculationStrategy(foundingTypes[i])
+              .getCreditLine(financialDataObjects[i]);
+      decisions.acceptedCreditLineCents()[i] = creditLine;
+      decisions.accepted()[i] = creditLine != 0;
+    }
+    return decisions;
+  }
+
+  @Benchmark
+  public CreditLineDecisionColumns perObjectStrategiesFromColumns() {
+    for (int i = 0; i < rows; i++) {
+      long creditLine =
+          strategies
+              .getCreditLineCalculationStrategy(foundingTypes[i])
+              .getCreditLine(financialDataOf(i));
+      decisions.acceptedCreditLineCents()[i] = creditLine;
+      decisions.accepted()[i] = creditLine != 0;
+    }
+    return decisions;
+  }
+
+  @Benchmark
+  public CreditLineDecisionColumns columnar() {
+    singleCoreKernel.decide(financialData, ratioProperties, decisions);
+    return decisions;
+  }
+
+  @Benchmark
+  public CreditLineDecisionColumns columnarForkJoin() {
+    kernel.decide(financialData, ratioProperties, decisions);
+    return decisions;
+  }
+
+  private RequesterFinancialData financialDataOf(int row) {
+    return RequesterFinancialData.builder()
+        .cashBalanceCents(financialData.cashBalanceCents()[row])
+        .monthlyRevenueCents(financialData.monthlyRevenueCents()[row])
+        .requestedCreditLineCents(financialData.requestedCreditLineCents()[row])
+        .build();
+  }
+}
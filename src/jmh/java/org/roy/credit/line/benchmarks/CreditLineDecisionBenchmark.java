@@ -0,0 +1,169 @@
+package org.roy.credit.line.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.models.dtos.RequesterFinancialData;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.services.RateLimitServiceImpl;
+import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
+import org.roy.credit.line.services.strategies.credit.status.CreditRequestStrategyRegistry;
+import org.roy.credit.line.services.strategies.credit.status.NewOrPreviouslyRejectedRequestStrategy;
+import org.roy.credit.line.services.strategies.credit.status.PreviouslyAcceptedStrategy;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.roy.credit.line.services.strategies.founding.type.SmeRequesterStrategy;
+import org.roy.credit.line.services.strategies.founding.type.StartUpRequesterStrategy;
+import org.roy.credit.line.utils.Money;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Per request CPU and allocation cost of the pure parts of a credit line decision: strategy
+ * dispatch and calculation, the MapStruct conversions, the rate limit key and the JSON response.
+ * The jmh task runs the gc profiler and writes the results to build/reports/jmh/results.json, so
+ * runs can be compared over time.
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="CreditLineDecisionBenchmark"}
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CreditLineDecisionBenchmark {
+
+  private final CreditLineRequestMapper mapper = Mappers.getMapper(CreditLineRequestMapper.class);
+  private final UUID customerId = UUID.randomUUID();
+
+  private PostRequestCreditLineRequestBody requestBody;
+  private RequesterFinancialData financialData;
+  private CreditLineRequestRecord creditLineRequestRecord;
+  private CreditLineRequestRecordDao creditLineRequestRecordDao;
+  private ContractResponse<PostRequestCreditLineResponseBody> contractResponse;
+  private CreditLineCalculationStrategyRegistry creditLineCalculationStrategies;
+  private CreditRequestStrategyRegistry creditRequestStrategies;
+  private CreditLineCalculationStrategy smeStrategy;
+  private CreditLineCalculationStrategy startUpStrategy;
+  private ObjectWriter responseWriter;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ZonedDateTime requestedDate = ZonedDateTime.of(2022, 6, 26, 2, 14, 21, 0, ZoneOffset.UTC);
+
+    requestBody =
+        PostRequestCreditLineRequestBody.builder()
+            .cashBalanceCents(Money.centsOfUnits(100_000))
+            .monthlyRevenueCents(Money.centsOfUnits(100_000))
+            .requestedCreditLineCents(Money.centsOfUnits(1_000))
+            .requestedDate(requestedDate)
+            .build();
+    financialData = mapper.mapToRequesterFinancialData(requestBody, customerId, FoundingType.SME);
+    creditLineRequestRecordDao =
+        CreditLineRequestRecordDao.builder()
+            .customerId(customerId)
+            .acceptedCreditLineCents(Money.centsOfUnits(1_000))
+            .creditLineStatus(CreditLineStatus.ACCEPTED)
+            .requestedDate(requestedDate)
+            .attempts(1)
+            .build();
+    creditLineRequestRecord = mapper.mapToCreditLineRequestEntity(creditLineRequestRecordDao);
+    contractResponse =
+        ContractResponse.<PostRequestCreditLineResponseBody>builder()
+            .response(mapper.mapToRequestCreditLineResponseBody(creditLineRequestRecordDao))
+            .path("/v1/request-credit-line")
+            .build();
+
+    var ratioProperties = new RatioProperties();
+    creditLineCalculationStrategies =
+        new CreditLineCalculationStrategyRegistry(
+            List.of(
+                new SmeRequesterStrategy(ratioProperties),
+                new StartUpRequesterStrategy(ratioProperties)));
+    creditRequestStrategies =
+        new CreditRequestStrategyRegistry(
+            List.of(new NewOrPreviouslyRejectedRequestStrategy(), new PreviouslyAcceptedStrategy()));
+    smeStrategy = creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.SME);
+    startUpStrategy =
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.STARTUP);
+
+    // Same date handling as the Spring Boot auto configured ObjectMapper
+    responseWriter = Jackson2ObjectMapperBuilder.json().build().writer();
+  }
+
+  /** Expected to allocate nothing, the strategies are singletons held in enum maps */
+  @Benchmark
+  public void strategyDispatch(Blackhole blackhole) {
+    blackhole.consume(
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.SME));
+    blackhole.consume(
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.STARTUP));
+    blackhole.consume(creditRequestStrategies.getCreditRequestStrategy(CreditLineStatus.NONE));
+    blackhole.consume(creditRequestStrategies.getCreditRequestStrategy(CreditLineStatus.ACCEPTED));
+  }
+
+  @Benchmark
+  public long smeCreditLine() {
+    return smeStrategy.getCreditLine(financialData);
+  }
+
+  @Benchmark
+  public long startUpCreditLine() {
+    return startUpStrategy.getCreditLine(financialData);
+  }
+
+  @Benchmark
+  public RequesterFinancialData mapToRequesterFinancialData() {
+    return mapper.mapToRequesterFinancialData(requestBody, customerId, FoundingType.SME);
+  }
+
+  @Benchmark
+  public CreditLineRequestRecordDao mapToCreditLineRequestRecordDao() {
+    return mapper.mapToCreditLineRequestRecordDao(creditLineRequestRecord);
+  }
+
+  @Benchmark
+  public CreditLineRequestRecord mapToCreditLineRequestEntity() {
+    return mapper.mapToCreditLineRequestEntity(creditLineRequestRecordDao);
+  }
+
+  @Benchmark
+  public PostRequestCreditLineResponseBody mapToRequestCreditLineResponseBody() {
+    return mapper.mapToRequestCreditLineResponseBody(creditLineRequestRecordDao);
+  }
+
+  @Benchmark
+  public void rateLimitKeys(Blackhole blackhole) {
+    blackhole.consume(RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, customerId));
+    blackhole.consume(RateLimitServiceImpl.keyOf(CreditLineStatus.REJECTED, customerId));
+  }
+
+  @Benchmark
+  public byte[] serializeContractResponse() throws JsonProcessingException {
+    return responseWriter.writeValueAsBytes(contractResponse);
+  }
+}
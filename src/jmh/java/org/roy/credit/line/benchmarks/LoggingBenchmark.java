@@ -0,0 +1,242 @@
+package org.roy.credit.line.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.OutputStreamAppender;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.layout.template.json.JsonTemplateLayout;
+import org.apache.logging.log4j.layout.template.json.JsonTemplateLayout.EventTemplateAdditionalField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.utils.ResponseTemplates;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Share of the logging in the CPU and allocation of a reject heavy load. Each operation answers a
+ * credit line request as the credit line endpoint does, logging its trace entry, disabled as in
+ * production, and the rejection or rate limit events the exception handlers used to log. The
+ * events are written to a discarding stream, with:
+ *
+ * <ul>
+ *   <li>{@code OFF}: no logging at all, the baseline
+ *   <li>{@code SYNC_PATTERN_EAGER}: the former setup, synchronous loggers with a pattern layout,
+ *       and the request body turned into a string even though the trace is disabled
+ *   <li>{@code ASYNC_JSON_LAZY}: the current setup, async loggers handing the events to the
+ *       disruptor, the garbage-free JSON template layout and lazy arguments
+ * </ul>
+ *
+ * <p>The garbage-free settings are read from the {@code log4j2.component.properties} of the
+ * service. The async queue blocks when full rather than discarding, so the background thread
+ * keeps up with every logged event.
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="LoggingBenchmark"}
+ */
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Dlog4j2.asyncQueueFullPolicy=Default"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class LoggingBenchmark {
+
+  private static final String PATH = "/v1/request-credit-line";
+  private static final int OUTCOMES = 1024;
+
+  /** Share of the rejected and rate limited requests, in percent */
+  private static final int REJECTED = 80;
+  private static final int TOO_MANY_REQUESTS = 10;
+
+  public enum Logging {
+    OFF,
+    SYNC_PATTERN_EAGER,
+    ASYNC_JSON_LAZY
+  }
+
+  private enum Outcome {
+    ACCEPTED,
+    REJECTED,
+    TOO_MANY_REQUESTS
+  }
+
+  @Param({"OFF", "SYNC_PATTERN_EAGER", "ASYNC_JSON_LAZY"})
+  private Logging logging;
+
+  private final Outcome[] outcomes = new Outcome[OUTCOMES];
+  private final PostRequestCreditLineRequestBody requestBody =
+      PostRequestCreditLineRequestBody.builder()
+          .cashBalanceCents(100_000_099)
+          .monthlyRevenueCents(15_000_099)
+          .requestedCreditLineCents(1_000_099)
+          .requestedDate(ZonedDateTime.parse("2022-06-26T02:14:21.120Z"))
+          .build();
+  private final PostRequestCreditLineResponseBody accepted =
+      PostRequestCreditLineResponseBody.builder()
+          .creditLineStatus(CreditLineStatus.ACCEPTED)
+          .acceptedCreditLine(new BigDecimal("10000.00"))
+          .build();
+
+  private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST", PATH);
+  private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+  private LoggerContext loggerContext;
+  private Logger log;
+  private ObjectWriter responseWriter;
+  private ResponseTemplates responseTemplates;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var random = new SplittableRandom(42);
+    for (int i = 0; i < OUTCOMES; i++) {
+      int draw = random.nextInt(100);
+      outcomes[i] =
+          draw < REJECTED
+              ? Outcome.REJECTED
+              : draw < REJECTED + TOO_MANY_REQUESTS ? Outcome.TOO_MANY_REQUESTS : Outcome.ACCEPTED;
+    }
+
+    loggerContext = loggerContextOf(logging);
+    log = loggerContext.getLogger(LoggingBenchmark.class);
+
+    // Same date handling as the Spring Boot auto configured ObjectMapper
+    ObjectMapper objectMapper =
+        Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    responseWriter = objectMapper.writer();
+    responseTemplates = new ResponseTemplates(objectMapper);
+    servletRequest.setServletPath(PATH);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    loggerContext.stop();
+  }
+
+  @Benchmark
+  public byte[] requestCreditLine() throws IOException {
+    Outcome outcome = outcomes[next];
+    next = (next + 1) & (OUTCOMES - 1);
+    servletResponse.reset();
+
+    if (logging == Logging.SYNC_PATTERN_EAGER) {
+      log.traceEntry(
+          "Initializing credit line request validation. Request {}", requestBody.toString());
+    } else {
+      log.traceEntry("Initializing credit line request validation. Request {}", requestBody);
+    }
+
+    if (outcome == Outcome.TOO_MANY_REQUESTS) {
+      log.warn("Too many requests: {}", Messages.TOO_MANY_REQUESTS_MSG);
+      responseTemplates.writeTooManyRequests(servletRequest, servletResponse);
+      return servletResponse.getContentAsByteArray();
+    }
+
+    if (outcome == Outcome.REJECTED) {
+      log.info("Credit line request rejected!");
+      responseTemplates.writeRejected(null, servletRequest, servletResponse);
+      return servletResponse.getContentAsByteArray();
+    }
+
+    return acceptedBody();
+  }
+
+  private byte[] acceptedBody() throws JsonProcessingException {
+    return responseWriter.writeValueAsBytes(
+        ContractResponse.<PostRequestCreditLineResponseBody>builder()
+            .response(accepted)
+            .path(PATH)
+            .build());
+  }
+
+  /** A logger context of its own, writing to a stream that discards the formatted events */
+  private static LoggerContext loggerContextOf(Logging logging) {
+    LoggerContext context =
+        logging == Logging.ASYNC_JSON_LAZY
+            ? new AsyncLoggerContext("benchmark")
+            : new LoggerContext("benchmark");
+
+    ConfigurationBuilder<BuiltConfiguration> builder =
+        ConfigurationBuilderFactory.newConfigurationBuilder();
+    builder.setLoggerContext(context);
+    builder.add(
+        builder.newRootLogger(
+            logging == Logging.OFF
+                ? org.apache.logging.log4j.Level.OFF
+                : org.apache.logging.log4j.Level.INFO));
+    context.start(builder.build());
+
+    Configuration configuration = context.getConfiguration();
+    Appender appender =
+        OutputStreamAppender.newBuilder()
+            .setName("discarding")
+            .setTarget(OutputStream.nullOutputStream())
+            .setLayout(layoutOf(logging, configuration))
+            .build();
+    appender.start();
+    configuration.addAppender(appender);
+    configuration.getRootLogger().addAppender(appender, null, null);
+    context.updateLoggers();
+
+    return context;
+  }
+
+  /** The layouts of the former Spring Boot console pattern and of the log4j2-spring.xml */
+  private static Layout<?> layoutOf(Logging logging, Configuration configuration) {
+    if (logging == Logging.ASYNC_JSON_LAZY) {
+      return JsonTemplateLayout.newBuilder()
+          .setConfiguration(configuration)
+          .setEventTemplateUri("classpath:EcsLayout.json")
+          .setEventTemplateAdditionalFields(
+              new EventTemplateAdditionalField[] {
+                EventTemplateAdditionalField.newBuilder()
+                    .setKey("service.name")
+                    .setValue("credit-line-service")
+                    .build()
+              })
+          .build();
+    }
+
+    return PatternLayout.newBuilder()
+        .withConfiguration(configuration)
+        .withPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%t] %-40.40c{1.} : %m%n")
+        .build();
+  }
+}
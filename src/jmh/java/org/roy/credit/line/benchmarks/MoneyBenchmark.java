@@ -0,0 +1,138 @@
+package org.roy.credit.line.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.utils.Money;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of the money of a credit line request held as boxed floats, as it was, and as long cents.
+ * Each operation reads the amounts of a request body or decides its SME credit line, the monthly
+ * revenue ratio, over a set of random amounts:
+ *
+ * <ul>
+ *   <li>{@code floatDecision}: the former strategy, dividing the boxed float revenue and rounding
+ *       the accepted float through a {@link BigDecimal}
+ *   <li>{@code centsDecision}: the exact comparison of the cents
+ *   <li>{@code readFloatRequestBody} and {@code readCentsRequestBody}: the JSON request body read
+ *       into boxed floats and into cents
+ * </ul>
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="MoneyBenchmark"}
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+  private static final int REQUESTS = 1024;
+  private static final int MONTHLY_REVENUE_RATIO = 5;
+
+  private final Float[] floatRevenues = new Float[REQUESTS];
+  private final Float[] floatRequests = new Float[REQUESTS];
+  private final long[] revenueCents = new long[REQUESTS];
+  private final long[] requestCents = new long[REQUESTS];
+  private final byte[][] requestBodies = new byte[REQUESTS][];
+
+  private ObjectReader floatReader;
+  private ObjectReader centsReader;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var random = new SplittableRandom(42);
+    for (int i = 0; i < REQUESTS; i++) {
+      long revenue = random.nextLong(1_000_000, 100_000_000);
+      long requested = random.nextLong(100_000, revenue / 2);
+      String revenueText = Money.toBigDecimal(revenue).toPlainString();
+      String requestedText = Money.toBigDecimal(requested).toPlainString();
+
+      floatRevenues[i] = Float.valueOf(revenueText);
+      floatRequests[i] = Float.valueOf(requestedText);
+      revenueCents[i] = revenue;
+      requestCents[i] = requested;
+      requestBodies[i] =
+          ("{\"cashBalance\":"
+                  + revenueText
+                  + ",\"monthlyRevenue\":"
+                  + revenueText
+                  + ",\"requestedCreditLine\":"
+                  + requestedText
+                  + ",\"requestedDate\":\"2022-06-26T02:14:21.120Z\"}")
+              .getBytes(StandardCharsets.UTF_8);
+    }
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    floatReader = objectMapper.readerFor(FloatRequestBody.class);
+    centsReader = objectMapper.readerFor(PostRequestCreditLineRequestBody.class);
+  }
+
+  @Benchmark
+  public BigDecimal floatDecision() {
+    int request = nextRequest();
+    Float monthlyRevenue = floatRevenues[request];
+    Float requestedCreditLine = floatRequests[request];
+
+    Float recommendedCreditLine = monthlyRevenue / MONTHLY_REVENUE_RATIO;
+    Float creditLine = requestedCreditLine <= recommendedCreditLine ? requestedCreditLine : 0F;
+    return BigDecimal.valueOf(creditLine).setScale(2, RoundingMode.HALF_UP);
+  }
+
+  @Benchmark
+  public long centsDecision() {
+    int request = nextRequest();
+    long requestedCreditLine = requestCents[request];
+
+    return Money.isAtMostFractionOf(
+            requestedCreditLine, revenueCents[request], MONTHLY_REVENUE_RATIO)
+        ? requestedCreditLine
+        : 0;
+  }
+
+  @Benchmark
+  public FloatRequestBody readFloatRequestBody() throws IOException {
+    return floatReader.readValue(requestBodies[nextRequest()]);
+  }
+
+  @Benchmark
+  public PostRequestCreditLineRequestBody readCentsRequestBody() throws IOException {
+    return centsReader.readValue(requestBodies[nextRequest()]);
+  }
+
+  private int nextRequest() {
+    int request = next;
+    next = (next + 1) & (REQUESTS - 1);
+    return request;
+  }
+
+  /** The request body as it was, with its amounts in boxed floats */
+  public static class FloatRequestBody {
+
+    public Float cashBalance;
+    public Float monthlyRevenue;
+    public Float requestedCreditLine;
+    public ZonedDateTime requestedDate;
+  }
+}
@@ -0,0 +1,74 @@
+package org.roy.credit.line.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.roy.credit.line.services.codecs.RedisIntegerSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+/**
+ * Per request serialization cost of a rate limit check: two keys and two integer arguments, plus
+ * the decoding of a counter read. The legacy benchmarks reproduce the previous String.format keys
+ * and Jackson serializers. Run with the gc profiler to compare allocations.
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="RateLimitSerializationBenchmark -prof gc"}
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RateLimitSerializationBenchmark {
+
+  private static final byte[] SERIALIZED_COUNTER = {'2'};
+
+  private final UUID customerId = UUID.randomUUID();
+
+  private final Jackson2JsonRedisSerializer<String> legacyKeySerializer =
+      new Jackson2JsonRedisSerializer<>(String.class);
+  private final Jackson2JsonRedisSerializer<Integer> legacyValueSerializer =
+      new Jackson2JsonRedisSerializer<>(Integer.class);
+  private final RedisIntegerSerializer valueSerializer = new RedisIntegerSerializer();
+
+  @Benchmark
+  public void legacyJsonKeysAndValues(Blackhole blackhole) {
+    blackhole.consume(
+        legacyKeySerializer.serialize(
+            String.format("%s-%s", CreditLineStatus.REJECTED.name(), customerId.toString())));
+    blackhole.consume(
+        legacyKeySerializer.serialize(
+            String.format("%s-%s", CreditLineStatus.ACCEPTED.name(), customerId.toString())));
+    blackhole.consume(legacyValueSerializer.serialize(3));
+    blackhole.consume(legacyValueSerializer.serialize(120_000));
+  }
+
+  @Benchmark
+  public void binaryKeysAndNativeValues(Blackhole blackhole) {
+    blackhole.consume(RateLimitKeyCodec.encode(CreditLineStatus.REJECTED, customerId));
+    blackhole.consume(RateLimitKeyCodec.encode(CreditLineStatus.ACCEPTED, customerId));
+    blackhole.consume(valueSerializer.serialize(3));
+    blackhole.consume(valueSerializer.serialize(120_000));
+  }
+
+  @Benchmark
+  public Integer legacyJsonCounterDecoding() {
+    return legacyValueSerializer.deserialize(SERIALIZED_COUNTER);
+  }
+
+  @Benchmark
+  public Integer nativeCounterDecoding() {
+    return valueSerializer.deserialize(SERIALIZED_COUNTER);
+  }
+}
@@ -0,0 +1,95 @@
+package org.roy.credit.line.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.configs.RedisConfig;
+import org.roy.credit.line.enums.RateLimitMode;
+import org.roy.credit.line.services.LocalRateLimitServiceImpl;
+import org.roy.credit.line.services.RateLimitService;
+import org.roy.credit.line.services.RateLimitServiceImpl;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+/**
+ * Rate limit check under heavy contention on a few hot customers. The REDIS mode needs the Redis
+ * instance of the local-dependencies docker-compose file.
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="RateLimitServiceBenchmark"}
+ */
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RateLimitServiceBenchmark {
+
+  private static final int HOT_CUSTOMERS = 4;
+
+  @Param({"LOCAL", "REDIS"})
+  private RateLimitMode mode;
+
+  private final UUID[] customerIds = new UUID[HOT_CUSTOMERS];
+  private LettuceConnectionFactory connectionFactory;
+  private RateLimitService rateLimitService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    if (RateLimitMode.LOCAL.equals(mode)) {
+      rateLimitService = new LocalRateLimitServiceImpl();
+    } else {
+      connectionFactory = new LettuceConnectionFactory("localhost", 6379);
+      connectionFactory.afterPropertiesSet();
+
+      var redisConfig = new RedisConfig();
+      var redisTemplate = redisConfig.redisTemplate(connectionFactory);
+      redisTemplate.afterPropertiesSet();
+
+      rateLimitService =
+          new RateLimitServiceImpl(
+              redisTemplate,
+              redisConfig.rateLimitScript(),
+              new RejectedCreditNearCache(new RateLimitProperties(), null),
+              new RateLimitProperties(),
+              new SimpleMeterRegistry());
+    }
+
+    for (int i = 0; i < HOT_CUSTOMERS; i++) {
+      customerIds[i] = UUID.randomUUID();
+      rateLimitService.setRateLimitForAcceptedCredit(customerIds[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (connectionFactory != null) {
+      connectionFactory.destroy();
+    }
+  }
+
+  @Benchmark
+  public void checkRateLimitOfHotCustomers(Blackhole blackhole) {
+    UUID customerId = customerIds[ThreadLocalRandom.current().nextInt(HOT_CUSTOMERS)];
+
+    blackhole.consume(rateLimitService.isAllowed(customerId));
+  }
+}
@@ -0,0 +1,234 @@
+package org.roy.credit.line.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.exceptions.RejectedCreditLineException;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.utils.ContractResponses;
+import org.roy.credit.line.utils.ResponseTemplates;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Cost of answering rejected and rate limited credit line requests, the routine outcomes of a
+ * credit line request, when they are signaled as results, as stackless exceptions and as
+ * exceptions capturing their stack trace. Outcomes are signaled from below a stack as deep as the
+ * servlet and Spring MVC frames of a request, then turned into the JSON response, serialized or
+ * written from the pre-serialized response templates.
+ *
+ * <p>{@code ./gradlew jmh -PjmhArgs="RejectionSignalingBenchmark"}
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RejectionSignalingBenchmark {
+
+  private static final String PATH = "/v1/request-credit-line";
+  private static final int OUTCOMES = 1024;
+
+  /** Share of rejected, rate limited and accepted requests, in percent */
+  public enum Mix {
+    REJECT_HEAVY(80, 10),
+    TOO_MANY_REQUESTS_HEAVY(10, 80);
+
+    private final int rejected;
+    private final int tooManyRequests;
+
+    Mix(int rejected, int tooManyRequests) {
+      this.rejected = rejected;
+      this.tooManyRequests = tooManyRequests;
+    }
+  }
+
+  private enum Outcome {
+    ACCEPTED,
+    REJECTED,
+    TOO_MANY_REQUESTS
+  }
+
+  @Param({"REJECT_HEAVY", "TOO_MANY_REQUESTS_HEAVY"})
+  private Mix mix;
+
+  @Param({"100"})
+  private int stackDepth;
+
+  private final Outcome[] outcomes = new Outcome[OUTCOMES];
+  private final PostRequestCreditLineResponseBody accepted =
+      PostRequestCreditLineResponseBody.builder()
+          .creditLineStatus(CreditLineStatus.ACCEPTED)
+          .acceptedCreditLine(new BigDecimal("10000.00"))
+          .build();
+  private final PostRequestCreditLineResponseBody rejected =
+      PostRequestCreditLineResponseBody.builder()
+          .creditLineStatus(CreditLineStatus.REJECTED)
+          .build();
+
+  private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST", PATH);
+  private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+  private ObjectWriter responseWriter;
+  private ResponseTemplates responseTemplates;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var random = new SplittableRandom(42);
+    for (int i = 0; i < OUTCOMES; i++) {
+      int draw = random.nextInt(100);
+      outcomes[i] =
+          draw < mix.rejected
+              ? Outcome.REJECTED
+              : draw < mix.rejected + mix.tooManyRequests
+                  ? Outcome.TOO_MANY_REQUESTS
+                  : Outcome.ACCEPTED;
+    }
+
+    // Same date handling as the Spring Boot auto configured ObjectMapper
+    ObjectMapper objectMapper =
+        Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    responseWriter = objectMapper.writer();
+    responseTemplates = new ResponseTemplates(objectMapper);
+    servletRequest.setServletPath(PATH);
+  }
+
+  /** Outcomes returned as values and serialized by the object mapper */
+  @Benchmark
+  public byte[] results() throws JsonProcessingException {
+    Outcome outcome = nextOutcome();
+    if (outcome == Outcome.TOO_MANY_REQUESTS) {
+      return responseWriter.writeValueAsBytes(ContractResponses.tooManyRequests(PATH));
+    }
+
+    return responseWriter.writeValueAsBytes(
+        ContractResponse.<PostRequestCreditLineResponseBody>builder()
+            .response(decide(outcome, stackDepth))
+            .path(PATH)
+            .build());
+  }
+
+  /** Outcomes returned as values, the routine ones written from the response templates */
+  @Benchmark
+  public byte[] templates() throws IOException {
+    Outcome outcome = nextOutcome();
+    servletResponse.reset();
+
+    if (outcome == Outcome.TOO_MANY_REQUESTS) {
+      responseTemplates.writeTooManyRequests(servletRequest, servletResponse);
+      return servletResponse.getContentAsByteArray();
+    }
+
+    PostRequestCreditLineResponseBody body = decide(outcome, stackDepth);
+    if (outcome == Outcome.REJECTED) {
+      responseTemplates.writeRejected(body.getMessage(), servletRequest, servletResponse);
+      return servletResponse.getContentAsByteArray();
+    }
+
+    return responseWriter.writeValueAsBytes(
+        ContractResponse.<PostRequestCreditLineResponseBody>builder()
+            .response(body)
+            .path(PATH)
+            .build());
+  }
+
+  /** Outcomes thrown as the stackless exceptions, caught as the exception handlers do */
+  @Benchmark
+  public byte[] stacklessExceptions() throws JsonProcessingException {
+    return throwAndHandle(false);
+  }
+
+  /** Outcomes thrown as exceptions capturing their stack trace */
+  @Benchmark
+  public byte[] stackTraceExceptions() throws JsonProcessingException {
+    return throwAndHandle(true);
+  }
+
+  private byte[] throwAndHandle(boolean stackTrace) throws JsonProcessingException {
+    Outcome outcome = nextOutcome();
+    try {
+      return responseWriter.writeValueAsBytes(
+          ContractResponse.<PostRequestCreditLineResponseBody>builder()
+              .response(decideOrThrow(outcome, stackDepth, stackTrace))
+              .path(PATH)
+              .build());
+    } catch (RejectedCreditLineException exception) {
+      return responseWriter.writeValueAsBytes(
+          ContractResponses.rejected(exception.getCustomMessage(), PATH));
+    } catch (TooManyRequestsException exception) {
+      return responseWriter.writeValueAsBytes(ContractResponses.tooManyRequests(PATH));
+    } catch (StackTraceException exception) {
+      return responseWriter.writeValueAsBytes(
+          exception.outcome == Outcome.REJECTED
+              ? ContractResponses.rejected(null, PATH)
+              : ContractResponses.tooManyRequests(PATH));
+    }
+  }
+
+  private Outcome nextOutcome() {
+    Outcome outcome = outcomes[next];
+    next = (next + 1) & (OUTCOMES - 1);
+    return outcome;
+  }
+
+  private PostRequestCreditLineResponseBody decide(Outcome outcome, int depth) {
+    if (depth > 0) {
+      return decide(outcome, depth - 1);
+    }
+
+    return outcome == Outcome.ACCEPTED ? accepted : rejected;
+  }
+
+  private PostRequestCreditLineResponseBody decideOrThrow(
+      Outcome outcome, int depth, boolean stackTrace) {
+    if (depth > 0) {
+      return decideOrThrow(outcome, depth - 1, stackTrace);
+    }
+
+    if (outcome == Outcome.ACCEPTED) {
+      return accepted;
+    }
+    if (stackTrace) {
+      throw new StackTraceException(outcome);
+    }
+    if (outcome == Outcome.REJECTED) {
+      throw new RejectedCreditLineException();
+    }
+    throw new TooManyRequestsException();
+  }
+
+  /** The rejection and rate limit exceptions as they were before they became stackless */
+  private static class StackTraceException extends RuntimeException {
+
+    private final transient Outcome outcome;
+
+    StackTraceException(Outcome outcome) {
+      this.outcome = outcome;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package org.roy.credit.line.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model load test of the credit line request endpoint. Requests are sent at a fixed arrival
+ * rate regardless of how fast the service answers, and the latency is measured from the intended
+ * send time, so a stalled service is not hidden by a slower client. Each step raises the arrival
+ * rate, and the highest rate served within the p99 objective is reported.
+ *
+ * <p>Run it against an instance started with {@code spring.threads.virtual.enabled} set to true and
+ * to false to compare both execution modes:
+ *
+ * <p>{@code ./gradlew loadTest -PloadTestArgs="rates=500,1000,2000,4000 duration=PT30S"}
+ */
+public class CreditLineLoadTest {
+
+  private static final String DEFAULT_URL =
+      "http://localhost:5001/credit-line/v1/request-credit-line";
+  private static final String BODY =
+      "{\"cashBalance\":100000.0,\"monthlyRevenue\":100000.0,\"requestedCreditLine\":1000.0,"
+          + "\"requestedDate\":\"2022-06-26T02:14:21.120Z\"}";
+
+  private final HttpClient client =
+      HttpClient.newBuilder()
+          .executor(Executors.newVirtualThreadPerTaskExecutor())
+          .connectTimeout(Duration.ofSeconds(5))
+          .build();
+
+  private final URI uri;
+  private final Duration duration;
+  private final Duration timeout;
+
+  private CreditLineLoadTest(URI uri, Duration duration, Duration timeout) {
+    this.uri = uri;
+    this.duration = duration;
+    this.timeout = timeout;
+  }
+
+  public static void main(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      String[] option = arg.split("=", 2);
+      options.put(option[0], option.length > 1 ? option[1] : "");
+    }
+
+    var loadTest =
+        new CreditLineLoadTest(
+            URI.create(options.getOrDefault("url", DEFAULT_URL)),
+            Duration.parse(options.getOrDefault("duration", "PT30S")),
+            Duration.parse(options.getOrDefault("timeout", "PT10S")));
+    Duration p99Objective = Duration.parse(options.getOrDefault("p99", "PT0.1S"));
+    int[] rates =
+        Arrays.stream(options.getOrDefault("rates", "250,500,1000,2000,4000").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+
+    // Warms up the connection pool and the service before measuring
+    loadTest.run(rates[0]);
+
+    int sustainedRate = 0;
+    System.out.printf("%10s %12s %10s %10s %10s %8s%n", "rate/s", "served/s", "p50 ms", "p99 ms",
+        "max ms", "errors");
+    for (int rate : rates) {
+      StepResult result = loadTest.run(rate);
+      System.out.printf("%10d %12.1f %10.2f %10.2f %10.2f %8d%n", rate, result.throughput(),
+          result.percentileMillis(0.50), result.percentileMillis(0.99),
+          result.percentileMillis(1.0), result.errors());
+
+      if (result.errors() > 0 || result.percentileMillis(0.99) > p99Objective.toMillis()) {
+        break;
+      }
+      sustainedRate = rate;
+    }
+
+    System.out.printf("Highest rate within a p99 of %d ms: %d requests/s%n",
+        p99Objective.toMillis(), sustainedRate);
+    System.exit(0);
+  }
+
+  /**
+   * Send requests at the given rate for the step duration and wait for every answer
+   *
+   * @param rate arrivals per second
+   * @return latencies and errors of the step
+   */
+  private StepResult run(int rate) {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    long requests = duration.toNanos() / intervalNanos;
+    long[] latencies = new long[(int) requests];
+    var errors = new AtomicInteger();
+    List<CompletableFuture<Void>> responses = new ArrayList<>((int) requests);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      long intendedStart = start + i * intervalNanos;
+      long delay;
+      while ((delay = intendedStart - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(delay);
+      }
+
+      int request = i;
+      responses.add(
+          client
+              .sendAsync(requestFor(UUID.randomUUID()), HttpResponse.BodyHandlers.discarding())
+              .handle(
+                  (response, failure) -> {
+                    latencies[request] = System.nanoTime() - intendedStart;
+                    if (failure != null || response.statusCode() >= 300) {
+                      errors.incrementAndGet();
+                    }
+                    return null;
+                  }));
+    }
+    CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+    long elapsed = System.nanoTime() - start;
+
+    Arrays.sort(latencies);
+    return new StepResult(latencies, errors.get(), requests * 1e9 / elapsed);
+  }
+
+  private HttpRequest requestFor(UUID customerId) {
+    return HttpRequest.newBuilder(uri)
+        .timeout(timeout)
+        .header("Content-Type", "application/json")
+        .header("customerId", customerId.toString())
+        .header("foundingType", "SME")
+        .POST(HttpRequest.BodyPublishers.ofString(BODY))
+        .build();
+  }
+
+  private record StepResult(long[] sortedLatencies, int errors, double throughput) {
+
+    double percentileMillis(double percentile) {
+      int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+  }
+}
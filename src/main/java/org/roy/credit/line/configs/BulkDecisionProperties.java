@@ -0,0 +1,15 @@
+package org.roy.credit.line.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bulk-decision")
+public class BulkDecisionProperties {
+
+  /** Cores the bulk decisions are split across */
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /** Rows decided by a single fork join task, a chunk of the columns is not split any further */
+  private int chunkSize = 65_536;
+}
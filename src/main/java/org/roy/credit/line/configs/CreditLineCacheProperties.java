@@ -0,0 +1,31 @@
+package org.roy.credit.line.configs;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "credit-line-cache")
+public class CreditLineCacheProperties {
+
+  /** Answer repeated requests of customers with an accepted credit line without the database */
+  private boolean enabled = true;
+
+  /** Maximum number of accepted credit lines kept in memory */
+  private long maximumSize = 100_000;
+
+  /** How long an accepted credit line is kept in memory after it is loaded or stored */
+  private Duration timeToLive = Duration.ofMinutes(10);
+
+  private Redis redis = new Redis();
+
+  @Data
+  public static class Redis {
+
+    /** Share the accepted credit lines between the nodes through Redis */
+    private boolean enabled = false;
+
+    /** How long an accepted credit line is kept on Redis after it is stored */
+    private Duration timeToLive = Duration.ofHours(24);
+  }
+}
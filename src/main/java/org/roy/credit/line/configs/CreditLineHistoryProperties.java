@@ -0,0 +1,31 @@
+package org.roy.credit.line.configs;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "credit-line-history")
+public class CreditLineHistoryProperties {
+
+  /** Append every evaluated credit line request to the history table, in the background */
+  private boolean enabled = true;
+
+  /** Evaluations waiting to be stored, further ones are dropped and counted */
+  private int queueCapacity = 65_536;
+
+  /** Evaluations stored by each JDBC batch */
+  private int batchSize = 1_000;
+
+  /** How often the waiting evaluations are stored in the database */
+  private Duration flushInterval = Duration.ofMillis(500);
+
+  /** Months of history kept, the current one included. Older monthly partitions are dropped */
+  private int retentionMonths = 24;
+
+  /** Monthly partitions created ahead of the current one */
+  private int partitionsAhead = 2;
+
+  /** When the partitions are created ahead and the ones past the retention dropped */
+  private String maintenanceCron = "0 0 3 * * *";
+}
@@ -0,0 +1,41 @@
+package org.roy.credit.line.configs;
+
+import static org.roy.credit.line.constants.ApiEndpoints.REQUEST_CREDIT_LINE_ENDPOINT;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.roy.credit.line.filters.IdempotencyKeyFilter;
+import org.roy.credit.line.services.caches.IdempotentResponseStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(
+    prefix = "idempotency",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class IdempotencyConfig {
+
+  /** Only the single credit line requests replay their responses, not the batch and stream ones */
+  @Bean
+  public FilterRegistrationBean<IdempotencyKeyFilter> idempotencyKeyFilter(
+      IdempotentResponseStore idempotentResponseStore,
+      ObjectMapper objectMapper,
+      IdempotencyProperties idempotencyProperties) {
+
+    var registration =
+        new FilterRegistrationBean<>(
+            new IdempotencyKeyFilter(
+                idempotentResponseStore,
+                objectMapper,
+                idempotencyProperties.getInFlightTimeout()));
+    registration.addUrlPatterns("/v1" + REQUEST_CREDIT_LINE_ENDPOINT);
+
+    return registration;
+  }
+}
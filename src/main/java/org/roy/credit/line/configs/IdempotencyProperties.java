@@ -0,0 +1,32 @@
+package org.roy.credit.line.configs;
+
+import java.time.Duration;
+import lombok.Data;
+import org.roy.credit.line.enums.IdempotencyStoreMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+  /** Replay the response of a credit line request retried with the same Idempotency-Key header */
+  private boolean enabled = true;
+
+  /** Where the responses are kept */
+  private IdempotencyStoreMode mode = IdempotencyStoreMode.REDIS;
+
+  /** How long a response can be replayed */
+  private Duration timeToLive = Duration.ofHours(24);
+
+  /** How long a duplicate waits for the request running with its key, before a 409 answers it */
+  private Duration inFlightTimeout = Duration.ofSeconds(10);
+
+  private Local local = new Local();
+
+  @Data
+  public static class Local {
+
+    /** Maximum number of responses kept in memory */
+    private long maximumSize = 100_000;
+  }
+}
@@ -0,0 +1,25 @@
+package org.roy.credit.line.configs;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "latency-recorder")
+public class LatencyRecorderProperties {
+
+  /** Record the latency of each stage of the credit line requests in HdrHistogram recorders */
+  private boolean enabled = false;
+
+  /** How often the recorded latencies are published to the latency endpoint and reset */
+  private Duration interval = Duration.ofMinutes(1);
+
+  /** Log the percentile distribution of each stage on every interval */
+  private boolean logIntervals = true;
+
+  /** Highest latency told apart, longer ones are recorded as this value */
+  private Duration highestTrackableLatency = Duration.ofSeconds(30);
+
+  /** Significant decimal digits kept for every recorded latency, from 0 to 5 */
+  private int significantDigits = 2;
+}
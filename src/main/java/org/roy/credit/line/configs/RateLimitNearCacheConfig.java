@@ -0,0 +1,60 @@
+package org.roy.credit.line.configs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.NearCacheSyncMode;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RateLimitNearCacheConfig {
+
+  /** Keyspace notification raised by both DEL and UNLINK commands on any database */
+  private static final String DELETED_KEY_EVENTS = "__keyevent@*__:del";
+
+  @Bean
+  @ConditionalOnExpression("'${rate-limit.near-cache.sync-mode:NONE}' != 'NONE'")
+  public RedisMessageListenerContainer nearCacheListenerContainer(
+      RedisConnectionFactory connectionFactory,
+      RateLimitProperties rateLimitProperties,
+      RejectedCreditNearCache nearCache,
+      Environment environment) {
+
+    var properties = rateLimitProperties.getNearCache();
+    var container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+
+    if (Threading.VIRTUAL.isActive(environment)) {
+      var executor = new SimpleAsyncTaskExecutor("near-cache-");
+      executor.setVirtualThreads(true);
+      container.setTaskExecutor(executor);
+    }
+
+    if (NearCacheSyncMode.PUBSUB.equals(properties.getSyncMode())) {
+      container.addMessageListener(
+          (message, pattern) -> nearCache.onCoolDownMessage(new String(message.getBody(), UTF_8)),
+          new ChannelTopic(properties.getChannel()));
+    }
+
+    if (NearCacheSyncMode.KEYSPACE_EVENTS.equals(properties.getSyncMode())) {
+      container.addMessageListener(
+          (message, pattern) ->
+              RateLimitKeyCodec.decode(CreditLineStatus.REJECTED, message.getBody())
+                  .ifPresent(nearCache::invalidate),
+          new PatternTopic(DELETED_KEY_EVENTS));
+    }
+
+    return container;
+  }
+}
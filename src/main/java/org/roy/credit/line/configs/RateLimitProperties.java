@@ -0,0 +1,48 @@
+package org.roy.credit.line.configs;
+
+import java.time.Duration;
+import lombok.Data;
+import org.roy.credit.line.enums.NearCacheSyncMode;
+import org.roy.credit.line.enums.RateLimitMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+  /** Where the rate limit state is kept */
+  private RateLimitMode mode = RateLimitMode.REDIS;
+
+  /**
+   * Also read the JSON encoded keys written by the previous versions of the service. Enable it
+   * while rolling out the binary keys, until the legacy keys expire
+   */
+  private boolean readLegacyKeys = false;
+
+  private NearCache nearCache = new NearCache();
+
+  private Local local = new Local();
+
+  @Data
+  public static class NearCache {
+
+    /** Answer repeated requests of customers in a rejected credit cool down without Redis */
+    private boolean enabled = true;
+
+    /** Maximum number of cool downs kept in memory */
+    private long maximumSize = 100_000;
+
+    /** How the near cache of each node is kept consistent with the other nodes */
+    private NearCacheSyncMode syncMode = NearCacheSyncMode.NONE;
+
+    /** Redis channel used to broadcast cool downs when sync mode is PUBSUB */
+    private String channel = "credit-line:rejected-cool-downs";
+  }
+
+  @Data
+  public static class Local {
+
+    /** How often buckets without an active window or cool down are evicted */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+  }
+}
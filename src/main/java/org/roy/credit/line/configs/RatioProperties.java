@@ -0,0 +1,21 @@
+package org.roy.credit.line.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "ratio")
+public class RatioProperties {
+
+  /** Ratio for calculate recommended credit line based on the requester cash balance */
+  private int cashBalance = 3;
+
+  /** Ratio for calculate recommended credit line based on the requester monthly revenue */
+  private int monthlyRevenue = 5;
+
+  /**
+   * After a credit line request being rejected that many times, the response body will contain the
+   * message: "A sales agent will contact you"
+   */
+  private int maxFailedAttempts = 3;
+}
@@ -0,0 +1,25 @@
+package org.roy.credit.line.configs;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "re-evaluation")
+public class ReEvaluationProperties {
+
+  /** Serve the re-evaluation job at /actuator/reevaluation */
+  private boolean enabled = false;
+
+  /** Customer id ranges re-evaluated in parallel, each by a worker of its own */
+  private int partitions = 4;
+
+  /** Rows read by each query, then re-evaluated, written back and checkpointed by a transaction */
+  private int batchSize = 1_000;
+
+  /** Resume the re-evaluation left unfinished by a restart of the service */
+  private boolean resumeOnStartup = false;
+
+  /** How long the shutdown waits for the batches being re-evaluated to be written */
+  private Duration shutdownTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,89 @@
+package org.roy.credit.line.configs;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.roy.credit.line.services.codecs.RedisIntegerSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Beans of the reactive edition, enabled by the reactive profile. Requests are served by Netty on a
+ * fixed number of event loop threads, and the credit line requests are stored through R2DBC, so
+ * this edition opens no JDBC connection.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveEditionConfig {
+
+  @Bean
+  public NettyReactiveWebServerFactory reactiveWebServerFactory(
+      @Value("${reactive.event-loop-threads:4}") int eventLoopThreads) {
+
+    var factory = new NettyReactiveWebServerFactory();
+    factory.addServerCustomizers(
+        httpServer ->
+            httpServer.runOn(LoopResources.create("credit-line-event-loop", eventLoopThreads, true)));
+
+    return factory;
+  }
+
+  /**
+   * The R2DBC auto configuration, which also provides the database client, is excluded, as its
+   * connection factory would switch off the JDBC data source of the servlet edition. This one is
+   * only created by the reactive edition.
+   */
+  @Bean
+  public ConnectionFactory connectionFactory(R2dbcProperties properties) {
+    return ConnectionFactoryBuilder.withUrl(properties.getUrl())
+        .username(properties.getUsername())
+        .password(properties.getPassword())
+        .build();
+  }
+
+  @Bean
+  public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+    return DatabaseClient.create(connectionFactory);
+  }
+
+  @Bean
+  public ReactiveTransactionManager reactiveTransactionManager(
+      ConnectionFactory connectionFactory) {
+    return new R2dbcTransactionManager(connectionFactory);
+  }
+
+  /** Runs the locked read and the write of a credit line request in one R2DBC transaction */
+  @Bean
+  public TransactionalOperator transactionalOperator(
+      ReactiveTransactionManager reactiveTransactionManager) {
+    return TransactionalOperator.create(reactiveTransactionManager);
+  }
+
+  @Bean
+  public ReactiveRedisTemplate<byte[], Integer> reactiveRedisTemplate(
+      ReactiveRedisConnectionFactory connectionFactory) {
+
+    RedisSerializationContext<byte[], Integer> serializationContext =
+        RedisSerializationContext.<byte[], Integer>newSerializationContext(
+                RedisSerializer.byteArray())
+            .value(new RedisIntegerSerializer())
+            .build();
+
+    return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+  }
+}
@@ -1,23 +1,51 @@
 package org.roy.credit.line.configs;
 
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.roy.credit.line.services.codecs.RedisIntegerSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+  /**
+   * Template of the rate limit counters. Keys are written as given, see {@link RateLimitKeyCodec},
+   * and values as native Redis integers.
+   */
   @Bean
-  public RedisTemplate<String, Integer> redisTemplate(
+  public RedisTemplate<byte[], Integer> redisTemplate(
       RedisConnectionFactory connectionFactory) {
-    RedisTemplate<String, Integer> template = new RedisTemplate<>();
+    RedisTemplate<byte[], Integer> template = new RedisTemplate<>();
     template.setConnectionFactory(connectionFactory);
-    template.setKeySerializer(new Jackson2JsonRedisSerializer<>(String.class));
-    template.setValueSerializer(new Jackson2JsonRedisSerializer<>(Integer.class));
+    template.setKeySerializer(RedisSerializer.byteArray());
+    template.setValueSerializer(new RedisIntegerSerializer());
 
     return template;
   }
 
+  /** Template of the idempotent responses, keys and values are written as given */
+  @Bean
+  public RedisTemplate<byte[], byte[]> idempotentResponseTemplate(
+      RedisConnectionFactory connectionFactory) {
+    RedisTemplate<byte[], byte[]> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setKeySerializer(RedisSerializer.byteArray());
+    template.setValueSerializer(RedisSerializer.byteArray());
+
+    return template;
+  }
+
+  /**
+   * Server side script that checks and updates the customer rate limit in a single round trip. The
+   * script SHA1 is computed once, so every call is sent as an EVALSHA.
+   */
+  @Bean
+  public RedisScript<Long> rateLimitScript() {
+    return RedisScript.of(new ClassPathResource("scripts/rate-limit.lua"), Long.class);
+  }
 }
@@ -0,0 +1,30 @@
+package org.roy.credit.line.configs;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "write-behind")
+public class WriteBehindProperties {
+
+  /**
+   * Append the credit line decisions to a local log and store them in the database in the
+   * background, instead of on the request thread
+   */
+  private boolean enabled = false;
+
+  /** Memory mapped log keeping the decisions not stored in the database yet */
+  private Path logFile = Path.of("data", "credit-line-requests.log");
+
+  /** Size of the log. A full log is flushed in the background while requests wait for room */
+  private DataSize logSize = DataSize.ofMegabytes(64);
+
+  /** How long a request waits for room in a full log before failing */
+  private Duration appendTimeout = Duration.ofSeconds(5);
+
+  /** How often the pending decisions are stored in the database */
+  private Duration flushInterval = Duration.ofMillis(200);
+}
@@ -7,4 +7,11 @@ import lombok.NoArgsConstructor;
 public class ApiEndpoints {
 
   public static final String REQUEST_CREDIT_LINE_ENDPOINT = "/request-credit-line";
+
+  public static final String REQUEST_CREDIT_LINE_BATCH_ENDPOINT = "/request-credit-line/batch";
+
+  public static final String REQUEST_CREDIT_LINE_STREAM_ENDPOINT = "/request-credit-line/stream";
+
+  public static final String CUSTOMER_CREDIT_LINE_REQUESTS_ENDPOINT =
+      "/customers/{customerId}/credit-line-requests";
 }
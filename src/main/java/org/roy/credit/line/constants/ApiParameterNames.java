@@ -11,4 +11,28 @@ public class ApiParameterNames {
 
   /** Key name of Api founding type header */
   public static final String FOUNDING_TYPE_HEADER = "foundingType";
+
+  /** Name of the customer id path variable */
+  public static final String CUSTOMER_ID_PATH_VARIABLE = "customerId";
+
+  /** Name of the query parameter filtering credit line requests by decision */
+  public static final String CREDIT_LINE_STATUS_PARAMETER = "creditLineStatus";
+
+  /** Name of the query parameter filtering credit line requests by founding type */
+  public static final String FOUNDING_TYPE_PARAMETER = "foundingType";
+
+  /** Name of the query parameter of the first requested date of the credit line requests */
+  public static final String FROM_PARAMETER = "from";
+
+  /** Name of the query parameter of the requested date the credit line requests are before */
+  public static final String TO_PARAMETER = "to";
+
+  /** Name of the query parameter of the page to read, the cursor of the previous page */
+  public static final String CURSOR_PARAMETER = "cursor";
+
+  /** Name of the query parameter of the page size */
+  public static final String LIMIT_PARAMETER = "limit";
+
+  /** Key name of Api idempotency key header, identifying the retries of a request */
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 }
@@ -1,30 +1,30 @@
 package org.roy.credit.line.constants;
 
+import java.time.Duration;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class BusinessRulesConstants {
 
-  /**
-   * After a credit line request being rejected that many times, the response body will contain the
-   * message: "A sales agent will contact you"
-   *
-   * <p>Configurable changing application.yml ratio.max-failed-attempts property, default = 3
-   */
-  public static final Integer MAX_NUMBER_OF_FAILED_ATTEMPTS = 3;
-
-  /**
-   * Ratio for calculate recommended credit line based on the requester monthly revenue
-   *
-   * <p>Configurable changing application.yml ratio.monthly-revenue property, default = 5
-   */
-  public static final Integer MONTHLY_REVENUE_RATIO = 5;
-
-  /**
-   * Ratio for calculate recommended credit line based on the requester cash balance
-   *
-   * <p>Configurable changing application.yml cash-balance property, default = 3
-   */
-  public static final Integer CASH_BALANCE_RATIO = 3;
+  /** Maximum number of requests a customer can make inside the accepted credit window */
+  public static final Integer MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW = 3;
+
+  /** Window length of the rate limit applied after a credit line request was accepted */
+  public static final Duration ACCEPTED_CREDIT_RATE_LIMIT_WINDOW = Duration.ofMinutes(2);
+
+  /** Cool down time a customer must wait after a credit line request was rejected */
+  public static final Duration REJECTED_CREDIT_COOL_DOWN = Duration.ofSeconds(30);
+
+  /** Maximum number of credit line requests evaluated by a single batch request */
+  public static final int MAX_CREDIT_LINE_BATCH_SIZE = 1000;
+
+  /** Number of credit line requests of a stream read, evaluated and answered together */
+  public static final int CREDIT_LINE_STREAM_CHUNK_SIZE = 500;
+
+  /** Number of credit line requests of a customer page, unless the client asks for another one */
+  public static final int DEFAULT_CREDIT_LINE_REQUESTS_PAGE_SIZE = 50;
+
+  /** Maximum number of credit line requests of a customer page */
+  public static final int MAX_CREDIT_LINE_REQUESTS_PAGE_SIZE = 500;
 }
@@ -14,6 +14,19 @@ public class Descriptions {
   public static final String CREDIT_LINE_REQUEST_REJECTED_DESCRIPTION =
       "Processing went well, but the CREDIT LINE request was REJECTED";
 
+  /** Description for POST v1/request-credit-line/batch 200 response */
+  public static final String CREDIT_LINE_BATCH_PROCESSED_DESCRIPTION =
+      "Every CREDIT LINE request of the batch was processed, see the result of each one";
+
+  /** Description for POST v1/request-credit-line/stream 200 response */
+  public static final String CREDIT_LINE_STREAM_PROCESSED_DESCRIPTION =
+      "Newline delimited JSON results, one line per CREDIT LINE request of the stream";
+
+  /** Description for GET v1/customers/{customerId}/credit-line-requests 200 response */
+  public static final String CREDIT_LINE_REQUESTS_PAGE_DESCRIPTION =
+      "Page of the CREDIT LINE requests of the customer, newest first, with the cursor of the next"
+          + " page unless it is the last one";
+
   /** Description for general internal server error */
   public static final String INTERNAL_SERVER_ERROR_DESCRIPTION =
       "Internal server error, please contact the system admin";
@@ -9,6 +9,40 @@ public class Messages {
   /** Message if there is more than three rejected credit lines requests for the same customerId */
   public static final String SALES_AGENT_MSG = "A sales agent will contact you";
 
+  /** Message of a streamed credit line request failing the validation */
+  public static final String INVALID_CREDIT_LINE_REQUEST_MSG =
+      "Invalid credit line request, the customerId, foundingType and financial data are required";
+
+  /** Message of a stream stopped by a line that is not a JSON object */
+  public static final String MALFORMED_CREDIT_LINE_STREAM_MSG =
+      "Malformed line, the remaining credit line requests of the stream were not processed";
+
+  /** Message of a credit line requests page asked with a cursor the service did not give */
+  public static final String INVALID_CURSOR_MSG =
+      "Invalid cursor, use the nextCursor of the previous page";
+
+  /** Message of a credit line requests page asked with a limit out of bounds */
+  public static final String INVALID_PAGE_LIMIT_MSG =
+      "Invalid limit, a page has from 1 to "
+          + BusinessRulesConstants.MAX_CREDIT_LINE_REQUESTS_PAGE_SIZE
+          + " credit line requests";
+
+  /** Message of a credit line requests page asked with a time range ending before it starts */
+  public static final String INVALID_TIME_RANGE_MSG =
+      "Invalid time range, from must be before to";
+
+  /** Message of a first credit line request still conflicting with a concurrent one when retried */
+  public static final String FIRST_REQUEST_NOT_STORED_MSG =
+      "The first credit line request of the customer could not be stored";
+
+  /** Message of a duplicate request answered while the request with its idempotency key runs */
+  public static final String REQUEST_IN_PROGRESS_MSG =
+      "A request with the same Idempotency-Key is still running, please retry it later";
+
+  /** Message of a request sent with the idempotency key of another request */
+  public static final String IDEMPOTENCY_KEY_REUSED_MSG =
+      "The Idempotency-Key was already used with another request, please send it with a new key";
+
   /** Message if a user reach the api rate limit */
   public static final String TOO_MANY_REQUESTS_MSG =
       "You have reached your api calls limit, please wait to make new requests";
@@ -1,66 +1,236 @@
 package org.roy.credit.line.controllers;
 
+import static org.roy.credit.line.constants.ApiEndpoints.CUSTOMER_CREDIT_LINE_REQUESTS_ENDPOINT;
+import static org.roy.credit.line.constants.ApiEndpoints.REQUEST_CREDIT_LINE_BATCH_ENDPOINT;
 import static org.roy.credit.line.constants.ApiEndpoints.REQUEST_CREDIT_LINE_ENDPOINT;
+import static org.roy.credit.line.constants.ApiEndpoints.REQUEST_CREDIT_LINE_STREAM_ENDPOINT;
+import static org.roy.credit.line.constants.ApiParameterNames.CREDIT_LINE_STATUS_PARAMETER;
+import static org.roy.credit.line.constants.ApiParameterNames.CURSOR_PARAMETER;
 import static org.roy.credit.line.constants.ApiParameterNames.CUSTOMER_ID_HEADER;
+import static org.roy.credit.line.constants.ApiParameterNames.CUSTOMER_ID_PATH_VARIABLE;
 import static org.roy.credit.line.constants.ApiParameterNames.FOUNDING_TYPE_HEADER;
+import static org.roy.credit.line.constants.ApiParameterNames.FOUNDING_TYPE_PARAMETER;
+import static org.roy.credit.line.constants.ApiParameterNames.FROM_PARAMETER;
+import static org.roy.credit.line.constants.ApiParameterNames.LIMIT_PARAMETER;
+import static org.roy.credit.line.constants.ApiParameterNames.TO_PARAMETER;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.constants.Messages;
 import org.roy.credit.line.docs.CreditLineApi;
+import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.enums.RequestOutcome;
+import org.roy.credit.line.models.requests.PostBatchCreditLineRequestBody;
 import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
 import org.roy.credit.line.models.responses.ContractResponse;
 import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.services.BatchCreditLineService;
+import org.roy.credit.line.services.CreditLineHistoryService;
 import org.roy.credit.line.services.CreditLineService;
 import org.roy.credit.line.services.RateLimitService;
+import org.roy.credit.line.services.StreamCreditLineService;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics.Stage;
+import org.roy.credit.line.utils.ResponseTemplates;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @Log4j2
 @Validated
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequestMapping("/v1")
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class CreditLineController implements CreditLineApi {
 
   private final CreditLineService creditLineService;
   private final RateLimitService rateLimitService;
+  private final BatchCreditLineService batchCreditLineService;
+  private final StreamCreditLineService streamCreditLineService;
+  private final CreditLineHistoryService creditLineHistoryService;
+  private final ResponseTemplates responseTemplates;
+  private final CreditLineRequestMetrics creditLineRequestMetrics;
 
+  /**
+   * Rejected and rate limited requests are routine answers, so they are not thrown to the
+   * exception handlers: their pre-serialized bodies are written straight to the response, and the
+   * null entity tells Spring MVC the response is complete
+   */
   @Override
   @PostMapping(
       path = REQUEST_CREDIT_LINE_ENDPOINT,
       consumes = APPLICATION_JSON_VALUE,
       produces = APPLICATION_JSON_VALUE)
-  @ResponseStatus(HttpStatus.ACCEPTED)
-  public ContractResponse<PostRequestCreditLineResponseBody> requestCreditLine(
+  public ResponseEntity<ContractResponse<PostRequestCreditLineResponseBody>> requestCreditLine(
       @Valid @RequestBody PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
       @RequestHeader(value = CUSTOMER_ID_HEADER) UUID customerId,
       @RequestHeader(value = FOUNDING_TYPE_HEADER) FoundingType foundingType,
-      HttpServletRequest servlet) {
+      HttpServletRequest servlet,
+      HttpServletResponse response)
+      throws IOException {
 
+    // The request body is only turned into a string when the trace is logged
     log.traceEntry(
         "Initializing credit line request validation. Request {}",
-        postRequestCreditLineRequestBody.toString());
+        postRequestCreditLineRequestBody);
+
+    long startedAt = System.nanoTime();
+    boolean allowed = rateLimitService.isAllowed(customerId);
+    long rateLimitNanos = System.nanoTime() - startedAt;
+
+    if (!allowed) {
+      log.warn("Too many requests: {}", Messages.TOO_MANY_REQUESTS_MSG);
+      long serializedAt = System.nanoTime();
+      responseTemplates.writeTooManyRequests(servlet, response);
+      recordSerialization(RequestOutcome.TOO_MANY_REQUESTS, serializedAt);
+      recordRequest(RequestOutcome.TOO_MANY_REQUESTS, startedAt, rateLimitNanos);
+
+      log.traceExit();
+      return null;
+    }
+
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            customerId, postRequestCreditLineRequestBody, foundingType);
+
+    if (CreditLineStatus.REJECTED.equals(postRequestCreditLineResponseBody.getCreditLineStatus())) {
+      long serializedAt = System.nanoTime();
+      responseTemplates.writeRejected(
+          postRequestCreditLineResponseBody.getMessage(), servlet, response);
+      recordSerialization(RequestOutcome.REJECTED, serializedAt);
+      recordRequest(RequestOutcome.REJECTED, startedAt, rateLimitNanos);
+
+      log.traceExit();
+      return null;
+    }
+
+    ResponseEntity<ContractResponse<PostRequestCreditLineResponseBody>> acceptedResponse =
+        ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(
+                ContractResponse.<PostRequestCreditLineResponseBody>builder()
+                    .response(postRequestCreditLineResponseBody)
+                    .path(servlet.getServletPath())
+                    .build());
+    recordRequest(RequestOutcome.ACCEPTED, startedAt, rateLimitNanos);
+
+    return log.traceExit(acceptedResponse);
+  }
+
+  /** The rate limit check is recorded once the outcome of the request is known */
+  private void recordRequest(RequestOutcome outcome, long startedAt, long rateLimitNanos) {
+    creditLineRequestMetrics.recordStage(Stage.RATE_LIMIT, outcome, rateLimitNanos);
+    creditLineRequestMetrics.recordRequest(outcome, System.nanoTime() - startedAt);
+  }
+
+  /** Accepted bodies are serialized by Spring MVC after the handler, so only templates are timed */
+  private void recordSerialization(RequestOutcome outcome, long serializedAt) {
+    creditLineRequestMetrics.recordStage(
+        Stage.SERIALIZATION, outcome, System.nanoTime() - serializedAt);
+  }
+
+  @Override
+  @PostMapping(
+      path = REQUEST_CREDIT_LINE_BATCH_ENDPOINT,
+      consumes = APPLICATION_JSON_VALUE,
+      produces = APPLICATION_JSON_VALUE)
+  @ResponseStatus(HttpStatus.OK)
+  public ContractResponse<List<BatchCreditLineResponseItem>> requestCreditLines(
+      @Valid @RequestBody PostBatchCreditLineRequestBody postBatchCreditLineRequestBody,
+      HttpServletRequest servlet) {
 
-    rateLimitService.checkRateLimitFor(customerId);
+    log.traceEntry(
+        "Initializing batch credit line request validation. Batch size {}",
+        postBatchCreditLineRequestBody.getItems().size());
 
     return log.traceExit(
-        ContractResponse.<PostRequestCreditLineResponseBody>builder()
+        ContractResponse.<List<BatchCreditLineResponseItem>>builder()
             .response(
-                creditLineService.requestCreditLine(
-                    customerId, postRequestCreditLineRequestBody, foundingType))
+                batchCreditLineService.requestCreditLines(
+                    postBatchCreditLineRequestBody.getItems()))
             .path(servlet.getServletPath())
             .build());
   }
+
+  @Override
+  @PostMapping(
+      path = REQUEST_CREDIT_LINE_STREAM_ENDPOINT,
+      consumes = APPLICATION_NDJSON_VALUE,
+      produces = APPLICATION_NDJSON_VALUE)
+  public void requestCreditLinesStream(HttpServletRequest servlet, HttpServletResponse response)
+      throws IOException {
+
+    log.traceEntry("Initializing credit line request stream");
+
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(APPLICATION_NDJSON_VALUE);
+    streamCreditLineService.requestCreditLines(
+        servlet.getInputStream(), response.getOutputStream());
+
+    log.traceExit();
+  }
+
+  /**
+   * The page is serialized while it is read from the database, so it is written straight to the
+   * response instead of being returned
+   */
+  @Override
+  @GetMapping(path = CUSTOMER_CREDIT_LINE_REQUESTS_ENDPOINT, produces = APPLICATION_JSON_VALUE)
+  public void getCreditLineRequests(
+      @PathVariable(CUSTOMER_ID_PATH_VARIABLE) UUID customerId,
+      @RequestParam(value = CREDIT_LINE_STATUS_PARAMETER, required = false)
+          CreditLineStatus creditLineStatus,
+      @RequestParam(value = FOUNDING_TYPE_PARAMETER, required = false) FoundingType foundingType,
+      @RequestParam(value = FROM_PARAMETER, required = false) @DateTimeFormat(iso = ISO.DATE_TIME)
+          ZonedDateTime from,
+      @RequestParam(value = TO_PARAMETER, required = false) @DateTimeFormat(iso = ISO.DATE_TIME)
+          ZonedDateTime to,
+      @RequestParam(value = CURSOR_PARAMETER, required = false) String cursor,
+      @RequestParam(value = LIMIT_PARAMETER, required = false) Integer limit,
+      HttpServletRequest servlet,
+      HttpServletResponse response)
+      throws IOException {
+
+    log.traceEntry("Initializing credit line requests page of customer {}", customerId);
+
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(APPLICATION_JSON_VALUE);
+    creditLineHistoryService.writeCreditLineRequests(
+        customerId,
+        creditLineStatus,
+        foundingType,
+        from,
+        to,
+        cursor,
+        limit,
+        servlet.getServletPath(),
+        response.getOutputStream());
+
+    log.traceExit();
+  }
 }
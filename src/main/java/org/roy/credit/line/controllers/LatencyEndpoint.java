@@ -0,0 +1,66 @@
+package org.roy.credit.line.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.HdrHistogram.Histogram;
+import org.roy.credit.line.models.responses.StageLatency;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics.Stage;
+import org.roy.credit.line.services.metrics.LatencyRecorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+
+/**
+ * Ops endpoint of the latency recorder, {@code /actuator/latency}. It serves the latency
+ * distributions of the last ended interval: a summary of every stage, and the full HdrHistogram
+ * percentile distribution of a stage at {@code /actuator/latency/{stage}}.
+ */
+@Endpoint(id = "latency")
+@ConditionalOnProperty(prefix = "latency-recorder", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class LatencyEndpoint {
+
+  private static final double NANOS_PER_MICRO = 1_000.0;
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+  private final LatencyRecorder latencyRecorder;
+
+  @ReadOperation
+  public Map<String, StageLatency> latencies() {
+    Map<String, StageLatency> latencies = new LinkedHashMap<>();
+    latencyRecorder
+        .getLastIntervals()
+        .forEach((stage, histogram) -> latencies.put(stage.getTag(), latencyOf(histogram)));
+    return latencies;
+  }
+
+  @ReadOperation(produces = MediaType.TEXT_PLAIN_VALUE)
+  public String distribution(@Selector String stage) {
+    for (Stage candidate : Stage.values()) {
+      if (candidate.getTag().equals(stage)) {
+        Histogram histogram = latencyRecorder.getLastIntervals().get(candidate);
+        return histogram == null ? null : LatencyRecorder.percentileDistributionOf(histogram);
+      }
+    }
+    return null;
+  }
+
+  private static StageLatency latencyOf(Histogram histogram) {
+    Map<String, Double> percentiles = new LinkedHashMap<>();
+    for (double percentile : PERCENTILES) {
+      percentiles.put(
+          "p" + percentile, histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO);
+    }
+
+    return StageLatency.builder()
+        .count(histogram.getTotalCount())
+        .mean(histogram.getMean() / NANOS_PER_MICRO)
+        .max(histogram.getMaxValue() / NANOS_PER_MICRO)
+        .percentiles(percentiles)
+        .build();
+  }
+}
@@ -0,0 +1,43 @@
+package org.roy.credit.line.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.models.responses.ReEvaluationProgress;
+import org.roy.credit.line.services.CreditLineReEvaluationJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * Ops endpoint of the credit line re-evaluation, {@code /actuator/reevaluation}. A GET serves the
+ * progress and throughput of the running or last re-evaluation, a POST starts one, resuming the
+ * last one from its checkpoints with {@code {"resume": true}}, and a DELETE stops it.
+ */
+@Endpoint(id = "reevaluation")
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(prefix = "re-evaluation", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReEvaluationEndpoint {
+
+  private final CreditLineReEvaluationJob reEvaluationJob;
+
+  @ReadOperation
+  public ReEvaluationProgress progress() {
+    return reEvaluationJob.getProgress();
+  }
+
+  @WriteOperation
+  public ReEvaluationProgress start(@Nullable Boolean resume) {
+    return reEvaluationJob.start(Boolean.TRUE.equals(resume));
+  }
+
+  @DeleteOperation
+  public ReEvaluationProgress stop() {
+    return reEvaluationJob.stop();
+  }
+}
@@ -0,0 +1,72 @@
+package org.roy.credit.line.controllers;
+
+import static org.roy.credit.line.constants.ApiEndpoints.REQUEST_CREDIT_LINE_ENDPOINT;
+import static org.roy.credit.line.constants.ApiParameterNames.CUSTOMER_ID_HEADER;
+import static org.roy.credit.line.constants.ApiParameterNames.FOUNDING_TYPE_HEADER;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import jakarta.validation.Valid;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.services.ReactiveCreditLineService;
+import org.roy.credit.line.services.ReactiveRateLimitService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/** Reactive edition of the {@link CreditLineController}, serving the same contract */
+@Log4j2
+@Validated
+@RestController
+@RequestMapping("/v1")
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveCreditLineController {
+
+  private final ReactiveCreditLineService creditLineService;
+  private final ReactiveRateLimitService rateLimitService;
+
+  @PostMapping(
+      path = REQUEST_CREDIT_LINE_ENDPOINT,
+      consumes = APPLICATION_JSON_VALUE,
+      produces = APPLICATION_JSON_VALUE)
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public Mono<ContractResponse<PostRequestCreditLineResponseBody>> requestCreditLine(
+      @Valid @RequestBody PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      @RequestHeader(value = CUSTOMER_ID_HEADER) UUID customerId,
+      @RequestHeader(value = FOUNDING_TYPE_HEADER) FoundingType foundingType,
+      ServerHttpRequest request) {
+
+    // The request body is only turned into a string when the trace is logged
+    log.traceEntry(
+        "Initializing credit line request validation. Request {}",
+        postRequestCreditLineRequestBody);
+
+    return rateLimitService
+        .checkRateLimitFor(customerId)
+        .then(
+            creditLineService.requestCreditLine(
+                customerId, postRequestCreditLineRequestBody, foundingType))
+        .map(
+            response ->
+                ContractResponse.<PostRequestCreditLineResponseBody>builder()
+                    .response(response)
+                    .path(request.getPath().pathWithinApplication().value())
+                    .build());
+  }
+}
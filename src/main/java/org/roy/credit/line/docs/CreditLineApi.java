@@ -1,21 +1,34 @@
 package org.roy.credit.line.docs;
 
+import static org.roy.credit.line.constants.ApiParameterNames.IDEMPOTENCY_KEY_HEADER;
 import static org.roy.credit.line.constants.Descriptions.BAD_REQUEST_DESCRIPTION;
+import static org.roy.credit.line.constants.Descriptions.CREDIT_LINE_BATCH_PROCESSED_DESCRIPTION;
+import static org.roy.credit.line.constants.Descriptions.CREDIT_LINE_REQUESTS_PAGE_DESCRIPTION;
+import static org.roy.credit.line.constants.Descriptions.CREDIT_LINE_STREAM_PROCESSED_DESCRIPTION;
 import static org.roy.credit.line.constants.Descriptions.CREDIT_LINE_REQUEST_ACCEPTED_DESCRIPTION;
 import static org.roy.credit.line.constants.Descriptions.CREDIT_LINE_REQUEST_REJECTED_DESCRIPTION;
 import static org.roy.credit.line.constants.Descriptions.INTERNAL_SERVER_ERROR_DESCRIPTION;
 import static org.roy.credit.line.constants.Descriptions.TOO_MANY_REQUESTS_DESCRIPTION;
 
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.requests.PostBatchCreditLineRequestBody;
 import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
 import org.roy.credit.line.models.responses.ContractResponse;
 import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.springframework.http.ResponseEntity;
 
 public interface CreditLineApi {
 
@@ -24,7 +37,14 @@ public interface CreditLineApi {
   @ApiResponse(responseCode = "400", description = BAD_REQUEST_DESCRIPTION)
   @ApiResponse(responseCode = "429", description = TOO_MANY_REQUESTS_DESCRIPTION)
   @ApiResponse(responseCode = "500", description = INTERNAL_SERVER_ERROR_DESCRIPTION)
-  ContractResponse<PostRequestCreditLineResponseBody> requestCreditLine(
+  @Parameter(
+      in = ParameterIn.HEADER,
+      name = IDEMPOTENCY_KEY_HEADER,
+      description =
+          "Key identifying the retries of a request. A retry is answered with the decision of the"
+              + " first request, without running it again.",
+      example = "5f0c7d4e-1c7b-4f55-9a51-2a8d6f1d1a77")
+  ResponseEntity<ContractResponse<PostRequestCreditLineResponseBody>> requestCreditLine(
       @Valid PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
       @Parameter(
               description = "Id of the customer asking for credit.",
@@ -33,5 +53,48 @@ public interface CreditLineApi {
           UUID customerId,
       @Parameter(required = true, description = "Customer request type of founding")
       FoundingType foundingType,
+      HttpServletRequest servlet,
+      HttpServletResponse response)
+      throws IOException;
+
+  @ApiResponse(responseCode = "200", description = CREDIT_LINE_BATCH_PROCESSED_DESCRIPTION)
+  @ApiResponse(responseCode = "400", description = BAD_REQUEST_DESCRIPTION)
+  @ApiResponse(responseCode = "500", description = INTERNAL_SERVER_ERROR_DESCRIPTION)
+  ContractResponse<List<BatchCreditLineResponseItem>> requestCreditLines(
+      @Valid PostBatchCreditLineRequestBody postBatchCreditLineRequestBody,
       HttpServletRequest servlet);
+
+  @ApiResponse(responseCode = "200", description = CREDIT_LINE_STREAM_PROCESSED_DESCRIPTION)
+  void requestCreditLinesStream(HttpServletRequest servlet, HttpServletResponse response)
+      throws IOException;
+
+  @ApiResponse(responseCode = "200", description = CREDIT_LINE_REQUESTS_PAGE_DESCRIPTION)
+  @ApiResponse(responseCode = "400", description = BAD_REQUEST_DESCRIPTION)
+  @ApiResponse(responseCode = "500", description = INTERNAL_SERVER_ERROR_DESCRIPTION)
+  void getCreditLineRequests(
+      @Parameter(
+              description = "Id of the customer whose credit line requests are read.",
+              example = "18eee9c2-f577-11ec-b939-0242ac120002",
+              required = true)
+          UUID customerId,
+      @Parameter(description = "Only the requests with this decision")
+          CreditLineStatus creditLineStatus,
+      @Parameter(description = "Only the requests of this founding type") FoundingType foundingType,
+      @Parameter(
+              description = "Only the requests from this requested date on, ISO 8601",
+              example = "2022-06-01T00:00:00Z")
+          ZonedDateTime from,
+      @Parameter(
+              description = "Only the requests before this requested date, ISO 8601",
+              example = "2022-07-01T00:00:00Z")
+          ZonedDateTime to,
+      @Parameter(
+              description =
+                  "nextCursor of the previous page, leave it out to read the newest requests")
+          String cursor,
+      @Parameter(description = "Maximum number of requests of the page, 50 unless given, up to 500")
+          Integer limit,
+      HttpServletRequest servlet,
+      HttpServletResponse response)
+      throws IOException;
 }
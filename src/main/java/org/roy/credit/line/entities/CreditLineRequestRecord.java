@@ -1,10 +1,10 @@
 package org.roy.credit.line.entities;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.UUID;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
@@ -12,6 +12,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.roy.credit.line.utils.Money;
 
 @Data
 @Entity
@@ -21,12 +22,16 @@ import lombok.NoArgsConstructor;
 @Table(name = "CREDIT_LINE_REQUESTS")
 public class CreditLineRequestRecord {
 
+  /** Financial data of the decided request, zero for the rows stored before it was */
+  private static final String MONEY_COLUMN = "numeric(38, 2) default 0";
+
   @Id
   @Column(unique = true, nullable = false)
   private UUID customerId;
 
-  @Column(nullable = false)
-  private BigDecimal acceptedCreditLine;
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "accepted_credit_line", nullable = false, precision = 38, scale = Money.SCALE)
+  private long acceptedCreditLineCents;
 
   @Column(nullable = false, columnDefinition = "varchar(20)")
   private String creditLineStatus;
@@ -36,4 +41,20 @@ public class CreditLineRequestRecord {
 
   @Column(nullable = false)
   private Integer attempts;
+
+  /** Founding type of the decided request, null for the requests decided without storing it */
+  @Column(columnDefinition = "varchar(20)")
+  private String foundingType;
+
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "cash_balance", nullable = false, columnDefinition = MONEY_COLUMN)
+  private long cashBalanceCents;
+
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "monthly_revenue", nullable = false, columnDefinition = MONEY_COLUMN)
+  private long monthlyRevenueCents;
+
+  @Convert(converter = MoneyConverter.class)
+  @Column(name = "requested_credit_line", nullable = false, columnDefinition = MONEY_COLUMN)
+  private long requestedCreditLineCents;
 }
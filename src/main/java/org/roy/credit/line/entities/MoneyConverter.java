@@ -0,0 +1,21 @@
+package org.roy.credit.line.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+import org.roy.credit.line.utils.Money;
+
+/** Stores the amounts held in cents in numeric columns of two decimal places */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+  @Override
+  public BigDecimal convertToDatabaseColumn(Long cents) {
+    return cents == null ? null : Money.toBigDecimal(cents);
+  }
+
+  @Override
+  public Long convertToEntityAttribute(BigDecimal amount) {
+    return amount == null ? null : Money.centsOf(amount);
+  }
+}
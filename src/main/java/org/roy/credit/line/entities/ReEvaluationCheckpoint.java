@@ -0,0 +1,48 @@
+package org.roy.credit.line.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a partition of the credit line re-evaluation, a range of customer ids. It is written
+ * in the transaction of each batch of re-evaluated rows, so a resumed re-evaluation starts after
+ * the last row written back.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "CREDIT_LINE_RE_EVALUATION_CHECKPOINTS")
+public class ReEvaluationCheckpoint {
+
+  @Id
+  @Column(nullable = false)
+  private Integer partitionIndex;
+
+  /** First customer id of the partition */
+  @Column(nullable = false)
+  private UUID lowerBound;
+
+  /** Customer id after the partition, null for the last one */
+  private UUID upperBound;
+
+  /** Last customer id re-evaluated, null before the first batch */
+  private UUID lastCustomerId;
+
+  @Column(nullable = false)
+  private long scannedRows;
+
+  @Column(nullable = false)
+  private long changedRows;
+
+  @Column(nullable = false)
+  private boolean completed;
+}
@@ -7,5 +7,9 @@ public enum ErrorType {
 
   MISMATCH_REQUEST,
 
+  REQUEST_IN_PROGRESS,
+
+  IDEMPOTENCY_KEY_REUSED,
+
   UNKNOWN_ERROR
 }
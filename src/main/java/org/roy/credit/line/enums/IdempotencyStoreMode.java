@@ -0,0 +1,9 @@
+package org.roy.credit.line.enums;
+
+public enum IdempotencyStoreMode {
+  /** Responses shared by every node through Redis */
+  REDIS,
+
+  /** Responses kept in the memory of each node, for single node deployments without Redis */
+  LOCAL
+}
@@ -0,0 +1,15 @@
+package org.roy.credit.line.enums;
+
+public enum NearCacheSyncMode {
+  /** Each node only learns about cool downs from its own writes and from Redis hits */
+  NONE,
+
+  /** Cool downs started on any node are broadcast to every node through a Redis channel */
+  PUBSUB,
+
+  /**
+   * Cool downs deleted on Redis are evicted from every node. Requires the Redis server to notify
+   * generic keyspace events ({@code notify-keyspace-events Eg})
+   */
+  KEYSPACE_EVENTS
+}
@@ -0,0 +1,9 @@
+package org.roy.credit.line.enums;
+
+public enum RateLimitMode {
+  /** Rate limit shared by every node through Redis */
+  REDIS,
+
+  /** Rate limit kept in the memory of each node, for single node deployments without Redis */
+  LOCAL
+}
@@ -0,0 +1,22 @@
+package org.roy.credit.line.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** How a credit line request was answered, as tagged on the request metrics */
+@Getter
+@RequiredArgsConstructor
+public enum RequestOutcome {
+  ACCEPTED("ACCEPTED"),
+
+  REJECTED("REJECTED"),
+
+  /** Rate limited, answered with a 429 before the request is decided */
+  TOO_MANY_REQUESTS("429");
+
+  private final String tag;
+
+  public static RequestOutcome of(CreditLineStatus creditLineStatus) {
+    return CreditLineStatus.REJECTED.equals(creditLineStatus) ? REJECTED : ACCEPTED;
+  }
+}
@@ -0,0 +1,7 @@
+package org.roy.credit.line.exceptions;
+
+public class BadRequestException extends RuntimeException {
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
@@ -1,30 +1,40 @@
 package org.roy.credit.line.exceptions;
 
-import static org.roy.credit.line.enums.CreditLineStatus.REJECTED;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.roy.credit.line.constants.Descriptions;
 import org.roy.credit.line.constants.Messages;
 import org.roy.credit.line.enums.ErrorType;
 import org.roy.credit.line.models.responses.ContractResponse;
-import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
 import org.roy.credit.line.models.responses.ResponseError;
+import org.roy.credit.line.utils.ResponseTemplates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @Log4j2
 @ControllerAdvice
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class CommonExceptionHandler {
 
+  private final ResponseTemplates responseTemplates;
+
   @ResponseBody
   @ExceptionHandler({MissingRequestHeaderException.class})
   public ResponseEntity<ContractResponse<Void>> handleMissingHeadersExceptions(
@@ -47,50 +57,26 @@ public class CommonExceptionHandler {
         contractResponse, getProducesJsonHttpHeader(), HttpStatus.BAD_REQUEST);
   }
 
-  @ResponseBody
   @ExceptionHandler({RejectedCreditLineException.class})
-  public ResponseEntity<ContractResponse<PostRequestCreditLineResponseBody>>
-      handleRejectedCreditLineExceptions(
-          HttpServletRequest request, RejectedCreditLineException exception) {
+  public void handleRejectedCreditLineExceptions(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      RejectedCreditLineException exception)
+      throws IOException {
 
     log.info("Credit line request rejected!");
 
-    String customMessage =
-        exception.getCustomMessage().isEmpty() ? null : exception.getCustomMessage();
-
-    var contractResponse =
-        ContractResponse.<PostRequestCreditLineResponseBody>builder()
-            .response(
-                PostRequestCreditLineResponseBody.builder()
-                    .creditLineStatus(REJECTED)
-                    .message(customMessage)
-                    .build())
-            .path(request.getServletPath())
-            .build();
-
-    return new ResponseEntity<>(contractResponse, getProducesJsonHttpHeader(), HttpStatus.OK);
+    responseTemplates.writeRejected(exception.getCustomMessage(), request, response);
   }
 
-  @ResponseBody
   @ExceptionHandler({TooManyRequestsException.class})
-  public ResponseEntity<ContractResponse<Void>> handleNotFoundExceptions(
-      HttpServletRequest request, TooManyRequestsException exception) {
+  public void handleNotFoundExceptions(
+      HttpServletRequest request, HttpServletResponse response, TooManyRequestsException exception)
+      throws IOException {
 
     log.warn("Too many requests: {}", Messages.TOO_MANY_REQUESTS_MSG);
 
-    var contractResponse =
-        ContractResponse.<Void>builder()
-            .error(
-                ResponseError.builder()
-                    .errorCode(HttpStatus.TOO_MANY_REQUESTS)
-                    .errorType(ErrorType.EXCEED_API_QUOTA)
-                    .errorMessage(Messages.TOO_MANY_REQUESTS_MSG)
-                    .build())
-            .path(request.getServletPath())
-            .build();
-
-    return new ResponseEntity<>(
-        contractResponse, getProducesJsonHttpHeader(), HttpStatus.TOO_MANY_REQUESTS);
+    responseTemplates.writeTooManyRequests(request, response);
   }
 
   @ExceptionHandler(Exception.class)
@@ -98,7 +84,7 @@ public class CommonExceptionHandler {
   public ResponseEntity<ContractResponse<Void>> handleException(
       HttpServletRequest request, Exception exception) {
 
-    log.error("Unhandled exception: {} ", ExceptionUtils.getStackTrace(exception));
+    log.error("Unhandled exception", exception);
 
     var contractResponse =
         ContractResponse.<Void>builder()
@@ -120,7 +106,7 @@ public class CommonExceptionHandler {
   public ResponseEntity<ContractResponse<Void>> handleException(
       HttpServletRequest request, InternalServerErrorException exception) {
 
-    log.error(exception.getMessage() + ": {}", ExceptionUtils.getStackTrace(exception));
+    log.error("Internal server error: {}", exception.getMessage(), exception);
 
     var contractResponse =
         ContractResponse.<Void>builder()
@@ -142,7 +128,70 @@ public class CommonExceptionHandler {
   public ResponseEntity<ContractResponse<Void>> handleException(
       HttpServletRequest request, HttpMessageNotReadableException exception) {
 
-    log.warn(exception.getMessage() + ": {}", exception.getMessage());
+    log.warn("Unreadable request body: {}", exception.getMessage());
+    var contractResponse =
+        ContractResponse.<Void>builder()
+            .error(
+                ResponseError.builder()
+                    .errorCode(HttpStatus.BAD_REQUEST)
+                    .errorType(ErrorType.MISMATCH_REQUEST)
+                    .errorMessage(Descriptions.MISMATCH_REQUEST_DESCRIPTION)
+                    .build())
+            .path(request.getServletPath())
+            .build();
+
+    return new ResponseEntity<>(
+        contractResponse, getProducesJsonHttpHeader(), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(MethodArgumentNotValidException.class)
+  @ResponseBody
+  public ResponseEntity<ContractResponse<Void>> handleException(
+      HttpServletRequest request, MethodArgumentNotValidException exception) {
+
+    log.warn("Request body validation error occurred: {}", exception.getMessage());
+    var contractResponse =
+        ContractResponse.<Void>builder()
+            .error(
+                ResponseError.builder()
+                    .errorCode(HttpStatus.BAD_REQUEST)
+                    .errorType(ErrorType.MISMATCH_REQUEST)
+                    .errorMessage(Descriptions.MISMATCH_REQUEST_DESCRIPTION)
+                    .build())
+            .path(request.getServletPath())
+            .build();
+
+    return new ResponseEntity<>(
+        contractResponse, getProducesJsonHttpHeader(), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(BadRequestException.class)
+  @ResponseBody
+  public ResponseEntity<ContractResponse<Void>> handleException(
+      HttpServletRequest request, BadRequestException exception) {
+
+    log.warn("Bad request: {}", exception.getMessage());
+    var contractResponse =
+        ContractResponse.<Void>builder()
+            .error(
+                ResponseError.builder()
+                    .errorCode(HttpStatus.BAD_REQUEST)
+                    .errorType(ErrorType.MISMATCH_REQUEST)
+                    .errorMessage(exception.getMessage())
+                    .build())
+            .path(request.getServletPath())
+            .build();
+
+    return new ResponseEntity<>(
+        contractResponse, getProducesJsonHttpHeader(), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  @ResponseBody
+  public ResponseEntity<ContractResponse<Void>> handleException(
+      HttpServletRequest request, MethodArgumentTypeMismatchException exception) {
+
+    log.warn("Request parameter type mismatch: {}", exception.getMessage());
     var contractResponse =
         ContractResponse.<Void>builder()
             .error(
@@ -0,0 +1,127 @@
+package org.roy.credit.line.exceptions;
+
+import static org.roy.credit.line.enums.CreditLineStatus.REJECTED;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.constants.Descriptions;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.models.responses.ResponseError;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.MissingRequestValueException;
+import org.springframework.web.server.ServerWebInputException;
+
+/** Reactive edition of the {@link CommonExceptionHandler}, answering with the same contract */
+@Log4j2
+@ControllerAdvice
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+  @ResponseBody
+  @ExceptionHandler({MissingRequestValueException.class})
+  public ResponseEntity<ContractResponse<Void>> handleMissingHeadersExceptions(
+      ServerHttpRequest request, MissingRequestValueException exception) {
+
+    log.warn("Request header validation error occurred: {}", exception.getMessage());
+
+    return errorResponse(
+        request, HttpStatus.BAD_REQUEST, ErrorType.MISSING_REQUIRED_HEADER, exception.getReason());
+  }
+
+  @ResponseBody
+  @ExceptionHandler({ServerWebInputException.class})
+  public ResponseEntity<ContractResponse<Void>> handleMismatchRequestExceptions(
+      ServerHttpRequest request, ServerWebInputException exception) {
+
+    log.warn("Request validation error occurred: {}", exception.getMessage());
+
+    return errorResponse(
+        request,
+        HttpStatus.BAD_REQUEST,
+        ErrorType.MISMATCH_REQUEST,
+        Descriptions.MISMATCH_REQUEST_DESCRIPTION);
+  }
+
+  @ResponseBody
+  @ExceptionHandler({RejectedCreditLineException.class})
+  public ResponseEntity<ContractResponse<PostRequestCreditLineResponseBody>>
+      handleRejectedCreditLineExceptions(
+          ServerHttpRequest request, RejectedCreditLineException exception) {
+
+    log.info("Credit line request rejected!");
+
+    String customMessage =
+        exception.getCustomMessage().isEmpty() ? null : exception.getCustomMessage();
+
+    var contractResponse =
+        ContractResponse.<PostRequestCreditLineResponseBody>builder()
+            .response(
+                PostRequestCreditLineResponseBody.builder()
+                    .creditLineStatus(REJECTED)
+                    .message(customMessage)
+                    .build())
+            .path(pathOf(request))
+            .build();
+
+    return ResponseEntity.ok().contentType(APPLICATION_JSON).body(contractResponse);
+  }
+
+  @ResponseBody
+  @ExceptionHandler({TooManyRequestsException.class})
+  public ResponseEntity<ContractResponse<Void>> handleTooManyRequestsExceptions(
+      ServerHttpRequest request, TooManyRequestsException exception) {
+
+    log.warn("Too many requests: {}", Messages.TOO_MANY_REQUESTS_MSG);
+
+    return errorResponse(
+        request,
+        HttpStatus.TOO_MANY_REQUESTS,
+        ErrorType.EXCEED_API_QUOTA,
+        Messages.TOO_MANY_REQUESTS_MSG);
+  }
+
+  @ResponseBody
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<ContractResponse<Void>> handleException(
+      ServerHttpRequest request, Exception exception) {
+
+    log.error("Unhandled exception", exception);
+
+    return errorResponse(
+        request,
+        HttpStatus.INTERNAL_SERVER_ERROR,
+        ErrorType.UNKNOWN_ERROR,
+        Descriptions.INTERNAL_SERVER_ERROR_DESCRIPTION);
+  }
+
+  private static ResponseEntity<ContractResponse<Void>> errorResponse(
+      ServerHttpRequest request, HttpStatus status, ErrorType errorType, String errorMessage) {
+
+    var contractResponse =
+        ContractResponse.<Void>builder()
+            .error(
+                ResponseError.builder()
+                    .errorCode(status)
+                    .errorType(errorType)
+                    .errorMessage(errorMessage)
+                    .build())
+            .path(pathOf(request))
+            .build();
+
+    return ResponseEntity.status(status).contentType(APPLICATION_JSON).body(contractResponse);
+  }
+
+  private static String pathOf(ServerHttpRequest request) {
+    return request.getPath().pathWithinApplication().value();
+  }
+}
@@ -2,15 +2,21 @@ package org.roy.credit.line.exceptions;
 
 import lombok.Getter;
 
+/**
+ * Rejected credit line request, for callers answering with an error signal instead of a result,
+ * as the reactive edition does. It is a routine answer, not a failure, so no stack trace is
+ * captured.
+ */
 public class RejectedCreditLineException extends RuntimeException {
 
   @Getter private final String customMessage;
 
   public RejectedCreditLineException(String customMessage) {
+    super(null, null, false, false);
     this.customMessage = customMessage;
   }
 
   public RejectedCreditLineException() {
-    customMessage = "";
+    this("");
   }
 }
@@ -1,3 +1,12 @@
 package org.roy.credit.line.exceptions;
 
-public class TooManyRequestsException extends RuntimeException {}
+/**
+ * Rate limited request, for callers answering with an error signal instead of a result, as the
+ * reactive edition does. It is a routine answer, not a failure, so no stack trace is captured.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+  public TooManyRequestsException() {
+    super(null, null, false, false);
+  }
+}
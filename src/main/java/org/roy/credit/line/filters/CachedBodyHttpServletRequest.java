@@ -0,0 +1,73 @@
+package org.roy.credit.line.filters;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request whose body is read up front, so that a filter can look at it before the controller
+ * reads it again.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+  private final byte[] body;
+
+  CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+    super(request);
+    this.body = request.getInputStream().readAllBytes();
+  }
+
+  byte[] getBody() {
+    return body;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    var content = new ByteArrayInputStream(body);
+
+    return new ServletInputStream() {
+
+      @Override
+      public int read() {
+        return content.read();
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) {
+        return content.read(buffer, offset, length);
+      }
+
+      @Override
+      public boolean isFinished() {
+        return content.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        throw new UnsupportedOperationException("The body is already read");
+      }
+    };
+  }
+
+  @Override
+  public BufferedReader getReader() {
+    Charset charset =
+        getCharacterEncoding() == null
+            ? StandardCharsets.ISO_8859_1
+            : Charset.forName(getCharacterEncoding());
+
+    return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+  }
+}
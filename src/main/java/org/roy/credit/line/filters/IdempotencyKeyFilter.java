@@ -0,0 +1,235 @@
+package org.roy.credit.line.filters;
+
+import static org.roy.credit.line.constants.ApiParameterNames.CUSTOMER_ID_HEADER;
+import static org.roy.credit.line.constants.ApiParameterNames.FOUNDING_TYPE_HEADER;
+import static org.roy.credit.line.constants.ApiParameterNames.IDEMPOTENCY_KEY_HEADER;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.ResponseError;
+import org.roy.credit.line.services.caches.IdempotentResponse;
+import org.roy.credit.line.services.caches.IdempotentResponseStore;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Answers the retries of a credit line request sent with an Idempotency-Key header with the bytes
+ * of the first response, without running the request again. Keys are scoped by customer.
+ *
+ * <p>Only credit line decisions, answered with a 200 or a 202, are kept: a rate limited or failed
+ * request runs again when retried. Duplicates arriving on the same node while the first request
+ * runs wait for its response instead of running in parallel, and are answered with a 409 when it
+ * takes longer than the in-flight timeout.
+ *
+ * <p>Each response is kept with the fingerprint of its request, so that a key reused with another
+ * founding type or body is answered with a 422 instead of the response of a different request.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+  private static final String KEY_SEPARATOR = ":";
+
+  private final IdempotentResponseStore idempotentResponseStore;
+  private final ObjectMapper objectMapper;
+  private final Duration inFlightTimeout;
+  private final Map<String, CompletableFuture<Optional<IdempotentResponse>>> inFlightRequests =
+      new ConcurrentHashMap<>();
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+
+    if (StringUtils.isBlank(idempotencyKey)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    String key = request.getHeader(CUSTOMER_ID_HEADER) + KEY_SEPARATOR + idempotencyKey;
+    var cachedBodyRequest = new CachedBodyHttpServletRequest(request);
+    byte[] fingerprint =
+        IdempotentResponse.fingerprint(
+            request.getHeader(FOUNDING_TYPE_HEADER), cachedBodyRequest.getBody());
+
+    while (true) {
+      var execution = new CompletableFuture<Optional<IdempotentResponse>>();
+      CompletableFuture<Optional<IdempotentResponse>> inFlightExecution =
+          inFlightRequests.putIfAbsent(key, execution);
+
+      if (inFlightExecution == null) {
+        execute(key, fingerprint, execution, cachedBodyRequest, response, filterChain);
+        return;
+      }
+
+      Optional<IdempotentResponse> idempotentResponse;
+      try {
+        idempotentResponse =
+            inFlightExecution.get(inFlightTimeout.toNanos(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException stillRunning) {
+        writeRequestInProgress(request, response);
+        return;
+      } catch (InterruptedException | ExecutionException interrupted) {
+        // Executions always complete with their response, so only an interrupt stops the wait
+        Thread.currentThread().interrupt();
+        throw new ServletException(interrupted);
+      }
+
+      if (idempotentResponse.isPresent()) {
+        answer(idempotentResponse.get(), fingerprint, request, response);
+        return;
+      }
+
+      // The request answered without a decision, so the duplicate runs it again
+    }
+  }
+
+  /** Run the request unless it was answered already, and share its response with duplicates */
+  private void execute(
+      String key,
+      byte[] fingerprint,
+      CompletableFuture<Optional<IdempotentResponse>> execution,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      FilterChain filterChain)
+      throws ServletException, IOException {
+
+    Optional<IdempotentResponse> idempotentResponse = Optional.empty();
+
+    try {
+      idempotentResponse = find(key);
+      if (idempotentResponse.isPresent()) {
+        answer(idempotentResponse.get(), fingerprint, request, response);
+        return;
+      }
+
+      var cachingResponse = new ContentCachingResponseWrapper(response);
+      filterChain.doFilter(request, cachingResponse);
+
+      if (isDecision(cachingResponse.getStatus())) {
+        idempotentResponse =
+            Optional.of(
+                new IdempotentResponse(
+                    cachingResponse.getStatus(),
+                    fingerprint,
+                    cachingResponse.getContentAsByteArray()));
+        save(key, idempotentResponse.get());
+      }
+      cachingResponse.copyBodyToResponse();
+    } finally {
+      inFlightRequests.remove(key, execution);
+      execution.complete(idempotentResponse);
+    }
+  }
+
+  private Optional<IdempotentResponse> find(String key) {
+    try {
+      return idempotentResponseStore.find(key);
+    } catch (DataAccessException failure) {
+      log.warn("Unable to read the response of idempotency key {}", key, failure);
+      return Optional.empty();
+    }
+  }
+
+  private void save(String key, IdempotentResponse idempotentResponse) {
+    try {
+      idempotentResponseStore.save(key, idempotentResponse);
+    } catch (DataAccessException failure) {
+      log.warn("Unable to keep the response of idempotency key {}", key, failure);
+    }
+  }
+
+  /** Replay the response of the same request, refuse the one of another request */
+  private void answer(
+      IdempotentResponse idempotentResponse,
+      byte[] fingerprint,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+
+    if (MessageDigest.isEqual(idempotentResponse.fingerprint(), fingerprint)) {
+      replay(idempotentResponse, response);
+      return;
+    }
+
+    log.warn("Idempotency key reused with another request");
+    writeError(
+        request,
+        response,
+        HttpStatus.UNPROCESSABLE_ENTITY,
+        ErrorType.IDEMPOTENCY_KEY_REUSED,
+        Messages.IDEMPOTENCY_KEY_REUSED_MSG);
+  }
+
+  private void writeRequestInProgress(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+
+    log.warn("Request with idempotency key still running after {}", inFlightTimeout);
+    writeError(
+        request,
+        response,
+        HttpStatus.CONFLICT,
+        ErrorType.REQUEST_IN_PROGRESS,
+        Messages.REQUEST_IN_PROGRESS_MSG);
+  }
+
+  private void writeError(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      HttpStatus status,
+      ErrorType errorType,
+      String errorMessage)
+      throws IOException {
+
+    var contractResponse =
+        ContractResponse.<Void>builder()
+            .error(
+                ResponseError.builder()
+                    .errorCode(status)
+                    .errorType(errorType)
+                    .errorMessage(errorMessage)
+                    .build())
+            .path(request.getServletPath())
+            .build();
+
+    response.setStatus(status.value());
+    response.setContentType(APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), contractResponse);
+  }
+
+  private static void replay(IdempotentResponse idempotentResponse, HttpServletResponse response)
+      throws IOException {
+    response.setStatus(idempotentResponse.status());
+    response.setContentType(APPLICATION_JSON_VALUE);
+    response.setContentLength(idempotentResponse.body().length);
+    response.getOutputStream().write(idempotentResponse.body());
+  }
+
+  private static boolean isDecision(int status) {
+    return status == HttpStatus.OK.value() || status == HttpStatus.ACCEPTED.value();
+  }
+}
@@ -0,0 +1,41 @@
+package org.roy.credit.line.models.daos;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+
+/** An evaluated credit line request: the founding type and financial data and their decision */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+public class CreditLineRequestHistoryDao {
+
+  /** Assigned by the database, null until stored */
+  private Long id;
+
+  private UUID customerId;
+
+  private ZonedDateTime requestedDate;
+
+  private FoundingType foundingType;
+
+  private long cashBalanceCents;
+
+  private long monthlyRevenueCents;
+
+  private long requestedCreditLineCents;
+
+  private CreditLineStatus creditLineStatus;
+
+  private long acceptedCreditLineCents;
+
+  private Integer attempts;
+}
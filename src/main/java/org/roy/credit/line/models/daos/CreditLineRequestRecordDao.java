@@ -2,7 +2,6 @@ package org.roy.credit.line.models.daos;
 
 import static lombok.AccessLevel.PRIVATE;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
@@ -10,6 +9,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
 
 @Data
 @Builder
@@ -19,11 +19,20 @@ public class CreditLineRequestRecordDao {
 
   private UUID customerId;
 
-  private BigDecimal acceptedCreditLine;
+  private long acceptedCreditLineCents;
 
   private CreditLineStatus creditLineStatus;
 
   private ZonedDateTime requestedDate;
 
   private Integer attempts;
+
+  /** Founding type and financial data the credit line was decided on */
+  private FoundingType foundingType;
+
+  private long cashBalanceCents;
+
+  private long monthlyRevenueCents;
+
+  private long requestedCreditLineCents;
 }
@@ -0,0 +1,36 @@
+package org.roy.credit.line.models.dtos;
+
+/**
+ * Credit line decisions of many requesters, one column per field, in the rows of their {@link
+ * FinancialDataColumns}.
+ *
+ * @param accepted whether the credit line of each requester was accepted
+ * @param acceptedCreditLineCents accepted credit line of each requester in cents, zero if rejected
+ */
+public record CreditLineDecisionColumns(boolean[] accepted, long[] acceptedCreditLineCents) {
+
+  public CreditLineDecisionColumns {
+    if (accepted.length != acceptedCreditLineCents.length) {
+      throw new IllegalArgumentException("Credit line decision columns of different sizes");
+    }
+  }
+
+  /**
+   * Columns to be filled with the decisions of as many rows
+   *
+   * @param size number of rows
+   * @return zeroed columns
+   */
+  public static CreditLineDecisionColumns ofSize(int size) {
+    return new CreditLineDecisionColumns(new boolean[size], new long[size]);
+  }
+
+  /**
+   * Number of rows
+   *
+   * @return size of the columns
+   */
+  public int size() {
+    return accepted.length;
+  }
+}
@@ -0,0 +1,70 @@
+package org.roy.credit.line.models.dtos;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.exceptions.BadRequestException;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+
+/**
+ * Position of an evaluation in the history of a customer, the key of its keyset pagination.
+ * Clients get it as an opaque URL safe string: the requested date, in microseconds as stored by
+ * PostgreSQL, and the id of the evaluation.
+ *
+ * @param requestedDate requested date of the evaluation
+ * @param id id of the evaluation, breaking the ties of the requested dates
+ */
+public record CreditLineRequestHistoryCursor(ZonedDateTime requestedDate, long id) {
+
+  private static final int ENCODED_BYTES = 2 * Long.BYTES;
+
+  /**
+   * Position of a stored evaluation
+   *
+   * @param evaluation evaluation read from the history
+   * @return its position
+   */
+  public static CreditLineRequestHistoryCursor of(CreditLineRequestHistoryDao evaluation) {
+    return new CreditLineRequestHistoryCursor(evaluation.getRequestedDate(), evaluation.getId());
+  }
+
+  /**
+   * Position a client got as the cursor of a page
+   *
+   * @param cursor encoded position
+   * @return the position
+   * @throws BadRequestException if the cursor was not encoded by {@link #encode()}
+   */
+  public static CreditLineRequestHistoryCursor decode(String cursor) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(cursor);
+    } catch (IllegalArgumentException exception) {
+      throw new BadRequestException(Messages.INVALID_CURSOR_MSG);
+    }
+    if (bytes.length != ENCODED_BYTES) {
+      throw new BadRequestException(Messages.INVALID_CURSOR_MSG);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    Instant requestedAt = Instant.EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS);
+    return new CreditLineRequestHistoryCursor(
+        ZonedDateTime.ofInstant(requestedAt, ZoneOffset.UTC), buffer.getLong());
+  }
+
+  /**
+   * Encode the position for the clients
+   *
+   * @return URL safe cursor, without padding
+   */
+  public String encode() {
+    ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+    buffer.putLong(ChronoUnit.MICROS.between(Instant.EPOCH, requestedDate.toInstant()));
+    buffer.putLong(id);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+}
@@ -0,0 +1,47 @@
+package org.roy.credit.line.models.dtos;
+
+import org.roy.credit.line.enums.FoundingType;
+
+/**
+ * Financial data of many requesters, one column per field. Row {@code i} of every column belongs to
+ * the same requester. Amounts are in cents.
+ *
+ * @param cashBalanceCents cash balance of each requester
+ * @param monthlyRevenueCents monthly revenue of each requester
+ * @param requestedCreditLineCents credit line requested by each requester
+ * @param foundingTypes {@link FoundingType#ordinal()} of each requester
+ */
+public record FinancialDataColumns(
+    long[] cashBalanceCents,
+    long[] monthlyRevenueCents,
+    long[] requestedCreditLineCents,
+    byte[] foundingTypes) {
+
+  public FinancialDataColumns {
+    int size = requestedCreditLineCents.length;
+    if (cashBalanceCents.length != size
+        || monthlyRevenueCents.length != size
+        || foundingTypes.length != size) {
+      throw new IllegalArgumentException("Financial data columns of different sizes");
+    }
+  }
+
+  /**
+   * Empty columns, to be filled row by row
+   *
+   * @param size number of rows
+   * @return zeroed columns of SME requesters
+   */
+  public static FinancialDataColumns ofSize(int size) {
+    return new FinancialDataColumns(new long[size], new long[size], new long[size], new byte[size]);
+  }
+
+  /**
+   * Number of rows
+   *
+   * @return size of the columns
+   */
+  public int size() {
+    return requestedCreditLineCents.length;
+  }
+}
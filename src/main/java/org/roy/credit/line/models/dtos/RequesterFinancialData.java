@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.roy.credit.line.enums.FoundingType;
 
 @Data
 @Builder
@@ -16,11 +17,13 @@ public class RequesterFinancialData {
 
   UUID customerId;
 
-  Float cashBalance;
+  FoundingType foundingType;
 
-  Float monthlyRevenue;
+  long cashBalanceCents;
 
-  Float requestedCreditLine;
+  long monthlyRevenueCents;
+
+  long requestedCreditLineCents;
 
   ZonedDateTime requestedDate;
 }
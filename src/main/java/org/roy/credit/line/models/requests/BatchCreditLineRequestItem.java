@@ -0,0 +1,34 @@
+package org.roy.credit.line.models.requests;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.roy.credit.line.enums.FoundingType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+public class BatchCreditLineRequestItem {
+
+  @NotNull
+  @Schema(
+      required = true,
+      description = "Id of the customer asking for credit",
+      example = "18eee9c2-f577-11ec-b939-0242ac120002")
+  UUID customerId;
+
+  @NotNull
+  @Schema(required = true, description = "Customer request type of founding", example = "SME")
+  FoundingType foundingType;
+
+  @Valid @JsonUnwrapped PostRequestCreditLineRequestBody creditLineRequest;
+}
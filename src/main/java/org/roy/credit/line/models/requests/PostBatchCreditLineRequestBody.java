@@ -0,0 +1,27 @@
+package org.roy.credit.line.models.requests;
+
+import static lombok.AccessLevel.PRIVATE;
+import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_CREDIT_LINE_BATCH_SIZE;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+public class PostBatchCreditLineRequestBody {
+
+  @Valid
+  @NotEmpty
+  @Size(max = MAX_CREDIT_LINE_BATCH_SIZE)
+  @Schema(required = true, description = "Credit line requests, evaluated in order")
+  List<BatchCreditLineRequestItem> items;
+}
@@ -2,15 +2,25 @@ package org.roy.credit.line.models.requests;
 
 import static lombok.AccessLevel.PRIVATE;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.ZonedDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.roy.credit.line.services.codecs.MoneyDeserializer;
+import org.roy.credit.line.services.codecs.MoneySerializer;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
 
+/**
+ * Financial data of a credit line request. Amounts are held in cents. Each of them is required: a
+ * body missing one, or with a null one, is not read.
+ */
 @Data
 @Builder
 @NoArgsConstructor
@@ -19,21 +29,33 @@ public class PostRequestCreditLineRequestBody {
 
   @Schema(
       required = true,
+      type = "number",
       description = "The cash balance of the credit requester",
       example = "1000000.99")
-  Float cashBalance;
+  @JsonProperty("cashBalance")
+  @JsonSerialize(using = MoneySerializer.class)
+  @JsonDeserialize(using = MoneyDeserializer.class)
+  long cashBalanceCents;
 
   @Schema(
       required = true,
+      type = "number",
       description = "The monthly revenue of the credit requester",
       example = "150000.99")
-  Float monthlyRevenue;
+  @JsonProperty("monthlyRevenue")
+  @JsonSerialize(using = MoneySerializer.class)
+  @JsonDeserialize(using = MoneyDeserializer.class)
+  long monthlyRevenueCents;
 
   @Schema(
       required = true,
+      type = "number",
       description = "The amount of credit being requested",
       example = "10000.99")
-  Float requestedCreditLine;
+  @JsonProperty("requestedCreditLine")
+  @JsonSerialize(using = MoneySerializer.class)
+  @JsonDeserialize(using = MoneyDeserializer.class)
+  long requestedCreditLineCents;
 
   @DateTimeFormat(iso = ISO.TIME)
   @Schema(
@@ -41,4 +63,22 @@ public class PostRequestCreditLineRequestBody {
       description = "Date of the credit line request. Must be in the ISO Time format.",
       example = "2022-06-26T02:14:21.120Z")
   ZonedDateTime requestedDate;
+
+  /**
+   * Body read from JSON. The amounts are creator properties, as Jackson only checks that the
+   * required ones are present for them: a primitive field would silently keep zero.
+   */
+  @JsonCreator
+  static PostRequestCreditLineRequestBody of(
+      @JsonProperty(value = "cashBalance", required = true) long cashBalanceCents,
+      @JsonProperty(value = "monthlyRevenue", required = true) long monthlyRevenueCents,
+      @JsonProperty(value = "requestedCreditLine", required = true)
+          long requestedCreditLineCents) {
+
+    return builder()
+        .cashBalanceCents(cashBalanceCents)
+        .monthlyRevenueCents(monthlyRevenueCents)
+        .requestedCreditLineCents(requestedCreditLineCents)
+        .build();
+  }
 }
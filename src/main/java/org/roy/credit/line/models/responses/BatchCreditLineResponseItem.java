@@ -0,0 +1,32 @@
+package org.roy.credit.line.models.responses;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.math.BigDecimal;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.roy.credit.line.enums.CreditLineStatus;
+
+/** Result of one credit line request of a batch. Rate limited requests only carry an error. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+@JsonInclude(Include.NON_NULL)
+public class BatchCreditLineResponseItem {
+
+  UUID customerId;
+
+  CreditLineStatus creditLineStatus;
+
+  BigDecimal acceptedCreditLine;
+
+  String message;
+
+  ResponseError error;
+}
@@ -0,0 +1,53 @@
+package org.roy.credit.line.models.responses;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.services.codecs.MoneySerializer;
+
+/** An evaluated credit line request of a customer: what was requested and the decision */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+public class CreditLineRequestHistoryItem {
+
+  @Schema(example = "2022-06-26T02:14:21.120Z", description = "Date of the credit line request")
+  ZonedDateTime requestedDate;
+
+  FoundingType foundingType;
+
+  @Schema(type = "number", example = "1000000.99")
+  @JsonProperty("cashBalance")
+  @JsonSerialize(using = MoneySerializer.class)
+  long cashBalanceCents;
+
+  @Schema(type = "number", example = "150000.99")
+  @JsonProperty("monthlyRevenue")
+  @JsonSerialize(using = MoneySerializer.class)
+  long monthlyRevenueCents;
+
+  @Schema(type = "number", example = "10000.99")
+  @JsonProperty("requestedCreditLine")
+  @JsonSerialize(using = MoneySerializer.class)
+  long requestedCreditLineCents;
+
+  CreditLineStatus creditLineStatus;
+
+  @Schema(type = "number", example = "10000.99")
+  @JsonProperty("acceptedCreditLine")
+  @JsonSerialize(using = MoneySerializer.class)
+  long acceptedCreditLineCents;
+
+  @Schema(description = "Attempts of the customer when the request was evaluated")
+  Integer attempts;
+}
@@ -0,0 +1,64 @@
+package org.roy.credit.line.models.responses;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Progress of the re-evaluation of the stored credit line decisions */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+public class ReEvaluationProgress {
+
+  /** IDLE, RUNNING, STOPPING, STOPPED, COMPLETED or FAILED */
+  String state;
+
+  Instant startedAt;
+
+  double elapsedSeconds;
+
+  /** Rows re-evaluated by this run, resumed ones included */
+  long scannedRows;
+
+  /** Rows whose decision changed and was written back */
+  long changedRows;
+
+  /** Rows re-evaluated per second since the run started, resumed ones excluded */
+  double rowsPerSecond;
+
+  /** Share of the customer ids re-evaluated, from 0 to 1 */
+  double completion;
+
+  List<Partition> partitions;
+
+  /** Progress of a customer id range */
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor(access = PRIVATE)
+  public static class Partition {
+
+    int index;
+
+    UUID lowerBound;
+
+    UUID upperBound;
+
+    UUID lastCustomerId;
+
+    long scannedRows;
+
+    long changedRows;
+
+    double completion;
+
+    boolean completed;
+  }
+}
@@ -0,0 +1,26 @@
+package org.roy.credit.line.models.responses;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Latency of a stage of the credit line requests over the last interval, in microseconds */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = PRIVATE)
+public class StageLatency {
+
+  long count;
+
+  double mean;
+
+  double max;
+
+  /** Latency by percentile, from the median to the 99.99th */
+  Map<String, Double> percentiles;
+}
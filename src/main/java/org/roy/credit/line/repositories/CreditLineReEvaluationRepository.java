@@ -0,0 +1,203 @@
+package org.roy.credit.line.repositories;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.entities.ReEvaluationCheckpoint;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and writes of the credit line re-evaluation. The stored decisions are read by keyset, a
+ * chunk per query, so no connection or snapshot is held between two chunks.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(prefix = "re-evaluation", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CreditLineReEvaluationRepository {
+
+  private static final String SELECT_DECISIONS =
+      "SELECT customer_id, accepted_credit_line, credit_line_status, requested_date,"
+          + " founding_type, cash_balance, monthly_revenue, requested_credit_line"
+          + " FROM credit_line_requests WHERE founding_type IS NOT NULL";
+
+  /** Only rows not changed since they were read are written back */
+  private static final String UPDATE_DECISION =
+      "UPDATE credit_line_requests SET accepted_credit_line = ?, credit_line_status = ?"
+          + " WHERE customer_id = ? AND credit_line_status = ? AND requested_date = ?";
+
+  private static final String SELECT_CHECKPOINTS =
+      "SELECT partition_index, lower_bound, upper_bound, last_customer_id, scanned_rows,"
+          + " changed_rows, completed"
+          + " FROM credit_line_re_evaluation_checkpoints ORDER BY partition_index";
+
+  private static final String DELETE_CHECKPOINTS =
+      "DELETE FROM credit_line_re_evaluation_checkpoints";
+
+  private static final String INSERT_CHECKPOINT =
+      "INSERT INTO credit_line_re_evaluation_checkpoints"
+          + " (partition_index, lower_bound, upper_bound, last_customer_id, scanned_rows,"
+          + " changed_rows, completed)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String UPDATE_CHECKPOINT =
+      "UPDATE credit_line_re_evaluation_checkpoints SET"
+          + " last_customer_id = ?, scanned_rows = ?, changed_rows = ?, completed = ?"
+          + " WHERE partition_index = ?";
+
+  private static final RowMapper<StoredDecision> STORED_DECISION_MAPPER =
+      (resultSet, rowNumber) ->
+          new StoredDecision(
+              resultSet.getObject("customer_id", UUID.class),
+              Money.centsOf(resultSet.getBigDecimal("accepted_credit_line")),
+              CreditLineStatus.valueOf(resultSet.getString("credit_line_status")),
+              resultSet.getObject("requested_date", OffsetDateTime.class),
+              FoundingType.valueOf(resultSet.getString("founding_type")),
+              Money.centsOf(resultSet.getBigDecimal("cash_balance")),
+              Money.centsOf(resultSet.getBigDecimal("monthly_revenue")),
+              Money.centsOf(resultSet.getBigDecimal("requested_credit_line")));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Load the next stored decisions with a founding type of a range of customer ids, in the order of
+   * the customer ids. Decisions stored before their founding type was are not re-evaluated.
+   *
+   * @param after customer id before the range, exclusive, null to start at the lower bound
+   * @param lowerBound first customer id of the range, inclusive
+   * @param upperBound customer id after the range, exclusive, null for no end
+   * @param limit maximum number of decisions
+   * @return the decisions, fewer than the limit once the end of the range is reached
+   */
+  public List<StoredDecision> findDecisions(
+      UUID after, UUID lowerBound, UUID upperBound, int limit) {
+    StringBuilder sql = new StringBuilder(SELECT_DECISIONS);
+    sql.append(after == null ? " AND customer_id >= ?" : " AND customer_id > ?");
+    if (upperBound != null) {
+      sql.append(" AND customer_id < ?");
+    }
+    sql.append(" ORDER BY customer_id LIMIT ?");
+
+    Object[] arguments =
+        upperBound == null
+            ? new Object[] {after == null ? lowerBound : after, limit}
+            : new Object[] {after == null ? lowerBound : after, upperBound, limit};
+
+    return jdbcTemplate.query(sql.toString(), STORED_DECISION_MAPPER, arguments);
+  }
+
+  /**
+   * Write back the new decisions, in JDBC batches
+   *
+   * @param decisionChanges decisions differing from the stored ones
+   * @return number of rows written, rows changed since they were read are left as they are
+   */
+  public int updateDecisions(List<DecisionChange> decisionChanges) {
+    int[][] updatedRows =
+        jdbcTemplate.batchUpdate(
+            UPDATE_DECISION,
+            decisionChanges,
+            decisionChanges.size(),
+            (preparedStatement, decisionChange) -> {
+              preparedStatement.setBigDecimal(
+                  1, Money.toBigDecimal(decisionChange.acceptedCreditLineCents()));
+              preparedStatement.setString(2, decisionChange.creditLineStatus().name());
+              preparedStatement.setObject(3, decisionChange.customerId());
+              preparedStatement.setString(4, decisionChange.storedCreditLineStatus().name());
+              preparedStatement.setObject(
+                  5, decisionChange.requestedDate(), Types.TIMESTAMP_WITH_TIMEZONE);
+            });
+
+    return (int)
+        Arrays.stream(updatedRows).flatMapToInt(Arrays::stream).filter(rows -> rows > 0).count();
+  }
+
+  /**
+   * Checkpoints of the last re-evaluation
+   *
+   * @return a checkpoint per partition, empty when no re-evaluation ran yet
+   */
+  public List<ReEvaluationCheckpoint> findCheckpoints() {
+    return jdbcTemplate.query(
+        SELECT_CHECKPOINTS,
+        (resultSet, rowNumber) ->
+            ReEvaluationCheckpoint.builder()
+                .partitionIndex(resultSet.getInt("partition_index"))
+                .lowerBound(resultSet.getObject("lower_bound", UUID.class))
+                .upperBound(resultSet.getObject("upper_bound", UUID.class))
+                .lastCustomerId(resultSet.getObject("last_customer_id", UUID.class))
+                .scannedRows(resultSet.getLong("scanned_rows"))
+                .changedRows(resultSet.getLong("changed_rows"))
+                .completed(resultSet.getBoolean("completed"))
+                .build());
+  }
+
+  /**
+   * Replace the checkpoints of the last re-evaluation by the ones of a new re-evaluation. Meant to
+   * be called inside a transaction.
+   *
+   * @param checkpoints a checkpoint per partition
+   */
+  public void replaceCheckpoints(List<ReEvaluationCheckpoint> checkpoints) {
+    jdbcTemplate.update(DELETE_CHECKPOINTS);
+    jdbcTemplate.batchUpdate(
+        INSERT_CHECKPOINT,
+        checkpoints,
+        checkpoints.size(),
+        (preparedStatement, checkpoint) -> {
+          preparedStatement.setInt(1, checkpoint.getPartitionIndex());
+          preparedStatement.setObject(2, checkpoint.getLowerBound());
+          preparedStatement.setObject(3, checkpoint.getUpperBound());
+          preparedStatement.setObject(4, checkpoint.getLastCustomerId());
+          preparedStatement.setLong(5, checkpoint.getScannedRows());
+          preparedStatement.setLong(6, checkpoint.getChangedRows());
+          preparedStatement.setBoolean(7, checkpoint.isCompleted());
+        });
+  }
+
+  /**
+   * Store the progress of a partition
+   *
+   * @param checkpoint progress of the partition
+   */
+  public void saveCheckpoint(ReEvaluationCheckpoint checkpoint) {
+    jdbcTemplate.update(
+        UPDATE_CHECKPOINT,
+        checkpoint.getLastCustomerId(),
+        checkpoint.getScannedRows(),
+        checkpoint.getChangedRows(),
+        checkpoint.isCompleted(),
+        checkpoint.getPartitionIndex());
+  }
+
+  /** A stored decision and the founding type and financial data it was decided on */
+  public record StoredDecision(
+      UUID customerId,
+      long acceptedCreditLineCents,
+      CreditLineStatus creditLineStatus,
+      OffsetDateTime requestedDate,
+      FoundingType foundingType,
+      long cashBalanceCents,
+      long monthlyRevenueCents,
+      long requestedCreditLineCents) {}
+
+  /** A new decision of a stored one, written back if the stored one did not change meanwhile */
+  public record DecisionChange(
+      UUID customerId,
+      OffsetDateTime requestedDate,
+      CreditLineStatus storedCreditLineStatus,
+      long acceptedCreditLineCents,
+      CreditLineStatus creditLineStatus) {}
+}
@@ -0,0 +1,106 @@
+package org.roy.credit.line.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Bulk writes of the CREDIT_LINE_REQUESTS table, sent in JDBC batches. The write-behind flush
+ * writes new and existing records with the same upsert statement; batches of requests insert the
+ * new records and update the existing ones, locked when they were read.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CreditLineRequestBatchRepository {
+
+  /** Statements per JDBC batch, the Postgres driver rewrites each batch into one statement */
+  private static final int BATCH_SIZE = 500;
+
+  private static final String UPSERT =
+      "INSERT INTO credit_line_requests"
+          + " (accepted_credit_line, credit_line_status, requested_date, attempts, founding_type,"
+          + " cash_balance, monthly_revenue, requested_credit_line, customer_id)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+          + " ON CONFLICT (customer_id) DO UPDATE SET"
+          + " accepted_credit_line = EXCLUDED.accepted_credit_line,"
+          + " credit_line_status = EXCLUDED.credit_line_status,"
+          + " requested_date = EXCLUDED.requested_date,"
+          + " attempts = EXCLUDED.attempts,"
+          + " founding_type = EXCLUDED.founding_type,"
+          + " cash_balance = EXCLUDED.cash_balance,"
+          + " monthly_revenue = EXCLUDED.monthly_revenue,"
+          + " requested_credit_line = EXCLUDED.requested_credit_line";
+
+  private static final String INSERT =
+      "INSERT INTO credit_line_requests"
+          + " (accepted_credit_line, credit_line_status, requested_date, attempts, founding_type,"
+          + " cash_balance, monthly_revenue, requested_credit_line, customer_id)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String UPDATE =
+      "UPDATE credit_line_requests SET"
+          + " accepted_credit_line = ?, credit_line_status = ?, requested_date = ?, attempts = ?,"
+          + " founding_type = ?, cash_balance = ?, monthly_revenue = ?, requested_credit_line = ?"
+          + " WHERE customer_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert or replace the credit line requests, at most one per customer
+   *
+   * @param creditLineRequestRecords records to be stored
+   */
+  public void upsertAll(List<CreditLineRequestRecord> creditLineRequestRecords) {
+    jdbcTemplate.batchUpdate(UPSERT, creditLineRequestRecords, BATCH_SIZE, this::setValues);
+  }
+
+  /**
+   * Insert the first credit line request of each customer
+   *
+   * @param creditLineRequestRecords records to be stored
+   * @throws org.springframework.dao.DuplicateKeyException if a customer has a record already
+   */
+  public void insertAll(List<CreditLineRequestRecord> creditLineRequestRecords) {
+    jdbcTemplate.batchUpdate(INSERT, creditLineRequestRecords, BATCH_SIZE, this::setValues);
+  }
+
+  /**
+   * Replace the credit line requests of the customers, locked when they were read
+   *
+   * @param creditLineRequestRecords records to be stored
+   */
+  public void updateAll(List<CreditLineRequestRecord> creditLineRequestRecords) {
+    jdbcTemplate.batchUpdate(UPDATE, creditLineRequestRecords, BATCH_SIZE, this::setValues);
+  }
+
+  private void setValues(
+      PreparedStatement preparedStatement, CreditLineRequestRecord creditLineRequestRecord)
+      throws SQLException {
+    preparedStatement.setBigDecimal(
+        1, Money.toBigDecimal(creditLineRequestRecord.getAcceptedCreditLineCents()));
+    preparedStatement.setString(2, creditLineRequestRecord.getCreditLineStatus());
+    preparedStatement.setObject(
+        3,
+        creditLineRequestRecord.getRequestedDate().toOffsetDateTime(),
+        Types.TIMESTAMP_WITH_TIMEZONE);
+    preparedStatement.setInt(4, creditLineRequestRecord.getAttempts());
+    preparedStatement.setString(5, creditLineRequestRecord.getFoundingType());
+    preparedStatement.setBigDecimal(
+        6, Money.toBigDecimal(creditLineRequestRecord.getCashBalanceCents()));
+    preparedStatement.setBigDecimal(
+        7, Money.toBigDecimal(creditLineRequestRecord.getMonthlyRevenueCents()));
+    preparedStatement.setBigDecimal(
+        8, Money.toBigDecimal(creditLineRequestRecord.getRequestedCreditLineCents()));
+    preparedStatement.setObject(9, creditLineRequestRecord.getCustomerId());
+  }
+}
@@ -0,0 +1,308 @@
+package org.roy.credit.line.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.roy.credit.line.models.dtos.CreditLineRequestHistoryCursor;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Append-only history of the evaluated credit line requests, in a PostgreSQL table range
+ * partitioned by month of the requested date. Queries are bounded by requested dates, so only the
+ * partitions of their months are read, and old months are dropped with their partition instead of
+ * deleted row by row.
+ *
+ * <p>The pages of a customer are read by keyset on (requested date, id), newest first, from a
+ * covering index: a page seeks to the last row of the previous one and reads only its own rows
+ * from the index, never the table. The requested date of the cursor, and the optional time range of
+ * the pages, also bound the requested dates, so the partitions of the newer months, and of the
+ * months out of the range, are pruned.
+ *
+ * <p>Hibernate can not create partitioned tables, the table and its partitions are created here.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CreditLineRequestHistoryRepository {
+
+  private static final int BATCH_SIZE = 1_000;
+
+  private static final String TABLE = "credit_line_request_history";
+
+  private static final String CREATE_TABLE =
+      "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+          + " id BIGSERIAL,"
+          + " customer_id UUID NOT NULL,"
+          + " requested_date TIMESTAMP WITH TIME ZONE NOT NULL,"
+          + " founding_type VARCHAR(20) NOT NULL,"
+          + " cash_balance NUMERIC(38, 2) NOT NULL,"
+          + " monthly_revenue NUMERIC(38, 2) NOT NULL,"
+          + " requested_credit_line NUMERIC(38, 2) NOT NULL,"
+          + " credit_line_status VARCHAR(20) NOT NULL,"
+          + " accepted_credit_line NUMERIC(38, 2) NOT NULL,"
+          + " attempts INTEGER NOT NULL,"
+          + " PRIMARY KEY (id, requested_date))"
+          + " PARTITION BY RANGE (requested_date)";
+
+  /**
+   * Created on every partition, existing and future ones. Includes every column read by the
+   * pages, filters included, so they are answered by index only scans.
+   */
+  private static final String CREATE_CUSTOMER_INDEX =
+      "CREATE INDEX IF NOT EXISTS " + TABLE + "_customer_page_idx"
+          + " ON " + TABLE + " (customer_id, requested_date, id)"
+          + " INCLUDE (founding_type, cash_balance, monthly_revenue, requested_credit_line,"
+          + " credit_line_status, accepted_credit_line, attempts)";
+
+  /** Index without the included columns, created by the first releases of the history */
+  private static final String DROP_PREVIOUS_CUSTOMER_INDEX =
+      "DROP INDEX IF EXISTS " + TABLE + "_customer_idx";
+
+  private static final String CREATE_PARTITION =
+      "CREATE TABLE IF NOT EXISTS %s PARTITION OF " + TABLE + " FOR VALUES FROM ('%s') TO ('%s')";
+
+  private static final String DETACH_PARTITION =
+      "ALTER TABLE " + TABLE + " DETACH PARTITION %s CONCURRENTLY";
+
+  private static final String DROP_PARTITION = "DROP TABLE IF EXISTS %s";
+
+  private static final String SELECT_PARTITIONS =
+      "SELECT child.relname FROM pg_inherits"
+          + " JOIN pg_class child ON child.oid = pg_inherits.inhrelid"
+          + " JOIN pg_class parent ON parent.oid = pg_inherits.inhparent"
+          + " WHERE parent.relname = '" + TABLE + "'";
+
+  private static final String INSERT =
+      "INSERT INTO " + TABLE
+          + " (customer_id, requested_date, founding_type, cash_balance, monthly_revenue,"
+          + " requested_credit_line, credit_line_status, accepted_credit_line, attempts)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String SELECT_BY_CUSTOMER =
+      "SELECT id, customer_id, requested_date, founding_type, cash_balance, monthly_revenue,"
+          + " requested_credit_line, credit_line_status, accepted_credit_line, attempts"
+          + " FROM " + TABLE
+          + " WHERE customer_id = ? AND requested_date >= ? AND requested_date < ?"
+          + " ORDER BY requested_date, id";
+
+  private static final String SELECT_PAGE_BY_CUSTOMER =
+      "SELECT id, customer_id, requested_date, founding_type, cash_balance, monthly_revenue,"
+          + " requested_credit_line, credit_line_status, accepted_credit_line, attempts"
+          + " FROM " + TABLE
+          + " WHERE customer_id = ?";
+
+  private static final String FROM_DATE = " AND requested_date >= ?";
+  private static final String BEFORE_DATE = " AND requested_date < ?";
+
+  /**
+   * Row comparison, which PostgreSQL turns into a single index seek, but does not prune partitions
+   * with: the plain bound on the requested date does. It is inclusive, the rows of the same date
+   * with a lower id are still ahead.
+   */
+  private static final String AFTER_POSITION =
+      " AND requested_date <= ? AND (requested_date, id) < (?, ?)";
+  private static final String WITH_STATUS = " AND credit_line_status = ?";
+  private static final String WITH_FOUNDING_TYPE = " AND founding_type = ?";
+  private static final String NEWEST_FIRST = " ORDER BY requested_date DESC, id DESC LIMIT ?";
+
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+  private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{6})");
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Create the partitioned table and its index, unless they exist, replacing a previous index */
+  public void createTable() {
+    jdbcTemplate.execute(CREATE_TABLE);
+    jdbcTemplate.execute(CREATE_CUSTOMER_INDEX);
+    jdbcTemplate.execute(DROP_PREVIOUS_CUSTOMER_INDEX);
+  }
+
+  /**
+   * Create the partition of the requests of a month, in UTC, unless it exists
+   *
+   * @param month month of the requested dates
+   */
+  public void createPartition(YearMonth month) {
+    jdbcTemplate.execute(
+        CREATE_PARTITION.formatted(
+            partitionOf(month), startOf(month), startOf(month.plusMonths(1))));
+  }
+
+  /**
+   * Detach the partition of a month without blocking the queries of the other months, then drop
+   * it with its rows
+   *
+   * @param month month of the requested dates
+   */
+  public void dropPartition(YearMonth month) {
+    jdbcTemplate.execute(DETACH_PARTITION.formatted(partitionOf(month)));
+    jdbcTemplate.execute(DROP_PARTITION.formatted(partitionOf(month)));
+  }
+
+  /**
+   * Months with a partition
+   *
+   * @return months of the existing partitions, in no particular order
+   */
+  public List<YearMonth> findPartitions() {
+    return jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class).stream()
+        .map(PARTITION_NAME::matcher)
+        .filter(Matcher::matches)
+        .map(matcher -> YearMonth.parse(matcher.group(1), PARTITION_SUFFIX))
+        .toList();
+  }
+
+  /**
+   * Append the evaluations to the history, in JDBC batches. The partitions of their months must
+   * exist.
+   *
+   * @param evaluations evaluated credit line requests
+   */
+  public void insertAll(List<CreditLineRequestHistoryDao> evaluations) {
+    jdbcTemplate.batchUpdate(
+        INSERT,
+        evaluations,
+        BATCH_SIZE,
+        (preparedStatement, evaluation) -> {
+          preparedStatement.setObject(1, evaluation.getCustomerId());
+          preparedStatement.setObject(
+              2, evaluation.getRequestedDate().toOffsetDateTime(), Types.TIMESTAMP_WITH_TIMEZONE);
+          preparedStatement.setString(3, evaluation.getFoundingType().name());
+          preparedStatement.setBigDecimal(4, Money.toBigDecimal(evaluation.getCashBalanceCents()));
+          preparedStatement.setBigDecimal(
+              5, Money.toBigDecimal(evaluation.getMonthlyRevenueCents()));
+          preparedStatement.setBigDecimal(
+              6, Money.toBigDecimal(evaluation.getRequestedCreditLineCents()));
+          preparedStatement.setString(7, evaluation.getCreditLineStatus().name());
+          preparedStatement.setBigDecimal(
+              8, Money.toBigDecimal(evaluation.getAcceptedCreditLineCents()));
+          preparedStatement.setInt(9, evaluation.getAttempts());
+        });
+  }
+
+  /**
+   * Evaluations of a customer requested in a time range, reading only the partitions of its months
+   *
+   * @param customerId requester id
+   * @param from first requested date, inclusive
+   * @param to last requested date, exclusive
+   * @return the evaluations, oldest first
+   */
+  public List<CreditLineRequestHistoryDao> findByCustomerId(
+      UUID customerId, ZonedDateTime from, ZonedDateTime to) {
+
+    return jdbcTemplate.query(
+        SELECT_BY_CUSTOMER,
+        (resultSet, rowNumber) -> evaluationOf(resultSet),
+        customerId,
+        from.toOffsetDateTime(),
+        to.toOffsetDateTime());
+  }
+
+  /**
+   * Evaluations of a customer, newest first, from a position of the history on. Each evaluation is
+   * handed over as its row is read, so the rows are never held together.
+   *
+   * @param customerId requester id
+   * @param creditLineStatus decision of the evaluations, null for any
+   * @param foundingType founding type of the evaluations, null for any
+   * @param from first requested date, inclusive, null for the oldest one
+   * @param to last requested date, exclusive, null for the newest one
+   * @param after position of the last evaluation already read, null to start with the newest one
+   * @param limit maximum number of evaluations
+   * @param evaluations receives the evaluations, in order
+   */
+  public void findPageByCustomerId(
+      UUID customerId,
+      @Nullable CreditLineStatus creditLineStatus,
+      @Nullable FoundingType foundingType,
+      @Nullable ZonedDateTime from,
+      @Nullable ZonedDateTime to,
+      @Nullable CreditLineRequestHistoryCursor after,
+      int limit,
+      Consumer<CreditLineRequestHistoryDao> evaluations) {
+
+    // Only the filters in use are in the statement, so each combination gets its own plan
+    StringBuilder sql = new StringBuilder(SELECT_PAGE_BY_CUSTOMER);
+    List<Object> arguments = new ArrayList<>(9);
+    arguments.add(customerId);
+    if (from != null) {
+      sql.append(FROM_DATE);
+      arguments.add(from.toOffsetDateTime());
+    }
+    if (to != null) {
+      sql.append(BEFORE_DATE);
+      arguments.add(to.toOffsetDateTime());
+    }
+    if (after != null) {
+      sql.append(AFTER_POSITION);
+      arguments.add(after.requestedDate().toOffsetDateTime());
+      arguments.add(after.requestedDate().toOffsetDateTime());
+      arguments.add(after.id());
+    }
+    if (creditLineStatus != null) {
+      sql.append(WITH_STATUS);
+      arguments.add(creditLineStatus.name());
+    }
+    if (foundingType != null) {
+      sql.append(WITH_FOUNDING_TYPE);
+      arguments.add(foundingType.name());
+    }
+    sql.append(NEWEST_FIRST);
+    arguments.add(limit);
+
+    jdbcTemplate.query(
+        sql.toString(),
+        (RowCallbackHandler) resultSet -> evaluations.accept(evaluationOf(resultSet)),
+        arguments.toArray());
+  }
+
+  private static CreditLineRequestHistoryDao evaluationOf(ResultSet resultSet)
+      throws SQLException {
+    return CreditLineRequestHistoryDao.builder()
+        .id(resultSet.getLong("id"))
+        .customerId(resultSet.getObject("customer_id", UUID.class))
+        .requestedDate(
+            resultSet
+                .getObject("requested_date", OffsetDateTime.class)
+                .atZoneSameInstant(ZoneOffset.UTC))
+        .foundingType(FoundingType.valueOf(resultSet.getString("founding_type")))
+        .cashBalanceCents(Money.centsOf(resultSet.getBigDecimal("cash_balance")))
+        .monthlyRevenueCents(Money.centsOf(resultSet.getBigDecimal("monthly_revenue")))
+        .requestedCreditLineCents(Money.centsOf(resultSet.getBigDecimal("requested_credit_line")))
+        .creditLineStatus(CreditLineStatus.valueOf(resultSet.getString("credit_line_status")))
+        .acceptedCreditLineCents(Money.centsOf(resultSet.getBigDecimal("accepted_credit_line")))
+        .attempts(resultSet.getInt("attempts"))
+        .build();
+  }
+
+  private static String partitionOf(YearMonth month) {
+    return TABLE + "_p" + PARTITION_SUFFIX.format(month);
+  }
+
+  private static String startOf(YearMonth month) {
+    return month.atDay(1) + " 00:00:00+00";
+  }
+}
@@ -0,0 +1,287 @@
+package org.roy.credit.line.repositories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.CreditLineHistoryProperties;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Appends the evaluated credit line requests to the {@link CreditLineRequestHistoryRepository} in
+ * the background, so the history adds no latency to the requests. Evaluations wait in a bounded
+ * queue, stored by JDBC batches on every flush; a request finding the queue full drops its
+ * evaluation and counts it.
+ *
+ * <p>A batch failing to be stored with a transient error, such as the database being down, is
+ * retried by the next flush, before the queue is read; any other failure drops the batch and
+ * counts it, so a single bad batch can not stop the history. The partitions of the months of each
+ * batch are created on demand, and a daily maintenance creates the next months ahead and drops the
+ * months past the retention.
+ *
+ * <p>Requested dates come from the clients, so only the evaluations of the retained months up to
+ * the partitions ahead are stored: the partitions created on demand are bounded by the retention,
+ * whatever dates the clients send.
+ */
+@Log4j2
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class CreditLineRequestHistoryWriter implements DisposableBean {
+
+  private final CreditLineRequestHistoryRepository historyRepository;
+  private final CreditLineHistoryProperties historyProperties;
+  private final Clock clock;
+  private final BlockingQueue<CreditLineRequestHistoryDao> pendingEvaluations;
+  private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private final Counter droppedEvaluations;
+  private final Counter expiredEvaluations;
+  private final Counter unexpectedEvaluations;
+  private final Counter failedEvaluations;
+  private final Timer flushTimer;
+
+  /** Batch whose insert failed, retried by the next flush. Guarded by the flush lock */
+  private List<CreditLineRequestHistoryDao> failedBatch = List.of();
+
+  @Autowired
+  public CreditLineRequestHistoryWriter(
+      CreditLineRequestHistoryRepository historyRepository,
+      CreditLineHistoryProperties historyProperties,
+      MeterRegistry meterRegistry) {
+    this(historyRepository, historyProperties, meterRegistry, Clock.systemUTC());
+  }
+
+  CreditLineRequestHistoryWriter(
+      CreditLineRequestHistoryRepository historyRepository,
+      CreditLineHistoryProperties historyProperties,
+      MeterRegistry meterRegistry,
+      Clock clock) {
+
+    this.historyRepository = historyRepository;
+    this.historyProperties = historyProperties;
+    this.clock = clock;
+    this.pendingEvaluations = new ArrayBlockingQueue<>(historyProperties.getQueueCapacity());
+
+    Gauge.builder("credit.line.history.pending", pendingEvaluations, BlockingQueue::size)
+        .description("Evaluated credit line requests not stored in the history yet")
+        .register(meterRegistry);
+    droppedEvaluations =
+        Counter.builder("credit.line.history.dropped")
+            .tag("reason", "queue-full")
+            .description("Evaluated credit line requests left out of the history")
+            .register(meterRegistry);
+    expiredEvaluations =
+        Counter.builder("credit.line.history.dropped")
+            .tag("reason", "past-retention")
+            .description("Evaluated credit line requests left out of the history")
+            .register(meterRegistry);
+    unexpectedEvaluations =
+        Counter.builder("credit.line.history.dropped")
+            .tag("reason", "beyond-partitions-ahead")
+            .description("Evaluated credit line requests left out of the history")
+            .register(meterRegistry);
+    failedEvaluations =
+        Counter.builder("credit.line.history.dropped")
+            .tag("reason", "store-failed")
+            .description("Evaluated credit line requests left out of the history")
+            .register(meterRegistry);
+    flushTimer =
+        Timer.builder("credit.line.history.flush")
+            .description("Time spent storing a batch of the history in the database")
+            .register(meterRegistry);
+
+    maintainPartitions();
+  }
+
+  /**
+   * Queue the evaluations to be stored in the history, once the surrounding transaction, if any,
+   * commits. Never blocks.
+   *
+   * @param evaluations evaluated credit line requests
+   */
+  public void record(List<CreditLineRequestHistoryDao> evaluations) {
+    if (!historyProperties.isEnabled() || evaluations.isEmpty()) {
+      return;
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              enqueue(evaluations);
+            }
+          });
+    } else {
+      enqueue(evaluations);
+    }
+  }
+
+  /** Store the queued evaluations, batch after batch, until the queue is empty */
+  @Scheduled(fixedDelayString = "${credit-line-history.flush-interval:PT0.5S}")
+  public void flush() {
+    if (!historyProperties.isEnabled()) {
+      return;
+    }
+
+    flushLock.lock();
+    try {
+      while (true) {
+        List<CreditLineRequestHistoryDao> batch = failedBatch;
+        boolean drained = false;
+        if (batch.isEmpty()) {
+          batch = new ArrayList<>(historyProperties.getBatchSize());
+          drained =
+              pendingEvaluations.drainTo(batch, historyProperties.getBatchSize())
+                  < historyProperties.getBatchSize();
+          batch = storable(batch);
+        }
+
+        if (!batch.isEmpty()) {
+          try {
+            store(batch);
+            failedBatch = List.of();
+          } catch (DataAccessException failure) {
+            if (isTransient(failure)) {
+              failedBatch = batch;
+              log.error("Unable to store the credit line request history, retrying later", failure);
+              return;
+            }
+            failedBatch = List.of();
+            failedEvaluations.increment(batch.size());
+            log.error("Unable to store the credit line request history, batch dropped", failure);
+          }
+        }
+
+        if (drained) {
+          return;
+        }
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /** Create the partitions of the next months and drop the ones past the retention */
+  @Scheduled(cron = "${credit-line-history.maintenance-cron:0 0 3 * * *}")
+  public void maintainPartitions() {
+    if (!historyProperties.isEnabled()) {
+      return;
+    }
+
+    flushLock.lock();
+    try {
+      historyRepository.createTable();
+
+      YearMonth currentMonth = YearMonth.now(clock);
+      for (int i = 0; i <= historyProperties.getPartitionsAhead(); i++) {
+        createPartition(currentMonth.plusMonths(i));
+      }
+
+      YearMonth firstRetainedMonth = firstRetainedMonth();
+      for (YearMonth month : historyRepository.findPartitions()) {
+        if (month.isBefore(firstRetainedMonth)) {
+          historyRepository.dropPartition(month);
+          partitions.remove(month);
+          log.info("Dropped the credit line request history of {}", month);
+        } else {
+          partitions.add(month);
+        }
+      }
+    } catch (DataAccessException failure) {
+      log.error("Unable to maintain the credit line request history partitions", failure);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    flush();
+  }
+
+  private void enqueue(List<CreditLineRequestHistoryDao> evaluations) {
+    for (CreditLineRequestHistoryDao evaluation : evaluations) {
+      if (!pendingEvaluations.offer(evaluation)) {
+        droppedEvaluations.increment();
+      }
+    }
+  }
+
+  /**
+   * The evaluations of the retained months up to the partitions ahead. Older ones would be dropped
+   * with their month, and later ones would make partitions of months no maintenance expects.
+   */
+  private List<CreditLineRequestHistoryDao> storable(List<CreditLineRequestHistoryDao> batch) {
+    YearMonth firstRetainedMonth = firstRetainedMonth();
+    YearMonth lastPartitionMonth =
+        YearMonth.now(clock).plusMonths(historyProperties.getPartitionsAhead());
+
+    List<CreditLineRequestHistoryDao> storable = new ArrayList<>(batch.size());
+    for (CreditLineRequestHistoryDao evaluation : batch) {
+      if (evaluation.getRequestedDate() == null
+          || monthOf(evaluation).isAfter(lastPartitionMonth)) {
+        unexpectedEvaluations.increment();
+      } else if (monthOf(evaluation).isBefore(firstRetainedMonth)) {
+        expiredEvaluations.increment();
+      } else {
+        storable.add(evaluation);
+      }
+    }
+    return storable;
+  }
+
+  /** Failures worth retrying the same batch for, the other ones would fail it again */
+  private static boolean isTransient(DataAccessException failure) {
+    return failure instanceof TransientDataAccessException
+        || failure instanceof RecoverableDataAccessException
+        || failure instanceof DataAccessResourceFailureException;
+  }
+
+  private void store(List<CreditLineRequestHistoryDao> batch) {
+    batch.stream()
+        .map(CreditLineRequestHistoryWriter::monthOf)
+        .distinct()
+        .filter(month -> !partitions.contains(month))
+        .forEach(this::createPartition);
+
+    flushTimer.record(() -> historyRepository.insertAll(batch));
+  }
+
+  private void createPartition(YearMonth month) {
+    historyRepository.createPartition(month);
+    partitions.add(month);
+  }
+
+  private YearMonth firstRetainedMonth() {
+    return YearMonth.now(clock).minusMonths(historyProperties.getRetentionMonths() - 1L);
+  }
+
+  private static YearMonth monthOf(CreditLineRequestHistoryDao evaluation) {
+    return YearMonth.from(evaluation.getRequestedDate().withZoneSameInstant(ZoneOffset.UTC));
+  }
+}
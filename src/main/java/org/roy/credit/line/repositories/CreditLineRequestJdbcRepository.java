@@ -0,0 +1,176 @@
+package org.roy.credit.line.repositories;
+
+import static java.util.Collections.nCopies;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Single statement reads and writes of the CREDIT_LINE_REQUESTS table, without the extra select
+ * of a Hibernate merge. Meant to be called inside a transaction.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CreditLineRequestJdbcRepository {
+
+  private static final String FIND_BY_ID_FOR_UPDATE =
+      "SELECT customer_id, accepted_credit_line, credit_line_status, requested_date, attempts,"
+          + " founding_type, cash_balance, monthly_revenue, requested_credit_line"
+          + " FROM credit_line_requests WHERE customer_id = ? FOR UPDATE";
+
+  /** One placeholder per customer, the rows are locked in order so batches never deadlock */
+  private static final String FIND_ALL_BY_ID_FOR_UPDATE =
+      "SELECT customer_id, accepted_credit_line, credit_line_status, requested_date, attempts,"
+          + " founding_type, cash_balance, monthly_revenue, requested_credit_line"
+          + " FROM credit_line_requests WHERE customer_id IN (%s)"
+          + " ORDER BY customer_id FOR UPDATE";
+
+  private static final String INSERT_IF_ABSENT =
+      "INSERT INTO credit_line_requests"
+          + " (accepted_credit_line, credit_line_status, requested_date, attempts, founding_type,"
+          + " cash_balance, monthly_revenue, requested_credit_line, customer_id)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+          + " ON CONFLICT DO NOTHING";
+
+  private static final String UPDATE =
+      "UPDATE credit_line_requests SET"
+          + " accepted_credit_line = ?, credit_line_status = ?, requested_date = ?, attempts = ?,"
+          + " founding_type = ?, cash_balance = ?, monthly_revenue = ?, requested_credit_line = ?"
+          + " WHERE customer_id = ?";
+
+  private static final String COUNT_ACCEPTED_REQUEST =
+      "UPDATE credit_line_requests SET attempts = attempts + 1, requested_date = ?"
+          + " WHERE customer_id = ? AND credit_line_status = 'ACCEPTED'";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Load the credit line request of the customer and lock it until the end of the transaction
+   *
+   * @param customerId requester id
+   * @return last request, empty for customers without any
+   */
+  public Optional<CreditLineRequestRecord> findByIdForUpdate(UUID customerId) {
+    return jdbcTemplate
+        .query(
+            FIND_BY_ID_FOR_UPDATE, (resultSet, rowNumber) -> recordOf(resultSet), customerId)
+        .stream()
+        .findFirst();
+  }
+
+  /**
+   * Load the credit line requests of the customers and lock them until the end of the
+   * transaction, in the order of the customer ids
+   *
+   * @param customerIds distinct requester ids, at least one
+   * @return last requests, customers without any are absent
+   */
+  public List<CreditLineRequestRecord> findAllByIdForUpdate(Collection<UUID> customerIds) {
+    return jdbcTemplate.query(
+        FIND_ALL_BY_ID_FOR_UPDATE.formatted(String.join(", ", nCopies(customerIds.size(), "?"))),
+        (resultSet, rowNumber) -> recordOf(resultSet),
+        customerIds.toArray());
+  }
+
+  /**
+   * Insert the first credit line request of the customer
+   *
+   * @param creditLineRequestRecord record to be stored
+   * @return false when a concurrent request stored the first one already
+   */
+  public boolean insertIfAbsent(CreditLineRequestRecord creditLineRequestRecord) {
+    return jdbcTemplate.update(
+            INSERT_IF_ABSENT, statement -> setValues(statement, creditLineRequestRecord))
+        > 0;
+  }
+
+  /**
+   * Replace the credit line request of the customer, locked by {@link #findByIdForUpdate(UUID)}
+   *
+   * @param creditLineRequestRecord record to be stored
+   */
+  public void update(CreditLineRequestRecord creditLineRequestRecord) {
+    jdbcTemplate.update(UPDATE, statement -> setValues(statement, creditLineRequestRecord));
+  }
+
+  /**
+   * Increment the attempts of an accepted credit line request, with a single statement
+   *
+   * @param customerId requester id
+   * @param requestedDate date of the new request
+   * @return attempts counted with the new request, empty when the customer has no accepted request
+   */
+  public OptionalInt countAcceptedRequest(UUID customerId, ZonedDateTime requestedDate) {
+    // The attempts are read back as a generated key, in the same round trip as the update
+    KeyHolder countedAttempts = new GeneratedKeyHolder();
+    int counted =
+        jdbcTemplate.update(
+            connection -> {
+              PreparedStatement statement =
+                  connection.prepareStatement(COUNT_ACCEPTED_REQUEST, new String[] {"attempts"});
+              statement.setObject(
+                  1, requestedDate.toOffsetDateTime(), Types.TIMESTAMP_WITH_TIMEZONE);
+              statement.setObject(2, customerId);
+              return statement;
+            },
+            countedAttempts);
+
+    return counted > 0
+        ? OptionalInt.of(countedAttempts.getKeyAs(Integer.class))
+        : OptionalInt.empty();
+  }
+
+  private static CreditLineRequestRecord recordOf(ResultSet resultSet) throws SQLException {
+    return CreditLineRequestRecord.builder()
+        .customerId(resultSet.getObject("customer_id", UUID.class))
+        .acceptedCreditLineCents(Money.centsOf(resultSet.getBigDecimal("accepted_credit_line")))
+        .creditLineStatus(resultSet.getString("credit_line_status"))
+        .requestedDate(resultSet.getObject("requested_date", OffsetDateTime.class).toZonedDateTime())
+        .attempts(resultSet.getInt("attempts"))
+        .foundingType(resultSet.getString("founding_type"))
+        .cashBalanceCents(Money.centsOf(resultSet.getBigDecimal("cash_balance")))
+        .monthlyRevenueCents(Money.centsOf(resultSet.getBigDecimal("monthly_revenue")))
+        .requestedCreditLineCents(Money.centsOf(resultSet.getBigDecimal("requested_credit_line")))
+        .build();
+  }
+
+  private static void setValues(
+      PreparedStatement statement, CreditLineRequestRecord creditLineRequestRecord)
+      throws SQLException {
+    statement.setBigDecimal(
+        1, Money.toBigDecimal(creditLineRequestRecord.getAcceptedCreditLineCents()));
+    statement.setString(2, creditLineRequestRecord.getCreditLineStatus());
+    statement.setObject(
+        3,
+        creditLineRequestRecord.getRequestedDate().toOffsetDateTime(),
+        Types.TIMESTAMP_WITH_TIMEZONE);
+    statement.setInt(4, creditLineRequestRecord.getAttempts());
+    statement.setString(5, creditLineRequestRecord.getFoundingType());
+    statement.setBigDecimal(6, Money.toBigDecimal(creditLineRequestRecord.getCashBalanceCents()));
+    statement.setBigDecimal(
+        7, Money.toBigDecimal(creditLineRequestRecord.getMonthlyRevenueCents()));
+    statement.setBigDecimal(
+        8, Money.toBigDecimal(creditLineRequestRecord.getRequestedCreditLineCents()));
+    statement.setObject(9, creditLineRequestRecord.getCustomerId());
+  }
+}
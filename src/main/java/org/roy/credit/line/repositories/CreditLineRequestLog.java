@@ -0,0 +1,252 @@
+package org.roy.credit.line.repositories;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.utils.Money;
+
+/**
+ * Append only log of credit line request records, kept in a memory mapped file. The header holds
+ * a generation, which is increased each time the log is reset, and every record carries the
+ * generation it was written in and a checksum. Replaying the log stops at the first record of an
+ * older generation or with a bad checksum, so a reset log and a torn last write are both ignored.
+ *
+ * <p>Amounts are written as a scale and the big-endian two's complement bytes of the unscaled
+ * value, which is always scale two and the eight bytes of the cents for the records appended now.
+ * Records of other scales or lengths, appended by previous versions, are still replayed.
+ * The founding type and the financial data of the decision follow, records without them are
+ * replayed with an unknown founding type.
+ *
+ * <p>Writes reach the page cache as soon as they are appended, so they survive a crash of the
+ * process. {@link #force()} also makes them survive a crash of the host. The log is not thread
+ * safe, callers serialize the appends.
+ */
+public class CreditLineRequestLog implements Closeable {
+
+  private static final int MAGIC = 0x43524c4c;
+  private static final int HEADER_SIZE = 16;
+  private static final int GENERATION_OFFSET = 4;
+
+  /** Length and checksum of each record */
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  /** Cents of the amounts appended, as big-endian unscaled bytes */
+  private static final int CENTS_SIZE = Long.BYTES;
+
+  /** Founding type, -1 when unknown, and the cents of the financial data */
+  private static final int FINANCIAL_DATA_SIZE = 1 + 3 * Long.BYTES;
+
+  private static final byte UNKNOWN_FOUNDING_TYPE = -1;
+  private static final FoundingType[] FOUNDING_TYPES = FoundingType.values();
+
+  /** Generation, sequence, customer id, scale, requested date, offset, status and attempts */
+  private static final int FIXED_PAYLOAD_SIZE = 8 + 8 + 16 + 4 + 8 + 4 + 4 + 1 + 4 + 2;
+
+  private static final CreditLineStatus[] CREDIT_LINE_STATUSES = CreditLineStatus.values();
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final CRC32C checksum = new CRC32C();
+
+  private long generation;
+  private long sequence;
+
+  /**
+   * Open the log, creating the file when it does not exist yet
+   *
+   * @param file log file
+   * @param capacity size of the file in bytes
+   */
+  public CreditLineRequestLog(Path file, long capacity) {
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+
+      channel =
+          FileChannel.open(
+              file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      buffer = channel.map(MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+    } catch (IOException failure) {
+      throw new UncheckedIOException("Unable to open the write behind log " + file, failure);
+    }
+
+    if (buffer.getInt(0) == MAGIC) {
+      generation = buffer.getLong(GENERATION_OFFSET);
+    } else {
+      buffer.putInt(0, MAGIC);
+      buffer.putLong(GENERATION_OFFSET, generation);
+    }
+    buffer.position(HEADER_SIZE);
+  }
+
+  /**
+   * Read the records of the current generation, in the order they were appended, and move the end
+   * of the log after the last one
+   *
+   * @param recordConsumer receives each record and its sequence
+   */
+  public void replay(RecordConsumer recordConsumer) {
+    buffer.position(HEADER_SIZE);
+
+    while (buffer.remaining() > RECORD_HEADER_SIZE) {
+      int start = buffer.position();
+      int length = buffer.getInt(start);
+
+      if (length < FIXED_PAYLOAD_SIZE || length > buffer.remaining() - RECORD_HEADER_SIZE) {
+        break;
+      }
+
+      checksum.reset();
+      checksum.update(buffer.slice(start + RECORD_HEADER_SIZE, length));
+      if ((int) checksum.getValue() != buffer.getInt(start + 4)
+          || buffer.getLong(start + RECORD_HEADER_SIZE) != generation) {
+        break;
+      }
+
+      int end = start + RECORD_HEADER_SIZE + length;
+      buffer.position(start + RECORD_HEADER_SIZE + 8);
+      sequence = buffer.getLong();
+      CreditLineRequestRecord creditLineRequestRecord = read(end);
+      buffer.position(end);
+      recordConsumer.accept(sequence, creditLineRequestRecord);
+    }
+  }
+
+  /**
+   * Append a record at the end of the log
+   *
+   * @param creditLineRequestRecord record to be appended
+   * @return sequence of the record, or -1 when the log has no room left for it
+   */
+  public long append(CreditLineRequestRecord creditLineRequestRecord) {
+    int length = FIXED_PAYLOAD_SIZE + CENTS_SIZE + FINANCIAL_DATA_SIZE;
+    int start = buffer.position();
+
+    if (buffer.remaining() < RECORD_HEADER_SIZE + length) {
+      return -1;
+    }
+
+    ZonedDateTime requestedDate = creditLineRequestRecord.getRequestedDate();
+    Instant requestedInstant = requestedDate.toInstant();
+    UUID customerId = creditLineRequestRecord.getCustomerId();
+    var creditLineStatus = CreditLineStatus.valueOf(creditLineRequestRecord.getCreditLineStatus());
+    String foundingType = creditLineRequestRecord.getFoundingType();
+
+    buffer.position(start + RECORD_HEADER_SIZE);
+    buffer
+        .putLong(generation)
+        .putLong(++sequence)
+        .putLong(customerId.getMostSignificantBits())
+        .putLong(customerId.getLeastSignificantBits())
+        .putInt(Money.SCALE)
+        .putLong(requestedInstant.getEpochSecond())
+        .putInt(requestedInstant.getNano())
+        .putInt(requestedDate.getOffset().getTotalSeconds())
+        .put((byte) creditLineStatus.ordinal())
+        .putInt(creditLineRequestRecord.getAttempts())
+        .putShort((short) CENTS_SIZE)
+        .putLong(creditLineRequestRecord.getAcceptedCreditLineCents())
+        .put(
+            foundingType == null
+                ? UNKNOWN_FOUNDING_TYPE
+                : (byte) FoundingType.valueOf(foundingType).ordinal())
+        .putLong(creditLineRequestRecord.getCashBalanceCents())
+        .putLong(creditLineRequestRecord.getMonthlyRevenueCents())
+        .putLong(creditLineRequestRecord.getRequestedCreditLineCents());
+
+    checksum.reset();
+    checksum.update(buffer.slice(start + RECORD_HEADER_SIZE, length));
+
+    // The length is written last, so a record is never replayed before it is complete
+    buffer.putInt(start + 4, (int) checksum.getValue());
+    buffer.putInt(start, length);
+
+    return sequence;
+  }
+
+  /** Discard every record, once all of them are stored in the database */
+  public void reset() {
+    buffer.putLong(GENERATION_OFFSET, ++generation);
+    buffer.position(HEADER_SIZE);
+  }
+
+  /** Bytes used by the records of the current generation */
+  public long usedBytes() {
+    return buffer.position() - (long) HEADER_SIZE;
+  }
+
+  /** Write the appended records to the storage device */
+  public void force() {
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    channel.close();
+  }
+
+  private CreditLineRequestRecord read(int end) {
+    var customerId = new UUID(buffer.getLong(), buffer.getLong());
+    int scale = buffer.getInt();
+    var requestedInstant = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    var offset = ZoneOffset.ofTotalSeconds(buffer.getInt());
+    CreditLineStatus creditLineStatus = CREDIT_LINE_STATUSES[buffer.get()];
+    int attempts = buffer.getInt();
+    long acceptedCreditLineCents = readCents(scale, buffer.getShort());
+
+    var creditLineRequestRecord =
+        CreditLineRequestRecord.builder()
+            .customerId(customerId)
+            .acceptedCreditLineCents(acceptedCreditLineCents)
+            .creditLineStatus(creditLineStatus.name())
+            .requestedDate(ZonedDateTime.ofInstant(requestedInstant, offset))
+            .attempts(attempts)
+            .build();
+
+    if (end - buffer.position() >= FINANCIAL_DATA_SIZE) {
+      byte foundingType = buffer.get();
+      creditLineRequestRecord.setFoundingType(
+          foundingType == UNKNOWN_FOUNDING_TYPE ? null : FOUNDING_TYPES[foundingType].name());
+      creditLineRequestRecord.setCashBalanceCents(buffer.getLong());
+      creditLineRequestRecord.setMonthlyRevenueCents(buffer.getLong());
+      creditLineRequestRecord.setRequestedCreditLineCents(buffer.getLong());
+    }
+
+    return creditLineRequestRecord;
+  }
+
+  private long readCents(int scale, int unscaledLength) {
+    if (scale == Money.SCALE && unscaledLength == CENTS_SIZE) {
+      return buffer.getLong();
+    }
+
+    byte[] unscaledValue = new byte[unscaledLength];
+    buffer.get(unscaledValue);
+    return Money.centsOf(new BigDecimal(new BigInteger(unscaledValue), scale));
+  }
+
+  /** Receives the records read by {@link #replay(RecordConsumer)} */
+  @FunctionalInterface
+  public interface RecordConsumer {
+
+    void accept(long sequence, CreditLineRequestRecord creditLineRequestRecord);
+  }
+}
@@ -0,0 +1,67 @@
+package org.roy.credit.line.repositories;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Function;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+
+/**
+ * Last credit line request of each customer, as seen by the credit line services. Depending on
+ * the write-behind.enabled property, decisions are stored in the database right away or by a
+ * background flush.
+ */
+public interface CreditLineRequestStore {
+
+  /**
+   * Load the last credit line request of the customer
+   *
+   * @param customerId requester id
+   * @return last request, empty for customers without any
+   */
+  Optional<CreditLineRequestRecord> findById(UUID customerId);
+
+  /**
+   * Replace the last credit line request of the customer by the one decided from it. Concurrent
+   * updates of the same customer run one after the other, so none of them is lost.
+   *
+   * @param customerId requester id
+   * @param decision decides the new request from the last one, may run more than once
+   * @param toRecord maps the decision to the record to be stored
+   * @return the decision stored
+   */
+  <T> T update(
+      UUID customerId,
+      Function<Optional<CreditLineRequestRecord>, T> decision,
+      Function<T, CreditLineRequestRecord> toRecord);
+
+  /**
+   * Replace the last credit line requests of several customers by the ones decided from them, as
+   * {@link #update} does for a single customer: updates sharing a customer run one after the
+   * other, so none of them is lost.
+   *
+   * @param customerIds distinct requester ids
+   * @param decisions decides the new requests from the last ones, by customer id, customers without
+   *     any request being absent. May run more than once
+   * @param toRecords maps the decisions to the records to be stored, at most one per customer
+   * @return the decisions stored
+   */
+  <T> T updateAll(
+      Collection<UUID> customerIds,
+      Function<Map<UUID, CreditLineRequestRecord>, T> decisions,
+      Function<T, Collection<CreditLineRequestRecord>> toRecords);
+
+  /**
+   * Count a new request of a customer whose credit line is accepted already, without reading the
+   * last request: its attempts are incremented and its requested date replaced
+   *
+   * @param customerId requester id
+   * @param requestedDate date of the new request
+   * @return attempts counted with the new request, empty when no accepted request of the customer
+   *     is stored
+   */
+  OptionalInt countAcceptedRequest(UUID customerId, ZonedDateTime requestedDate);
+}
@@ -0,0 +1,156 @@
+package org.roy.credit.line.repositories;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.partitioningBy;
+import static java.util.stream.Collectors.toMap;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores each credit line decision in the database before the request is answered. An update
+ * locks the row of the customer with SELECT ... FOR UPDATE and writes it with a single statement,
+ * in one transaction. A batch update locks the rows of all its customers the same way, in the
+ * order of their ids, and writes them with JDBC batches.
+ *
+ * <p>When a concurrent request stores the first record of a customer meanwhile, the decision is
+ * taken again from it, once: a second conflict is raised to the caller.
+ */
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(
+    prefix = "write-behind",
+    name = "enabled",
+    havingValue = "false",
+    matchIfMissing = true)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class DirectCreditLineRequestStore implements CreditLineRequestStore {
+
+  private static final int MAX_ATTEMPTS = 2;
+
+  private final CreditLineRequestRepository creditLineRequestsRepository;
+  private final CreditLineRequestJdbcRepository creditLineRequestJdbcRepository;
+  private final CreditLineRequestBatchRepository creditLineRequestBatchRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  @Override
+  public Optional<CreditLineRequestRecord> findById(UUID customerId) {
+    return creditLineRequestsRepository.findById(customerId);
+  }
+
+  @Override
+  public <T> T update(
+      UUID customerId,
+      Function<Optional<CreditLineRequestRecord>, T> decision,
+      Function<T, CreditLineRequestRecord> toRecord) {
+
+    for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+      try {
+        Optional<T> stored = store(customerId, decision, toRecord);
+        if (stored.isPresent()) {
+          return stored.get();
+        }
+      } catch (DuplicateKeyException concurrentFirstRequest) {
+        // Raised instead of skipping the insert by databases without ON CONFLICT locking
+      }
+
+      // A concurrent request stored the first record of the customer, decide again from it
+    }
+
+    return store(customerId, decision, toRecord)
+        .orElseThrow(() -> new InternalServerErrorException(Messages.FIRST_REQUEST_NOT_STORED_MSG));
+  }
+
+  /** Decide from the locked last record, empty when a concurrent request inserted the first one */
+  private <T> Optional<T> store(
+      UUID customerId,
+      Function<Optional<CreditLineRequestRecord>, T> decision,
+      Function<T, CreditLineRequestRecord> toRecord) {
+
+    return transactionTemplate.execute(
+        status -> {
+          Optional<CreditLineRequestRecord> lastCreditLineRecord =
+              creditLineRequestJdbcRepository.findByIdForUpdate(customerId);
+          T decided = decision.apply(lastCreditLineRecord);
+          CreditLineRequestRecord creditLineRequestRecord = toRecord.apply(decided);
+
+          if (lastCreditLineRecord.isPresent()) {
+            creditLineRequestJdbcRepository.update(creditLineRequestRecord);
+            return Optional.of(decided);
+          }
+
+          if (creditLineRequestJdbcRepository.insertIfAbsent(creditLineRequestRecord)) {
+            return Optional.of(decided);
+          }
+
+          status.setRollbackOnly();
+          return Optional.empty();
+        });
+  }
+
+  @Override
+  public <T> T updateAll(
+      Collection<UUID> customerIds,
+      Function<Map<UUID, CreditLineRequestRecord>, T> decisions,
+      Function<T, Collection<CreditLineRequestRecord>> toRecords) {
+
+    for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+      try {
+        return storeAll(customerIds, decisions, toRecords);
+      } catch (DuplicateKeyException concurrentFirstRequest) {
+        // A concurrent request stored the first record of a customer, decide again from it
+      }
+    }
+
+    return storeAll(customerIds, decisions, toRecords);
+  }
+
+  /** Decide from the locked last records, inserting the first records of the other customers */
+  private <T> T storeAll(
+      Collection<UUID> customerIds,
+      Function<Map<UUID, CreditLineRequestRecord>, T> decisions,
+      Function<T, Collection<CreditLineRequestRecord>> toRecords) {
+
+    return transactionTemplate.execute(
+        status -> {
+          Map<UUID, CreditLineRequestRecord> lastCreditLineRecords =
+              creditLineRequestJdbcRepository.findAllByIdForUpdate(customerIds).stream()
+                  .collect(toMap(CreditLineRequestRecord::getCustomerId, identity()));
+          T decided = decisions.apply(lastCreditLineRecords);
+
+          Map<Boolean, List<CreditLineRequestRecord>> recordsByStored =
+              toRecords.apply(decided).stream()
+                  .collect(
+                      partitioningBy(
+                          creditLineRequestRecord ->
+                              lastCreditLineRecords.containsKey(
+                                  creditLineRequestRecord.getCustomerId())));
+          creditLineRequestBatchRepository.updateAll(recordsByStored.get(true));
+          creditLineRequestBatchRepository.insertAll(recordsByStored.get(false));
+
+          return decided;
+        });
+  }
+
+  @Override
+  public OptionalInt countAcceptedRequest(UUID customerId, ZonedDateTime requestedDate) {
+    return creditLineRequestJdbcRepository.countAcceptedRequest(customerId, requestedDate);
+  }
+}
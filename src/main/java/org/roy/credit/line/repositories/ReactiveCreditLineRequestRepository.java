@@ -0,0 +1,132 @@
+package org.roy.credit.line.repositories;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/** Non-blocking access to the CREDIT_LINE_REQUESTS table, used by the reactive edition */
+@Repository
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveCreditLineRequestRepository {
+
+  private static final String FIND_BY_ID_FOR_UPDATE =
+      "SELECT customer_id, accepted_credit_line, credit_line_status, requested_date, attempts,"
+          + " founding_type, cash_balance, monthly_revenue, requested_credit_line"
+          + " FROM credit_line_requests WHERE customer_id = :customerId FOR UPDATE";
+
+  private static final String INSERT_IF_ABSENT =
+      "INSERT INTO credit_line_requests"
+          + " (customer_id, accepted_credit_line, credit_line_status, requested_date, attempts,"
+          + " founding_type, cash_balance, monthly_revenue, requested_credit_line)"
+          + " VALUES (:customerId, :acceptedCreditLine, :creditLineStatus, :requestedDate,"
+          + " :attempts, :foundingType, :cashBalance, :monthlyRevenue, :requestedCreditLine)"
+          + " ON CONFLICT DO NOTHING";
+
+  private static final String UPDATE =
+      "UPDATE credit_line_requests SET"
+          + " accepted_credit_line = :acceptedCreditLine,"
+          + " credit_line_status = :creditLineStatus,"
+          + " requested_date = :requestedDate,"
+          + " attempts = :attempts,"
+          + " founding_type = :foundingType,"
+          + " cash_balance = :cashBalance,"
+          + " monthly_revenue = :monthlyRevenue,"
+          + " requested_credit_line = :requestedCreditLine"
+          + " WHERE customer_id = :customerId";
+
+  private final DatabaseClient databaseClient;
+
+  /**
+   * Read the credit line request of the customer and lock its row until the end of the
+   * transaction, so concurrent requests of the customer decide one after the other
+   *
+   * @param customerId requester id
+   * @return the stored request, empty for a customer without any
+   */
+  public Mono<CreditLineRequestRecord> findByIdForUpdate(UUID customerId) {
+    return databaseClient
+        .sql(FIND_BY_ID_FOR_UPDATE)
+        .bind("customerId", customerId)
+        .map(
+            row ->
+                CreditLineRequestRecord.builder()
+                    .customerId(row.get("customer_id", UUID.class))
+                    .acceptedCreditLineCents(
+                        Money.centsOf(row.get("accepted_credit_line", BigDecimal.class)))
+                    .creditLineStatus(row.get("credit_line_status", String.class))
+                    .requestedDate(
+                        row.get("requested_date", OffsetDateTime.class).toZonedDateTime())
+                    .attempts(row.get("attempts", Integer.class))
+                    .foundingType(row.get("founding_type", String.class))
+                    .cashBalanceCents(Money.centsOf(row.get("cash_balance", BigDecimal.class)))
+                    .monthlyRevenueCents(
+                        Money.centsOf(row.get("monthly_revenue", BigDecimal.class)))
+                    .requestedCreditLineCents(
+                        Money.centsOf(row.get("requested_credit_line", BigDecimal.class)))
+                    .build())
+        .one();
+  }
+
+  /**
+   * Insert the first credit line request of a customer, unless a concurrent request stored one
+   * since {@link #findByIdForUpdate(UUID)} found none
+   *
+   * @param creditLineRequestRecord record to be stored
+   * @return true if it was inserted, false if the customer has a stored request
+   */
+  public Mono<Boolean> insertIfAbsent(CreditLineRequestRecord creditLineRequestRecord) {
+    return bind(databaseClient.sql(INSERT_IF_ABSENT), creditLineRequestRecord)
+        .fetch()
+        .rowsUpdated()
+        .map(rowsUpdated -> rowsUpdated > 0);
+  }
+
+  /**
+   * Replace the credit line request of the customer, locked by {@link #findByIdForUpdate(UUID)}
+   *
+   * @param creditLineRequestRecord record to be stored
+   * @return completion of the statement
+   */
+  public Mono<Void> update(CreditLineRequestRecord creditLineRequestRecord) {
+    return bind(databaseClient.sql(UPDATE), creditLineRequestRecord).then();
+  }
+
+  private static GenericExecuteSpec bind(
+      GenericExecuteSpec statement, CreditLineRequestRecord creditLineRequestRecord) {
+
+    GenericExecuteSpec boundStatement =
+        statement
+            .bind("customerId", creditLineRequestRecord.getCustomerId())
+            .bind(
+                "acceptedCreditLine",
+                Money.toBigDecimal(creditLineRequestRecord.getAcceptedCreditLineCents()))
+            .bind("creditLineStatus", creditLineRequestRecord.getCreditLineStatus())
+            .bind("requestedDate", creditLineRequestRecord.getRequestedDate().toOffsetDateTime())
+            .bind("attempts", creditLineRequestRecord.getAttempts())
+            .bind(
+                "cashBalance", Money.toBigDecimal(creditLineRequestRecord.getCashBalanceCents()))
+            .bind(
+                "monthlyRevenue",
+                Money.toBigDecimal(creditLineRequestRecord.getMonthlyRevenueCents()))
+            .bind(
+                "requestedCreditLine",
+                Money.toBigDecimal(creditLineRequestRecord.getRequestedCreditLineCents()));
+
+    // Accepted requests decided before the founding type was stored keep it unknown
+    String foundingType = creditLineRequestRecord.getFoundingType();
+    return foundingType == null
+        ? boundStatement.bindNull("foundingType", String.class)
+        : boundStatement.bind("foundingType", foundingType);
+  }
+}
@@ -0,0 +1,363 @@
+package org.roy.credit.line.repositories;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.WriteBehindProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Answers the request once its decision is appended to the {@link CreditLineRequestLog}, and
+ * stores the decisions in the database in the background. Pending decisions are kept by customer,
+ * so a customer deciding several times between two flushes is written once, and reads see them
+ * before the database.
+ *
+ * <p>The decisions left in the log by a crash are replayed on startup. The log is reset once every
+ * decision it holds is stored. A request finding it full has it flushed in the background and
+ * waits for its reset, up to the append timeout, without blocking the other appends' lock.
+ */
+@Log4j2
+@Repository
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(prefix = "write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindCreditLineRequestStore implements CreditLineRequestStore, DisposableBean {
+
+  /** Power of two, so the stripe of a customer is a mask of its hash */
+  private static final int CUSTOMER_LOCK_STRIPES = 1024;
+
+  private final CreditLineRequestRepository creditLineRequestsRepository;
+  private final CreditLineRequestBatchRepository creditLineRequestBatchRepository;
+  private final CreditLineRequestLog requestLog;
+  private final Map<UUID, PendingRecord> pendingRecords = new ConcurrentHashMap<>();
+
+  // Locks instead of monitors, so virtual threads waiting on them are not pinned
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final Condition logReset = appendLock.newCondition();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final ReentrantLock[] customerLocks = new ReentrantLock[CUSTOMER_LOCK_STRIPES];
+
+  private final Timer flushTimer;
+  private final long appendTimeoutNanos;
+  private final ExecutorService flushExecutor =
+      Executors.newSingleThreadExecutor(Thread.ofVirtual().name("write-behind-flush").factory());
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+  @Autowired
+  public WriteBehindCreditLineRequestStore(
+      CreditLineRequestRepository creditLineRequestsRepository,
+      CreditLineRequestBatchRepository creditLineRequestBatchRepository,
+      WriteBehindProperties writeBehindProperties,
+      MeterRegistry meterRegistry) {
+
+    this.creditLineRequestsRepository = creditLineRequestsRepository;
+    this.creditLineRequestBatchRepository = creditLineRequestBatchRepository;
+    this.appendTimeoutNanos = writeBehindProperties.getAppendTimeout().toNanos();
+    for (int i = 0; i < CUSTOMER_LOCK_STRIPES; i++) {
+      customerLocks[i] = new ReentrantLock();
+    }
+    this.requestLog =
+        new CreditLineRequestLog(
+            writeBehindProperties.getLogFile(), writeBehindProperties.getLogSize().toBytes());
+
+    requestLog.replay(
+        (sequence, creditLineRequestRecord) ->
+            pendingRecords.put(
+                creditLineRequestRecord.getCustomerId(),
+                new PendingRecord(sequence, creditLineRequestRecord, System.nanoTime())));
+    if (!pendingRecords.isEmpty()) {
+      log.info("Replayed {} credit line requests from the write behind log", pendingRecords.size());
+    }
+
+    Gauge.builder("credit.line.write.behind.pending", pendingRecords, Map::size)
+        .description("Customers whose last decision is not stored in the database yet")
+        .register(meterRegistry);
+    Gauge.builder("credit.line.write.behind.log.used", requestLog, CreditLineRequestLog::usedBytes)
+        .description("Bytes of the write behind log used by the pending decisions")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    TimeGauge.builder(
+            "credit.line.write.behind.flush.lag", this, TimeUnit.NANOSECONDS, store -> flushLag())
+        .description("Age of the oldest decision not stored in the database yet")
+        .register(meterRegistry);
+    flushTimer =
+        Timer.builder("credit.line.write.behind.flush")
+            .description("Time spent storing the pending decisions in the database")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public Optional<CreditLineRequestRecord> findById(UUID customerId) {
+    PendingRecord pendingRecord = pendingRecords.get(customerId);
+
+    return pendingRecord != null
+        ? Optional.of(pendingRecord.creditLineRequestRecord())
+        : creditLineRequestsRepository.findById(customerId);
+  }
+
+  @Override
+  public <T> T update(
+      UUID customerId,
+      Function<Optional<CreditLineRequestRecord>, T> decision,
+      Function<T, CreditLineRequestRecord> toRecord) {
+
+    ReentrantLock customerLock = customerLockOf(customerId);
+    customerLock.lock();
+    try {
+      T decided = decision.apply(findById(customerId));
+      appendLocked(toRecord.apply(decided));
+
+      return decided;
+    } finally {
+      customerLock.unlock();
+    }
+  }
+
+  @Override
+  public <T> T updateAll(
+      Collection<UUID> customerIds,
+      Function<Map<UUID, CreditLineRequestRecord>, T> decisions,
+      Function<T, Collection<CreditLineRequestRecord>> toRecords) {
+
+    // Stripes are locked in index order, so batches sharing some of them never deadlock
+    List<ReentrantLock> batchLocks =
+        customerIds.stream()
+            .mapToInt(this::customerStripeOf)
+            .distinct()
+            .sorted()
+            .mapToObj(stripe -> customerLocks[stripe])
+            .toList();
+
+    batchLocks.forEach(ReentrantLock::lock);
+    try {
+      T decided = decisions.apply(findAllById(customerIds));
+
+      appendLock.lock();
+      try {
+        toRecords.apply(decided).forEach(this::append);
+      } finally {
+        appendLock.unlock();
+      }
+
+      return decided;
+    } finally {
+      batchLocks.reversed().forEach(ReentrantLock::unlock);
+    }
+  }
+
+  @Override
+  public OptionalInt countAcceptedRequest(UUID customerId, ZonedDateTime requestedDate) {
+    ReentrantLock customerLock = customerLockOf(customerId);
+    customerLock.lock();
+    try {
+      Optional<CreditLineRequestRecord> acceptedRequest =
+          findById(customerId)
+              .filter(
+                  lastCreditLineRecord ->
+                      CreditLineStatus.ACCEPTED
+                          .name()
+                          .equals(lastCreditLineRecord.getCreditLineStatus()));
+
+      if (acceptedRequest.isEmpty()) {
+        return OptionalInt.empty();
+      }
+
+      CreditLineRequestRecord lastCreditLineRecord = acceptedRequest.get();
+      int attempts = lastCreditLineRecord.getAttempts() + 1;
+      appendLocked(
+          CreditLineRequestRecord.builder()
+              .customerId(customerId)
+              .acceptedCreditLineCents(lastCreditLineRecord.getAcceptedCreditLineCents())
+              .creditLineStatus(lastCreditLineRecord.getCreditLineStatus())
+              .requestedDate(requestedDate)
+              .attempts(attempts)
+              .foundingType(lastCreditLineRecord.getFoundingType())
+              .cashBalanceCents(lastCreditLineRecord.getCashBalanceCents())
+              .monthlyRevenueCents(lastCreditLineRecord.getMonthlyRevenueCents())
+              .requestedCreditLineCents(lastCreditLineRecord.getRequestedCreditLineCents())
+              .build());
+
+      return OptionalInt.of(attempts);
+    } finally {
+      customerLock.unlock();
+    }
+  }
+
+  /** Store the pending decisions in the database, then reset the log if nothing is left */
+  @Scheduled(fixedDelayString = "${write-behind.flush-interval:PT0.2S}")
+  public void flushPendingRecords() {
+    requestLog.force();
+
+    try {
+      flush();
+    } catch (DataAccessException failure) {
+      log.error("Unable to store the pending credit line requests, retrying later", failure);
+      return;
+    }
+
+    appendLock.lock();
+    try {
+      if (pendingRecords.isEmpty()) {
+        requestLog.reset();
+        logReset.signalAll();
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    flushExecutor.shutdown();
+    try {
+      flush();
+    } finally {
+      requestLog.close();
+    }
+  }
+
+  private ReentrantLock customerLockOf(UUID customerId) {
+    return customerLocks[customerStripeOf(customerId)];
+  }
+
+  private int customerStripeOf(UUID customerId) {
+    return customerId.hashCode() & (CUSTOMER_LOCK_STRIPES - 1);
+  }
+
+  /** Last requests of the customers, pending ones first, the caller holds their stripe locks */
+  private Map<UUID, CreditLineRequestRecord> findAllById(Collection<UUID> customerIds) {
+    Map<UUID, CreditLineRequestRecord> creditLineRequestRecords = new HashMap<>();
+    List<UUID> storedCustomerIds = new ArrayList<>();
+
+    for (UUID customerId : customerIds) {
+      PendingRecord pendingRecord = pendingRecords.get(customerId);
+      if (pendingRecord != null) {
+        creditLineRequestRecords.put(customerId, pendingRecord.creditLineRequestRecord());
+      } else {
+        storedCustomerIds.add(customerId);
+      }
+    }
+
+    if (!storedCustomerIds.isEmpty()) {
+      creditLineRequestsRepository
+          .findAllById(storedCustomerIds)
+          .forEach(
+              creditLineRequestRecord ->
+                  creditLineRequestRecords.put(
+                      creditLineRequestRecord.getCustomerId(), creditLineRequestRecord));
+    }
+
+    return creditLineRequestRecords;
+  }
+
+  private void appendLocked(CreditLineRequestRecord creditLineRequestRecord) {
+    appendLock.lock();
+    try {
+      append(creditLineRequestRecord);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /** Append the record to the log, the caller holds the append lock */
+  private void append(CreditLineRequestRecord creditLineRequestRecord) {
+    long sequence = requestLog.append(creditLineRequestRecord);
+    long remainingNanos = appendTimeoutNanos;
+
+    while (sequence < 0) {
+      // The log is full: have it stored and reset, releasing the append lock while waiting
+      requestFlush();
+      if (remainingNanos <= 0) {
+        throw new InternalServerErrorException("The write behind log is full");
+      }
+      try {
+        remainingNanos = logReset.awaitNanos(remainingNanos);
+      } catch (InterruptedException interrupted) {
+        Thread.currentThread().interrupt();
+        throw new InternalServerErrorException("Interrupted waiting for the write behind log");
+      }
+      sequence = requestLog.append(creditLineRequestRecord);
+    }
+
+    pendingRecords.put(
+        creditLineRequestRecord.getCustomerId(),
+        new PendingRecord(sequence, creditLineRequestRecord, System.nanoTime()));
+  }
+
+  /**
+   * Store the last pending decision of each customer with JDBC batches. Decisions appended while
+   * the batches run stay pending for the next flush.
+   */
+  private void flush() {
+    flushLock.lock();
+    try {
+      List<PendingRecord> flushedRecords = List.copyOf(pendingRecords.values());
+
+      if (flushedRecords.isEmpty()) {
+        return;
+      }
+
+      flushTimer.record(
+          () ->
+              creditLineRequestBatchRepository.upsertAll(
+                  flushedRecords.stream().map(PendingRecord::creditLineRequestRecord).toList()));
+
+      flushedRecords.forEach(
+          flushedRecord ->
+              pendingRecords.remove(
+                  flushedRecord.creditLineRequestRecord().getCustomerId(), flushedRecord));
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /** Flush the pending decisions in the background, once for all the requests asking meanwhile */
+  private void requestFlush() {
+    if (flushRequested.compareAndSet(false, true)) {
+      flushExecutor.execute(
+          () -> {
+            flushRequested.set(false);
+            flushPendingRecords();
+          });
+    }
+  }
+
+  private long flushLag() {
+    return pendingRecords.values().stream()
+        .mapToLong(pendingRecord -> System.nanoTime() - pendingRecord.appendedAt())
+        .max()
+        .orElse(0);
+  }
+
+  private record PendingRecord(
+      long sequence, CreditLineRequestRecord creditLineRequestRecord, long appendedAt) {}
+}
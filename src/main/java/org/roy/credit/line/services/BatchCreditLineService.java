@@ -0,0 +1,18 @@
+package org.roy.credit.line.services;
+
+import java.util.List;
+import org.roy.credit.line.models.requests.BatchCreditLineRequestItem;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
+
+public interface BatchCreditLineService {
+
+  /**
+   * Process several credit line requests at once. Requests of the same customer are processed in
+   * order, each one seeing the result of the previous one.
+   *
+   * @param batchCreditLineRequestItems credit line requests
+   * @return the result of each request, in the order of the requests
+   */
+  List<BatchCreditLineResponseItem> requestCreditLines(
+      List<BatchCreditLineRequestItem> batchCreditLineRequestItems);
+}
@@ -0,0 +1,189 @@
+package org.roy.credit.line.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.models.requests.BatchCreditLineRequestItem;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
+import org.roy.credit.line.models.responses.ResponseError;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryWriter;
+import org.roy.credit.line.repositories.CreditLineRequestStore;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+/**
+ * Batch edition of the {@link CreditLineServiceImpl}. The round trips of a batch do not depend on
+ * its size: one Redis pipeline checks the rate limits, one query loads and locks the last
+ * records, JDBC batches store the results and a last Redis pipeline sets the new rate limits.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BatchCreditLineServiceImpl implements BatchCreditLineService {
+
+  // Dependency Injection
+  private final CreditLineDecisionEngine creditLineDecisionEngine;
+  private final CreditLineRequestStore creditLineRequestStore;
+  private final RateLimitService rateLimitService;
+  private final CreditLineRequestHistoryWriter creditLineRequestHistory;
+
+  /** {@inheritDoc} */
+  @Override
+  public List<BatchCreditLineResponseItem> requestCreditLines(
+      List<BatchCreditLineRequestItem> batchCreditLineRequestItems) {
+
+    List<Boolean> allowed =
+        rateLimitService.checkRateLimitsFor(
+            batchCreditLineRequestItems.stream()
+                .map(BatchCreditLineRequestItem::getCustomerId)
+                .toList());
+
+    List<UUID> allowedCustomerIds =
+        IntStream.range(0, batchCreditLineRequestItems.size())
+            .filter(allowed::get)
+            .mapToObj(i -> batchCreditLineRequestItems.get(i).getCustomerId())
+            .distinct()
+            .toList();
+
+    if (allowedCustomerIds.isEmpty()) {
+      return batchCreditLineRequestItems.stream()
+          .map(item -> getRateLimitedResponseItem(item.getCustomerId()))
+          .toList();
+    }
+
+    // The rows of the customers stay locked while the batch is decided, so no request is lost
+    BatchDecisions batchDecisions =
+        creditLineRequestStore.updateAll(
+            allowedCustomerIds,
+            lastCreditLineRecords ->
+                decide(batchCreditLineRequestItems, allowed, lastCreditLineRecords),
+            BatchDecisions::creditLineRecords);
+
+    rateLimitService.setRateLimitsFor(
+        batchDecisions.acceptedCustomerIds(), batchDecisions.rejectedCustomerIds());
+    creditLineRequestHistory.record(batchDecisions.evaluations());
+
+    return batchDecisions.responseItems();
+  }
+
+  /**
+   * Decide the allowed requests of the batch in order, each one from the last record of its
+   * customer
+   *
+   * @param batchCreditLineRequestItems requests of the batch
+   * @param allowed whether each request is within the rate limits
+   * @param storedCreditLineRecords last records by customer id, customers without any are absent
+   * @return the decisions, with one response item per request
+   */
+  private BatchDecisions decide(
+      List<BatchCreditLineRequestItem> batchCreditLineRequestItems,
+      List<Boolean> allowed,
+      Map<UUID, CreditLineRequestRecord> storedCreditLineRecords) {
+
+    Map<UUID, CreditLineRequestRecord> lastCreditLineRecords =
+        new HashMap<>(storedCreditLineRecords);
+    Map<UUID, CreditLineRequestRecord> processedCreditLineRecords = new LinkedHashMap<>();
+    Set<UUID> acceptedCustomerIds = new LinkedHashSet<>();
+    Set<UUID> rejectedCustomerIds = new LinkedHashSet<>();
+    List<BatchCreditLineResponseItem> responseItems =
+        new ArrayList<>(batchCreditLineRequestItems.size());
+    List<CreditLineRequestHistoryDao> evaluations = new ArrayList<>();
+
+    for (int i = 0; i < batchCreditLineRequestItems.size(); i++) {
+      BatchCreditLineRequestItem item = batchCreditLineRequestItems.get(i);
+      UUID customerId = item.getCustomerId();
+
+      if (!allowed.get(i)) {
+        responseItems.add(getRateLimitedResponseItem(customerId));
+        continue;
+      }
+
+      CreditLineRequestRecordDao processedCreditLineRequest =
+          creditLineDecisionEngine.decide(
+              customerId,
+              item.getCreditLineRequest(),
+              item.getFoundingType(),
+              Optional.ofNullable(lastCreditLineRecords.get(customerId)));
+
+      // The next request of the same customer sees this one as the last record
+      CreditLineRequestRecord processedCreditLineRecord =
+          creditLineDecisionEngine.toEntity(processedCreditLineRequest);
+      lastCreditLineRecords.put(customerId, processedCreditLineRecord);
+      processedCreditLineRecords.put(customerId, processedCreditLineRecord);
+      evaluations.add(
+          creditLineDecisionEngine.toHistory(
+              item.getCreditLineRequest(), item.getFoundingType(), processedCreditLineRequest));
+
+      if (CreditLineDecisionEngine.isRejected(processedCreditLineRequest)) {
+        rejectedCustomerIds.add(customerId);
+      } else {
+        acceptedCustomerIds.add(customerId);
+      }
+      responseItems.add(getResponseItem(processedCreditLineRequest));
+    }
+
+    return new BatchDecisions(
+        responseItems,
+        List.copyOf(processedCreditLineRecords.values()),
+        acceptedCustomerIds,
+        rejectedCustomerIds,
+        evaluations);
+  }
+
+  private BatchCreditLineResponseItem getResponseItem(
+      CreditLineRequestRecordDao processedCreditLineRequest) {
+
+    var responseItem =
+        BatchCreditLineResponseItem.builder()
+            .customerId(processedCreditLineRequest.getCustomerId())
+            .creditLineStatus(processedCreditLineRequest.getCreditLineStatus());
+
+    if (CreditLineDecisionEngine.isRejected(processedCreditLineRequest)) {
+      String rejectionMessage =
+          creditLineDecisionEngine.rejectionMessageOf(processedCreditLineRequest);
+      return responseItem.message(StringUtils.defaultIfEmpty(rejectionMessage, null)).build();
+    }
+
+    return responseItem
+        .acceptedCreditLine(
+            Money.toBigDecimal(processedCreditLineRequest.getAcceptedCreditLineCents()))
+        .build();
+  }
+
+  private BatchCreditLineResponseItem getRateLimitedResponseItem(UUID customerId) {
+    return BatchCreditLineResponseItem.builder()
+        .customerId(customerId)
+        .error(
+            ResponseError.builder()
+                .errorCode(HttpStatus.TOO_MANY_REQUESTS)
+                .errorType(ErrorType.EXCEED_API_QUOTA)
+                .errorMessage(Messages.TOO_MANY_REQUESTS_MSG)
+                .build())
+        .build();
+  }
+
+  private record BatchDecisions(
+      List<BatchCreditLineResponseItem> responseItems,
+      List<CreditLineRequestRecord> creditLineRecords,
+      Set<UUID> acceptedCustomerIds,
+      Set<UUID> rejectedCustomerIds,
+      List<CreditLineRequestHistoryDao> evaluations) {}
+}
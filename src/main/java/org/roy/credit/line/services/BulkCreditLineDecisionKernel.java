@@ -0,0 +1,208 @@
+package org.roy.credit.line.services;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.roy.credit.line.configs.BulkDecisionProperties;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.dtos.CreditLineDecisionColumns;
+import org.roy.credit.line.models.dtos.FinancialDataColumns;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The founding type strategies run over whole columns of financial data, to re-score a portfolio.
+ * Rows are decided as the {@code SmeRequesterStrategy} and {@code StartUpRequesterStrategy} decide
+ * a single request, split in chunks across a fork join pool of its own.
+ *
+ * <p>Each chunk is decided by a straight loop over the primitive columns, without branches, calls
+ * or allocations, so the JIT compiles it to SIMD instructions. Amounts are compared by multiplying
+ * the requested credit line by the ratio in a long, which is exact while no amount is negative
+ * and the product fits in a long. Chunks with any other amount are decided row by row, with the
+ * exact comparison of the strategies.
+ */
+@Component
+public class BulkCreditLineDecisionKernel implements DisposableBean {
+
+  private static final byte SME = (byte) FoundingType.SME.ordinal();
+  private static final byte STARTUP = (byte) FoundingType.STARTUP.ordinal();
+
+  private final RatioProperties ratioProperties;
+  private final int chunkSize;
+  private final ForkJoinPool pool;
+
+  @Autowired
+  public BulkCreditLineDecisionKernel(
+      RatioProperties ratioProperties, BulkDecisionProperties bulkDecisionProperties) {
+    this.ratioProperties = ratioProperties;
+    this.chunkSize = bulkDecisionProperties.getChunkSize();
+    this.pool = new ForkJoinPool(bulkDecisionProperties.getParallelism());
+  }
+
+  /**
+   * Decide the credit lines of every row with the configured ratios
+   *
+   * @param financialData requesters financial data
+   * @return the decisions, in the rows of the financial data
+   */
+  public CreditLineDecisionColumns decide(FinancialDataColumns financialData) {
+    CreditLineDecisionColumns decisions = CreditLineDecisionColumns.ofSize(financialData.size());
+    decide(financialData, ratioProperties, decisions);
+    return decisions;
+  }
+
+  /**
+   * Decide the credit lines of every row, with ratios other than the configured ones
+   *
+   * @param financialData requesters financial data
+   * @param ratios ratios of the recommended credit lines
+   * @param decisions columns written with the decisions, of the size of the financial data
+   */
+  public void decide(
+      FinancialDataColumns financialData,
+      RatioProperties ratios,
+      CreditLineDecisionColumns decisions) {
+
+    if (decisions.size() != financialData.size()) {
+      throw new IllegalArgumentException("Decision columns of another size than the columns");
+    }
+    if (ratios.getMonthlyRevenue() <= 0 || ratios.getCashBalance() <= 0) {
+      throw new IllegalArgumentException("Credit line ratios must be positive");
+    }
+
+    pool.invoke(
+        new DecisionTask(
+            financialData,
+            ratios.getMonthlyRevenue(),
+            ratios.getCashBalance(),
+            decisions,
+            0,
+            financialData.size()));
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdownNow();
+  }
+
+  private class DecisionTask extends RecursiveAction {
+
+    private final transient FinancialDataColumns financialData;
+    private final int monthlyRevenueRatio;
+    private final int cashBalanceRatio;
+    private final transient CreditLineDecisionColumns decisions;
+    private final int from;
+    private final int to;
+
+    DecisionTask(
+        FinancialDataColumns financialData,
+        int monthlyRevenueRatio,
+        int cashBalanceRatio,
+        CreditLineDecisionColumns decisions,
+        int from,
+        int to) {
+      this.financialData = financialData;
+      this.monthlyRevenueRatio = monthlyRevenueRatio;
+      this.cashBalanceRatio = cashBalanceRatio;
+      this.decisions = decisions;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= chunkSize) {
+        decideChunk(financialData, monthlyRevenueRatio, cashBalanceRatio, decisions, from, to);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new DecisionTask(
+              financialData, monthlyRevenueRatio, cashBalanceRatio, decisions, from, middle),
+          new DecisionTask(
+              financialData, monthlyRevenueRatio, cashBalanceRatio, decisions, middle, to));
+    }
+  }
+
+  /** Decide the rows from {@code from}, inclusive, to {@code to}, exclusive */
+  private static void decideChunk(
+      FinancialDataColumns financialData,
+      int monthlyRevenueRatio,
+      int cashBalanceRatio,
+      CreditLineDecisionColumns decisions,
+      int from,
+      int to) {
+
+    long[] cashBalanceCents = financialData.cashBalanceCents();
+    long[] monthlyRevenueCents = financialData.monthlyRevenueCents();
+    long[] requestedCreditLineCents = financialData.requestedCreditLineCents();
+    byte[] foundingTypes = financialData.foundingTypes();
+    long[] acceptedCreditLineCents = decisions.acceptedCreditLineCents();
+    boolean[] accepted = decisions.accepted();
+
+    // Highest requested credit line whose products by the ratios fit in a long
+    long maxRequestedCents = Long.MAX_VALUE / Math.max(monthlyRevenueRatio, cashBalanceRatio);
+
+    // The sign bit is set by any negative amount, too high request or unknown founding type
+    long outOfRange = 0;
+    for (int i = from; i < to; i++) {
+      outOfRange |=
+          cashBalanceCents[i]
+              | monthlyRevenueCents[i]
+              | requestedCreditLineCents[i]
+              | (maxRequestedCents - requestedCreditLineCents[i])
+              | -(long) (foundingTypes[i] & 0xFE);
+    }
+
+    if (outOfRange < 0) {
+      decideChunkExactly(
+          financialData, monthlyRevenueRatio, cashBalanceRatio, decisions, from, to);
+    } else {
+      for (int i = from; i < to; i++) {
+        long requested = requestedCreditLineCents[i];
+        // All bits set when the product is above the amount, or when the row is not a start-up
+        long monthlyRevenueRejected =
+            (monthlyRevenueCents[i] - requested * monthlyRevenueRatio) >> 63;
+        long cashBalanceRejected = (cashBalanceCents[i] - requested * cashBalanceRatio) >> 63;
+        long notStartUp = (long) foundingTypes[i] - 1;
+
+        long rejected = monthlyRevenueRejected & (cashBalanceRejected | notStartUp);
+        acceptedCreditLineCents[i] = requested & ~rejected;
+      }
+    }
+
+    for (int i = from; i < to; i++) {
+      accepted[i] = acceptedCreditLineCents[i] != 0;
+    }
+  }
+
+  /** The comparisons of the strategies, row by row */
+  private static void decideChunkExactly(
+      FinancialDataColumns financialData,
+      int monthlyRevenueRatio,
+      int cashBalanceRatio,
+      CreditLineDecisionColumns decisions,
+      int from,
+      int to) {
+
+    for (int i = from; i < to; i++) {
+      byte foundingType = financialData.foundingTypes()[i];
+      if (foundingType != SME && foundingType != STARTUP) {
+        throw new IllegalArgumentException("Unknown founding type " + foundingType + " at " + i);
+      }
+
+      long requested = financialData.requestedCreditLineCents()[i];
+      boolean wasCreditRequestAccepted =
+          Money.isAtMostFractionOf(
+                  requested, financialData.monthlyRevenueCents()[i], monthlyRevenueRatio)
+              || (foundingType == STARTUP
+                  && Money.isAtMostFractionOf(
+                      requested, financialData.cashBalanceCents()[i], cashBalanceRatio));
+
+      decisions.acceptedCreditLineCents()[i] = wasCreditRequestAccepted ? requested : 0;
+    }
+  }
+}
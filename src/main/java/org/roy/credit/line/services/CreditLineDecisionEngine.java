@@ -0,0 +1,159 @@
+package org.roy.credit.line.services;
+
+import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.RejectedCreditLineException;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
+import org.roy.credit.line.services.strategies.credit.status.CreditRequestStrategy;
+import org.roy.credit.line.services.strategies.credit.status.CreditRequestStrategyRegistry;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Credit line decision logic shared by the servlet and the reactive editions. It does no I/O, the
+ * callers load the last record of the customer and persist the decision.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CreditLineDecisionEngine {
+
+  private final CreditLineRequestMapper mapper;
+  private final CreditLineCalculationStrategyRegistry creditLineCalculationStrategies;
+  private final CreditRequestStrategyRegistry creditRequestStrategies;
+  private final RatioProperties ratioProperties;
+
+  /**
+   * Run the credit line strategies for a new request of the customer
+   *
+   * @param customerId requester id
+   * @param postRequestCreditLineRequestBody requester financial data
+   * @param foundingType requester founding type
+   * @param lastCreditLineRecord last stored request of the customer, if any
+   * @return the processed credit line request, to be stored
+   */
+  public CreditLineRequestRecordDao decide(
+      UUID customerId,
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType,
+      Optional<CreditLineRequestRecord> lastCreditLineRecord) {
+
+    CreditLineCalculationStrategy creditLineCalculationStrategy =
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(foundingType);
+
+    CreditLineRequestRecordDao lastCreditLineRecordDao =
+        mapper.mapToCreditLineRequestRecordDao(
+            lastCreditLineRecord.orElse(
+                CreditLineRequestRecord.builder()
+                    .customerId(customerId)
+                    .creditLineStatus(CreditLineStatus.NONE.name())
+                    .attempts(0)
+                    .build()));
+
+    CreditRequestStrategy creditRequestStrategy =
+        creditRequestStrategies.getCreditRequestStrategy(
+            lastCreditLineRecordDao.getCreditLineStatus());
+
+    var requesterFinancialData =
+        mapper.mapToRequesterFinancialData(
+            postRequestCreditLineRequestBody, customerId, foundingType);
+
+    return creditRequestStrategy.processCreditLineRequest(
+        creditLineCalculationStrategy, requesterFinancialData, lastCreditLineRecordDao);
+  }
+
+  /**
+   * Map the processed credit line request to the entity to be stored
+   *
+   * @param processedCreditLineRequest processed credit line request
+   * @return entity layer object
+   */
+  public CreditLineRequestRecord toEntity(CreditLineRequestRecordDao processedCreditLineRequest) {
+    return mapper.mapToCreditLineRequestEntity(processedCreditLineRequest);
+  }
+
+  /**
+   * Map an evaluated credit line request to its history entry
+   *
+   * @param postRequestCreditLineRequestBody requester financial data
+   * @param foundingType requester founding type
+   * @param processedCreditLineRequest processed credit line request
+   * @return history entry of the request
+   */
+  public CreditLineRequestHistoryDao toHistory(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType,
+      CreditLineRequestRecordDao processedCreditLineRequest) {
+    return mapper.mapToCreditLineRequestHistoryDao(
+        postRequestCreditLineRequestBody, foundingType, processedCreditLineRequest);
+  }
+
+  /**
+   * Map the processed credit line request to the api response body
+   *
+   * @param processedCreditLineRequest processed credit line request
+   * @return api response body
+   */
+  public PostRequestCreditLineResponseBody toResponseBody(
+      CreditLineRequestRecordDao processedCreditLineRequest) {
+    return mapper.mapToRequestCreditLineResponseBody(processedCreditLineRequest);
+  }
+
+  /**
+   * Map the rejected credit line request to the api response body, carrying the rejection message
+   * if any
+   *
+   * @param processedCreditLineRequest rejected credit line request
+   * @return api response body
+   */
+  public PostRequestCreditLineResponseBody toRejectedResponseBody(
+      CreditLineRequestRecordDao processedCreditLineRequest) {
+    return PostRequestCreditLineResponseBody.builder()
+        .creditLineStatus(CreditLineStatus.REJECTED)
+        .message(StringUtils.defaultIfEmpty(rejectionMessageOf(processedCreditLineRequest), null))
+        .build();
+  }
+
+  public static boolean isRejected(CreditLineRequestRecordDao processedCreditLineRequest) {
+    return CreditLineStatus.REJECTED.equals(processedCreditLineRequest.getCreditLineStatus());
+  }
+
+  /**
+   * Build the exception answering a rejected credit line request. Customers past the maximum
+   * number of failed attempts are told to contact a sales agent.
+   *
+   * @param processedCreditLineRequest rejected credit line request
+   * @return exception to be handled by the exception handlers
+   */
+  public RejectedCreditLineException rejectionOf(
+      CreditLineRequestRecordDao processedCreditLineRequest) {
+
+    return new RejectedCreditLineException(rejectionMessageOf(processedCreditLineRequest));
+  }
+
+  /**
+   * Message answering a rejected credit line request
+   *
+   * @param processedCreditLineRequest rejected credit line request
+   * @return the sales agent message for customers past the maximum number of failed attempts,
+   *     empty otherwise
+   */
+  public String rejectionMessageOf(CreditLineRequestRecordDao processedCreditLineRequest) {
+    return processedCreditLineRequest.getAttempts() > ratioProperties.getMaxFailedAttempts()
+        ? SALES_AGENT_MSG
+        : StringUtils.EMPTY;
+  }
+}
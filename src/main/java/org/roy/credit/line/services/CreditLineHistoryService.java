@@ -0,0 +1,39 @@
+package org.roy.credit.line.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+
+public interface CreditLineHistoryService {
+
+  /**
+   * Write a page of the evaluated credit line requests of a customer, newest first, as a contract
+   * response holding its items and the cursor of the next page, if any
+   *
+   * @param customerId requester id
+   * @param creditLineStatus decision of the requests, null for any
+   * @param foundingType founding type of the requests, null for any
+   * @param from first requested date, inclusive, null for the oldest one
+   * @param to last requested date, exclusive, null for the newest one
+   * @param cursor cursor of the previous page, null for the first page
+   * @param limit maximum number of requests of the page, null for the default
+   * @param path path of the endpoint, for the contract response
+   * @param page output the JSON page is written to
+   * @throws org.roy.credit.line.exceptions.BadRequestException if the cursor, the limit or the time
+   *     range are not valid, before anything is written
+   */
+  void writeCreditLineRequests(
+      UUID customerId,
+      CreditLineStatus creditLineStatus,
+      FoundingType foundingType,
+      ZonedDateTime from,
+      ZonedDateTime to,
+      String cursor,
+      Integer limit,
+      String path,
+      OutputStream page)
+      throws IOException;
+}
@@ -0,0 +1,171 @@
+package org.roy.credit.line.services;
+
+import static org.roy.credit.line.constants.BusinessRulesConstants.DEFAULT_CREDIT_LINE_REQUESTS_PAGE_SIZE;
+import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_CREDIT_LINE_REQUESTS_PAGE_SIZE;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.CreditLineHistoryProperties;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.BadRequestException;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.roy.credit.line.models.dtos.CreditLineRequestHistoryCursor;
+import org.roy.credit.line.models.responses.CreditLineRequestHistoryItem;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryRepository;
+import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pages of the {@link CreditLineRequestHistoryRepository}, read by keyset instead of offset: the
+ * cursor of a page is the position of its last request, and the next page seeks past it in the
+ * covering index instead of reading and skipping the rows of the previous pages. Its requested date
+ * also prunes the partitions of the newer months, and a time range prunes the months out of it; the
+ * other partitions are still read, so a page without a time range costs more the more months are
+ * retained.
+ *
+ * <p>The page is serialized while its rows are read, straight to the response: the contract
+ * response envelope is written field by field around the items, with no object tree and no
+ * buffered body. One row more than the limit is read, to tell whether there is a next page.
+ */
+@Log4j2
+@Service
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CreditLineHistoryServiceImpl implements CreditLineHistoryService {
+
+  private final CreditLineRequestHistoryRepository historyRepository;
+  private final CreditLineHistoryProperties historyProperties;
+  private final CreditLineRequestMapper creditLineRequestMapper;
+  private final ObjectMapper objectMapper;
+
+  /** {@inheritDoc} */
+  @Override
+  public void writeCreditLineRequests(
+      UUID customerId,
+      CreditLineStatus creditLineStatus,
+      FoundingType foundingType,
+      ZonedDateTime from,
+      ZonedDateTime to,
+      String cursor,
+      Integer limit,
+      String path,
+      OutputStream page)
+      throws IOException {
+
+    int pageSize = limit == null ? DEFAULT_CREDIT_LINE_REQUESTS_PAGE_SIZE : limit;
+    if (pageSize < 1 || pageSize > MAX_CREDIT_LINE_REQUESTS_PAGE_SIZE) {
+      throw new BadRequestException(Messages.INVALID_PAGE_LIMIT_MSG);
+    }
+    if (from != null && to != null && !from.isBefore(to)) {
+      throw new BadRequestException(Messages.INVALID_TIME_RANGE_MSG);
+    }
+    CreditLineRequestHistoryCursor after =
+        cursor == null ? null : CreditLineRequestHistoryCursor.decode(cursor);
+
+    ObjectWriter itemWriter =
+        objectMapper
+            .writerFor(CreditLineRequestHistoryItem.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    // A failing query must end as an error response, not as a valid page: the generator neither
+    // completes the JSON nor closes or flushes the response on the way out, so the unwritten
+    // response is still reset by the exception handlers
+    JsonGenerator generator =
+        objectMapper
+            .createGenerator(page)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    try (generator) {
+      generator.writeStartObject();
+      generator.writeObjectFieldStart("response");
+      generator.writeArrayFieldStart("items");
+
+      var itemsWriter = new ItemsWriter(generator, itemWriter, pageSize);
+      if (historyProperties.isEnabled()) {
+        try {
+          historyRepository.findPageByCustomerId(
+              customerId,
+              creditLineStatus,
+              foundingType,
+              from,
+              to,
+              after,
+              pageSize + 1,
+              itemsWriter);
+        } catch (UncheckedIOException exception) {
+          throw exception.getCause();
+        }
+      }
+
+      generator.writeEndArray();
+      if (itemsWriter.nextCursor != null) {
+        generator.writeStringField("nextCursor", itemsWriter.nextCursor.encode());
+      }
+      generator.writeEndObject();
+
+      generator.writeFieldName("utcTimestamp");
+      objectMapper
+          .writerFor(ZonedDateTime.class)
+          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+          .writeValue(generator, ZonedDateTime.ofInstant(Instant.now(), ZoneOffset.UTC));
+      generator.writeStringField("path", path);
+      generator.writeEndObject();
+    }
+
+    log.debug("Page of the credit line requests of customer {} written", customerId);
+  }
+
+  /** Writes the rows of a page as they are read, keeping the position of the last one written */
+  private class ItemsWriter implements Consumer<CreditLineRequestHistoryDao> {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter itemWriter;
+    private final int pageSize;
+
+    private int written;
+    private CreditLineRequestHistoryDao last;
+    private CreditLineRequestHistoryCursor nextCursor;
+
+    private ItemsWriter(JsonGenerator generator, ObjectWriter itemWriter, int pageSize) {
+      this.generator = generator;
+      this.itemWriter = itemWriter;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public void accept(CreditLineRequestHistoryDao evaluation) {
+      if (written == pageSize) {
+        // The extra row only tells there is a next page, starting after the last row written
+        nextCursor = CreditLineRequestHistoryCursor.of(last);
+        return;
+      }
+
+      try {
+        itemWriter.writeValue(
+            generator, creditLineRequestMapper.mapToCreditLineRequestHistoryItem(evaluation));
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+      last = evaluation;
+      written++;
+    }
+  }
+}
@@ -0,0 +1,477 @@
+package org.roy.credit.line.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.configs.ReEvaluationProperties;
+import org.roy.credit.line.entities.ReEvaluationCheckpoint;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.models.dtos.CreditLineDecisionColumns;
+import org.roy.credit.line.models.dtos.FinancialDataColumns;
+import org.roy.credit.line.models.responses.ReEvaluationProgress;
+import org.roy.credit.line.repositories.CreditLineReEvaluationRepository;
+import org.roy.credit.line.repositories.CreditLineReEvaluationRepository.DecisionChange;
+import org.roy.credit.line.repositories.CreditLineReEvaluationRepository.StoredDecision;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Re-evaluates every stored credit line decision with the current ratios, and writes back the
+ * decisions that changed. The customer ids are split in ranges, each read in order by a worker of
+ * its own, a batch per keyset query after the last customer id, and decided by the {@link
+ * BulkCreditLineDecisionKernel}. A worker uses a single connection at a time, and no transaction
+ * outlives its batch.
+ *
+ * <p>Each batch writes its changed decisions and the checkpoint of its range in one transaction,
+ * so a run stopped or interrupted by a restart resumes after the last batch written. Decisions
+ * changed by a request while their batch is re-evaluated are left as the request wrote them.
+ *
+ * <p>Once a batch is written, the customers whose accepted decision changed are invalidated from
+ * the {@link AcceptedCreditLineCache}, so that their next request reads the new decision.
+ */
+@Log4j2
+@Service
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(prefix = "re-evaluation", name = "enabled", havingValue = "true")
+public class CreditLineReEvaluationJob implements ApplicationRunner, DisposableBean {
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final double UUID_RANGE = 0x1p64;
+
+  public enum State {
+    IDLE,
+    RUNNING,
+    STOPPING,
+    STOPPED,
+    COMPLETED,
+    FAILED
+  }
+
+  private final CreditLineReEvaluationRepository reEvaluationRepository;
+  private final BulkCreditLineDecisionKernel decisionKernel;
+  private final RatioProperties ratioProperties;
+  private final ReEvaluationProperties reEvaluationProperties;
+  private final AcceptedCreditLineCache acceptedCreditLineCache;
+  private final TransactionTemplate writeTransaction;
+  private final Counter scannedRowsCounter;
+  private final Counter changedRowsCounter;
+
+  private final ReentrantLock startLock = new ReentrantLock();
+  private volatile Run run;
+
+  @Autowired
+  public CreditLineReEvaluationJob(
+      CreditLineReEvaluationRepository reEvaluationRepository,
+      BulkCreditLineDecisionKernel decisionKernel,
+      RatioProperties ratioProperties,
+      ReEvaluationProperties reEvaluationProperties,
+      AcceptedCreditLineCache acceptedCreditLineCache,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+
+    this.reEvaluationRepository = reEvaluationRepository;
+    this.decisionKernel = decisionKernel;
+    this.ratioProperties = ratioProperties;
+    this.reEvaluationProperties = reEvaluationProperties;
+    this.acceptedCreditLineCache = acceptedCreditLineCache;
+
+    this.writeTransaction = new TransactionTemplate(transactionManager);
+
+    this.scannedRowsCounter =
+        Counter.builder("credit.line.re.evaluation.rows")
+            .tag("result", "scanned")
+            .description("Stored credit line decisions re-evaluated")
+            .register(meterRegistry);
+    this.changedRowsCounter =
+        Counter.builder("credit.line.re.evaluation.rows")
+            .tag("result", "changed")
+            .description("Stored credit line decisions changed by their re-evaluation")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (reEvaluationProperties.isResumeOnStartup()
+        && reEvaluationRepository.findCheckpoints().stream().anyMatch(c -> !c.isCompleted())) {
+      log.info("Resuming the unfinished credit line re-evaluation");
+      start(true);
+    }
+  }
+
+  /**
+   * Start a re-evaluation in the background, unless one is running already
+   *
+   * @param resume resume the last re-evaluation from its checkpoints, instead of starting over
+   * @return progress of the running re-evaluation
+   */
+  public ReEvaluationProgress start(boolean resume) {
+    startLock.lock();
+    try {
+      Run current = run;
+      if (current == null || !current.isActive()) {
+        List<ReEvaluationCheckpoint> checkpoints =
+            resume ? reEvaluationRepository.findCheckpoints() : List.of();
+
+        if (checkpoints.isEmpty()) {
+          List<ReEvaluationCheckpoint> partitions =
+              partitionsOf(reEvaluationProperties.getPartitions());
+          writeTransaction.executeWithoutResult(
+              status -> reEvaluationRepository.replaceCheckpoints(partitions));
+          checkpoints = partitions;
+        }
+
+        run = new Run(checkpoints);
+        run.start();
+      }
+    } finally {
+      startLock.unlock();
+    }
+    return getProgress();
+  }
+
+  /**
+   * Stop the running re-evaluation once the batches being re-evaluated are written
+   *
+   * @return progress of the stopping re-evaluation
+   */
+  public ReEvaluationProgress stop() {
+    Run current = run;
+    if (current != null) {
+      current.stop();
+    }
+    return getProgress();
+  }
+
+  /**
+   * Wait for the running re-evaluation to end
+   *
+   * @param timeout longest wait
+   * @return whether no re-evaluation is running
+   */
+  public boolean awaitTermination(Duration timeout) throws InterruptedException {
+    Run current = run;
+    return current == null
+        || current.termination.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  public ReEvaluationProgress getProgress() {
+    Run current = run;
+    return current == null
+        ? ReEvaluationProgress.builder()
+            .state(State.IDLE.name())
+            .partitions(List.of())
+            .build()
+        : current.progress();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    stop();
+    Duration shutdownTimeout = reEvaluationProperties.getShutdownTimeout();
+    if (!awaitTermination(shutdownTimeout)) {
+      log.warn("Credit line re-evaluation still running after {}", shutdownTimeout);
+    }
+  }
+
+  /** Split the customer ids in ranges of the same width of their most significant bits */
+  static List<ReEvaluationCheckpoint> partitionsOf(int partitions) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("At least a partition is required");
+    }
+
+    long width = Long.divideUnsigned(-1L, partitions) + 1;
+    List<ReEvaluationCheckpoint> checkpoints = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      checkpoints.add(
+          ReEvaluationCheckpoint.builder()
+              .partitionIndex(i)
+              .lowerBound(new UUID(width * i, 0))
+              .upperBound(i == partitions - 1 ? null : new UUID(width * (i + 1), 0))
+              .build());
+    }
+    return checkpoints;
+  }
+
+  /** Share of the range of the partition up to a customer id, by their most significant bits */
+  static double completionOf(UUID lowerBound, UUID upperBound, UUID customerId) {
+    double lower = unsignedOf(lowerBound.getMostSignificantBits());
+    double upper =
+        upperBound == null ? UUID_RANGE : unsignedOf(upperBound.getMostSignificantBits());
+    double position = unsignedOf(customerId.getMostSignificantBits());
+
+    return Math.min(1.0, (position - lower) / (upper - lower));
+  }
+
+  private static double unsignedOf(long bits) {
+    return (bits >>> 1) * 2.0 + (bits & 1);
+  }
+
+  /** A re-evaluation, from its start or resumed, up to its end */
+  private final class Run {
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<PartitionWorker> workers;
+    private final long resumedRows;
+    private final CountDownLatch termination = new CountDownLatch(1);
+
+    private volatile State state = State.RUNNING;
+    private volatile boolean stopRequested;
+
+    private Run(List<ReEvaluationCheckpoint> checkpoints) {
+      this.workers = checkpoints.stream().map(PartitionWorker::new).toList();
+      this.resumedRows =
+          checkpoints.stream().mapToLong(ReEvaluationCheckpoint::getScannedRows).sum();
+    }
+
+    private void start() {
+      List<PartitionWorker> pendingWorkers =
+          workers.stream().filter(worker -> !worker.completed).toList();
+      if (pendingWorkers.isEmpty()) {
+        end(null);
+        return;
+      }
+
+      ExecutorService executor =
+          Executors.newFixedThreadPool(
+              pendingWorkers.size(),
+              Thread.ofPlatform().name("credit-line-re-evaluation-", 0).factory());
+      CompletableFuture.allOf(
+              pendingWorkers.stream()
+                  .map(worker -> CompletableFuture.runAsync(worker, executor))
+                  .toArray(CompletableFuture[]::new))
+          .whenComplete((ignored, failure) -> end(failure));
+      executor.shutdown();
+
+      log.info(
+          "Re-evaluating the credit lines of {} customer id ranges", pendingWorkers.size());
+    }
+
+    private void stop() {
+      if (isActive()) {
+        stopRequested = true;
+        state = State.STOPPING;
+      }
+    }
+
+    private boolean isActive() {
+      return state == State.RUNNING || state == State.STOPPING;
+    }
+
+    private void end(Throwable failure) {
+      state = failure != null ? State.FAILED : stopRequested ? State.STOPPED : State.COMPLETED;
+
+      ReEvaluationProgress progress = progress();
+      log.info(
+          "Credit line re-evaluation {}: {} rows re-evaluated, {} changed, {} rows/s",
+          state,
+          progress.getScannedRows(),
+          progress.getChangedRows(),
+          Math.round(progress.getRowsPerSecond()));
+      termination.countDown();
+    }
+
+    private ReEvaluationProgress progress() {
+      long elapsedNanos = System.nanoTime() - startNanos;
+      List<ReEvaluationProgress.Partition> partitions =
+          workers.stream().map(PartitionWorker::progress).toList();
+      long scannedRows =
+          partitions.stream().mapToLong(ReEvaluationProgress.Partition::getScannedRows).sum();
+
+      return ReEvaluationProgress.builder()
+          .state(state.name())
+          .startedAt(startedAt)
+          .elapsedSeconds(elapsedNanos / NANOS_PER_SECOND)
+          .scannedRows(scannedRows)
+          .changedRows(
+              partitions.stream().mapToLong(ReEvaluationProgress.Partition::getChangedRows).sum())
+          .rowsPerSecond((scannedRows - resumedRows) * NANOS_PER_SECOND / elapsedNanos)
+          .completion(
+              partitions.stream()
+                  .mapToDouble(ReEvaluationProgress.Partition::getCompletion)
+                  .average()
+                  .orElse(1.0))
+          .partitions(partitions)
+          .build();
+    }
+
+    /** Re-evaluates a customer id range, from its checkpoint to its end or a stop */
+    private final class PartitionWorker implements Runnable {
+
+      private final int index;
+      private final UUID lowerBound;
+      private final UUID upperBound;
+      private final Batch batch = new Batch(reEvaluationProperties.getBatchSize());
+
+      // Written by the worker only, read by the progress
+      private volatile UUID lastCustomerId;
+      private volatile long scannedRows;
+      private volatile long changedRows;
+      private volatile boolean completed;
+
+      private PartitionWorker(ReEvaluationCheckpoint checkpoint) {
+        this.index = checkpoint.getPartitionIndex();
+        this.lowerBound = checkpoint.getLowerBound();
+        this.upperBound = checkpoint.getUpperBound();
+        this.lastCustomerId = checkpoint.getLastCustomerId();
+        this.scannedRows = checkpoint.getScannedRows();
+        this.changedRows = checkpoint.getChangedRows();
+        this.completed = checkpoint.isCompleted();
+      }
+
+      @Override
+      public void run() {
+        try {
+          boolean endOfRange = false;
+          while (!stopRequested && !endOfRange) {
+            List<StoredDecision> storedDecisions =
+                reEvaluationRepository.findDecisions(
+                    lastCustomerId, lowerBound, upperBound, batch.capacity());
+            storedDecisions.forEach(batch::add);
+
+            endOfRange = storedDecisions.size() < batch.capacity();
+            write(endOfRange);
+          }
+        } catch (RuntimeException failure) {
+          log.error("Unable to re-evaluate the customer id range {}", index, failure);
+          stopRequested = true;
+          throw failure;
+        }
+      }
+
+      /** Write the changed decisions of the batch and the checkpoint after it */
+      private void write(boolean complete) {
+        List<DecisionChange> decisionChanges = batch.decide();
+        ReEvaluationCheckpoint checkpoint =
+            ReEvaluationCheckpoint.builder()
+                .partitionIndex(index)
+                .lowerBound(lowerBound)
+                .upperBound(upperBound)
+                .lastCustomerId(batch.size == 0 ? lastCustomerId : batch.lastCustomerId())
+                .scannedRows(scannedRows + batch.size)
+                .completed(complete)
+                .build();
+
+        int changed =
+            writeTransaction.execute(
+                status -> {
+                  int changedDecisions =
+                      decisionChanges.isEmpty()
+                          ? 0
+                          : reEvaluationRepository.updateDecisions(decisionChanges);
+                  checkpoint.setChangedRows(changedRows + changedDecisions);
+                  reEvaluationRepository.saveCheckpoint(checkpoint);
+                  return changedDecisions;
+                });
+        acceptedCreditLineCache.invalidate(
+            decisionChanges.stream()
+                .filter(change -> change.storedCreditLineStatus() == CreditLineStatus.ACCEPTED)
+                .map(DecisionChange::customerId)
+                .toList());
+
+        scannedRowsCounter.increment(batch.size);
+        changedRowsCounter.increment(changed);
+        lastCustomerId = checkpoint.getLastCustomerId();
+        scannedRows = checkpoint.getScannedRows();
+        changedRows = checkpoint.getChangedRows();
+        completed = complete;
+        batch.size = 0;
+      }
+
+      private ReEvaluationProgress.Partition progress() {
+        UUID customerId = lastCustomerId;
+        return ReEvaluationProgress.Partition.builder()
+            .index(index)
+            .lowerBound(lowerBound)
+            .upperBound(upperBound)
+            .lastCustomerId(customerId)
+            .scannedRows(scannedRows)
+            .changedRows(changedRows)
+            .completion(
+                completed
+                    ? 1.0
+                    : customerId == null ? 0.0 : completionOf(lowerBound, upperBound, customerId))
+            .completed(completed)
+            .build();
+      }
+    }
+  }
+
+  /** Stored decisions read into the columns of the decision kernel */
+  private final class Batch {
+
+    private final StoredDecision[] storedDecisions;
+    private final FinancialDataColumns financialData;
+    private final CreditLineDecisionColumns decisions;
+    private int size;
+
+    private Batch(int capacity) {
+      this.storedDecisions = new StoredDecision[capacity];
+      this.financialData = FinancialDataColumns.ofSize(capacity);
+      this.decisions = CreditLineDecisionColumns.ofSize(capacity);
+    }
+
+    private void add(StoredDecision storedDecision) {
+      storedDecisions[size] = storedDecision;
+      financialData.cashBalanceCents()[size] = storedDecision.cashBalanceCents();
+      financialData.monthlyRevenueCents()[size] = storedDecision.monthlyRevenueCents();
+      financialData.requestedCreditLineCents()[size] = storedDecision.requestedCreditLineCents();
+      financialData.foundingTypes()[size] = (byte) storedDecision.foundingType().ordinal();
+      size++;
+    }
+
+    private int capacity() {
+      return storedDecisions.length;
+    }
+
+    private UUID lastCustomerId() {
+      return storedDecisions[size - 1].customerId();
+    }
+
+    /** Decide the rows of the batch, the rows after its size are left from the previous one */
+    private List<DecisionChange> decide() {
+      decisionKernel.decide(financialData, ratioProperties, decisions);
+
+      List<DecisionChange> decisionChanges = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        StoredDecision storedDecision = storedDecisions[i];
+        long acceptedCreditLineCents = decisions.acceptedCreditLineCents()[i];
+        CreditLineStatus creditLineStatus =
+            decisions.accepted()[i] ? CreditLineStatus.ACCEPTED : CreditLineStatus.REJECTED;
+
+        if (creditLineStatus != storedDecision.creditLineStatus()
+            || acceptedCreditLineCents != storedDecision.acceptedCreditLineCents()) {
+          decisionChanges.add(
+              new DecisionChange(
+                  storedDecision.customerId(),
+                  storedDecision.requestedDate(),
+                  storedDecision.creditLineStatus(),
+                  acceptedCreditLineCents,
+                  creditLineStatus));
+        }
+      }
+      return decisionChanges;
+    }
+  }
+}
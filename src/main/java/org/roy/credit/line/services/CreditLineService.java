@@ -12,7 +12,8 @@ public interface CreditLineService {
    * Process a credit line request based on the founding type, cash balance and monthly revenue.
    *
    * @param postRequestCreditLineRequestBody DTO containing the request data
-   * @return credit line request status. Either accepted or rejected
+   * @return credit line request status. Either accepted, with the credit line, or rejected, with
+   *     the rejection message if any
    */
   PostRequestCreditLineResponseBody requestCreditLine(
       UUID customerId,
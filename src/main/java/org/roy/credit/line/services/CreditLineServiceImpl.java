@@ -1,35 +1,57 @@
 package org.roy.credit.line.services;
 
-import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_NUMBER_OF_FAILED_ATTEMPTS;
-import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.apache.commons.lang3.StringUtils;
 import org.roy.credit.line.entities.CreditLineRequestRecord;
-import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.enums.FoundingType;
-import org.roy.credit.line.exceptions.RejectedCreditLineException;
+import org.roy.credit.line.enums.RequestOutcome;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
 import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
 import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
 import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
-import org.roy.credit.line.repositories.CreditLineRequestRepository;
-import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
-import org.roy.credit.line.services.strategies.credit.status.CreditRequestStrategy;
-import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryWriter;
+import org.roy.credit.line.repositories.CreditLineRequestStore;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.stereotype.Service;
 
+/**
+ * Decides the credit line requests one at a time per customer. Concurrent requests of the same
+ * customer are coalesced: the first one runs the requests queued while it waits for the database,
+ * deciding each of them from the previous one within a single locked read and write, and hands
+ * every request its own decision. It then hands the lead over to the first request queued in the
+ * meantime, so a request is never held to decide the requests coming after it.
+ */
 @Log4j2
 @Service
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class CreditLineServiceImpl implements CreditLineService {
 
   // Dependency Injection
-  private final CreditLineRequestMapper mapper;
-  private final CreditLineRequestRepository creditLineRequestsRepository;
+  private final CreditLineDecisionEngine creditLineDecisionEngine;
+  private final CreditLineRequestStore creditLineRequestStore;
   private final RateLimitService rateLimitService;
+  private final AcceptedCreditLineCache acceptedCreditLineCache;
+  private final CreditLineRequestMetrics creditLineRequestMetrics;
+  private final CreditLineRequestHistoryWriter creditLineRequestHistory;
+
+  /** Requests waiting to be decided, by customer. A customer is present while a request runs */
+  private final Map<UUID, List<PendingCreditLineRequest>> pendingRequests =
+      new ConcurrentHashMap<>();
 
   /** {@inheritDoc} */
   @Override
@@ -38,44 +60,202 @@ public class CreditLineServiceImpl implements CreditLineService {
       PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
       FoundingType foundingType) {
 
-    CreditLineCalculationStrategy creditLineCalculationStrategy =
-        CreditLineCalculationStrategy.getCreditLineCalculationStrategy(foundingType);
+    // Requests never change an accepted credit line: count the request without reading it
+    Optional<CreditLineRequestRecordDao> acceptedRequest = acceptedCreditLineCache.get(customerId);
+    OptionalInt countedAttempts =
+        acceptedRequest.isPresent()
+            ? countAcceptedRequest(customerId, postRequestCreditLineRequestBody)
+            : OptionalInt.empty();
+    if (countedAttempts.isPresent()) {
+      // The cached request carries stale attempts, the store returns the ones it counted
+      CreditLineRequestHistoryDao evaluation =
+          creditLineDecisionEngine.toHistory(
+              postRequestCreditLineRequestBody, foundingType, acceptedRequest.get());
+      evaluation.setAttempts(countedAttempts.getAsInt());
+      creditLineRequestHistory.record(List.of(evaluation));
+      return getThePostRequestCreditLineResponseBody(acceptedRequest.get());
+    }
+
+    var pendingRequest =
+        new PendingCreditLineRequest(
+            postRequestCreditLineRequestBody,
+            foundingType,
+            new CompletableFuture<>(),
+            new CompletableFuture<>());
 
-    CreditLineRequestRecordDao lastCreditLineRecord = getLastCreditLineRecord(customerId);
+    if (enqueue(customerId, pendingRequest) || awaitLead(pendingRequest)) {
+      decidePendingRequests(customerId);
+    }
 
-    CreditRequestStrategy creditRequestStrategy =
-        CreditRequestStrategy.getCreditRequestStrategy(lastCreditLineRecord.getCreditLineStatus());
+    return getThePostRequestCreditLineResponseBody(decisionOf(pendingRequest));
+  }
 
-    var requesterFinancialData =
-        mapper.mapToRequesterFinancialData(postRequestCreditLineRequestBody, customerId);
+  /** Store the request of a customer with an accepted credit line, if the database has it */
+  private OptionalInt countAcceptedRequest(
+      UUID customerId, PostRequestCreditLineRequestBody postRequestCreditLineRequestBody) {
+
+    long startedAt = System.nanoTime();
+    OptionalInt counted =
+        creditLineRequestStore.countAcceptedRequest(
+            customerId, postRequestCreditLineRequestBody.getRequestedDate());
+
+    if (counted.isPresent()) {
+      creditLineRequestMetrics.recordStage(
+          Stage.SAVE, RequestOutcome.ACCEPTED, System.nanoTime() - startedAt);
+    }
+
+    return counted;
+  }
 
-    CreditLineRequestRecordDao processedCreditLineRequest =
-        creditRequestStrategy.processCreditLineRequest(
-            creditLineCalculationStrategy, requesterFinancialData, lastCreditLineRecord);
+  /**
+   * Queue the request behind the ones of the same customer
+   *
+   * @return true when no request of the customer is running, so the caller decides the queue
+   */
+  private boolean enqueue(UUID customerId, PendingCreditLineRequest pendingRequest) {
+    var leader = new boolean[1];
 
-    creditLineRequestsRepository.save(
-        mapper.mapToCreditLineRequestEntity(processedCreditLineRequest));
+    pendingRequests.compute(
+        customerId,
+        (id, queuedRequests) -> {
+          if (queuedRequests == null) {
+            leader[0] = true;
+            queuedRequests = new ArrayList<>();
+          }
+          queuedRequests.add(pendingRequest);
+          return queuedRequests;
+        });
 
-    return getThePostRequestCreditLineResponseBody(processedCreditLineRequest);
+    return leader[0];
   }
 
   /**
-   * Check if the user with the given customerId has already made any credit line request
+   * Wait until the request is decided by the running one, or until the lead is handed over to it
    *
-   * @param customerId query filter
-   * @return status of the request
+   * @return true when the request has to decide the queue
    */
-  private CreditLineRequestRecordDao getLastCreditLineRecord(UUID customerId) {
-
-    return mapper.mapToCreditLineRequestRecordDao(
-        creditLineRequestsRepository
-            .findById(customerId)
-            .orElse(
-                CreditLineRequestRecord.builder()
-                    .customerId(customerId)
-                    .creditLineStatus(CreditLineStatus.NONE.name())
-                    .attempts(0)
-                    .build()));
+  private static boolean awaitLead(PendingCreditLineRequest pendingRequest) {
+    CompletableFuture.anyOf(pendingRequest.decision(), pendingRequest.lead())
+        .exceptionally(failure -> null)
+        .join();
+    return !pendingRequest.decision().isDone();
+  }
+
+  /**
+   * Decide the queued requests of the customer with one store update, then hand the lead over to
+   * the first request queued meanwhile. The customer is removed from the queues in the same atomic
+   * step that finds them empty, so a later request decides its own queue. Whatever happens to the
+   * update, the queue is never left without a lead.
+   */
+  private void decidePendingRequests(UUID customerId) {
+    try {
+      decide(customerId, pendingRequests.replace(customerId, new ArrayList<>()));
+    } finally {
+      handOverLead(customerId);
+    }
+  }
+
+  private void handOverLead(UUID customerId) {
+    List<PendingCreditLineRequest> nextLead = new ArrayList<>(1);
+
+    pendingRequests.computeIfPresent(
+        customerId,
+        (id, queuedRequests) -> {
+          if (queuedRequests.isEmpty()) {
+            return null;
+          }
+          nextLead.add(queuedRequests.get(0));
+          return queuedRequests;
+        });
+
+    nextLead.forEach(request -> request.lead().complete(null));
+  }
+
+  private void decide(UUID customerId, List<PendingCreditLineRequest> coalescedRequests) {
+    try {
+      // When the last request was read and when the decisions were made, the store calls back
+      long[] decidedBetween = new long[2];
+      long startedAt = System.nanoTime();
+
+      List<CreditLineRequestRecordDao> processedCreditLineRequests =
+          creditLineRequestStore.update(
+              customerId,
+              lastCreditLineRecord -> {
+                decidedBetween[0] = System.nanoTime();
+                List<CreditLineRequestRecordDao> decisions =
+                    decideInOrder(customerId, coalescedRequests, lastCreditLineRecord);
+                decidedBetween[1] = System.nanoTime();
+                return decisions;
+              },
+              decisions -> creditLineDecisionEngine.toEntity(decisions.get(decisions.size() - 1)));
+
+      long storedAt = System.nanoTime();
+      CreditLineRequestRecordDao storedCreditLineRequest =
+          processedCreditLineRequests.get(processedCreditLineRequests.size() - 1);
+      RequestOutcome outcome = RequestOutcome.of(storedCreditLineRequest.getCreditLineStatus());
+      creditLineRequestMetrics.recordStage(Stage.READ, outcome, decidedBetween[0] - startedAt);
+      creditLineRequestMetrics.recordStage(Stage.SAVE, outcome, storedAt - decidedBetween[1]);
+
+      acceptedCreditLineCache.put(storedCreditLineRequest);
+
+      List<CreditLineRequestHistoryDao> evaluations = new ArrayList<>(coalescedRequests.size());
+      for (int i = 0; i < coalescedRequests.size(); i++) {
+        PendingCreditLineRequest request = coalescedRequests.get(i);
+        request.decision().complete(processedCreditLineRequests.get(i));
+        evaluations.add(
+            creditLineDecisionEngine.toHistory(
+                request.postRequestCreditLineRequestBody(),
+                request.foundingType(),
+                processedCreditLineRequests.get(i)));
+      }
+      creditLineRequestHistory.record(evaluations);
+    } catch (Throwable failure) {
+      // Errors too, or the requests coalesced with this one would wait for ever
+      coalescedRequests.forEach(request -> request.decision().completeExceptionally(failure));
+    }
+  }
+
+  /** Each request is decided from the decision of the previous one, as if they ran one by one */
+  private List<CreditLineRequestRecordDao> decideInOrder(
+      UUID customerId,
+      List<PendingCreditLineRequest> coalescedRequests,
+      Optional<CreditLineRequestRecord> lastCreditLineRecord) {
+
+    List<CreditLineRequestRecordDao> processedCreditLineRequests =
+        new ArrayList<>(coalescedRequests.size());
+
+    for (PendingCreditLineRequest request : coalescedRequests) {
+      long startedAt = System.nanoTime();
+      CreditLineRequestRecordDao processedCreditLineRequest =
+          creditLineDecisionEngine.decide(
+              customerId,
+              request.postRequestCreditLineRequestBody(),
+              request.foundingType(),
+              lastCreditLineRecord);
+      creditLineRequestMetrics.recordEvaluation(
+          request.foundingType(),
+          RequestOutcome.of(processedCreditLineRequest.getCreditLineStatus()),
+          System.nanoTime() - startedAt);
+      processedCreditLineRequests.add(processedCreditLineRequest);
+      lastCreditLineRecord =
+          Optional.of(creditLineDecisionEngine.toEntity(processedCreditLineRequest));
+    }
+
+    return processedCreditLineRequests;
+  }
+
+  private static CreditLineRequestRecordDao decisionOf(PendingCreditLineRequest pendingRequest) {
+    try {
+      return pendingRequest.decision().join();
+    } catch (CompletionException failure) {
+      if (failure.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (failure.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw failure;
+    }
   }
 
   /**
@@ -87,20 +267,33 @@ public class CreditLineServiceImpl implements CreditLineService {
   private PostRequestCreditLineResponseBody getThePostRequestCreditLineResponseBody(
       CreditLineRequestRecordDao processedCreditLineRequest) {
 
-    if (CreditLineStatus.REJECTED.equals(processedCreditLineRequest.getCreditLineStatus())) {
+    if (CreditLineDecisionEngine.isRejected(processedCreditLineRequest)) {
 
       rateLimitService.setRateLimitForRejectedCredit(processedCreditLineRequest.getCustomerId());
 
-      String rejectedCreditLineMessage =
-          processedCreditLineRequest.getAttempts() > MAX_NUMBER_OF_FAILED_ATTEMPTS
-              ? SALES_AGENT_MSG
-              : StringUtils.EMPTY;
+      long startedAt = System.nanoTime();
+      PostRequestCreditLineResponseBody rejectedResponseBody =
+          creditLineDecisionEngine.toRejectedResponseBody(processedCreditLineRequest);
+      creditLineRequestMetrics.recordStage(
+          Stage.MAPPING, RequestOutcome.REJECTED, System.nanoTime() - startedAt);
 
-      throw new RejectedCreditLineException(rejectedCreditLineMessage);
+      return rejectedResponseBody;
     }
 
     rateLimitService.setRateLimitForAcceptedCredit(processedCreditLineRequest.getCustomerId());
 
-    return mapper.mapToRequestCreditLineResponseBody(processedCreditLineRequest);
+    long startedAt = System.nanoTime();
+    PostRequestCreditLineResponseBody acceptedResponseBody =
+        creditLineDecisionEngine.toResponseBody(processedCreditLineRequest);
+    creditLineRequestMetrics.recordStage(
+        Stage.MAPPING, RequestOutcome.ACCEPTED, System.nanoTime() - startedAt);
+
+    return acceptedResponseBody;
   }
+
+  private record PendingCreditLineRequest(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType,
+      CompletableFuture<CreditLineRequestRecordDao> decision,
+      CompletableFuture<Void> lead) {}
 }
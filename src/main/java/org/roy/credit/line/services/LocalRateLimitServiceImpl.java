@@ -0,0 +1,156 @@
+package org.roy.credit.line.services;
+
+import static org.roy.credit.line.constants.BusinessRulesConstants.ACCEPTED_CREDIT_RATE_LIMIT_WINDOW;
+import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW;
+import static org.roy.credit.line.constants.BusinessRulesConstants.REJECTED_CREDIT_COOL_DOWN;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rate limit kept in the memory of the node, following the same rules as {@link
+ * RateLimitServiceImpl}. Each customer owns a bucket whose state is replaced with compare and set,
+ * so requests never block each other.
+ */
+@Service
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "LOCAL")
+public class LocalRateLimitServiceImpl implements RateLimitService {
+
+  private final Map<UUID, Bucket> buckets = new ConcurrentHashMap<>();
+  private final LongSupplier currentTimeMillis;
+
+  public LocalRateLimitServiceImpl() {
+    this(System::currentTimeMillis);
+  }
+
+  LocalRateLimitServiceImpl(LongSupplier currentTimeMillis) {
+    this.currentTimeMillis = currentTimeMillis;
+  }
+
+  @Override
+  public void setRateLimitForAcceptedCredit(UUID customerId) {
+    while (true) {
+      Bucket bucket = buckets.computeIfAbsent(customerId, id -> new Bucket());
+      State state = bucket.state.get();
+      long now = currentTimeMillis.getAsLong();
+
+      if (state.isWindowOpenAt(now)) {
+        return;
+      }
+
+      if (state != State.EVICTED
+          && bucket.state.compareAndSet(
+              state,
+              new State(
+                  state.coolDownEndsAt, now + ACCEPTED_CREDIT_RATE_LIMIT_WINDOW.toMillis(), 1))) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void setRateLimitForRejectedCredit(UUID customerId) {
+    while (true) {
+      Bucket bucket = buckets.computeIfAbsent(customerId, id -> new Bucket());
+      State state = bucket.state.get();
+      long now = currentTimeMillis.getAsLong();
+
+      if (state.isCoolingDownAt(now)) {
+        return;
+      }
+
+      if (state != State.EVICTED
+          && bucket.state.compareAndSet(
+              state,
+              new State(
+                  now + REJECTED_CREDIT_COOL_DOWN.toMillis(),
+                  state.windowEndsAt,
+                  state.windowRequests))) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public boolean isAllowed(UUID customerId) {
+    while (true) {
+      Bucket bucket = buckets.get(customerId);
+
+      if (bucket == null) {
+        return true;
+      }
+
+      State state = bucket.state.get();
+      long now = currentTimeMillis.getAsLong();
+
+      if (state.isCoolingDownAt(now)) {
+        return false;
+      }
+
+      if (!state.isWindowOpenAt(now)) {
+        return true;
+      }
+
+      if (state.windowRequests >= MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW) {
+        return false;
+      }
+
+      if (bucket.state.compareAndSet(
+          state,
+          new State(state.coolDownEndsAt, state.windowEndsAt, state.windowRequests + 1))) {
+        return true;
+      }
+    }
+  }
+
+  /** Evict the buckets of customers without an active window or cool down */
+  @Scheduled(fixedDelayString = "${rate-limit.local.eviction-interval:PT30S}")
+  public void evictIdleBuckets() {
+    long now = currentTimeMillis.getAsLong();
+
+    buckets.forEach(
+        (customerId, bucket) -> {
+          State state = bucket.state.get();
+
+          if (state.isIdleAt(now) && bucket.state.compareAndSet(state, State.EVICTED)) {
+            buckets.remove(customerId, bucket);
+          }
+        });
+  }
+
+  int bucketCount() {
+    return buckets.size();
+  }
+
+  private static final class Bucket {
+    private final AtomicReference<State> state = new AtomicReference<>(State.EMPTY);
+  }
+
+  /**
+   * Immutable bucket state. Once a bucket is evicted its state can't change anymore, so writers
+   * racing with the eviction retry on a fresh bucket.
+   */
+  private record State(long coolDownEndsAt, long windowEndsAt, int windowRequests) {
+
+    private static final State EMPTY = new State(0, 0, 0);
+    private static final State EVICTED = new State(0, 0, 0);
+
+    boolean isCoolingDownAt(long now) {
+      return coolDownEndsAt > now;
+    }
+
+    boolean isWindowOpenAt(long now) {
+      return windowEndsAt > now;
+    }
+
+    boolean isIdleAt(long now) {
+      return !isCoolingDownAt(now) && !isWindowOpenAt(now);
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package org.roy.credit.line.services;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
 
 public interface RateLimitService {
 
@@ -8,5 +11,47 @@ public interface RateLimitService {
 
   void setRateLimitForAcceptedCredit(UUID customerId);
 
-  void checkRateLimitFor(UUID customerId);
+  /**
+   * Check the rate limit of a request of the customer, counting the request when it is allowed
+   *
+   * @param customerId rate limited customer
+   * @return false when the customer is rate limited
+   */
+  boolean isAllowed(UUID customerId);
+
+  /**
+   * Same check as {@link #isAllowed(UUID)}, for callers signaling a rate limited customer with an
+   * error
+   *
+   * @param customerId rate limited customer
+   * @throws TooManyRequestsException when the customer is rate limited
+   */
+  default void checkRateLimitFor(UUID customerId) {
+    if (!isAllowed(customerId)) {
+      throw new TooManyRequestsException();
+    }
+  }
+
+  /**
+   * Check the rate limit of several requests at once. A customer appearing more than once is
+   * checked once per request.
+   *
+   * @param customerIds customer of each request
+   * @return whether each request is allowed, in the order of the customer ids
+   */
+  default List<Boolean> checkRateLimitsFor(List<UUID> customerIds) {
+    return customerIds.stream().map(this::isAllowed).toList();
+  }
+
+  /**
+   * Set the rate limits following the credit line requests of several customers at once
+   *
+   * @param acceptedCustomerIds customers with an accepted credit line request
+   * @param rejectedCustomerIds customers with a rejected credit line request
+   */
+  default void setRateLimitsFor(
+      Collection<UUID> acceptedCustomerIds, Collection<UUID> rejectedCustomerIds) {
+    acceptedCustomerIds.forEach(this::setRateLimitForAcceptedCredit);
+    rejectedCustomerIds.forEach(this::setRateLimitForRejectedCredit);
+  }
 }
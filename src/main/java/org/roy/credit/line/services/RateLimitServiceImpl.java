@@ -1,55 +1,268 @@
 package org.roy.credit.line.services;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.roy.credit.line.constants.BusinessRulesConstants.ACCEPTED_CREDIT_RATE_LIMIT_WINDOW;
+import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW;
+import static org.roy.credit.line.constants.BusinessRulesConstants.REJECTED_CREDIT_COOL_DOWN;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Duration;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.RateLimitProperties;
 import org.roy.credit.line.enums.CreditLineStatus;
-import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.roy.credit.line.services.codecs.RedisIntegerSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 
+@Log4j2
 @Service
-@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@ConditionalOnProperty(
+    prefix = "rate-limit",
+    name = "mode",
+    havingValue = "REDIS",
+    matchIfMissing = true)
 public class RateLimitServiceImpl implements RateLimitService {
-  private final RedisTemplate<String, Integer> redisTemplate;
+  private static final Long REQUEST_ALLOWED = 1L;
+  private static final RedisIntegerSerializer INTEGER_SERIALIZER = new RedisIntegerSerializer();
+  private static final byte[][] RATE_LIMIT_SCRIPT_ARGS = {
+    INTEGER_SERIALIZER.serialize(MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW),
+    INTEGER_SERIALIZER.serialize((int) ACCEPTED_CREDIT_RATE_LIMIT_WINDOW.toMillis())
+  };
+
+  private final RedisTemplate<byte[], Integer> redisTemplate;
+  private final RedisScript<Long> rateLimitScript;
+  private final RejectedCreditNearCache rejectedCreditNearCache;
+  private final RateLimitProperties rateLimitProperties;
+
+  /** Latency of the Redis calls of a request, apart from the near cache answers */
+  private final Timer redisChecks;
+  private final Timer redisAcceptedWrites;
+  private final Timer redisRejectedWrites;
 
-  public static String keyOf(CreditLineStatus status, UUID customerId) {
-    return String.format("%s-%s", status.name(), customerId.toString());
+  @Autowired
+  public RateLimitServiceImpl(
+      RedisTemplate<byte[], Integer> redisTemplate,
+      RedisScript<Long> rateLimitScript,
+      RejectedCreditNearCache rejectedCreditNearCache,
+      RateLimitProperties rateLimitProperties,
+      MeterRegistry meterRegistry) {
+
+    this.redisTemplate = redisTemplate;
+    this.rateLimitScript = rateLimitScript;
+    this.rejectedCreditNearCache = rejectedCreditNearCache;
+    this.rateLimitProperties = rateLimitProperties;
+    this.redisChecks = redisTimerOf("check", meterRegistry);
+    this.redisAcceptedWrites = redisTimerOf("accepted", meterRegistry);
+    this.redisRejectedWrites = redisTimerOf("rejected", meterRegistry);
+  }
+
+  public static byte[] keyOf(CreditLineStatus status, UUID customerId) {
+    return RateLimitKeyCodec.encode(status, customerId);
+  }
+
+  /**
+   * Load the rate limit script into the Redis script cache, so the first requests are served by
+   * EVALSHA as well. A failure here is not fatal, the script is loaded on the first NOSCRIPT reply.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadRateLimitScript() {
+    try {
+      redisTemplate.execute(
+          (RedisCallback<String>)
+              connection ->
+                  connection
+                      .scriptingCommands()
+                      .scriptLoad(rateLimitScript.getScriptAsString().getBytes(UTF_8)));
+    } catch (RuntimeException exception) {
+      log.warn("Could not preload the rate limit script: {}", exception.getMessage());
+    }
   }
 
   @Override
   public void setRateLimitForAcceptedCredit(UUID customerId) {
-    redisTemplate.opsForValue().setIfAbsent(keyOf(CreditLineStatus.ACCEPTED, customerId), 1, Duration.ofMinutes(2));
+    redisAcceptedWrites.record(
+        () ->
+            redisTemplate
+                .opsForValue()
+                .setIfAbsent(
+                    keyOf(CreditLineStatus.ACCEPTED, customerId),
+                    1,
+                    ACCEPTED_CREDIT_RATE_LIMIT_WINDOW));
   }
 
   @Override
   public void setRateLimitForRejectedCredit(UUID customerId) {
-    redisTemplate.opsForValue().setIfAbsent(keyOf(CreditLineStatus.REJECTED, customerId), 0, Duration.ofSeconds(30));
+    Boolean coolDownStarted =
+        redisRejectedWrites.record(
+            () ->
+                redisTemplate
+                    .opsForValue()
+                    .setIfAbsent(
+                        keyOf(CreditLineStatus.REJECTED, customerId),
+                        0,
+                        REJECTED_CREDIT_COOL_DOWN));
+
+    if (Boolean.TRUE.equals(coolDownStarted)) {
+      rejectedCreditNearCache.startCoolDown(customerId, REJECTED_CREDIT_COOL_DOWN);
+    }
   }
 
+  /**
+   * Check the rejected credit cool down and the accepted credit window, incrementing the window
+   * counter, atomically in one script call. Cool downs already known by the near cache are
+   * answered without calling Redis.
+   *
+   * @param customerId rate limited customer
+   */
   @Override
-  public void checkRateLimitFor(UUID customerId) {
-    checkRejectedCreditCache(customerId);
-    checkAcceptedCreditCache(customerId);
+  public boolean isAllowed(UUID customerId) {
+    if (rejectedCreditNearCache.isCoolingDown(customerId)) {
+      return false;
+    }
+
+    Long result =
+        redisChecks.record(
+            () ->
+                redisTemplate.execute(
+                    rateLimitScript,
+                    RateLimitKeyCodec.scriptKeysOf(
+                        customerId, rateLimitProperties.isReadLegacyKeys()),
+                    MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW,
+                    (int) ACCEPTED_CREDIT_RATE_LIMIT_WINDOW.toMillis()));
+
+    if (!REQUEST_ALLOWED.equals(result)) {
+      // A negative result is the remaining time of the rejected credit cool down
+      if (result != null && result < 0) {
+        rejectedCreditNearCache.put(customerId, Duration.ofMillis(-result));
+      }
+      return false;
+    }
+
+    return true;
   }
 
-  private void checkRejectedCreditCache(UUID customerId) {
-    if (Boolean.TRUE.equals(redisTemplate.hasKey(keyOf(CreditLineStatus.REJECTED, customerId)))) {
-      throw new TooManyRequestsException();
+  /**
+   * Run the rate limit script for every request in a single pipeline, so the whole batch costs one
+   * round trip to Redis
+   */
+  @Override
+  public List<Boolean> checkRateLimitsFor(List<UUID> customerIds) {
+    Boolean[] allowed = new Boolean[customerIds.size()];
+    List<Integer> checkedOnRedis = new ArrayList<>(customerIds.size());
+
+    for (int i = 0; i < customerIds.size(); i++) {
+      if (rejectedCreditNearCache.isCoolingDown(customerIds.get(i))) {
+        allowed[i] = Boolean.FALSE;
+      } else {
+        checkedOnRedis.add(i);
+      }
     }
+
+    if (!checkedOnRedis.isEmpty()) {
+      List<UUID> checkedCustomerIds = checkedOnRedis.stream().map(customerIds::get).toList();
+      List<Object> results = executeRateLimitScriptPipelined(checkedCustomerIds);
+
+      for (int i = 0; i < checkedCustomerIds.size(); i++) {
+        Long result = (Long) results.get(i);
+        allowed[checkedOnRedis.get(i)] = REQUEST_ALLOWED.equals(result);
+
+        if (result != null && result < 0) {
+          rejectedCreditNearCache.put(checkedCustomerIds.get(i), Duration.ofMillis(-result));
+        }
+      }
+    }
+
+    return Arrays.asList(allowed);
   }
 
-  private void checkAcceptedCreditCache(UUID customerId) {
-    Integer count = redisTemplate.opsForValue().get(keyOf(CreditLineStatus.ACCEPTED, customerId));
+  @Override
+  public void setRateLimitsFor(
+      Collection<UUID> acceptedCustomerIds, Collection<UUID> rejectedCustomerIds) {
 
-    if (Objects.nonNull(count)) {
+    List<UUID> rejected = List.copyOf(rejectedCustomerIds);
+    List<Object> results =
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  var stringCommands = connection.stringCommands();
+                  rejected.forEach(
+                      customerId ->
+                          stringCommands.set(
+                              keyOf(CreditLineStatus.REJECTED, customerId),
+                              INTEGER_SERIALIZER.serialize(0),
+                              Expiration.from(REJECTED_CREDIT_COOL_DOWN),
+                              SetOption.ifAbsent()));
+                  acceptedCustomerIds.forEach(
+                      customerId ->
+                          stringCommands.set(
+                              keyOf(CreditLineStatus.ACCEPTED, customerId),
+                              INTEGER_SERIALIZER.serialize(1),
+                              Expiration.from(ACCEPTED_CREDIT_RATE_LIMIT_WINDOW),
+                              SetOption.ifAbsent()));
+                  return null;
+                });
 
-      if (count >= 3) {
-        throw new TooManyRequestsException();
+    for (int i = 0; i < rejected.size(); i++) {
+      if (Boolean.TRUE.equals(results.get(i))) {
+        rejectedCreditNearCache.startCoolDown(rejected.get(i), REJECTED_CREDIT_COOL_DOWN);
       }
-      redisTemplate.opsForValue().increment(keyOf(CreditLineStatus.ACCEPTED, customerId));
     }
   }
+
+  private static Timer redisTimerOf(String operation, MeterRegistry meterRegistry) {
+    return Timer.builder("credit.line.rate.limit.redis")
+        .tag("operation", operation)
+        .description("Redis calls of the rate limit of a credit line request")
+        .register(meterRegistry);
+  }
+
+  private List<Object> executeRateLimitScriptPipelined(List<UUID> customerIds) {
+    try {
+      return evalRateLimitScriptPipelined(customerIds);
+    } catch (RedisPipelineException exception) {
+      // EVALSHA fails with NOSCRIPT when the Redis script cache was flushed since the startup
+      log.warn("Rate limit pipeline failed, reloading the script: {}", exception.getMessage());
+      loadRateLimitScript();
+      return evalRateLimitScriptPipelined(customerIds);
+    }
+  }
+
+  private List<Object> evalRateLimitScriptPipelined(List<UUID> customerIds) {
+    boolean readLegacyKeys = rateLimitProperties.isReadLegacyKeys();
+
+    return redisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              for (UUID customerId : customerIds) {
+                List<byte[]> keys = RateLimitKeyCodec.scriptKeysOf(customerId, readLegacyKeys);
+                byte[][] keysAndArgs = keys.toArray(new byte[keys.size() + 2][]);
+                keysAndArgs[keys.size()] = RATE_LIMIT_SCRIPT_ARGS[0];
+                keysAndArgs[keys.size() + 1] = RATE_LIMIT_SCRIPT_ARGS[1];
+
+                connection
+                    .scriptingCommands()
+                    .evalSha(
+                        rateLimitScript.getSha1(), ReturnType.INTEGER, keys.size(), keysAndArgs);
+              }
+              return null;
+            });
+  }
 }
@@ -0,0 +1,21 @@
+package org.roy.credit.line.services;
+
+import java.util.UUID;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCreditLineService {
+
+  /**
+   * Process a credit line request based on the founding type, cash balance and monthly revenue.
+   *
+   * @param postRequestCreditLineRequestBody DTO containing the request data
+   * @return accepted credit line, or an error with a RejectedCreditLineException
+   */
+  Mono<PostRequestCreditLineResponseBody> requestCreditLine(
+      UUID customerId,
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType);
+}
@@ -0,0 +1,120 @@
+package org.roy.credit.line.services;
+
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.repositories.ReactiveCreditLineRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive edition of the credit line service. As in the servlet edition, each request locks the
+ * last request of the customer with SELECT ... FOR UPDATE and writes its decision in the same
+ * transaction, so concurrent requests of a customer never overwrite each other's attempts.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveCreditLineServiceImpl implements ReactiveCreditLineService {
+
+  // Dependency Injection
+  private final CreditLineDecisionEngine creditLineDecisionEngine;
+  private final ReactiveCreditLineRequestRepository creditLineRequestsRepository;
+  private final ReactiveRateLimitService rateLimitService;
+  private final TransactionalOperator transactionalOperator;
+
+  /** {@inheritDoc} */
+  @Override
+  public Mono<PostRequestCreditLineResponseBody> requestCreditLine(
+      UUID customerId,
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType) {
+
+    Mono<CreditLineRequestRecordDao> storedDecision =
+        transactionalOperator.transactional(
+            Mono.defer(
+                () -> decideAndStore(customerId, postRequestCreditLineRequestBody, foundingType)));
+
+    // A concurrent request stored the first record of the customer: the second transaction reads
+    // it again, locked this time, and decides from it
+    return storedDecision
+        .switchIfEmpty(storedDecision)
+        .switchIfEmpty(
+            Mono.error(
+                () -> new InternalServerErrorException(Messages.FIRST_REQUEST_NOT_STORED_MSG)))
+        .flatMap(this::getThePostRequestCreditLineResponseBody);
+  }
+
+  /**
+   * Decide the credit line request from the locked last request of the customer, and store the
+   * decision
+   *
+   * @return the stored decision, empty if a concurrent request stored the first record of the
+   *     customer in the meantime
+   */
+  private Mono<CreditLineRequestRecordDao> decideAndStore(
+      UUID customerId,
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType) {
+
+    return creditLineRequestsRepository
+        .findByIdForUpdate(customerId)
+        .map(Optional::of)
+        .defaultIfEmpty(Optional.empty())
+        .flatMap(
+            lastCreditLineRecord -> {
+              CreditLineRequestRecordDao processedCreditLineRequest =
+                  creditLineDecisionEngine.decide(
+                      customerId,
+                      postRequestCreditLineRequestBody,
+                      foundingType,
+                      lastCreditLineRecord);
+              var creditLineRequestRecord =
+                  creditLineDecisionEngine.toEntity(processedCreditLineRequest);
+
+              Mono<Boolean> stored =
+                  lastCreditLineRecord.isPresent()
+                      ? creditLineRequestsRepository
+                          .update(creditLineRequestRecord)
+                          .thenReturn(true)
+                      : creditLineRequestsRepository.insertIfAbsent(creditLineRequestRecord);
+              return stored
+                  .filter(Boolean::booleanValue)
+                  .map(storedRecord -> processedCreditLineRequest);
+            });
+  }
+
+  /**
+   * Get the api response body based on the status of the processed credit line request
+   *
+   * @param processedCreditLineRequest process credit line request
+   * @return api response body, or an error with a RejectedCreditLineException
+   */
+  private Mono<PostRequestCreditLineResponseBody> getThePostRequestCreditLineResponseBody(
+      CreditLineRequestRecordDao processedCreditLineRequest) {
+
+    UUID customerId = processedCreditLineRequest.getCustomerId();
+
+    if (CreditLineDecisionEngine.isRejected(processedCreditLineRequest)) {
+      return rateLimitService
+          .setRateLimitForRejectedCredit(customerId)
+          .then(Mono.error(creditLineDecisionEngine.rejectionOf(processedCreditLineRequest)));
+    }
+
+    return rateLimitService
+        .setRateLimitForAcceptedCredit(customerId)
+        .then(
+            Mono.fromSupplier(
+                () -> creditLineDecisionEngine.toResponseBody(processedCreditLineRequest)));
+  }
+}
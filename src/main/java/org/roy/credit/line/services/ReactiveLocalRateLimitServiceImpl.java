@@ -0,0 +1,38 @@
+package org.roy.credit.line.services;
+
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive edition of the in-memory rate limit. The {@link LocalRateLimitServiceImpl} never blocks,
+ * so it is called straight from the event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "LOCAL")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveLocalRateLimitServiceImpl implements ReactiveRateLimitService {
+
+  private final LocalRateLimitServiceImpl localRateLimitService;
+
+  @Override
+  public Mono<Void> setRateLimitForRejectedCredit(UUID customerId) {
+    return Mono.fromRunnable(() -> localRateLimitService.setRateLimitForRejectedCredit(customerId));
+  }
+
+  @Override
+  public Mono<Void> setRateLimitForAcceptedCredit(UUID customerId) {
+    return Mono.fromRunnable(() -> localRateLimitService.setRateLimitForAcceptedCredit(customerId));
+  }
+
+  @Override
+  public Mono<Void> checkRateLimitFor(UUID customerId) {
+    return Mono.fromRunnable(() -> localRateLimitService.checkRateLimitFor(customerId));
+  }
+}
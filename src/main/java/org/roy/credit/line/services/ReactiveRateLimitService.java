@@ -0,0 +1,19 @@
+package org.roy.credit.line.services;
+
+import java.util.UUID;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveRateLimitService {
+
+  Mono<Void> setRateLimitForRejectedCredit(UUID customerId);
+
+  Mono<Void> setRateLimitForAcceptedCredit(UUID customerId);
+
+  /**
+   * Check the rate limit of the customer
+   *
+   * @param customerId rate limited customer
+   * @return completion, or an error with a TooManyRequestsException if the limit is reached
+   */
+  Mono<Void> checkRateLimitFor(UUID customerId);
+}
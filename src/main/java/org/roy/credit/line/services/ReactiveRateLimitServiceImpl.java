@@ -0,0 +1,101 @@
+package org.roy.credit.line.services;
+
+import static org.roy.credit.line.constants.BusinessRulesConstants.ACCEPTED_CREDIT_RATE_LIMIT_WINDOW;
+import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW;
+import static org.roy.credit.line.constants.BusinessRulesConstants.REJECTED_CREDIT_COOL_DOWN;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/** Reactive counterpart of {@link RateLimitServiceImpl}, running the same rate limit script */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@ConditionalOnProperty(
+    prefix = "rate-limit",
+    name = "mode",
+    havingValue = "REDIS",
+    matchIfMissing = true)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveRateLimitServiceImpl implements ReactiveRateLimitService {
+  private static final Long REQUEST_ALLOWED = 1L;
+
+  private final ReactiveRedisTemplate<byte[], Integer> reactiveRedisTemplate;
+  private final RedisScript<Long> rateLimitScript;
+  private final RejectedCreditNearCache rejectedCreditNearCache;
+  private final RateLimitProperties rateLimitProperties;
+
+  @Override
+  public Mono<Void> setRateLimitForAcceptedCredit(UUID customerId) {
+    return reactiveRedisTemplate
+        .opsForValue()
+        .setIfAbsent(
+            RateLimitKeyCodec.encode(CreditLineStatus.ACCEPTED, customerId),
+            1,
+            ACCEPTED_CREDIT_RATE_LIMIT_WINDOW)
+        .then();
+  }
+
+  @Override
+  public Mono<Void> setRateLimitForRejectedCredit(UUID customerId) {
+    return reactiveRedisTemplate
+        .opsForValue()
+        .setIfAbsent(
+            RateLimitKeyCodec.encode(CreditLineStatus.REJECTED, customerId),
+            0,
+            REJECTED_CREDIT_COOL_DOWN)
+        .filter(Boolean.TRUE::equals)
+        // Starting the cool down may publish it to the other instances with a blocking call
+        .flatMap(
+            coolDownStarted ->
+                Mono.fromRunnable(
+                        () ->
+                            rejectedCreditNearCache.startCoolDown(
+                                customerId, REJECTED_CREDIT_COOL_DOWN))
+                    .subscribeOn(Schedulers.boundedElastic()))
+        .then();
+  }
+
+  @Override
+  public Mono<Void> checkRateLimitFor(UUID customerId) {
+    if (rejectedCreditNearCache.isCoolingDown(customerId)) {
+      return Mono.error(new TooManyRequestsException());
+    }
+
+    return reactiveRedisTemplate
+        .execute(
+            rateLimitScript,
+            RateLimitKeyCodec.scriptKeysOf(customerId, rateLimitProperties.isReadLegacyKeys()),
+            List.of(
+                MAX_REQUESTS_PER_ACCEPTED_CREDIT_WINDOW,
+                (int) ACCEPTED_CREDIT_RATE_LIMIT_WINDOW.toMillis()))
+        .next()
+        .defaultIfEmpty(0L)
+        .flatMap(
+            result -> {
+              if (REQUEST_ALLOWED.equals(result)) {
+                return Mono.<Void>empty();
+              }
+              // A negative result is the remaining time of the rejected credit cool down
+              if (result < 0) {
+                rejectedCreditNearCache.put(customerId, Duration.ofMillis(-result));
+              }
+              return Mono.error(new TooManyRequestsException());
+            });
+  }
+}
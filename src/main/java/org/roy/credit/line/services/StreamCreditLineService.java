@@ -0,0 +1,18 @@
+package org.roy.credit.line.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface StreamCreditLineService {
+
+  /**
+   * Process a stream of credit line requests, one JSON object per line, writing the result of each
+   * request as a line of the output as soon as it is produced
+   *
+   * @param ndjsonRequests newline delimited JSON credit line requests
+   * @param ndjsonResults newline delimited JSON results, in the order of the requests
+   */
+  void requestCreditLines(InputStream ndjsonRequests, OutputStream ndjsonResults)
+      throws IOException;
+}
@@ -0,0 +1,191 @@
+package org.roy.credit.line.services;
+
+import static org.roy.credit.line.constants.BusinessRulesConstants.CREDIT_LINE_STREAM_CHUNK_SIZE;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.models.requests.BatchCreditLineRequestItem;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
+import org.roy.credit.line.models.responses.ResponseError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streaming edition of the {@link BatchCreditLineServiceImpl}. Requests are parsed one at a time
+ * and evaluated in fixed size chunks, so the memory in use does not depend on the stream length.
+ * The next chunk is only read once the results of the previous one were written, which lets TCP
+ * flow control slow down a client sending faster than the service answers.
+ */
+@Log4j2
+@Service
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class StreamCreditLineServiceImpl implements StreamCreditLineService {
+
+  private final BatchCreditLineService batchCreditLineService;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final int chunkSize;
+
+  @Autowired
+  public StreamCreditLineServiceImpl(
+      BatchCreditLineService batchCreditLineService,
+      Validator validator,
+      ObjectMapper objectMapper) {
+    this(batchCreditLineService, validator, objectMapper, CREDIT_LINE_STREAM_CHUNK_SIZE);
+  }
+
+  StreamCreditLineServiceImpl(
+      BatchCreditLineService batchCreditLineService,
+      Validator validator,
+      ObjectMapper objectMapper,
+      int chunkSize) {
+    this.batchCreditLineService = batchCreditLineService;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.chunkSize = chunkSize;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void requestCreditLines(InputStream ndjsonRequests, OutputStream ndjsonResults)
+      throws IOException {
+
+    ObjectWriter resultWriter =
+        objectMapper
+            .writerFor(BatchCreditLineResponseItem.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    try (MappingIterator<BatchCreditLineRequestItem> requests =
+            objectMapper.readerFor(BatchCreditLineRequestItem.class).readValues(ndjsonRequests);
+        JsonGenerator results = objectMapper.createGenerator(ndjsonResults)) {
+
+      results.setRootValueSeparator(null);
+
+      boolean malformed = false;
+      while (!malformed) {
+        List<BatchCreditLineRequestItem> chunk = new ArrayList<>(chunkSize);
+        malformed = readChunk(requests, chunk);
+
+        if (chunk.isEmpty() && !malformed) {
+          break;
+        }
+
+        for (BatchCreditLineResponseItem result : processChunk(chunk)) {
+          writeLine(results, resultWriter, result);
+        }
+        if (malformed) {
+          writeLine(
+              results,
+              resultWriter,
+              getErrorItem(null, Messages.MALFORMED_CREDIT_LINE_STREAM_MSG));
+        }
+        results.flush();
+      }
+    }
+  }
+
+  /**
+   * Read the next requests of the stream, up to the chunk size. A line that does not map to a
+   * request is added as null, to be answered with an error.
+   *
+   * @return true if the stream has a line that is not valid JSON, which ends the stream
+   */
+  private boolean readChunk(
+      MappingIterator<BatchCreditLineRequestItem> requests, List<BatchCreditLineRequestItem> chunk)
+      throws IOException {
+
+    while (chunk.size() < chunkSize) {
+      try {
+        if (!requests.hasNextValue()) {
+          return false;
+        }
+        chunk.add(requests.nextValue());
+      } catch (JsonMappingException exception) {
+        // The iterator skips the rest of the unmappable object and goes on with the next line
+        log.warn("Unmappable credit line request: {}", exception.getOriginalMessage());
+        chunk.add(null);
+      } catch (JsonParseException exception) {
+        log.warn("Malformed credit line stream: {}", exception.getOriginalMessage());
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Evaluate the valid requests of a chunk with a single batch call, answering the invalid ones
+   * with an error
+   *
+   * @param chunk requests of the chunk
+   * @return the result of each request, in the order of the chunk
+   */
+  private List<BatchCreditLineResponseItem> processChunk(List<BatchCreditLineRequestItem> chunk) {
+    List<BatchCreditLineRequestItem> validRequests = new ArrayList<>(chunk.size());
+    boolean[] valid = new boolean[chunk.size()];
+    for (int i = 0; i < chunk.size(); i++) {
+      BatchCreditLineRequestItem request = chunk.get(i);
+      valid[i] = request != null && validator.validate(request).isEmpty();
+      if (valid[i]) {
+        validRequests.add(request);
+      }
+    }
+
+    Iterator<BatchCreditLineResponseItem> validResults =
+        validRequests.isEmpty()
+            ? Collections.emptyIterator()
+            : batchCreditLineService.requestCreditLines(validRequests).iterator();
+
+    List<BatchCreditLineResponseItem> results = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      BatchCreditLineRequestItem request = chunk.get(i);
+      results.add(
+          valid[i]
+              ? validResults.next()
+              : getErrorItem(
+                  request == null ? null : request.getCustomerId(),
+                  Messages.INVALID_CREDIT_LINE_REQUEST_MSG));
+    }
+
+    return results;
+  }
+
+  private static void writeLine(
+      JsonGenerator results, ObjectWriter resultWriter, BatchCreditLineResponseItem result)
+      throws IOException {
+    resultWriter.writeValue(results, result);
+    results.writeRaw('\n');
+  }
+
+  private static BatchCreditLineResponseItem getErrorItem(UUID customerId, String errorMessage) {
+    return BatchCreditLineResponseItem.builder()
+        .customerId(customerId)
+        .error(
+            ResponseError.builder()
+                .errorCode(HttpStatus.BAD_REQUEST)
+                .errorType(ErrorType.MISMATCH_REQUEST)
+                .errorMessage(errorMessage)
+                .build())
+        .build();
+  }
+}
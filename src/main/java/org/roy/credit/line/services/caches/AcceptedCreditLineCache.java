@@ -0,0 +1,181 @@
+package org.roy.credit.line.services.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.CreditLineCacheProperties;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Last credit line request of the customers with an accepted credit line, kept in a bounded
+ * in-memory tier and, when enabled, in a Redis tier shared by every node.
+ *
+ * <p>Lookups read the memory, then Redis, copying Redis hits to the memory. Decisions are written
+ * through both tiers by the credit line service once they are stored in the database.
+ *
+ * <p>Requests never change an accepted credit line, but the re-evaluation job does: it
+ * invalidates the customers whose accepted decision it changed, from the memory of its node and
+ * from Redis. The memory of the other nodes keeps them until they expire, so a hit is only trusted
+ * once {@code CreditLineRequestJdbcRepository} counted the request on a stored decision still
+ * {@code ACCEPTED}: a customer whose credit line was re-evaluated to rejected is decided again.
+ */
+@Log4j2
+@Component
+public class AcceptedCreditLineCache {
+
+  private static final String REDIS_KEY_PREFIX = "credit-line:accepted:";
+
+  private final CreditLineCacheProperties properties;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final Cache<UUID, CreditLineRequestRecordDao> acceptedCreditLines;
+
+  private final Counter redisHits;
+  private final Counter redisMisses;
+
+  @Autowired
+  public AcceptedCreditLineCache(
+      CreditLineCacheProperties properties,
+      StringRedisTemplate stringRedisTemplate,
+      MeterRegistry meterRegistry) {
+
+    this.properties = properties;
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.acceptedCreditLines =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getTimeToLive())
+            .recordStats()
+            .build();
+
+    // Hits, misses and evictions of the memory tier, as cache.gets and cache.evictions
+    CaffeineCacheMetrics.monitor(meterRegistry, acceptedCreditLines, "accepted-credit-lines");
+    redisHits =
+        Counter.builder("credit.line.accepted.cache.redis")
+            .tag("result", "hit")
+            .description("Memory misses answered by the Redis tier")
+            .register(meterRegistry);
+    redisMisses =
+        Counter.builder("credit.line.accepted.cache.redis")
+            .tag("result", "miss")
+            .description("Memory misses not found on the Redis tier either")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Find the accepted credit line of the customer
+   *
+   * @param customerId requester id
+   * @return the accepted credit line request, empty when the customer is unknown to the cache
+   */
+  public Optional<CreditLineRequestRecordDao> get(UUID customerId) {
+    if (!properties.isEnabled()) {
+      return Optional.empty();
+    }
+
+    CreditLineRequestRecordDao acceptedCreditLine = acceptedCreditLines.getIfPresent(customerId);
+    if (acceptedCreditLine != null || !properties.getRedis().isEnabled()) {
+      return Optional.ofNullable(acceptedCreditLine);
+    }
+
+    String storedCreditLine;
+    try {
+      storedCreditLine = stringRedisTemplate.opsForValue().get(redisKeyOf(customerId));
+    } catch (DataAccessException failure) {
+      log.warn("Unable to read the accepted credit line of {} from Redis", customerId, failure);
+      return Optional.empty();
+    }
+
+    if (storedCreditLine == null) {
+      redisMisses.increment();
+      return Optional.empty();
+    }
+
+    redisHits.increment();
+    acceptedCreditLine =
+        acceptedCreditLineOf(customerId, Money.centsOf(new BigDecimal(storedCreditLine)));
+    acceptedCreditLines.put(customerId, acceptedCreditLine);
+
+    return Optional.of(acceptedCreditLine);
+  }
+
+  /**
+   * Keep the stored decision if it accepted the credit line, rejected decisions are not cached
+   *
+   * @param processedCreditLineRequest decision stored in the database
+   */
+  public void put(CreditLineRequestRecordDao processedCreditLineRequest) {
+    if (!properties.isEnabled()
+        || !CreditLineStatus.ACCEPTED.equals(processedCreditLineRequest.getCreditLineStatus())) {
+      return;
+    }
+
+    UUID customerId = processedCreditLineRequest.getCustomerId();
+    long acceptedCreditLine = processedCreditLineRequest.getAcceptedCreditLineCents();
+    acceptedCreditLines.put(customerId, acceptedCreditLineOf(customerId, acceptedCreditLine));
+
+    if (properties.getRedis().isEnabled()) {
+      try {
+        stringRedisTemplate
+            .opsForValue()
+            .set(
+                redisKeyOf(customerId),
+                Money.toBigDecimal(acceptedCreditLine).toPlainString(),
+                properties.getRedis().getTimeToLive());
+      } catch (DataAccessException failure) {
+        log.warn("Unable to write the accepted credit line of {} to Redis", customerId, failure);
+      }
+    }
+  }
+
+  /**
+   * Forget the accepted credit lines of customers whose stored decision changed
+   *
+   * @param customerIds customers whose accepted decision was re-evaluated
+   */
+  public void invalidate(Collection<UUID> customerIds) {
+    if (!properties.isEnabled() || customerIds.isEmpty()) {
+      return;
+    }
+
+    acceptedCreditLines.invalidateAll(customerIds);
+
+    if (properties.getRedis().isEnabled()) {
+      try {
+        stringRedisTemplate.delete(
+            customerIds.stream().map(AcceptedCreditLineCache::redisKeyOf).toList());
+      } catch (DataAccessException failure) {
+        log.warn(
+            "Unable to remove {} re-evaluated credit lines from Redis",
+            customerIds.size(),
+            failure);
+      }
+    }
+  }
+
+  /** The cached request only holds what answers a new request: the status and the amount */
+  private static CreditLineRequestRecordDao acceptedCreditLineOf(
+      UUID customerId, long acceptedCreditLine) {
+    return CreditLineRequestRecordDao.builder()
+        .customerId(customerId)
+        .creditLineStatus(CreditLineStatus.ACCEPTED)
+        .acceptedCreditLineCents(acceptedCreditLine)
+        .build();
+  }
+
+  private static String redisKeyOf(UUID customerId) {
+    return REDIS_KEY_PREFIX + customerId;
+  }
+}
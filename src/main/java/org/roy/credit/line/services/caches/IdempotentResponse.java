@@ -0,0 +1,58 @@
+package org.roy.credit.line.services.caches;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Response of a credit line request, as written to the client: its HTTP status and the serialized
+ * {@code ContractResponse} bytes, with the fingerprint of the request it answers.
+ *
+ * @param status HTTP status
+ * @param fingerprint digest of the founding type and the body of the request
+ * @param body serialized response body
+ */
+public record IdempotentResponse(int status, byte[] fingerprint, byte[] body) {
+
+  private static final int STATUS_LENGTH = 2;
+  private static final int FINGERPRINT_LENGTH = 16;
+  private static final byte FINGERPRINT_SEPARATOR = 0;
+
+  /**
+   * Fingerprint of a request, telling a retry from another request sent with the same key. An MD5
+   * digest, as the ETags of Spring, is enough to compare the payloads a customer sends.
+   *
+   * @param foundingType founding type header of the request
+   * @param body body of the request
+   * @return the 16 bytes digest of the founding type and the body
+   */
+  public static byte[] fingerprint(String foundingType, byte[] body) {
+    byte[] type = String.valueOf(foundingType).getBytes(UTF_8);
+    byte[] request = Arrays.copyOf(type, type.length + 1 + body.length);
+    request[type.length] = FINGERPRINT_SEPARATOR;
+    System.arraycopy(body, 0, request, type.length + 1, body.length);
+
+    return DigestUtils.md5Digest(request);
+  }
+
+  /** The status as 2 big endian bytes, followed by the fingerprint and the body */
+  public byte[] encode() {
+    byte[] encoded = new byte[STATUS_LENGTH + FINGERPRINT_LENGTH + body.length];
+    encoded[0] = (byte) (status >>> 8);
+    encoded[1] = (byte) status;
+    System.arraycopy(fingerprint, 0, encoded, STATUS_LENGTH, FINGERPRINT_LENGTH);
+    System.arraycopy(body, 0, encoded, STATUS_LENGTH + FINGERPRINT_LENGTH, body.length);
+
+    return encoded;
+  }
+
+  public static IdempotentResponse decode(byte[] encoded) {
+    int status = (encoded[0] & 0xff) << 8 | encoded[1] & 0xff;
+
+    return new IdempotentResponse(
+        status,
+        Arrays.copyOfRange(encoded, STATUS_LENGTH, STATUS_LENGTH + FINGERPRINT_LENGTH),
+        Arrays.copyOfRange(encoded, STATUS_LENGTH + FINGERPRINT_LENGTH, encoded.length));
+  }
+}
@@ -0,0 +1,27 @@
+package org.roy.credit.line.services.caches;
+
+import java.util.Optional;
+
+/**
+ * Responses of the credit line requests sent with an Idempotency-Key header, replayed when the
+ * request is retried. Depending on the idempotency.mode property, they are kept on Redis or in the
+ * memory of each node, and expire after idempotency.time-to-live.
+ */
+public interface IdempotentResponseStore {
+
+  /**
+   * Find the response of a request
+   *
+   * @param key idempotency key of the request, scoped by customer
+   * @return the response, empty when the request was not answered yet or expired
+   */
+  Optional<IdempotentResponse> find(String key);
+
+  /**
+   * Keep the response of a request
+   *
+   * @param key idempotency key of the request, scoped by customer
+   * @param idempotentResponse response written to the client
+   */
+  void save(String key, IdempotentResponse idempotentResponse);
+}
@@ -0,0 +1,39 @@
+package org.roy.credit.line.services.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Optional;
+import org.roy.credit.line.configs.IdempotencyProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Component;
+
+/** Bounded in-memory store of the responses, for single node deployments without Redis */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(prefix = "idempotency", name = "mode", havingValue = "LOCAL")
+public class LocalIdempotentResponseStore implements IdempotentResponseStore {
+
+  private final Cache<String, IdempotentResponse> idempotentResponses;
+
+  @Autowired
+  public LocalIdempotentResponseStore(IdempotencyProperties idempotencyProperties) {
+    this.idempotentResponses =
+        Caffeine.newBuilder()
+            .maximumSize(idempotencyProperties.getLocal().getMaximumSize())
+            .expireAfterWrite(idempotencyProperties.getTimeToLive())
+            .build();
+  }
+
+  @Override
+  public Optional<IdempotentResponse> find(String key) {
+    return Optional.ofNullable(idempotentResponses.getIfPresent(key));
+  }
+
+  @Override
+  public void save(String key, IdempotentResponse idempotentResponse) {
+    idempotentResponses.put(key, idempotentResponse);
+  }
+}
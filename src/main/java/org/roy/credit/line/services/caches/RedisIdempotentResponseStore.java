@@ -0,0 +1,56 @@
+package org.roy.credit.line.services.caches;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Optional;
+import org.roy.credit.line.configs.IdempotencyProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/** Stores each response as a single Redis value, expired by Redis */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(
+    prefix = "idempotency",
+    name = "mode",
+    havingValue = "REDIS",
+    matchIfMissing = true)
+public class RedisIdempotentResponseStore implements IdempotentResponseStore {
+
+  /** Versioned, as the responses kept before their fingerprint can not be decoded */
+  private static final String KEY_PREFIX = "credit-line:idempotency:v2:";
+
+  private final RedisTemplate<byte[], byte[]> idempotentResponseTemplate;
+  private final IdempotencyProperties idempotencyProperties;
+
+  @Autowired
+  public RedisIdempotentResponseStore(
+      @Qualifier("idempotentResponseTemplate")
+          RedisTemplate<byte[], byte[]> idempotentResponseTemplate,
+      IdempotencyProperties idempotencyProperties) {
+    this.idempotentResponseTemplate = idempotentResponseTemplate;
+    this.idempotencyProperties = idempotencyProperties;
+  }
+
+  @Override
+  public Optional<IdempotentResponse> find(String key) {
+    return Optional.ofNullable(idempotentResponseTemplate.opsForValue().get(redisKeyOf(key)))
+        .map(IdempotentResponse::decode);
+  }
+
+  @Override
+  public void save(String key, IdempotentResponse idempotentResponse) {
+    idempotentResponseTemplate
+        .opsForValue()
+        .set(redisKeyOf(key), idempotentResponse.encode(), idempotencyProperties.getTimeToLive());
+  }
+
+  private static byte[] redisKeyOf(String key) {
+    return (KEY_PREFIX + key).getBytes(UTF_8);
+  }
+}
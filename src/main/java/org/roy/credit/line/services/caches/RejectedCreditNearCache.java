@@ -0,0 +1,156 @@
+package org.roy.credit.line.services.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.enums.NearCacheSyncMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory copy of the rejected credit cool downs stored on Redis. Each entry expires
+ * together with the Redis key it mirrors, so a hit can be answered with a 429 without a network
+ * call.
+ *
+ * <p>Cool downs are shared with the other nodes as epoch millis, read from the {@link Ticker} of
+ * the cache and the wall clock at its creation, so that both expire entries on the same time.
+ */
+@Log4j2
+@Component
+public class RejectedCreditNearCache {
+
+  private static final String MESSAGE_SEPARATOR = ":";
+
+  private final RateLimitProperties.NearCache properties;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final Ticker ticker;
+  private final long epochMillisOffset;
+  private final Cache<UUID, Long> coolDowns;
+
+  @Autowired
+  public RejectedCreditNearCache(
+      RateLimitProperties rateLimitProperties, StringRedisTemplate stringRedisTemplate) {
+    this(rateLimitProperties, stringRedisTemplate, Ticker.systemTicker());
+  }
+
+  public RejectedCreditNearCache(
+      RateLimitProperties rateLimitProperties,
+      StringRedisTemplate stringRedisTemplate,
+      Ticker ticker) {
+    this.properties = rateLimitProperties.getNearCache();
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.ticker = ticker;
+    this.epochMillisOffset =
+        System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(ticker.read());
+    this.coolDowns =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfter(new CoolDownExpiry())
+            .ticker(ticker)
+            .build();
+  }
+
+  /**
+   * Check if the customer is in a rejected credit cool down known by this node
+   *
+   * @param customerId rate limited customer
+   * @return true if the cool down is still active
+   */
+  public boolean isCoolingDown(UUID customerId) {
+    return properties.isEnabled() && coolDowns.getIfPresent(customerId) != null;
+  }
+
+  /**
+   * Keep a cool down found on Redis
+   *
+   * @param customerId rate limited customer
+   * @param remaining remaining time of the cool down
+   */
+  public void put(UUID customerId, Duration remaining) {
+    put(customerId, currentTimeMillis() + remaining.toMillis());
+  }
+
+  /**
+   * Keep a cool down started by this node and share it with the other nodes if configured
+   *
+   * @param customerId rate limited customer
+   * @param coolDown cool down length
+   */
+  public void startCoolDown(UUID customerId, Duration coolDown) {
+    long expiresAt = currentTimeMillis() + coolDown.toMillis();
+    put(customerId, expiresAt);
+
+    if (NearCacheSyncMode.PUBSUB.equals(properties.getSyncMode())) {
+      stringRedisTemplate.convertAndSend(
+          properties.getChannel(), customerId + MESSAGE_SEPARATOR + expiresAt);
+    }
+  }
+
+  /**
+   * Apply a cool down broadcast by any node. The message format is {@code customerId:expiresAt}
+   *
+   * @param message cool down message
+   */
+  public void onCoolDownMessage(String message) {
+    int separator = message.lastIndexOf(MESSAGE_SEPARATOR);
+
+    try {
+      put(
+          UUID.fromString(message.substring(0, separator)),
+          Long.parseLong(message.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+      log.warn("Ignoring malformed cool down message: {}", message);
+    }
+  }
+
+  public void invalidate(UUID customerId) {
+    coolDowns.invalidate(customerId);
+  }
+
+  private void put(UUID customerId, long expiresAt) {
+    if (properties.isEnabled() && expiresAt > currentTimeMillis()) {
+      coolDowns.put(customerId, expiresAt);
+    }
+  }
+
+  private long currentTimeMillis() {
+    return epochMillisOf(ticker.read());
+  }
+
+  /** Epoch millis of a read of the ticker */
+  private long epochMillisOf(long tickerNanos) {
+    return epochMillisOffset + TimeUnit.NANOSECONDS.toMillis(tickerNanos);
+  }
+
+  /** Expire each entry at the epoch millis it holds */
+  private class CoolDownExpiry implements Expiry<UUID, Long> {
+
+    @Override
+    public long expireAfterCreate(UUID customerId, Long expiresAt, long currentTime) {
+      return remainingNanos(expiresAt, currentTime);
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        UUID customerId, Long expiresAt, long currentTime, long currentDuration) {
+      return remainingNanos(expiresAt, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        UUID customerId, Long expiresAt, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+    private long remainingNanos(long expiresAt, long currentTime) {
+      return Duration.ofMillis(Math.max(0, expiresAt - epochMillisOf(currentTime))).toNanos();
+    }
+  }
+}
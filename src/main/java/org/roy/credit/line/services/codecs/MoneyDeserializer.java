@@ -0,0 +1,64 @@
+package org.roy.credit.line.services.codecs;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import org.roy.credit.line.utils.Money;
+
+/**
+ * Reads JSON amounts, such as {@code 150000.99}, straight into a long of cents. Plain decimal
+ * numbers are parsed from the characters buffered by the parser, without a Float, a Double or a
+ * BigDecimal in between. Amounts in exponent notation go through a BigDecimal. A null amount is
+ * not an amount, it is reported as a mismatched input instead of being read as zero.
+ */
+public class MoneyDeserializer extends JsonDeserializer<Long> {
+
+  @Override
+  public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+    return centsOf(parser, context);
+  }
+
+  @Override
+  public Long getNullValue(DeserializationContext context) throws JsonMappingException {
+    throw MismatchedInputException.from(
+        context.getParser(), Long.class, "An amount can not be null");
+  }
+
+  private static long centsOf(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+
+    try {
+      if (token == JsonToken.VALUE_NUMBER_INT) {
+        return Money.centsOfUnits(parser.getLongValue());
+      }
+      if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+        return parseCents(parser);
+      }
+    } catch (NumberFormatException | ArithmeticException exception) {
+      return (Long)
+          context.handleWeirdStringValue(Long.class, parser.getText(), exception.getMessage());
+    }
+
+    return (Long) context.handleUnexpectedToken(Long.class, parser);
+  }
+
+  private static long parseCents(JsonParser parser) throws IOException {
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    int length = parser.getTextLength();
+
+    for (int i = offset; i < offset + length; i++) {
+      if (chars[i] == 'e' || chars[i] == 'E') {
+        return Money.centsOf(new BigDecimal(chars, offset, length));
+      }
+    }
+
+    return Money.parseCents(chars, offset, length);
+  }
+}
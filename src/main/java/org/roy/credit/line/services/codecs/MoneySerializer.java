@@ -0,0 +1,17 @@
+package org.roy.credit.line.services.codecs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import java.io.IOException;
+import org.roy.credit.line.utils.Money;
+
+/** Writes a long of cents as a JSON amount with its two decimal places, such as {@code 10.50} */
+public class MoneySerializer extends JsonSerializer<Long> {
+
+  @Override
+  public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    generator.writeNumber(Money.toBigDecimal(cents));
+  }
+}
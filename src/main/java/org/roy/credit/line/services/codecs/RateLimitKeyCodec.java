@@ -0,0 +1,112 @@
+package org.roy.credit.line.services.codecs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.roy.credit.line.enums.CreditLineStatus;
+
+/**
+ * Rate limit Redis keys. A key is a 1 byte status prefix followed by the 16 raw bytes of the
+ * customer id, so building it takes a single 17 bytes allocation.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class RateLimitKeyCodec {
+
+  public static final int KEY_LENGTH = 1 + 2 * Long.BYTES;
+
+  private static final String LEGACY_KEY_FORMAT = "\"%s-%s\"";
+
+  public static byte[] encode(CreditLineStatus status, UUID customerId) {
+    byte[] key = new byte[KEY_LENGTH];
+    key[0] = prefixOf(status);
+    writeLong(key, 1, customerId.getMostSignificantBits());
+    writeLong(key, 1 + Long.BYTES, customerId.getLeastSignificantBits());
+
+    return key;
+  }
+
+  /**
+   * Key written by the previous versions of the service: the JSON string "STATUS-customerId". Only
+   * used to read the rate limits set before the rollout of the binary keys.
+   */
+  public static byte[] encodeLegacy(CreditLineStatus status, UUID customerId) {
+    return String.format(LEGACY_KEY_FORMAT, status.name(), customerId).getBytes(UTF_8);
+  }
+
+  /**
+   * Keys of the rate limit script: the rejected and accepted keys of the customer, followed by
+   * their legacy versions when those are still read
+   */
+  public static List<byte[]> scriptKeysOf(UUID customerId, boolean readLegacyKeys) {
+    if (readLegacyKeys) {
+      return List.of(
+          encode(CreditLineStatus.REJECTED, customerId),
+          encode(CreditLineStatus.ACCEPTED, customerId),
+          encodeLegacy(CreditLineStatus.REJECTED, customerId),
+          encodeLegacy(CreditLineStatus.ACCEPTED, customerId));
+    }
+
+    return List.of(
+        encode(CreditLineStatus.REJECTED, customerId), encode(CreditLineStatus.ACCEPTED, customerId));
+  }
+
+  /**
+   * Extract the customer id of a key in either the binary or the legacy format
+   *
+   * @param status expected status of the key
+   * @param key key as stored on Redis
+   * @return the customer id, or empty if the key is not a rate limit key of the given status
+   */
+  public static Optional<UUID> decode(CreditLineStatus status, byte[] key) {
+    if (key.length == KEY_LENGTH && key[0] == prefixOf(status)) {
+      return Optional.of(new UUID(readLong(key, 1), readLong(key, 1 + Long.BYTES)));
+    }
+
+    return decodeLegacy(status, key);
+  }
+
+  private static Optional<UUID> decodeLegacy(CreditLineStatus status, byte[] key) {
+    String legacyKey = new String(key, UTF_8).replace("\"", "");
+    String prefix = status.name() + "-";
+
+    if (!legacyKey.startsWith(prefix)) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(UUID.fromString(legacyKey.substring(prefix.length())));
+    } catch (IllegalArgumentException exception) {
+      return Optional.empty();
+    }
+  }
+
+  private static byte prefixOf(CreditLineStatus status) {
+    switch (status) {
+      case ACCEPTED:
+        return 'A';
+      case REJECTED:
+        return 'R';
+      default:
+        return 'N';
+    }
+  }
+
+  private static void writeLong(byte[] target, int offset, long value) {
+    for (int i = Long.BYTES - 1; i >= 0; i--) {
+      target[offset + i] = (byte) value;
+      value >>>= Byte.SIZE;
+    }
+  }
+
+  private static long readLong(byte[] source, int offset) {
+    long value = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      value = (value << Byte.SIZE) | (source[offset + i] & 0xFF);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,69 @@
+package org.roy.credit.line.services.codecs;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Integers in the native Redis format: ASCII decimal digits, the representation INCR works on.
+ * Encoding and decoding go straight between the int and the bytes, without an intermediate String.
+ */
+public class RedisIntegerSerializer implements RedisSerializer<Integer> {
+
+  @Override
+  public byte[] serialize(Integer value) {
+    if (value == null) {
+      return null;
+    }
+
+    long remaining = Math.abs((long) value);
+    int length = value < 0 ? 2 : 1;
+    for (long rest = remaining / 10; rest > 0; rest /= 10) {
+      length++;
+    }
+
+    byte[] serialized = new byte[length];
+    int position = length;
+
+    do {
+      serialized[--position] = (byte) ('0' + remaining % 10);
+      remaining /= 10;
+    } while (remaining > 0);
+
+    if (value < 0) {
+      serialized[0] = '-';
+    }
+
+    return serialized;
+  }
+
+  @Override
+  public Integer deserialize(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+
+    boolean negative = bytes[0] == '-';
+    long maxMagnitude = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+    long value = 0;
+
+    for (int i = negative ? 1 : 0; i < bytes.length; i++) {
+      int digit = bytes[i] - '0';
+
+      if (digit < 0 || digit > 9) {
+        throw new SerializationException("Not a Redis integer value");
+      }
+      value = value * 10 + digit;
+
+      if (value > maxMagnitude) {
+        throw new SerializationException("Redis integer value out of range");
+      }
+    }
+
+    return (int) (negative ? -value : value);
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return Integer.class;
+  }
+}
@@ -1,14 +1,20 @@
 package org.roy.credit.line.services.mappers;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants.ComponentModel;
+import org.mapstruct.Named;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
 import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
 import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.CreditLineRequestHistoryItem;
 import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
 import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.utils.Money;
 
 @Mapper(componentModel = ComponentModel.SPRING)
 public interface CreditLineRequestMapper {
@@ -17,10 +23,14 @@ public interface CreditLineRequestMapper {
    * Extract the costumer financial data from request body
    *
    * @param postRequestCreditLineRequestBody POST credit-line-request request body
+   * @param customerId requester id
+   * @param foundingType requester founding type
    * @return costumer financial object
    */
   RequesterFinancialData mapToRequesterFinancialData(
-          PostRequestCreditLineRequestBody postRequestCreditLineRequestBody, UUID customerId);
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      UUID customerId,
+      FoundingType foundingType);
 
   /**
    * Map entity to model layer POST credit-line-request data
@@ -40,6 +50,47 @@ public interface CreditLineRequestMapper {
   CreditLineRequestRecord mapToCreditLineRequestEntity(
       CreditLineRequestRecordDao creditLineRequestRecordDao);
 
+  /**
+   * Map an evaluated request to its history entry: the financial data of the request and the
+   * decision it got
+   *
+   * @param postRequestCreditLineRequestBody POST credit-line-request request body
+   * @param foundingType requester founding type
+   * @param creditLineRequestRecordDao decision of the request
+   * @return history entry, without id
+   */
+  @Mapping(target = "id", ignore = true)
+  @Mapping(target = "customerId", source = "creditLineRequestRecordDao.customerId")
+  @Mapping(target = "requestedDate", source = "postRequestCreditLineRequestBody.requestedDate")
+  @Mapping(target = "foundingType", source = "foundingType")
+  @Mapping(
+      target = "cashBalanceCents",
+      source = "postRequestCreditLineRequestBody.cashBalanceCents")
+  @Mapping(
+      target = "monthlyRevenueCents",
+      source = "postRequestCreditLineRequestBody.monthlyRevenueCents")
+  @Mapping(
+      target = "requestedCreditLineCents",
+      source = "postRequestCreditLineRequestBody.requestedCreditLineCents")
+  @Mapping(target = "creditLineStatus", source = "creditLineRequestRecordDao.creditLineStatus")
+  @Mapping(
+      target = "acceptedCreditLineCents",
+      source = "creditLineRequestRecordDao.acceptedCreditLineCents")
+  @Mapping(target = "attempts", source = "creditLineRequestRecordDao.attempts")
+  CreditLineRequestHistoryDao mapToCreditLineRequestHistoryDao(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType,
+      CreditLineRequestRecordDao creditLineRequestRecordDao);
+
+  /**
+   * Map a history entry to its item of the customer credit line requests pages
+   *
+   * @param creditLineRequestHistoryDao history entry
+   * @return page item
+   */
+  CreditLineRequestHistoryItem mapToCreditLineRequestHistoryItem(
+      CreditLineRequestHistoryDao creditLineRequestHistoryDao);
+
   /**
    * Map DAO to POST credit-line-request response body
    *
@@ -47,6 +98,21 @@ public interface CreditLineRequestMapper {
    * @return POST credit-line-request response body
    */
   @Mapping(target = "message", ignore = true)
+  @Mapping(
+      target = "acceptedCreditLine",
+      source = "acceptedCreditLineCents",
+      qualifiedByName = "amountOfCents")
   PostRequestCreditLineResponseBody mapToRequestCreditLineResponseBody(
       CreditLineRequestRecordDao creditLineRequestRecordDao);
+
+  /**
+   * Amount of the response bodies, with its two decimal places
+   *
+   * @param cents amount in cents
+   * @return amount of scale two
+   */
+  @Named("amountOfCents")
+  default BigDecimal amountOfCents(long cents) {
+    return Money.toBigDecimal(cents);
+  }
 }
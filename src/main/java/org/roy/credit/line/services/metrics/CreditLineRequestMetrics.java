@@ -0,0 +1,154 @@
+package org.roy.credit.line.services.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.enums.RequestOutcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers of the credit line request pipeline, tagged by the outcome of the request. Their counts
+ * are the number of requests answered with each outcome. The timers are registered up front, so
+ * recording a stage is a map lookup and no allocation.
+ *
+ * <ul>
+ *   <li>{@code credit.line.request}: the whole request, as answered by the endpoint
+ *   <li>{@code credit.line.request.stage}: the rate limit check, the read of the last request,
+ *       the save of the decision, the mapping of the response and the serialization of the
+ *       response templates
+ *   <li>{@code credit.line.request.evaluation}: the decision strategies, by founding type
+ * </ul>
+ *
+ * <p>Every stage, the decision included, is also handed to the {@link LatencyRecorder}.
+ */
+@Component
+public class CreditLineRequestMetrics {
+
+  @Getter
+  @RequiredArgsConstructor
+  public enum Stage {
+    RATE_LIMIT("rate-limit"),
+    READ("read"),
+    /** Timed by founding type, see {@link #recordEvaluation} */
+    DECISION("decision"),
+    SAVE("save"),
+    MAPPING("mapping"),
+    SERIALIZATION("serialization");
+
+    private final String tag;
+  }
+
+  private final LatencyRecorder latencyRecorder;
+  private final Map<RequestOutcome, Timer> requests = new EnumMap<>(RequestOutcome.class);
+  private final Map<Stage, Map<RequestOutcome, Timer>> stages = new EnumMap<>(Stage.class);
+  private final Map<FoundingType, Map<RequestOutcome, Timer>> evaluations =
+      new EnumMap<>(FoundingType.class);
+
+  @Autowired
+  public CreditLineRequestMetrics(MeterRegistry meterRegistry, LatencyRecorder latencyRecorder) {
+    this.latencyRecorder = latencyRecorder;
+
+    for (RequestOutcome outcome : RequestOutcome.values()) {
+      requests.put(
+          outcome,
+          Timer.builder("credit.line.request")
+              .tag("outcome", outcome.getTag())
+              .description("Credit line requests, from the rate limit check to the response")
+              .register(meterRegistry));
+    }
+
+    for (Stage stage : Stage.values()) {
+      if (stage == Stage.DECISION) {
+        continue;
+      }
+
+      Map<RequestOutcome, Timer> stageTimers = new EnumMap<>(RequestOutcome.class);
+      for (RequestOutcome outcome : RequestOutcome.values()) {
+        if (!hasStage(outcome, stage)) {
+          continue;
+        }
+        stageTimers.put(
+            outcome,
+            Timer.builder("credit.line.request.stage")
+                .tag("stage", stage.getTag())
+                .tag("outcome", outcome.getTag())
+                .description("Stages of the credit line requests")
+                .register(meterRegistry));
+      }
+      stages.put(stage, stageTimers);
+    }
+
+    for (FoundingType foundingType : FoundingType.values()) {
+      Map<RequestOutcome, Timer> evaluationTimers = new EnumMap<>(RequestOutcome.class);
+      for (RequestOutcome outcome : RequestOutcome.values()) {
+        if (isRateLimited(outcome)) {
+          continue;
+        }
+        evaluationTimers.put(
+            outcome,
+            Timer.builder("credit.line.request.evaluation")
+                .tag("founding.type", foundingType.name())
+                .tag("outcome", outcome.getTag())
+                .description("Credit line decisions of the founding type strategies")
+                .register(meterRegistry));
+      }
+      evaluations.put(foundingType, evaluationTimers);
+    }
+  }
+
+  /**
+   * Record a whole request
+   *
+   * @param outcome how the request was answered
+   * @param nanos time since the request reached the endpoint
+   */
+  public void recordRequest(RequestOutcome outcome, long nanos) {
+    requests.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Record a stage of a request
+   *
+   * @param stage stage of the pipeline, but the decision
+   * @param outcome how the request was answered
+   * @param nanos time spent in the stage
+   */
+  public void recordStage(Stage stage, RequestOutcome outcome, long nanos) {
+    stages.get(stage).get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    latencyRecorder.record(stage, nanos);
+  }
+
+  /**
+   * Record the decision of a request
+   *
+   * @param foundingType founding type of the requester
+   * @param outcome decision
+   * @param nanos time spent by the decision strategies
+   */
+  public void recordEvaluation(FoundingType foundingType, RequestOutcome outcome, long nanos) {
+    evaluations.get(foundingType).get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    latencyRecorder.record(Stage.DECISION, nanos);
+  }
+
+  /**
+   * Rate limited requests end with the rate limit check and their template, and accepted bodies
+   * are serialized by Spring MVC once the request has been answered
+   */
+  private static boolean hasStage(RequestOutcome outcome, Stage stage) {
+    return switch (outcome) {
+      case ACCEPTED -> stage != Stage.SERIALIZATION;
+      case REJECTED -> true;
+      case TOO_MANY_REQUESTS -> stage == Stage.RATE_LIMIT || stage == Stage.SERIALIZATION;
+    };
+  }
+
+  private static boolean isRateLimited(RequestOutcome outcome) {
+    return RequestOutcome.TOO_MANY_REQUESTS.equals(outcome);
+  }
+}
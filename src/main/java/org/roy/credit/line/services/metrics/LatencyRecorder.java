@@ -0,0 +1,112 @@
+package org.roy.credit.line.services.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics.Stage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Full latency distributions of the stages of the credit line requests, kept in HdrHistogram
+ * recorders when enabled. Recording is wait-free and allocates nothing, so it does not change the
+ * latency it measures. On every interval the recorders are swapped for empty ones, and the
+ * distributions of the ended interval are published to the latency endpoint and logged.
+ */
+@Log4j2
+@Component
+public class LatencyRecorder {
+
+  /** Latencies are recorded in nanoseconds and reported in microseconds */
+  private static final double NANOS_PER_MICRO = 1_000.0;
+
+  private final LatencyRecorderProperties properties;
+  private final long highestTrackableNanos;
+  private final Recorder[] recorders;
+
+  private volatile Map<Stage, Histogram> lastIntervals = Collections.emptyMap();
+
+  @Autowired
+  public LatencyRecorder(LatencyRecorderProperties properties) {
+    this.properties = properties;
+    this.highestTrackableNanos = properties.getHighestTrackableLatency().toNanos();
+    this.recorders = new Recorder[Stage.values().length];
+
+    if (properties.isEnabled()) {
+      for (Stage stage : Stage.values()) {
+        recorders[stage.ordinal()] =
+            new Recorder(highestTrackableNanos, properties.getSignificantDigits());
+      }
+    }
+  }
+
+  /**
+   * Record the latency of a stage, if enabled
+   *
+   * @param stage stage of the credit line request
+   * @param nanos time spent in the stage
+   */
+  public void record(Stage stage, long nanos) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+
+    // Longer latencies would be out of the histogram range
+    recorders[stage.ordinal()].recordValue(Math.max(0, Math.min(nanos, highestTrackableNanos)));
+  }
+
+  /** Publish the distributions recorded since the last interval, and start a new one */
+  @Scheduled(fixedRateString = "${latency-recorder.interval:PT1M}")
+  public void publishInterval() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+
+    Map<Stage, Histogram> intervals = new EnumMap<>(Stage.class);
+    for (Stage stage : Stage.values()) {
+      Histogram interval = recorders[stage.ordinal()].getIntervalHistogram();
+      intervals.put(stage, interval);
+
+      if (properties.isLogIntervals() && interval.getTotalCount() > 0) {
+        log.info(
+            "Latency of the {} stage, in microseconds, over the last {}:\n{}",
+            stage.getTag(),
+            properties.getInterval(),
+            percentileDistributionOf(interval));
+      }
+    }
+
+    lastIntervals = Collections.unmodifiableMap(intervals);
+  }
+
+  /**
+   * Distributions of the last ended interval, empty before the first one or when disabled
+   *
+   * @return latency histogram by stage, in nanoseconds
+   */
+  public Map<Stage, Histogram> getLastIntervals() {
+    return lastIntervals;
+  }
+
+  /**
+   * The HdrHistogram percentile distribution text of a histogram, in microseconds
+   *
+   * @param histogram latencies in nanoseconds
+   * @return percentile distribution, as plotted by the HdrHistogram tools
+   */
+  public static String percentileDistributionOf(Histogram histogram) {
+    var text = new ByteArrayOutputStream();
+    try (var printStream = new PrintStream(text, true, StandardCharsets.UTF_8)) {
+      histogram.outputPercentileDistribution(printStream, NANOS_PER_MICRO);
+    }
+    return text.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -1,26 +1,24 @@
 package org.roy.credit.line.services.strategies.credit.status;
 
+import java.util.Set;
 import org.roy.credit.line.enums.CreditLineStatus;
-import org.roy.credit.line.exceptions.InternalServerErrorException;
 import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
 import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
 
+/**
+ * Processing of a credit line request based on the last request status of the customer.
+ * Implementations are stateless Spring singletons, selected by the {@link
+ * CreditRequestStrategyRegistry}.
+ */
 public interface CreditRequestStrategy {
-  static CreditRequestStrategy getCreditRequestStrategy(CreditLineStatus lastCreditLineStatus) {
 
-    switch (lastCreditLineStatus) {
-      case NONE:
-      case REJECTED:
-        return new NewOrPreviouslyRejectedRequestStrategy();
-
-      case ACCEPTED:
-        return new PreviouslyAcceptedStrategy();
-
-      default:
-        throw new InternalServerErrorException("Unknown credit line lastCreditLineStatus");
-    }
-  }
+  /**
+   * Last credit line statuses processed by the strategy
+   *
+   * @return strategy selectors
+   */
+  Set<CreditLineStatus> getCreditLineStatuses();
 
   CreditLineRequestRecordDao processCreditLineRequest(
       CreditLineCalculationStrategy creditLineCalculationStrategy,
@@ -0,0 +1,47 @@
+package org.roy.credit.line.services.strategies.credit.status;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/** Selects the credit request strategy of each last credit line status */
+@Component
+public class CreditRequestStrategyRegistry {
+
+  private final Map<CreditLineStatus, CreditRequestStrategy> strategies =
+      new EnumMap<>(CreditLineStatus.class);
+
+  @Autowired
+  public CreditRequestStrategyRegistry(List<CreditRequestStrategy> strategies) {
+    for (CreditRequestStrategy strategy : strategies) {
+      for (CreditLineStatus creditLineStatus : strategy.getCreditLineStatuses()) {
+        CreditRequestStrategy previous = this.strategies.putIfAbsent(creditLineStatus, strategy);
+
+        if (previous != null) {
+          throw new IllegalStateException(
+              "More than one credit request strategy for " + creditLineStatus);
+        }
+      }
+    }
+  }
+
+  /**
+   * Select the credit request strategy based on the last credit line status of the customer
+   *
+   * @param lastCreditLineStatus strategy selector
+   */
+  public CreditRequestStrategy getCreditRequestStrategy(CreditLineStatus lastCreditLineStatus) {
+
+    CreditRequestStrategy strategy = strategies.get(lastCreditLineStatus);
+
+    if (strategy == null) {
+      throw new InternalServerErrorException("Unknown credit line lastCreditLineStatus");
+    }
+
+    return strategy;
+  }
+}
@@ -1,31 +1,48 @@
 package org.roy.credit.line.services.strategies.credit.status;
 
-import java.math.BigDecimal;
-
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
 import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
+import org.springframework.stereotype.Component;
 
+@Component
 public class NewOrPreviouslyRejectedRequestStrategy implements CreditRequestStrategy {
 
+  private static final Set<CreditLineStatus> CREDIT_LINE_STATUSES =
+      Collections.unmodifiableSet(EnumSet.of(CreditLineStatus.NONE, CreditLineStatus.REJECTED));
+
+  @Override
+  public Set<CreditLineStatus> getCreditLineStatuses() {
+    return CREDIT_LINE_STATUSES;
+  }
+
   @Override
   public CreditLineRequestRecordDao processCreditLineRequest(
       CreditLineCalculationStrategy creditLineCalculationStrategy,
       RequesterFinancialData requesterFinancialData,
       CreditLineRequestRecordDao creditLineRequestRecordDao) {
 
-    var approvedCredit = creditLineCalculationStrategy.getCreditLine(requesterFinancialData);
+    long approvedCredit = creditLineCalculationStrategy.getCreditLine(requesterFinancialData);
 
     CreditLineStatus creditLineStatus =
-        BigDecimal.ZERO.equals(approvedCredit) ? CreditLineStatus.REJECTED : CreditLineStatus.ACCEPTED;
+        approvedCredit == 0 ? CreditLineStatus.REJECTED : CreditLineStatus.ACCEPTED;
 
     Integer currentAttempts = creditLineRequestRecordDao.getAttempts();
 
-    creditLineRequestRecordDao.setAcceptedCreditLine(approvedCredit);
+    creditLineRequestRecordDao.setAcceptedCreditLineCents(approvedCredit);
     creditLineRequestRecordDao.setCreditLineStatus(creditLineStatus);
     creditLineRequestRecordDao.setRequestedDate(requesterFinancialData.getRequestedDate());
     creditLineRequestRecordDao.setAttempts(currentAttempts + 1);
+    creditLineRequestRecordDao.setFoundingType(requesterFinancialData.getFoundingType());
+    creditLineRequestRecordDao.setCashBalanceCents(requesterFinancialData.getCashBalanceCents());
+    creditLineRequestRecordDao.setMonthlyRevenueCents(
+        requesterFinancialData.getMonthlyRevenueCents());
+    creditLineRequestRecordDao.setRequestedCreditLineCents(
+        requesterFinancialData.getRequestedCreditLineCents());
 
     return creditLineRequestRecordDao;
   }
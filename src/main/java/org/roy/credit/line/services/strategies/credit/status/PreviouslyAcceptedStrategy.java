@@ -1,11 +1,25 @@
 package org.roy.credit.line.services.strategies.credit.status;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
 import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
+import org.springframework.stereotype.Component;
 
+@Component
 public class PreviouslyAcceptedStrategy implements CreditRequestStrategy {
 
+  private static final Set<CreditLineStatus> CREDIT_LINE_STATUSES =
+      Collections.unmodifiableSet(EnumSet.of(CreditLineStatus.ACCEPTED));
+
+  @Override
+  public Set<CreditLineStatus> getCreditLineStatuses() {
+    return CREDIT_LINE_STATUSES;
+  }
+
   @Override
   public CreditLineRequestRecordDao processCreditLineRequest(
       CreditLineCalculationStrategy creditLineCalculationStrategy,
@@ -0,0 +1,48 @@
+package org.roy.credit.line.services.strategies.founding.type;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/** Selects the credit line calculation strategy of each founding type */
+@Component
+public class CreditLineCalculationStrategyRegistry {
+
+  private final Map<FoundingType, CreditLineCalculationStrategy> strategies =
+      new EnumMap<>(FoundingType.class);
+
+  @Autowired
+  public CreditLineCalculationStrategyRegistry(List<CreditLineCalculationStrategy> strategies) {
+    for (CreditLineCalculationStrategy strategy : strategies) {
+      CreditLineCalculationStrategy previous =
+          this.strategies.putIfAbsent(strategy.getFoundingType(), strategy);
+
+      if (previous != null) {
+        throw new IllegalStateException(
+            "More than one credit line calculation strategy for " + strategy.getFoundingType());
+      }
+    }
+  }
+
+  /**
+   * Set up the credit line validation logic based on the Strategy design pattern. Select the
+   * strategy based on the founding type
+   *
+   * @param foundingType strategy selector
+   */
+  public CreditLineCalculationStrategy getCreditLineCalculationStrategy(
+      FoundingType foundingType) {
+
+    CreditLineCalculationStrategy strategy = strategies.get(foundingType);
+
+    if (strategy == null) {
+      throw new InternalServerErrorException("Unknown founding type");
+    }
+
+    return strategy;
+  }
+}
@@ -1,29 +1,36 @@
 package org.roy.credit.line.services.strategies.founding.type;
 
-import static lombok.AccessLevel.PRIVATE;
-
-import java.math.BigDecimal;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.enums.FoundingType;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
-import org.roy.credit.line.utils.MathUtils;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
-@Builder
-@AllArgsConstructor(access = PRIVATE)
+@Component
 public class SmeRequesterStrategy implements CreditLineCalculationStrategy {
 
-  private final Integer monthlyRevenueRatio;
+  private final int monthlyRevenueRatio;
+
+  @Autowired
+  public SmeRequesterStrategy(RatioProperties ratioProperties) {
+    this.monthlyRevenueRatio = ratioProperties.getMonthlyRevenue();
+  }
 
   @Override
-  public BigDecimal getCreditLine(RequesterFinancialData financialData) {
+  public FoundingType getFoundingType() {
+    return FoundingType.SME;
+  }
 
-    float recommendedCreditLine = (financialData.getMonthlyRevenue() / monthlyRevenueRatio);
+  @Override
+  public long getCreditLine(RequesterFinancialData financialData) {
 
-    boolean wasCreditRequestAccepted =
-        financialData.getRequestedCreditLine() <= recommendedCreditLine;
+    long requestedCreditLine = financialData.getRequestedCreditLineCents();
 
-    BigDecimal acceptedCreditLine = MathUtils.roundFloatTwoPlaces(financialData.getRequestedCreditLine());
+    boolean wasCreditRequestAccepted =
+        Money.isAtMostFractionOf(
+            requestedCreditLine, financialData.getMonthlyRevenueCents(), monthlyRevenueRatio);
 
-    return wasCreditRequestAccepted ? acceptedCreditLine : BigDecimal.ZERO;
+    return wasCreditRequestAccepted ? requestedCreditLine : 0;
   }
 }
@@ -1,36 +1,41 @@
 package org.roy.credit.line.services.strategies.founding.type;
 
-import static lombok.AccessLevel.PRIVATE;
-
-import java.math.BigDecimal;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.enums.FoundingType;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
-import org.roy.credit.line.utils.MathUtils;
+import org.roy.credit.line.utils.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
-@Builder
-@AllArgsConstructor(access = PRIVATE)
+@Component
 public class StartUpRequesterStrategy implements CreditLineCalculationStrategy {
 
-  private final Integer monthlyRevenueRatio;
-  private final Integer cashBalanceRatio;
+  private final int monthlyRevenueRatio;
+  private final int cashBalanceRatio;
 
-  @Override
-  public BigDecimal getCreditLine(RequesterFinancialData financialData) {
+  @Autowired
+  public StartUpRequesterStrategy(RatioProperties ratioProperties) {
+    this.monthlyRevenueRatio = ratioProperties.getMonthlyRevenue();
+    this.cashBalanceRatio = ratioProperties.getCashBalance();
+  }
 
-    float monthlyRevenueRecommendedCreditLine =
-        financialData.getMonthlyRevenue() / monthlyRevenueRatio;
+  @Override
+  public FoundingType getFoundingType() {
+    return FoundingType.STARTUP;
+  }
 
-    float cashBalanceRecommendedCreditLine = financialData.getCashBalance() / cashBalanceRatio;
+  @Override
+  public long getCreditLine(RequesterFinancialData financialData) {
 
-    float overAllRecommendedCreditLine =
-        Math.max(monthlyRevenueRecommendedCreditLine, cashBalanceRecommendedCreditLine);
+    long requestedCreditLine = financialData.getRequestedCreditLineCents();
 
+    // Within the greater of both recommended credit lines, so within either of them
     boolean wasCreditRequestAccepted =
-        financialData.getRequestedCreditLine() <= overAllRecommendedCreditLine;
-
-    BigDecimal acceptedCreditLine = MathUtils.roundFloatTwoPlaces(financialData.getRequestedCreditLine());
+        Money.isAtMostFractionOf(
+                requestedCreditLine, financialData.getMonthlyRevenueCents(), monthlyRevenueRatio)
+            || Money.isAtMostFractionOf(
+                requestedCreditLine, financialData.getCashBalanceCents(), cashBalanceRatio);
 
-    return wasCreditRequestAccepted ? acceptedCreditLine : BigDecimal.ZERO;
+    return wasCreditRequestAccepted ? requestedCreditLine : 0;
   }
 }
@@ -0,0 +1,55 @@
+package org.roy.credit.line.utils;
+
+import static org.roy.credit.line.enums.CreditLineStatus.REJECTED;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.models.responses.ResponseError;
+import org.springframework.http.HttpStatus;
+
+/** Bodies of the routine credit line answers, shared by the controllers and exception handlers */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ContractResponses {
+
+  /**
+   * Body of a rejected credit line request
+   *
+   * @param customMessage message for the customer, empty for none
+   * @param path path of the endpoint
+   * @return contract response
+   */
+  public static ContractResponse<PostRequestCreditLineResponseBody> rejected(
+      String customMessage, String path) {
+    return ContractResponse.<PostRequestCreditLineResponseBody>builder()
+        .response(
+            PostRequestCreditLineResponseBody.builder()
+                .creditLineStatus(REJECTED)
+                .message(StringUtils.defaultIfEmpty(customMessage, null))
+                .build())
+        .path(path)
+        .build();
+  }
+
+  /**
+   * Body of a rate limited request
+   *
+   * @param path path of the endpoint
+   * @return contract response
+   */
+  public static <T> ContractResponse<T> tooManyRequests(String path) {
+    return ContractResponse.<T>builder()
+        .error(
+            ResponseError.builder()
+                .errorCode(HttpStatus.TOO_MANY_REQUESTS)
+                .errorType(ErrorType.EXCEED_API_QUOTA)
+                .errorMessage(Messages.TOO_MANY_REQUESTS_MSG)
+                .build())
+        .path(path)
+        .build();
+  }
+}
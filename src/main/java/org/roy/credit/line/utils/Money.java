@@ -0,0 +1,137 @@
+package org.roy.credit.line.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fixed-point money, held in a primitive {@code long} of cents. Amounts are parsed to cents once,
+ * rounded half up as the two decimal places of the credit lines, compared exactly and turned into a
+ * {@link BigDecimal} only where they leave the service, in the JSON responses and the database
+ * columns. Nothing in between boxes or allocates.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Money {
+
+  /** Decimal places of the amounts */
+  public static final int SCALE = 2;
+
+  private static final int CENTS_PER_UNIT = 100;
+  private static final long MAX_UNITS = Long.MAX_VALUE / CENTS_PER_UNIT;
+
+  /**
+   * Amount in cents, rounded half up to two decimal places
+   *
+   * @param amount amount of any scale
+   * @return cents
+   * @throws ArithmeticException if the amount does not fit in a long of cents
+   */
+  public static long centsOf(BigDecimal amount) {
+    return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Parse a plain decimal amount, such as {@code -1000.5} or {@code 150000.995}, to cents rounded
+   * half up, without allocating
+   *
+   * @param chars characters holding the amount
+   * @param offset index of its first character
+   * @param length number of characters of the amount
+   * @return cents
+   * @throws NumberFormatException if the amount is not a plain decimal number
+   * @throws ArithmeticException if the amount does not fit in a long of cents
+   */
+  public static long parseCents(char[] chars, int offset, int length) {
+    int end = offset + length;
+    int index = offset;
+    boolean negative = false;
+
+    if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+      negative = chars[index] == '-';
+      index++;
+    }
+
+    long units = 0;
+    int unitDigits = 0;
+    for (; index < end && chars[index] != '.'; index++, unitDigits++) {
+      int digit = digitOf(chars, offset, length, index);
+      if (units > (MAX_UNITS - digit) / 10) {
+        throw new ArithmeticException("Amount out of the range of cents");
+      }
+      units = units * 10 + digit;
+    }
+
+    long cents = 0;
+    int fractionDigits = 0;
+    boolean roundUp = false;
+    if (index < end) {
+      for (index++; index < end; index++, fractionDigits++) {
+        int digit = digitOf(chars, offset, length, index);
+        if (fractionDigits < SCALE) {
+          cents = cents * 10 + digit;
+        } else if (fractionDigits == SCALE) {
+          roundUp = digit >= 5;
+        }
+      }
+    }
+
+    if (unitDigits == 0 && fractionDigits == 0) {
+      throw new NumberFormatException("Not an amount: " + new String(chars, offset, length));
+    }
+
+    for (int missingDigits = fractionDigits; missingDigits < SCALE; missingDigits++) {
+      cents *= 10;
+    }
+
+    long magnitude = Math.addExact(Math.addExact(units * CENTS_PER_UNIT, cents), roundUp ? 1 : 0);
+    return negative ? -magnitude : magnitude;
+  }
+
+  /**
+   * Amount in cents of whole units
+   *
+   * @param units amount without decimal places
+   * @return cents
+   * @throws ArithmeticException if the amount does not fit in a long of cents
+   */
+  public static long centsOfUnits(long units) {
+    return Math.multiplyExact(units, CENTS_PER_UNIT);
+  }
+
+  /**
+   * The amount with its two decimal places, for the JSON responses and the database columns
+   *
+   * @param cents amount in cents
+   * @return amount of scale two
+   */
+  public static BigDecimal toBigDecimal(long cents) {
+    return BigDecimal.valueOf(cents, SCALE);
+  }
+
+  /**
+   * Whether an amount is at most a fraction of another, {@code amount <= base / ratio}, compared
+   * exactly: the amount is multiplied by the ratio in 128 bits instead of dividing the base
+   *
+   * @param amountCents amount in cents
+   * @param baseCents base amount in cents
+   * @param ratio positive divisor of the base
+   * @return true if the amount is within the fraction of the base
+   */
+  public static boolean isAtMostFractionOf(long amountCents, long baseCents, int ratio) {
+    long productHigh = Math.multiplyHigh(amountCents, ratio);
+    long productLow = amountCents * ratio;
+    long baseHigh = baseCents >> 63;
+
+    return productHigh < baseHigh
+        || (productHigh == baseHigh && Long.compareUnsigned(productLow, baseCents) <= 0);
+  }
+
+  private static int digitOf(char[] chars, int offset, int length, int index) {
+    int digit = chars[index] - '0';
+    if (digit < 0 || digit > 9) {
+      throw new NumberFormatException("Not an amount: " + new String(chars, offset, length));
+    }
+    return digit;
+  }
+}
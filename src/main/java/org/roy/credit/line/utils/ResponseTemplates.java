@@ -0,0 +1,211 @@
+package org.roy.credit.line.utils;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.apache.commons.lang3.StringUtils;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pre-serialized rejected and rate limited responses. Each body is serialized once by the
+ * application object mapper, and only its timestamp and path are patched in when it is written
+ * straight to the servlet response, so shedding load costs no builder, no serialization and, for
+ * requests answered within the same millisecond, no timestamp formatting.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class ResponseTemplates {
+
+  private static final ZonedDateTime TIMESTAMP_PLACEHOLDER =
+      ZonedDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+  private static final String PATH_PLACEHOLDER = "{path}";
+  private static final String NO_MESSAGE = "";
+
+  private final ObjectMapper objectMapper;
+  private final LongSupplier currentTimeMillis;
+  private final Template tooManyRequests;
+  private final Map<String, Template> rejected = new ConcurrentHashMap<>();
+
+  private volatile Timestamp lastTimestamp = new Timestamp(Long.MIN_VALUE, null);
+  private volatile Path lastPath = new Path(null, null);
+
+  @Autowired
+  public ResponseTemplates(ObjectMapper objectMapper) {
+    this(objectMapper, System::currentTimeMillis);
+  }
+
+  ResponseTemplates(ObjectMapper objectMapper, LongSupplier currentTimeMillis) {
+    this.objectMapper = objectMapper;
+    this.currentTimeMillis = currentTimeMillis;
+    this.tooManyRequests =
+        templateOf(HttpStatus.TOO_MANY_REQUESTS, ContractResponses.tooManyRequests(null));
+    this.rejected.put(NO_MESSAGE, rejectedTemplateOf(NO_MESSAGE));
+  }
+
+  /**
+   * Answer a rate limited request
+   *
+   * @param request request being answered, for its path
+   * @param response response to write the body to
+   * @throws IOException if the body can not be written
+   */
+  public void writeTooManyRequests(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    write(tooManyRequests, request, response);
+  }
+
+  /**
+   * Answer a rejected credit line request
+   *
+   * @param customMessage message for the customer, empty or null for none
+   * @param request request being answered, for its path
+   * @param response response to write the body to
+   * @throws IOException if the body can not be written
+   */
+  public void writeRejected(
+      String customMessage, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+
+    // The messages are constants of the decision engine, so there is one template per message
+    Template template =
+        rejected.computeIfAbsent(
+            StringUtils.defaultString(customMessage), this::rejectedTemplateOf);
+    write(template, request, response);
+  }
+
+  private void write(Template template, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+
+    byte[] timestamp = timestampNow();
+    byte[] path = pathOf(request.getServletPath());
+
+    response.setStatus(template.status().value());
+    response.setContentType(APPLICATION_JSON_VALUE);
+    response.setContentLength(
+        template.head().length
+            + timestamp.length
+            + template.middle().length
+            + path.length
+            + template.tail().length);
+
+    ServletOutputStream outputStream = response.getOutputStream();
+    outputStream.write(template.head());
+    outputStream.write(timestamp);
+    outputStream.write(template.middle());
+    outputStream.write(path);
+    outputStream.write(template.tail());
+  }
+
+  /** The timestamp is formatted at most once per millisecond, whatever the request rate */
+  private byte[] timestampNow() {
+    long now = currentTimeMillis.getAsLong();
+    Timestamp timestamp = lastTimestamp;
+
+    if (timestamp.millis() != now) {
+      timestamp = new Timestamp(now, timestampOf(now));
+      lastTimestamp = timestamp;
+    }
+
+    return timestamp.bytes();
+  }
+
+  /** Requests shed in a spike share the same endpoint, so its last path is kept escaped */
+  private byte[] pathOf(String servletPath) {
+    Path path = lastPath;
+
+    if (!servletPath.equals(path.servletPath())) {
+      path = new Path(servletPath, quote(servletPath));
+      lastPath = path;
+    }
+
+    return path.bytes();
+  }
+
+  private Template rejectedTemplateOf(String customMessage) {
+    return templateOf(HttpStatus.OK, ContractResponses.rejected(customMessage, null));
+  }
+
+  /** Serialize the body with placeholders, then split it around them */
+  private Template templateOf(HttpStatus status, ContractResponse<?> contractResponse) {
+    contractResponse.setUtcTimestamp(TIMESTAMP_PLACEHOLDER);
+    contractResponse.setPath(PATH_PLACEHOLDER);
+
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(contractResponse);
+    } catch (JsonProcessingException exception) {
+      throw new IllegalStateException("Unable to serialize a response template", exception);
+    }
+
+    byte[] timestamp;
+    byte[] path = quote(PATH_PLACEHOLDER);
+    try {
+      timestamp = objectMapper.writeValueAsBytes(TIMESTAMP_PLACEHOLDER);
+    } catch (JsonProcessingException exception) {
+      throw new IllegalStateException("Unable to serialize a response timestamp", exception);
+    }
+
+    int timestampAt = indexOf(body, timestamp, 0);
+    int pathAt = indexOf(body, path, timestampAt + timestamp.length);
+    if (timestampAt < 0 || pathAt < 0 || !Arrays.equals(timestamp, timestampOf(0))) {
+      throw new IllegalStateException(
+          "Response templates need timestamps written as ISO strings in UTC, before the path");
+    }
+
+    return new Template(
+        status,
+        Arrays.copyOfRange(body, 0, timestampAt),
+        Arrays.copyOfRange(body, timestampAt + timestamp.length, pathAt),
+        Arrays.copyOfRange(body, pathAt + path.length, body.length));
+  }
+
+  private static byte[] timestampOf(long millis) {
+    return quote(
+        DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+            ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC)));
+  }
+
+  private static byte[] quote(String value) {
+    byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+    byte[] quoted = new byte[escaped.length + 2];
+    quoted[0] = '"';
+    System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+    quoted[quoted.length - 1] = '"';
+    return quoted;
+  }
+
+  private static int indexOf(byte[] body, byte[] part, int from) {
+    for (int i = Math.max(from, 0); i <= body.length - part.length; i++) {
+      if (Arrays.equals(body, i, i + part.length, part, 0, part.length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Status and serialized body, around the timestamp and the path */
+  private record Template(HttpStatus status, byte[] head, byte[] middle, byte[] tail) {}
+
+  private record Timestamp(long millis, byte[] bytes) {}
+
+  private record Path(String servletPath, byte[] bytes) {}
+}
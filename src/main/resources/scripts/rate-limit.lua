@@ -0,0 +1,49 @@
+-- Atomic rate limit check for a customer.
+--
+-- KEYS[1] - rejected credit cool down key
+-- KEYS[2] - accepted credit window counter key
+-- KEYS[3] - optional legacy rejected credit cool down key, read while rolling out new keys
+-- KEYS[4] - optional legacy accepted credit window counter key, read while rolling out new keys
+-- ARGV[1] - maximum number of requests allowed inside the accepted credit window
+-- ARGV[2] - accepted credit window length in milliseconds
+--
+-- Returns 1 when the request is allowed, 0 when the accepted credit window is exhausted and the
+-- negated remaining milliseconds of the cool down when the customer is in a rejected credit cool down.
+
+local coolDown = redis.call('PTTL', KEYS[1])
+
+if coolDown == -2 and KEYS[3] then
+  coolDown = redis.call('PTTL', KEYS[3])
+end
+
+if coolDown > 0 then
+  return -coolDown
+end
+
+-- A cool down written without expiration still blocks the customer
+if coolDown == -1 then
+  return 0
+end
+
+local counterKey = KEYS[2]
+local count = redis.call('GET', counterKey)
+
+if not count and KEYS[4] then
+  counterKey = KEYS[4]
+  count = redis.call('GET', counterKey)
+end
+
+if count then
+  if tonumber(count) >= tonumber(ARGV[1]) then
+    return 0
+  end
+
+  redis.call('INCR', counterKey)
+
+  -- A window counter must never outlive its window, even if it was written without expiration
+  if redis.call('PTTL', counterKey) == -1 then
+    redis.call('PEXPIRE', counterKey, ARGV[2])
+  end
+end
+
+return 1
@@ -1,36 +1,53 @@
 package org.roy.credit.line.controller;
 
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mockito;
 import org.roy.credit.line.constants.ApiEndpoints;
 import org.roy.credit.line.controllers.CreditLineController;
 import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.BadRequestException;
 import org.roy.credit.line.exceptions.InternalServerErrorException;
 import org.roy.credit.line.exceptions.RejectedCreditLineException;
 import org.roy.credit.line.exceptions.TooManyRequestsException;
 import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.models.requests.BatchCreditLineRequestItem;
+import org.roy.credit.line.models.requests.PostBatchCreditLineRequestBody;
 import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
 import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.services.BatchCreditLineService;
+import org.roy.credit.line.services.CreditLineHistoryService;
 import org.roy.credit.line.services.CreditLineService;
 import org.roy.credit.line.services.RateLimitService;
+import org.roy.credit.line.services.StreamCreditLineService;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics;
+import org.roy.credit.line.utils.ResponseTemplates;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -42,12 +59,17 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = CreditLineController.class)
+@Import(ResponseTemplates.class)
 class CreditLineControllerTest {
 
   public static final String MOCK_MSG = "MOCK";
   private static final String APPROVED_CREDIT_LINE = "10000";
   @MockBean private CreditLineService creditLineService;
   @MockBean private RateLimitService rateLimitService;
+  @MockBean private BatchCreditLineService batchCreditLineService;
+  @MockBean private StreamCreditLineService streamCreditLineService;
+  @MockBean private CreditLineHistoryService creditLineHistoryService;
+  @MockBean private CreditLineRequestMetrics creditLineRequestMetrics;
   @Autowired private ObjectMapper objectMapper;
   @Autowired private MockMvc mockMvc;
 
@@ -81,7 +103,7 @@ class CreditLineControllerTest {
     mockRateLimitNotReached();
     when(creditLineService.requestCreditLine(
             any(UUID.class), any(PostRequestCreditLineRequestBody.class), any()))
-        .thenThrow(new RejectedCreditLineException());
+        .thenReturn(mockRejectedResponseBody(null));
 
     MockHttpServletRequestBuilder builder = getStartUpRequestTemplate();
 
@@ -102,7 +124,7 @@ class CreditLineControllerTest {
     mockRateLimitNotReached();
     when(creditLineService.requestCreditLine(
             any(UUID.class), any(PostRequestCreditLineRequestBody.class), any()))
-        .thenThrow(new RejectedCreditLineException(SALES_AGENT_MSG));
+        .thenReturn(mockRejectedResponseBody(SALES_AGENT_MSG));
 
     MockHttpServletRequestBuilder builder = getStartUpRequestTemplate();
 
@@ -151,6 +173,19 @@ class CreditLineControllerTest {
     assertErrorResponse(mockMvc.perform(builder).andExpect(status().isBadRequest()));
   }
 
+  @Test
+  void shouldRespondBadRequestForAMissingAmount() throws Exception {
+
+    MockHttpServletRequestBuilder builder =
+        getStartUpRequestTemplate()
+            .content(
+                "{\"cashBalance\":1000.0,\"monthlyRevenue\":null,"
+                    + "\"requestedDate\":\"2022-06-26T02:14:21.120Z\"}");
+
+    assertErrorResponse(mockMvc.perform(builder).andExpect(status().isBadRequest()));
+    verifyNoInteractions(creditLineService);
+  }
+
   @Test
   void shouldResponseInternalServerErrorForGeneralExceptions() throws Exception {
 
@@ -167,9 +202,7 @@ class CreditLineControllerTest {
   @Test
   void shouldThrowTooManyRequestsWhenReachApiRateLimit() throws Exception {
 
-    Mockito.doThrow(new TooManyRequestsException())
-        .when(rateLimitService)
-        .checkRateLimitFor(any(UUID.class));
+    when(rateLimitService.isAllowed(any(UUID.class))).thenReturn(false);
 
     MockHttpServletRequestBuilder builder = getStartUpRequestTemplate();
 
@@ -179,18 +212,47 @@ class CreditLineControllerTest {
   @Test
   void shouldThrowInternalServerErrorExceptionWhenReachApiRateLimit() throws Exception {
 
-    Mockito.doThrow(new InternalServerErrorException("MOCK"))
-        .when(rateLimitService)
-        .checkRateLimitFor(any(UUID.class));
+    when(rateLimitService.isAllowed(any(UUID.class)))
+        .thenThrow(new InternalServerErrorException("MOCK"));
 
     MockHttpServletRequestBuilder builder = getStartUpRequestTemplate();
 
     assertErrorResponse(mockMvc.perform(builder).andExpect(status().isInternalServerError()));
   }
 
+  @Test
+  void shouldAnswerARejectionSignaledByTheService() throws Exception {
+
+    mockRateLimitNotReached();
+    when(creditLineService.requestCreditLine(
+            any(UUID.class), any(PostRequestCreditLineRequestBody.class), any()))
+        .thenThrow(new RejectedCreditLineException());
+
+    MockHttpServletRequestBuilder builder = getStartUpRequestTemplate();
+
+    mockMvc
+        .perform(builder)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.error").doesNotExist())
+        .andExpect(jsonPath("$.response.creditLineStatus").value(CreditLineStatus.REJECTED.name()))
+        .andExpect(jsonPath("$.utcTimestamp").exists())
+        .andExpect(jsonPath("$.path").exists());
+  }
+
+  @Test
+  void shouldThrowTooManyRequestsWhenTheRateLimitCheckSignalsIt() throws Exception {
+
+    when(rateLimitService.isAllowed(any(UUID.class))).thenThrow(new TooManyRequestsException());
+
+    MockHttpServletRequestBuilder builder = getStartUpRequestTemplate();
+
+    assertErrorResponse(mockMvc.perform(builder).andExpect(status().isTooManyRequests()));
+  }
+
   @Test
   void shouldRespondBadRequestWhenHttpMessageNotReadableExceptionIsThrown() throws Exception {
 
+    mockRateLimitNotReached();
     doThrow(
             new HttpMessageNotReadableException(
                 MOCK_MSG, new MockHttpInputMessage(MOCK_MSG.getBytes())))
@@ -203,6 +265,123 @@ class CreditLineControllerTest {
     assertErrorResponse(mockMvc.perform(builder).andExpect(status().isBadRequest()));
   }
 
+  @Test
+  void shouldAnswerEachItemOfABatchCreditLineRequest() throws Exception {
+
+    when(batchCreditLineService.requestCreditLines(anyList()))
+        .thenReturn(
+            List.of(
+                BatchCreditLineResponseItem.builder()
+                    .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
+                    .creditLineStatus(CreditLineStatus.ACCEPTED)
+                    .acceptedCreditLine(new BigDecimal(APPROVED_CREDIT_LINE))
+                    .build()));
+
+    MockHttpServletRequestBuilder builder =
+        post("/v1" + ApiEndpoints.REQUEST_CREDIT_LINE_BATCH_ENDPOINT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(
+                objectMapper.writeValueAsBytes(
+                    PostBatchCreditLineRequestBody.builder()
+                        .items(
+                            List.of(
+                                BatchCreditLineRequestItem.builder()
+                                    .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
+                                    .foundingType(FoundingType.SME)
+                                    .creditLineRequest(
+                                        CreditLineRequestFixture.mockSmeAcceptableRequest())
+                                    .build()))
+                        .build()));
+
+    mockMvc
+        .perform(builder)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response[0].customerId")
+            .value(CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID))
+        .andExpect(jsonPath("$.response[0].creditLineStatus")
+            .value(CreditLineStatus.ACCEPTED.name()))
+        .andExpect(jsonPath("$.response[0].acceptedCreditLine").value(APPROVED_CREDIT_LINE));
+  }
+
+  @Test
+  void shouldRespondBadRequestForAnEmptyBatch() throws Exception {
+
+    MockHttpServletRequestBuilder builder =
+        post("/v1" + ApiEndpoints.REQUEST_CREDIT_LINE_BATCH_ENDPOINT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content("{\"items\":[]}");
+
+    assertErrorResponse(mockMvc.perform(builder).andExpect(status().isBadRequest()));
+  }
+
+  @Test
+  void shouldStreamCreditLineRequestsAsNewlineDelimitedJson() throws Exception {
+
+    MockHttpServletRequestBuilder builder =
+        post("/v1" + ApiEndpoints.REQUEST_CREDIT_LINE_STREAM_ENDPOINT)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .content("{}\n");
+
+    mockMvc
+        .perform(builder)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+    verify(streamCreditLineService).requestCreditLines(any(), any());
+  }
+
+  @Test
+  void shouldWriteTheCreditLineRequestsPageOfACustomer() throws Exception {
+
+    var customerId = UUID.fromString(CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID);
+
+    mockMvc
+        .perform(
+            get(getCreditLineRequestsUri())
+                .param("creditLineStatus", "ACCEPTED")
+                .param("from", "2022-06-01T00:00:00Z")
+                .param("limit", "20")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    verify(creditLineHistoryService)
+        .writeCreditLineRequests(
+            eq(customerId),
+            eq(CreditLineStatus.ACCEPTED),
+            isNull(),
+            eq(ZonedDateTime.parse("2022-06-01T00:00:00Z")),
+            isNull(),
+            isNull(),
+            eq(20),
+            any(),
+            any());
+  }
+
+  @Test
+  void shouldRespondBadRequestForAnInvalidCursor() throws Exception {
+
+    doThrow(new BadRequestException(MOCK_MSG))
+        .when(creditLineHistoryService)
+        .writeCreditLineRequests(any(), any(), any(), any(), any(), any(), any(), any(), any());
+
+    assertErrorResponse(
+        mockMvc
+            .perform(get(getCreditLineRequestsUri()).param("cursor", "invalid"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error.errorMessage").value(MOCK_MSG)));
+  }
+
+  @Test
+  void shouldRespondBadRequestForAMismatchCreditLineStatus() throws Exception {
+
+    assertErrorResponse(
+        mockMvc
+            .perform(get(getCreditLineRequestsUri()).param("creditLineStatus", "UNKNOWN"))
+            .andExpect(status().isBadRequest()));
+  }
+
   private MockHttpServletRequestBuilder getStartUpRequestTemplate() throws JsonProcessingException {
     return getBasePostHttpRequestBuilder()
         .headers(
@@ -222,6 +401,12 @@ class CreditLineControllerTest {
     return post(uri).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON);
   }
 
+  private static String getCreditLineRequestsUri() {
+    return "/v1"
+        + ApiEndpoints.CUSTOMER_CREDIT_LINE_REQUESTS_ENDPOINT.replace(
+            "{customerId}", CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID);
+  }
+
   private void assertErrorResponse(ResultActions performHttpCall) throws Exception {
     performHttpCall
         .andExpect(jsonPath("$.error").exists())
@@ -229,6 +414,13 @@ class CreditLineControllerTest {
   }
 
   private void mockRateLimitNotReached() {
-    doNothing().when(rateLimitService).checkRateLimitFor(any(UUID.class));
+    when(rateLimitService.isAllowed(any(UUID.class))).thenReturn(true);
+  }
+
+  private static PostRequestCreditLineResponseBody mockRejectedResponseBody(String message) {
+    return PostRequestCreditLineResponseBody.builder()
+        .creditLineStatus(CreditLineStatus.REJECTED)
+        .message(message)
+        .build();
   }
 }
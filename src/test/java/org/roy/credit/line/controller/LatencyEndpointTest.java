@@ -0,0 +1,71 @@
+package org.roy.credit.line.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.controllers.LatencyEndpoint;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics.Stage;
+import org.roy.credit.line.services.metrics.LatencyRecorder;
+
+class LatencyEndpointTest {
+
+  @Test
+  void shouldSummarizeTheLastIntervalOfEachStageInMicroseconds() {
+
+    // given
+    var latencyRecorder = new LatencyRecorder(enabledProperties());
+    for (int i = 1; i <= 100; i++) {
+      latencyRecorder.record(Stage.READ, TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    latencyRecorder.publishInterval();
+
+    // act
+    var latencies = new LatencyEndpoint(latencyRecorder).latencies();
+
+    // expect
+    assertEquals(Stage.values().length, latencies.size());
+    var read = latencies.get(Stage.READ.getTag());
+    assertEquals(100, read.getCount());
+    assertEquals(100_000, read.getMax(), 1_000);
+    assertEquals(50_000, read.getPercentiles().get("p50.0"), 500);
+    assertEquals(0, latencies.get(Stage.SAVE.getTag()).getCount());
+  }
+
+  @Test
+  void shouldServeThePercentileDistributionOfAStage() {
+
+    // given
+    var latencyRecorder = new LatencyRecorder(enabledProperties());
+    latencyRecorder.record(Stage.READ, TimeUnit.MILLISECONDS.toNanos(1));
+    latencyRecorder.publishInterval();
+    var latencyEndpoint = new LatencyEndpoint(latencyRecorder);
+
+    // act and expect
+    assertTrue(latencyEndpoint.distribution(Stage.READ.getTag()).contains("#[Mean"));
+    assertNull(latencyEndpoint.distribution("unknown"));
+  }
+
+  @Test
+  void shouldServeNoDistributionBeforeTheFirstInterval() {
+
+    // given
+    var latencyEndpoint = new LatencyEndpoint(new LatencyRecorder(enabledProperties()));
+
+    // act and expect
+    assertTrue(latencyEndpoint.latencies().isEmpty());
+    assertNull(latencyEndpoint.distribution(Stage.READ.getTag()));
+  }
+
+  private static LatencyRecorderProperties enabledProperties() {
+    var properties = new LatencyRecorderProperties();
+    properties.setEnabled(true);
+    properties.setLogIntervals(false);
+    properties.setHighestTrackableLatency(Duration.ofSeconds(30));
+    return properties;
+  }
+}
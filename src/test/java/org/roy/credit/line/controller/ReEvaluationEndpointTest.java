@@ -0,0 +1,49 @@
+package org.roy.credit.line.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.controllers.ReEvaluationEndpoint;
+import org.roy.credit.line.models.responses.ReEvaluationProgress;
+import org.roy.credit.line.services.CreditLineReEvaluationJob;
+
+@ExtendWith(MockitoExtension.class)
+class ReEvaluationEndpointTest {
+
+  private static final ReEvaluationProgress RUNNING =
+      ReEvaluationProgress.builder().state("RUNNING").build();
+  private static final ReEvaluationProgress STOPPING =
+      ReEvaluationProgress.builder().state("STOPPING").build();
+
+  @InjectMocks private ReEvaluationEndpoint reEvaluationEndpoint;
+  @Mock private CreditLineReEvaluationJob reEvaluationJob;
+
+  @Test
+  void shouldStartANewReEvaluationUnlessAskedToResume() {
+
+    // given
+    when(reEvaluationJob.start(false)).thenReturn(RUNNING);
+    when(reEvaluationJob.start(true)).thenReturn(RUNNING);
+
+    // act and expect
+    assertEquals(RUNNING, reEvaluationEndpoint.start(null));
+    assertEquals(RUNNING, reEvaluationEndpoint.start(true));
+  }
+
+  @Test
+  void shouldServeTheProgressAndStopTheReEvaluation() {
+
+    // given
+    when(reEvaluationJob.getProgress()).thenReturn(RUNNING);
+    when(reEvaluationJob.stop()).thenReturn(STOPPING);
+
+    // act and expect
+    assertEquals(RUNNING, reEvaluationEndpoint.progress());
+    assertEquals(STOPPING, reEvaluationEndpoint.stop());
+  }
+}
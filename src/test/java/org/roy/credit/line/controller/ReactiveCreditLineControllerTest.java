@@ -0,0 +1,199 @@
+package org.roy.credit.line.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.constants.ApiEndpoints;
+import org.roy.credit.line.controllers.ReactiveCreditLineController;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.ReactiveExceptionHandler;
+import org.roy.credit.line.exceptions.RejectedCreditLineException;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
+import org.roy.credit.line.services.ReactiveCreditLineService;
+import org.roy.credit.line.services.ReactiveRateLimitService;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient.RequestHeadersSpec;
+import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCreditLineControllerTest {
+
+  private static final String REQUEST_CREDIT_LINE_URI =
+      "/v1" + ApiEndpoints.REQUEST_CREDIT_LINE_ENDPOINT;
+
+  @Mock private ReactiveCreditLineService creditLineService;
+  @Mock private ReactiveRateLimitService rateLimitService;
+  private WebTestClient webTestClient;
+
+  @BeforeEach
+  void setUp() {
+    webTestClient =
+        WebTestClient.bindToController(
+                new ReactiveCreditLineController(creditLineService, rateLimitService))
+            .controllerAdvice(new ReactiveExceptionHandler())
+            .build();
+  }
+
+  @Test
+  void shouldAcceptCreditLineRequest() {
+
+    // given
+    mockRateLimitNotReached();
+    mockCreditLineResponse(
+        Mono.just(
+            PostRequestCreditLineResponseBody.builder()
+                .creditLineStatus(CreditLineStatus.ACCEPTED)
+                .acceptedCreditLine(new BigDecimal("10000"))
+                .build()));
+
+    // act and expect
+    creditLineRequest("STARTUP")
+        .exchange()
+        .expectStatus()
+        .isAccepted()
+        .expectBody()
+        .jsonPath("$.error")
+        .doesNotExist()
+        .jsonPath("$.response.creditLineStatus")
+        .isEqualTo(CreditLineStatus.ACCEPTED.name())
+        .jsonPath("$.path")
+        .isEqualTo(REQUEST_CREDIT_LINE_URI);
+  }
+
+  @Test
+  void shouldAnswerARejectionWithTheSalesAgentMessage() {
+
+    // given
+    mockRateLimitNotReached();
+    mockCreditLineResponse(Mono.error(new RejectedCreditLineException(SALES_AGENT_MSG)));
+
+    // act and expect
+    creditLineRequest("STARTUP")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.response.creditLineStatus")
+        .isEqualTo(CreditLineStatus.REJECTED.name())
+        .jsonPath("$.response.message")
+        .isEqualTo(SALES_AGENT_MSG);
+  }
+
+  @Test
+  void shouldAnswerARejectionWithoutMessage() {
+
+    // given
+    mockRateLimitNotReached();
+    mockCreditLineResponse(Mono.error(new RejectedCreditLineException()));
+
+    // act and expect
+    creditLineRequest("STARTUP")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.response.creditLineStatus")
+        .isEqualTo(CreditLineStatus.REJECTED.name())
+        .jsonPath("$.response.message")
+        .doesNotExist();
+  }
+
+  @Test
+  void shouldAnswerTooManyRequestsWhenReachApiRateLimit() {
+
+    // given
+    when(rateLimitService.checkRateLimitFor(any(UUID.class)))
+        .thenReturn(Mono.error(new TooManyRequestsException()));
+    mockCreditLineResponse(Mono.never());
+
+    // act and expect
+    assertErrorResponse(
+        creditLineRequest("STARTUP").exchange().expectStatus().isEqualTo(429),
+        ErrorType.EXCEED_API_QUOTA);
+  }
+
+  @Test
+  void shouldAnswerBadRequestForMissingRequiredHeader() {
+
+    // act and expect
+    assertErrorResponse(
+        webTestClient
+            .post()
+            .uri(REQUEST_CREDIT_LINE_URI)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("foundingType", "STARTUP")
+            .bodyValue(CreditLineRequestFixture.mockSmeAcceptableRequest())
+            .exchange()
+            .expectStatus()
+            .isBadRequest(),
+        ErrorType.MISSING_REQUIRED_HEADER);
+  }
+
+  @Test
+  void shouldAnswerBadRequestForMismatchFoundingType() {
+
+    // act and expect
+    assertErrorResponse(
+        creditLineRequest("FAKE").exchange().expectStatus().isBadRequest(),
+        ErrorType.MISMATCH_REQUEST);
+  }
+
+  @Test
+  void shouldAnswerInternalServerErrorForGeneralExceptions() {
+
+    // given
+    mockRateLimitNotReached();
+    mockCreditLineResponse(Mono.error(new RuntimeException()));
+
+    // act and expect
+    assertErrorResponse(
+        creditLineRequest("STARTUP").exchange().expectStatus().is5xxServerError(),
+        ErrorType.UNKNOWN_ERROR);
+  }
+
+  private RequestHeadersSpec<?> creditLineRequest(String foundingType) {
+    return webTestClient
+        .post()
+        .uri(REQUEST_CREDIT_LINE_URI)
+        .contentType(MediaType.APPLICATION_JSON)
+        .header("customerId", CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID)
+        .header("foundingType", foundingType)
+        .bodyValue(CreditLineRequestFixture.mockSmeAcceptableRequest());
+  }
+
+  private static void assertErrorResponse(ResponseSpec responseSpec, ErrorType errorType) {
+    responseSpec
+        .expectBody()
+        .jsonPath("$.response")
+        .doesNotExist()
+        .jsonPath("$.error.errorType")
+        .isEqualTo(errorType.name())
+        .jsonPath("$.path")
+        .isEqualTo(REQUEST_CREDIT_LINE_URI);
+  }
+
+  private void mockRateLimitNotReached() {
+    when(rateLimitService.checkRateLimitFor(any(UUID.class))).thenReturn(Mono.empty());
+  }
+
+  private void mockCreditLineResponse(Mono<PostRequestCreditLineResponseBody> response) {
+    when(creditLineService.requestCreditLine(
+            any(UUID.class), any(PostRequestCreditLineRequestBody.class), any(FoundingType.class)))
+        .thenReturn(response);
+  }
+}
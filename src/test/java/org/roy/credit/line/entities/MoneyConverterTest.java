@@ -0,0 +1,31 @@
+package org.roy.credit.line.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class MoneyConverterTest {
+
+  private final MoneyConverter moneyConverter = new MoneyConverter();
+
+  @Test
+  void shouldStoreCentsInAColumnOfTwoDecimalPlaces() {
+
+    // act
+    BigDecimal column = moneyConverter.convertToDatabaseColumn(1_234_567L);
+
+    // expect
+    assertEquals(new BigDecimal("12345.67"), column);
+    assertEquals(1_234_567L, moneyConverter.convertToEntityAttribute(column));
+  }
+
+  @Test
+  void shouldKeepNullAmounts() {
+
+    // act and expect
+    assertNull(moneyConverter.convertToDatabaseColumn(null));
+    assertNull(moneyConverter.convertToEntityAttribute(null));
+  }
+}
@@ -0,0 +1,71 @@
+package org.roy.credit.line.filters;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import jakarta.servlet.ReadListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class CachedBodyHttpServletRequestTest {
+
+  private static final String BODY = "{\"cashBalance\":4000,\"monthlyRevenue\":20000}";
+
+  @Test
+  void shouldServeTheBodyAgainEachTimeItIsRead() throws Exception {
+
+    // given
+    var request = new MockHttpServletRequest();
+    request.setContent(BODY.getBytes(UTF_8));
+    var cachedBodyRequest = new CachedBodyHttpServletRequest(request);
+
+    // act
+    var inputStream = cachedBodyRequest.getInputStream();
+    boolean finishedBeforeReading = inputStream.isFinished();
+    int firstByte = inputStream.read();
+    byte[] rest = inputStream.readAllBytes();
+
+    // expect
+    assertArrayEquals(BODY.getBytes(UTF_8), cachedBodyRequest.getBody());
+    assertEquals('{', firstByte);
+    assertArrayEquals(BODY.substring(1).getBytes(UTF_8), rest);
+    assertFalse(finishedBeforeReading);
+    assertTrue(inputStream.isFinished());
+    assertTrue(inputStream.isReady());
+    assertEquals(BODY, cachedBodyRequest.getReader().readLine());
+  }
+
+  @Test
+  void shouldReadTheBodyWithTheCharacterEncodingOfTheRequest() throws Exception {
+
+    // given
+    var request = new MockHttpServletRequest();
+    request.setCharacterEncoding("UTF-16");
+    request.setContent("{\"name\":\"Soci\u00e9t\u00e9\"}".getBytes("UTF-16"));
+    var cachedBodyRequest = new CachedBodyHttpServletRequest(request);
+
+    // act
+    String read = cachedBodyRequest.getReader().readLine();
+
+    // expect
+    assertEquals("{\"name\":\"Soci\u00e9t\u00e9\"}", read);
+  }
+
+  @Test
+  void shouldRefuseNonBlockingReadsOfABodyAlreadyRead() throws Exception {
+
+    // given
+    var cachedBodyRequest = new CachedBodyHttpServletRequest(new MockHttpServletRequest());
+    var inputStream = cachedBodyRequest.getInputStream();
+
+    // act and expect
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> inputStream.setReadListener(mock(ReadListener.class)));
+  }
+}
@@ -0,0 +1,455 @@
+package org.roy.credit.line.filters;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.configs.IdempotencyProperties;
+import org.roy.credit.line.constants.ApiParameterNames;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.services.caches.IdempotentResponse;
+import org.roy.credit.line.services.caches.IdempotentResponseStore;
+import org.roy.credit.line.services.caches.LocalIdempotentResponseStore;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class IdempotencyKeyFilterTest {
+
+  private static final String IDEMPOTENCY_KEY = "5f0c7d4e-1c7b-4f55-9a51-2a8d6f1d1a77";
+  private static final String DECISION = "{\"response\":{\"creditLineStatus\":\"ACCEPTED\"}}";
+  private static final String REQUEST_BODY =
+      "{\"cashBalance\":4000,\"monthlyRevenue\":20000,\"requestedCreditLine\":1000}";
+  private static final Duration IN_FLIGHT_TIMEOUT = Duration.ofMillis(200);
+
+  private final AtomicInteger executions = new AtomicInteger();
+
+  private final IdempotencyKeyFilter filter =
+      new IdempotencyKeyFilter(
+          new LocalIdempotentResponseStore(new IdempotencyProperties()),
+          Jackson2ObjectMapperBuilder.json().build(),
+          IN_FLIGHT_TIMEOUT);
+
+  @Test
+  void shouldReplayTheFirstResponseWithoutRunningTheRequestAgain() throws Exception {
+
+    // given
+    FilterChain decision = answering(HttpStatus.ACCEPTED);
+    filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), decision);
+
+    // act
+    var retryResponse = new MockHttpServletResponse();
+    filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), retryResponse, decision);
+
+    // expect
+    assertEquals(1, executions.get());
+    assertEquals(HttpStatus.ACCEPTED.value(), retryResponse.getStatus());
+    assertEquals(DECISION, retryResponse.getContentAsString());
+  }
+
+  @Test
+  void shouldPassTheBodyReadForTheFingerprintOnToTheRequest() throws Exception {
+
+    // given
+    var readBody = new StringBuilder();
+    FilterChain reading =
+        (request, response) -> {
+          readBody.append(new String(request.getInputStream().readAllBytes(), UTF_8));
+          answering(HttpStatus.ACCEPTED).doFilter(request, response);
+        };
+
+    // act
+    filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), reading);
+
+    // expect
+    assertEquals(REQUEST_BODY, readBody.toString());
+  }
+
+  @Test
+  void shouldRefuseAKeyReusedWithAnotherBodyOrFoundingType() throws Exception {
+
+    // given
+    FilterChain decision = answering(HttpStatus.ACCEPTED);
+    filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), decision);
+    var anotherBodyResponse = new MockHttpServletResponse();
+    var anotherFoundingTypeResponse = new MockHttpServletResponse();
+
+    // act
+    filter.doFilter(
+        requestWithKey(IDEMPOTENCY_KEY, "SME", REQUEST_BODY.replace("1000", "9000")),
+        anotherBodyResponse,
+        decision);
+    filter.doFilter(
+        requestWithKey(IDEMPOTENCY_KEY, "STARTUP", REQUEST_BODY),
+        anotherFoundingTypeResponse,
+        decision);
+
+    // expect
+    assertEquals(1, executions.get());
+    for (MockHttpServletResponse response :
+        List.of(anotherBodyResponse, anotherFoundingTypeResponse)) {
+      assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
+      assertTrue(response.getContentAsString().contains("IDEMPOTENCY_KEY_REUSED"));
+    }
+  }
+
+  @Test
+  void shouldRefuseAConcurrentDuplicateSentWithAnotherBody() throws Exception {
+
+    // given
+    var releaseFirstExecution = new CountDownLatch(1);
+    var firstExecutionStarted = new CountDownLatch(1);
+    FilterChain slowDecision =
+        (request, response) -> {
+          firstExecutionStarted.countDown();
+          try {
+            releaseFirstExecution.await();
+          } catch (InterruptedException interrupted) {
+            throw new ServletException(interrupted);
+          }
+          answering(HttpStatus.ACCEPTED).doFilter(request, response);
+        };
+    var duplicateResponse = new MockHttpServletResponse();
+    var slowFilter =
+        new IdempotencyKeyFilter(
+            new LocalIdempotentResponseStore(new IdempotencyProperties()),
+            Jackson2ObjectMapperBuilder.json().build(),
+            Duration.ofSeconds(5));
+
+    // act
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      executor.submit(
+          () -> {
+            slowFilter.doFilter(
+                requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), slowDecision);
+            return null;
+          });
+      firstExecutionStarted.await(5, TimeUnit.SECONDS);
+      Thread duplicate =
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    try {
+                      slowFilter.doFilter(
+                          requestWithKey(IDEMPOTENCY_KEY, "SME", "{}"),
+                          duplicateResponse,
+                          slowDecision);
+                    } catch (IOException | ServletException failure) {
+                      throw new IllegalStateException(failure);
+                    }
+                  });
+      while (duplicate.getState() != Thread.State.TIMED_WAITING) {
+        Thread.onSpinWait();
+      }
+      releaseFirstExecution.countDown();
+      duplicate.join();
+    }
+
+    // expect
+    assertEquals(1, executions.get());
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), duplicateResponse.getStatus());
+  }
+
+  @Test
+  void shouldRunRequestsWithoutKeyOrWithAnotherKey() throws Exception {
+
+    // given
+    FilterChain decision = answering(HttpStatus.ACCEPTED);
+
+    // act
+    filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), decision);
+    filter.doFilter(requestWithKey("another-key"), new MockHttpServletResponse(), decision);
+    filter.doFilter(requestWithKey(null), new MockHttpServletResponse(), decision);
+    filter.doFilter(requestWithKey(null), new MockHttpServletResponse(), decision);
+
+    // expect
+    assertEquals(4, executions.get());
+  }
+
+  @Test
+  void shouldRunTheRequestAgainWhenItWasRateLimited() throws Exception {
+
+    // given
+    filter.doFilter(
+        requestWithKey(IDEMPOTENCY_KEY),
+        new MockHttpServletResponse(),
+        answering(HttpStatus.TOO_MANY_REQUESTS));
+
+    // act
+    var retryResponse = new MockHttpServletResponse();
+    filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), retryResponse, answering(HttpStatus.OK));
+
+    // expect
+    assertEquals(2, executions.get());
+    assertEquals(HttpStatus.OK.value(), retryResponse.getStatus());
+  }
+
+  @Test
+  void shouldMakeConcurrentDuplicatesWaitForTheFirstExecution() throws Exception {
+
+    // given
+    int duplicates = 16;
+    var firstExecutionStarted = new CountDownLatch(1);
+    var releaseFirstExecution = new CountDownLatch(1);
+    FilterChain slowDecision =
+        (request, response) -> {
+          firstExecutionStarted.countDown();
+          try {
+            releaseFirstExecution.await();
+          } catch (InterruptedException interrupted) {
+            throw new ServletException(interrupted);
+          }
+          answering(HttpStatus.ACCEPTED).doFilter(request, response);
+        };
+    var responses = new MockHttpServletResponse[duplicates];
+
+    // act
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < duplicates; i++) {
+        int duplicate = i;
+        responses[duplicate] = new MockHttpServletResponse();
+        executor.submit(
+            () -> {
+              filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), responses[duplicate], slowDecision);
+              return null;
+            });
+      }
+      firstExecutionStarted.await(5, TimeUnit.SECONDS);
+      releaseFirstExecution.countDown();
+    }
+
+    // expect
+    assertEquals(1, executions.get());
+    for (MockHttpServletResponse response : responses) {
+      assertEquals(HttpStatus.ACCEPTED.value(), response.getStatus());
+      assertEquals(DECISION, response.getContentAsString());
+    }
+  }
+
+  @Test
+  void shouldAnswerADuplicateWithAConflictWhenTheFirstExecutionTakesTooLong() throws Exception {
+
+    // given
+    var releaseFirstExecution = new CountDownLatch(1);
+    var firstExecutionStarted = new CountDownLatch(1);
+    FilterChain stuckDecision =
+        (request, response) -> {
+          firstExecutionStarted.countDown();
+          try {
+            releaseFirstExecution.await();
+          } catch (InterruptedException interrupted) {
+            throw new ServletException(interrupted);
+          }
+          answering(HttpStatus.ACCEPTED).doFilter(request, response);
+        };
+    var duplicateResponse = new MockHttpServletResponse();
+
+    // act
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      executor.submit(
+          () -> {
+            filter.doFilter(
+                requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), stuckDecision);
+            return null;
+          });
+      firstExecutionStarted.await(5, TimeUnit.SECONDS);
+      filter.doFilter(requestWithKey(IDEMPOTENCY_KEY), duplicateResponse, stuckDecision);
+      releaseFirstExecution.countDown();
+    }
+
+    // expect the duplicate answered without running the request
+    assertEquals(1, executions.get());
+    assertEquals(HttpStatus.CONFLICT.value(), duplicateResponse.getStatus());
+    assertTrue(duplicateResponse.getContentAsString().contains("REQUEST_IN_PROGRESS"));
+  }
+
+  @Test
+  void shouldRunADuplicateAgainWhenTheFirstExecutionWasRateLimited() throws Exception {
+
+    // given
+    var releaseFirstExecution = new CountDownLatch(1);
+    var firstExecutionStarted = new CountDownLatch(1);
+    FilterChain rateLimited =
+        (request, response) -> {
+          firstExecutionStarted.countDown();
+          try {
+            releaseFirstExecution.await();
+          } catch (InterruptedException interrupted) {
+            throw new ServletException(interrupted);
+          }
+          answering(HttpStatus.TOO_MANY_REQUESTS).doFilter(request, response);
+        };
+    var duplicateResponse = new MockHttpServletResponse();
+    var slowFilter =
+        new IdempotencyKeyFilter(
+            new LocalIdempotentResponseStore(new IdempotencyProperties()),
+            Jackson2ObjectMapperBuilder.json().build(),
+            Duration.ofSeconds(5));
+
+    // act
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      executor.submit(
+          () -> {
+            slowFilter.doFilter(
+                requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), rateLimited);
+            return null;
+          });
+      firstExecutionStarted.await(5, TimeUnit.SECONDS);
+      Thread duplicate =
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    try {
+                      slowFilter.doFilter(
+                          requestWithKey(IDEMPOTENCY_KEY),
+                          duplicateResponse,
+                          answering(HttpStatus.OK));
+                    } catch (IOException | ServletException failure) {
+                      throw new IllegalStateException(failure);
+                    }
+                  });
+      while (duplicate.getState() != Thread.State.TIMED_WAITING) {
+        Thread.onSpinWait();
+      }
+      releaseFirstExecution.countDown();
+      duplicate.join();
+    }
+
+    // expect
+    assertEquals(2, executions.get());
+    assertEquals(HttpStatus.OK.value(), duplicateResponse.getStatus());
+  }
+
+  @Test
+  void shouldStopWaitingForTheFirstExecutionWhenInterrupted() throws Exception {
+
+    // given
+    var releaseFirstExecution = new CountDownLatch(1);
+    var firstExecutionStarted = new CountDownLatch(1);
+    FilterChain stuckDecision =
+        (request, response) -> {
+          firstExecutionStarted.countDown();
+          try {
+            releaseFirstExecution.await();
+          } catch (InterruptedException interrupted) {
+            throw new ServletException(interrupted);
+          }
+          answering(HttpStatus.ACCEPTED).doFilter(request, response);
+        };
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      executor.submit(
+          () -> {
+            filter.doFilter(
+                requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), stuckDecision);
+            return null;
+          });
+      firstExecutionStarted.await(5, TimeUnit.SECONDS);
+
+      // act
+      Thread.currentThread().interrupt();
+      assertThrows(
+          ServletException.class,
+          () ->
+              filter.doFilter(
+                  requestWithKey(IDEMPOTENCY_KEY), new MockHttpServletResponse(), stuckDecision));
+
+      // expect
+      assertTrue(Thread.interrupted());
+      releaseFirstExecution.countDown();
+    }
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void shouldRunTheRequestWhenTheResponseStoreIsDown() throws Exception {
+
+    // given
+    IdempotentResponseStore unavailableStore = mock(IdempotentResponseStore.class);
+    when(unavailableStore.find(anyString()))
+        .thenThrow(new RedisConnectionFailureException("Connection refused"));
+    doThrow(new RedisConnectionFailureException("Connection refused"))
+        .when(unavailableStore)
+        .save(anyString(), any(IdempotentResponse.class));
+    var unavailableFilter =
+        new IdempotencyKeyFilter(
+            unavailableStore, Jackson2ObjectMapperBuilder.json().build(), IN_FLIGHT_TIMEOUT);
+    var response = new MockHttpServletResponse();
+
+    // act
+    unavailableFilter.doFilter(
+        requestWithKey(IDEMPOTENCY_KEY), response, answering(HttpStatus.ACCEPTED));
+
+    // expect
+    assertEquals(1, executions.get());
+    assertEquals(HttpStatus.ACCEPTED.value(), response.getStatus());
+    assertEquals(DECISION, response.getContentAsString());
+  }
+
+  @Test
+  void shouldEncodeTheStatusTheFingerprintAndTheBodyOfAResponse() {
+
+    // given
+    var idempotentResponse =
+        new IdempotentResponse(
+            HttpStatus.ACCEPTED.value(),
+            IdempotentResponse.fingerprint("SME", REQUEST_BODY.getBytes(UTF_8)),
+            DECISION.getBytes(UTF_8));
+
+    // act
+    var decoded = IdempotentResponse.decode(idempotentResponse.encode());
+
+    // expect
+    assertEquals(idempotentResponse.status(), decoded.status());
+    assertArrayEquals(idempotentResponse.fingerprint(), decoded.fingerprint());
+    assertArrayEquals(idempotentResponse.body(), decoded.body());
+  }
+
+  /** Chain standing for the controller, counting each request it runs */
+  private FilterChain answering(HttpStatus status) {
+    return (request, response) -> {
+      executions.incrementAndGet();
+      var httpResponse = (HttpServletResponse) response;
+      httpResponse.setStatus(status.value());
+      httpResponse.getOutputStream().write(DECISION.getBytes(UTF_8));
+    };
+  }
+
+  private static MockHttpServletRequest requestWithKey(String idempotencyKey) {
+    return requestWithKey(idempotencyKey, "SME", REQUEST_BODY);
+  }
+
+  private static MockHttpServletRequest requestWithKey(
+      String idempotencyKey, String foundingType, String body) {
+    var request = new MockHttpServletRequest("POST", "/v1/request-credit-line");
+    request.addHeader(
+        ApiParameterNames.CUSTOMER_ID_HEADER, CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID);
+    request.addHeader(ApiParameterNames.FOUNDING_TYPE_HEADER, foundingType);
+    request.setContent(body.getBytes(UTF_8));
+    if (idempotencyKey != null) {
+      request.addHeader(ApiParameterNames.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+    }
+
+    return request;
+  }
+}
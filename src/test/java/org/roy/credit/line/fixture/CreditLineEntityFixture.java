@@ -1,12 +1,12 @@
 package org.roy.credit.line.fixture;
 
-import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_NUMBER_OF_FAILED_ATTEMPTS;
+import static org.roy.credit.line.fixture.CreditLineRequestFixture.MAX_FAILED_ATTEMPTS;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 
 import org.roy.credit.line.entities.CreditLineRequestRecord;
 import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.utils.Money;
 
 public class CreditLineEntityFixture {
 
@@ -14,10 +14,10 @@ public class CreditLineEntityFixture {
     return Optional.of(
         CreditLineRequestRecord.builder()
             .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
-            .acceptedCreditLine(new BigDecimal("10000.00"))
+            .acceptedCreditLineCents(Money.centsOfUnits(10_000))
             .creditLineStatus(CreditLineStatus.ACCEPTED.name())
             .requestedDate(CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
-            .attempts(MAX_NUMBER_OF_FAILED_ATTEMPTS)
+            .attempts(MAX_FAILED_ATTEMPTS)
             .build());
   }
 
@@ -25,7 +25,7 @@ public class CreditLineEntityFixture {
     return Optional.of(
         CreditLineRequestRecord.builder()
             .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
-            .acceptedCreditLine(BigDecimal.ZERO)
+            .acceptedCreditLineCents(0)
             .creditLineStatus(CreditLineStatus.REJECTED.name())
             .requestedDate(CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
             .attempts(attempts)
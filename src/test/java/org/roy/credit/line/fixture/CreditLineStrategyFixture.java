@@ -0,0 +1,45 @@
+package org.roy.credit.line.fixture;
+
+import java.util.List;
+import org.mapstruct.factory.Mappers;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.services.CreditLineDecisionEngine;
+import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
+import org.roy.credit.line.services.strategies.credit.status.CreditRequestStrategyRegistry;
+import org.roy.credit.line.services.strategies.credit.status.NewOrPreviouslyRejectedRequestStrategy;
+import org.roy.credit.line.services.strategies.credit.status.PreviouslyAcceptedStrategy;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.roy.credit.line.services.strategies.founding.type.SmeRequesterStrategy;
+import org.roy.credit.line.services.strategies.founding.type.StartUpRequesterStrategy;
+
+public class CreditLineStrategyFixture {
+
+  public static RatioProperties mockRatioProperties() {
+    var ratioProperties = new RatioProperties();
+    ratioProperties.setMonthlyRevenue(CreditLineRequestFixture.MONTHLY_REVENUE_RATIO);
+    ratioProperties.setCashBalance(CreditLineRequestFixture.CASH_BALANCE_RATIO);
+    ratioProperties.setMaxFailedAttempts(CreditLineRequestFixture.MAX_FAILED_ATTEMPTS);
+    return ratioProperties;
+  }
+
+  public static CreditLineCalculationStrategyRegistry mockCreditLineCalculationStrategies() {
+    var ratioProperties = mockRatioProperties();
+    return new CreditLineCalculationStrategyRegistry(
+        List.of(
+            new SmeRequesterStrategy(ratioProperties),
+            new StartUpRequesterStrategy(ratioProperties)));
+  }
+
+  public static CreditRequestStrategyRegistry mockCreditRequestStrategies() {
+    return new CreditRequestStrategyRegistry(
+        List.of(new NewOrPreviouslyRejectedRequestStrategy(), new PreviouslyAcceptedStrategy()));
+  }
+
+  public static CreditLineDecisionEngine mockCreditLineDecisionEngine() {
+    return new CreditLineDecisionEngine(
+        Mappers.getMapper(CreditLineRequestMapper.class),
+        mockCreditLineCalculationStrategies(),
+        mockCreditRequestStrategies(),
+        mockRatioProperties());
+  }
+}
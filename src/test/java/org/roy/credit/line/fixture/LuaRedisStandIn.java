@@ -0,0 +1,107 @@
+package org.roy.credit.line.fixture;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+/**
+ * In-process Redis stand-in able to run the service Lua scripts. Like Redis, it executes one
+ * script at a time, so scripts are atomic against each other.
+ */
+public class LuaRedisStandIn {
+
+  private final Map<String, String> values = new HashMap<>();
+  private final Map<String, Long> expirations = new HashMap<>();
+  private final Globals globals = JsePlatform.standardGlobals();
+  private final LuaValue script;
+
+  public LuaRedisStandIn(String scriptSource) {
+    LuaTable redis = new LuaTable();
+    redis.set(
+        "call",
+        new VarArgFunction() {
+          @Override
+          public Varargs invoke(Varargs args) {
+            return redisCall(args);
+          }
+        });
+    globals.set("redis", redis);
+    script = globals.load(scriptSource);
+  }
+
+  public synchronized Long eval(List<String> keys, List<String> args) {
+    globals.set("KEYS", toLuaTable(keys));
+    globals.set("ARGV", toLuaTable(args));
+
+    return script.call().tolong();
+  }
+
+  public synchronized void set(String key, String value, long ttlMillis) {
+    values.put(key, value);
+    expirations.put(key, System.currentTimeMillis() + ttlMillis);
+  }
+
+  public synchronized String get(String key) {
+    evictIfExpired(key);
+    return values.get(key);
+  }
+
+  private LuaValue redisCall(Varargs args) {
+    String command = args.checkjstring(1).toUpperCase();
+    String key = args.checkjstring(2);
+    evictIfExpired(key);
+
+    switch (command) {
+      case "EXISTS":
+        return LuaValue.valueOf(values.containsKey(key) ? 1 : 0);
+
+      case "GET":
+        return values.containsKey(key) ? LuaValue.valueOf(values.get(key)) : LuaValue.FALSE;
+
+      case "INCR":
+        long incremented = Long.parseLong(values.getOrDefault(key, "0")) + 1;
+        values.put(key, Long.toString(incremented));
+        return LuaValue.valueOf(incremented);
+
+      case "PTTL":
+        if (!values.containsKey(key)) {
+          return LuaValue.valueOf(-2);
+        }
+        Long expiration = expirations.get(key);
+        return LuaValue.valueOf(
+            expiration == null ? -1 : expiration - System.currentTimeMillis());
+
+      case "PEXPIRE":
+        expirations.put(key, System.currentTimeMillis() + args.checklong(3));
+        return LuaValue.valueOf(1);
+
+      default:
+        throw new UnsupportedOperationException("Unsupported Redis command " + command);
+    }
+  }
+
+  private void evictIfExpired(String key) {
+    Long expiration = expirations.get(key);
+
+    if (expiration != null && expiration <= System.currentTimeMillis()) {
+      values.remove(key);
+      expirations.remove(key);
+    }
+  }
+
+  private static LuaTable toLuaTable(List<String> items) {
+    LuaTable table = new LuaTable();
+
+    for (int i = 0; i < items.size(); i++) {
+      table.set(i + 1, LuaValue.valueOf(items.get(i)));
+    }
+
+    return table;
+  }
+}
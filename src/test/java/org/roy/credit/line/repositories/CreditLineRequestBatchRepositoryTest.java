@@ -0,0 +1,59 @@
+package org.roy.credit.line.repositories;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.fixture.CreditLineEntityFixture;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+/**
+ * Checks the upsert of the write-behind flush, which H2 can not run. The inserts and updates of
+ * batches of requests are covered against H2 by the direct store tests.
+ */
+@ExtendWith(MockitoExtension.class)
+class CreditLineRequestBatchRepositoryTest {
+
+  @InjectMocks private CreditLineRequestBatchRepository creditLineRequestBatchRepository;
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private PreparedStatement preparedStatement;
+
+  @Captor
+  private ArgumentCaptor<ParameterizedPreparedStatementSetter<CreditLineRequestRecord>>
+      statementSetter;
+
+  @Test
+  void shouldUpsertTheRecordsByCustomerInOneJdbcBatch() throws Exception {
+
+    // given
+    CreditLineRequestRecord creditLineRequestRecord =
+        CreditLineEntityFixture.mockAlreadyAcceptedRequest().orElseThrow();
+    List<CreditLineRequestRecord> creditLineRequestRecords = List.of(creditLineRequestRecord);
+
+    // act
+    creditLineRequestBatchRepository.upsertAll(creditLineRequestRecords);
+
+    // expect
+    verify(jdbcTemplate)
+        .batchUpdate(
+            startsWith("INSERT INTO credit_line_requests"),
+            eq(creditLineRequestRecords),
+            anyInt(),
+            statementSetter.capture());
+    statementSetter.getValue().setValues(preparedStatement, creditLineRequestRecord);
+    verify(preparedStatement).setObject(9, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+  }
+}
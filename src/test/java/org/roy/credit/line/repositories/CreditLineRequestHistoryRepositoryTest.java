@@ -0,0 +1,102 @@
+package org.roy.credit.line.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks the partitioning DDL sent to the database, which H2 can not run. The queries are covered
+ * against H2 by the history service tests.
+ */
+@ExtendWith(MockitoExtension.class)
+class CreditLineRequestHistoryRepositoryTest {
+
+  @InjectMocks private CreditLineRequestHistoryRepository historyRepository;
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldReplaceThePreviousCustomerIndexOnceTheCoveringOneExists() {
+
+    // act
+    historyRepository.createTable();
+
+    // expect
+    InOrder statements = inOrder(jdbcTemplate);
+    statements
+        .verify(jdbcTemplate)
+        .execute(startsWith("CREATE TABLE IF NOT EXISTS credit_line_request_history ("));
+    statements
+        .verify(jdbcTemplate)
+        .execute(
+            startsWith(
+                "CREATE INDEX IF NOT EXISTS credit_line_request_history_customer_page_idx"));
+    statements
+        .verify(jdbcTemplate)
+        .execute("DROP INDEX IF EXISTS credit_line_request_history_customer_idx");
+  }
+
+  @Test
+  void shouldCreateThePartitionOfAMonthFromItsFirstDayInUtc() {
+
+    // act
+    historyRepository.createPartition(YearMonth.of(2026, 12));
+
+    // expect
+    verify(jdbcTemplate)
+        .execute(
+            "CREATE TABLE IF NOT EXISTS credit_line_request_history_p202612 PARTITION OF"
+                + " credit_line_request_history FOR VALUES FROM ('2026-12-01 00:00:00+00')"
+                + " TO ('2027-01-01 00:00:00+00')");
+  }
+
+  @Test
+  void shouldDetachThePartitionOfAMonthBeforeDroppingIt() {
+
+    // act
+    historyRepository.dropPartition(YearMonth.of(2026, 1));
+
+    // expect
+    InOrder statements = inOrder(jdbcTemplate);
+    statements
+        .verify(jdbcTemplate)
+        .execute(
+            "ALTER TABLE credit_line_request_history"
+                + " DETACH PARTITION credit_line_request_history_p202601 CONCURRENTLY");
+    statements
+        .verify(jdbcTemplate)
+        .execute("DROP TABLE IF EXISTS credit_line_request_history_p202601");
+  }
+
+  @Test
+  void shouldFindTheMonthsOfThePartitionsOnly() {
+
+    // given
+    when(jdbcTemplate.queryForList(
+            startsWith("SELECT child.relname FROM pg_inherits"), eq(String.class)))
+        .thenReturn(
+            List.of(
+                "credit_line_request_history_p202609",
+                "credit_line_request_history_default",
+                "credit_line_request_history_p202610"));
+
+    // act
+    List<YearMonth> partitions = historyRepository.findPartitions();
+
+    // expect
+    assertEquals(List.of(YearMonth.of(2026, 9), YearMonth.of(2026, 10)), partitions);
+  }
+}
@@ -0,0 +1,282 @@
+package org.roy.credit.line.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.CreditLineHistoryProperties;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class CreditLineRequestHistoryWriterTest {
+
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.parse("2026-10-17T10:00:00Z"), ZoneOffset.UTC);
+  private static final YearMonth CURRENT_MONTH = YearMonth.of(2026, 10);
+
+  @Mock private CreditLineRequestHistoryRepository historyRepository;
+  @Captor private ArgumentCaptor<List<CreditLineRequestHistoryDao>> storedBatches;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldCreateThePartitionsAheadAndDropTheOnesPastTheRetention() {
+
+    // given
+    when(historyRepository.findPartitions())
+        .thenReturn(List.of(YearMonth.of(2026, 6), YearMonth.of(2026, 7), CURRENT_MONTH));
+
+    // act
+    historyWriterOf(historyProperties(4, 2));
+
+    // expect
+    verify(historyRepository).createTable();
+    verify(historyRepository).createPartition(CURRENT_MONTH);
+    verify(historyRepository).createPartition(CURRENT_MONTH.plusMonths(1));
+    verify(historyRepository).createPartition(CURRENT_MONTH.plusMonths(2));
+    // Four months kept, the current one included
+    verify(historyRepository).dropPartition(YearMonth.of(2026, 6));
+    verify(historyRepository, never()).dropPartition(YearMonth.of(2026, 7));
+    verify(historyRepository, never()).dropPartition(CURRENT_MONTH);
+  }
+
+  @Test
+  void shouldStoreTheRecordedEvaluationsInBatches() {
+
+    // given
+    var historyWriter = historyWriterOf(historyProperties(100, 2));
+    ZonedDateTime lastMonth = ZonedDateTime.of(2026, 9, 30, 23, 0, 0, 0, ZoneOffset.UTC);
+    List<CreditLineRequestHistoryDao> evaluations =
+        IntStream.range(0, 5).mapToObj(i -> evaluationOf(lastMonth)).toList();
+
+    // act
+    historyWriter.record(evaluations);
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository, times(3)).insertAll(storedBatches.capture());
+    assertEquals(
+        List.of(2, 2, 1), storedBatches.getAllValues().stream().map(List::size).toList());
+    // Created on demand, once
+    verify(historyRepository).createPartition(YearMonth.of(2026, 9));
+  }
+
+  @Test
+  void shouldLeaveOutTheEvaluationsPastTheRetention() {
+
+    // given
+    var historyWriter = historyWriterOf(historyProperties(12, 10));
+    ZonedDateTime expired = ZonedDateTime.of(2025, 10, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    // act
+    historyWriter.record(List.of(evaluationOf(expired)));
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository, never()).insertAll(anyList());
+    assertEquals(1.0, droppedEvaluations("past-retention"));
+  }
+
+  @Test
+  void shouldLeaveOutTheEvaluationsBeyondThePartitionsAhead() {
+
+    // given
+    var historyWriter = historyWriterOf(historyProperties(12, 10));
+    ZonedDateTime farFuture = ZonedDateTime.of(1_000_001, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    ZonedDateTime lastPartition = ZonedDateTime.of(2026, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    // act
+    historyWriter.record(
+        List.of(evaluationOf(farFuture), evaluationOf(null), evaluationOf(lastPartition)));
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository).insertAll(storedBatches.capture());
+    assertEquals(List.of(lastPartition), requestedDatesOf(storedBatches.getValue()));
+    verify(historyRepository, never()).createPartition(YearMonth.of(1_000_001, 1));
+    assertEquals(2.0, droppedEvaluations("beyond-partitions-ahead"));
+  }
+
+  @Test
+  void shouldDropTheBatchFailingWithANonTransientError() {
+
+    // given
+    var historyWriter = historyWriterOf(historyProperties(12, 1));
+    CreditLineRequestHistoryDao rejected = evaluationOf(ZonedDateTime.now(CLOCK));
+    CreditLineRequestHistoryDao next = evaluationOf(ZonedDateTime.now(CLOCK));
+    doThrow(new DataIntegrityViolationException("value too long"))
+        .doNothing()
+        .when(historyRepository)
+        .insertAll(anyList());
+
+    // act
+    historyWriter.record(List.of(rejected, next));
+    historyWriter.flush();
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository, times(2)).insertAll(storedBatches.capture());
+    assertEquals(List.of(List.of(rejected), List.of(next)), storedBatches.getAllValues());
+    assertEquals(1.0, droppedEvaluations("store-failed"));
+  }
+
+  @Test
+  void shouldDropTheEvaluationsFindingTheQueueFull() {
+
+    // given
+    var historyProperties = historyProperties(12, 10);
+    historyProperties.setQueueCapacity(2);
+    var historyWriter = historyWriterOf(historyProperties);
+    ZonedDateTime now = ZonedDateTime.now(CLOCK);
+
+    // act
+    historyWriter.record(List.of(evaluationOf(now), evaluationOf(now), evaluationOf(now)));
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository).insertAll(storedBatches.capture());
+    assertEquals(2, storedBatches.getValue().size());
+    assertEquals(1.0, droppedEvaluations("queue-full"));
+  }
+
+  @Test
+  void shouldRetryTheBatchFailingToBeStored() {
+
+    // given
+    var historyWriter = historyWriterOf(historyProperties(12, 10));
+    CreditLineRequestHistoryDao evaluation = evaluationOf(ZonedDateTime.now(CLOCK));
+    doThrow(new DataAccessResourceFailureException("connection refused"))
+        .doNothing()
+        .when(historyRepository)
+        .insertAll(anyList());
+
+    // act
+    historyWriter.record(List.of(evaluation));
+    historyWriter.flush();
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository, times(2)).insertAll(storedBatches.capture());
+    assertEquals(List.of(evaluation), storedBatches.getAllValues().get(1));
+  }
+
+  @Test
+  void shouldQueueTheEvaluationsOnceTheTransactionCommits() {
+
+    // given
+    var historyWriter = historyWriterOf(historyProperties(12, 10));
+    var evaluation = evaluationOf(ZonedDateTime.now(CLOCK));
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      historyWriter.record(List.of(evaluation));
+      historyWriter.flush();
+      verify(historyRepository, never()).insertAll(anyList());
+
+      // act
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository).insertAll(storedBatches.capture());
+    assertEquals(List.of(evaluation), storedBatches.getValue());
+  }
+
+  @Test
+  void shouldStartWhenThePartitionsCanNotBeMaintained() {
+
+    // given
+    doThrow(new DataAccessResourceFailureException("Connection refused"))
+        .when(historyRepository)
+        .createTable();
+
+    // act
+    var historyWriter = historyWriterOf(historyProperties(12, 10));
+    historyWriter.record(List.of(evaluationOf(ZonedDateTime.now(CLOCK))));
+    historyWriter.destroy();
+
+    // expect the evaluations stored on shutdown, their partition created on demand
+    verify(historyRepository).createPartition(CURRENT_MONTH);
+    verify(historyRepository).insertAll(anyList());
+  }
+
+  @Test
+  void shouldDoNothingWhenDisabled() {
+
+    // given
+    var historyProperties = historyProperties(12, 10);
+    historyProperties.setEnabled(false);
+    var historyWriter = historyWriterOf(historyProperties);
+
+    // act
+    historyWriter.record(List.of(evaluationOf(ZonedDateTime.now(CLOCK))));
+    historyWriter.flush();
+
+    // expect
+    verify(historyRepository, never()).createTable();
+    verify(historyRepository, never()).insertAll(anyList());
+  }
+
+  private CreditLineRequestHistoryWriter historyWriterOf(
+      CreditLineHistoryProperties historyProperties) {
+    return new CreditLineRequestHistoryWriter(
+        historyRepository, historyProperties, meterRegistry, CLOCK);
+  }
+
+  private static CreditLineHistoryProperties historyProperties(int retentionMonths, int batchSize) {
+    var historyProperties = new CreditLineHistoryProperties();
+    historyProperties.setRetentionMonths(retentionMonths);
+    historyProperties.setBatchSize(batchSize);
+    return historyProperties;
+  }
+
+  private double droppedEvaluations(String reason) {
+    return meterRegistry.get("credit.line.history.dropped").tag("reason", reason).counter().count();
+  }
+
+  private static List<ZonedDateTime> requestedDatesOf(List<CreditLineRequestHistoryDao> batch) {
+    return batch.stream().map(CreditLineRequestHistoryDao::getRequestedDate).toList();
+  }
+
+  private static CreditLineRequestHistoryDao evaluationOf(ZonedDateTime requestedDate) {
+    return CreditLineRequestHistoryDao.builder()
+        .customerId(UUID.randomUUID())
+        .requestedDate(requestedDate)
+        .foundingType(FoundingType.SME)
+        .cashBalanceCents(100_000)
+        .monthlyRevenueCents(500_000)
+        .requestedCreditLineCents(10_000)
+        .creditLineStatus(CreditLineStatus.ACCEPTED)
+        .acceptedCreditLineCents(10_000)
+        .attempts(1)
+        .build();
+  }
+}
@@ -0,0 +1,199 @@
+package org.roy.credit.line.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+
+class CreditLineRequestLogTest {
+
+  private static final long LOG_CAPACITY = 4096;
+  private static final int HEADER_SIZE = 16;
+
+  /** Record header, fixed payload, cents of the accepted credit line and financial data */
+  private static final long RECORD_SIZE = 8 + 59 + 8 + 25;
+
+  @TempDir private Path logDirectory;
+
+  @Test
+  void shouldReplayTheRecordsAppendedBeforeTheLogWasClosed() throws Exception {
+
+    // given
+    Path logFile = logDirectory.resolve("credit-line-requests.log");
+    var appendedRecord = recordOf(FoundingType.SME.name());
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.append(appendedRecord);
+    }
+
+    // act
+    List<CreditLineRequestRecord> replayedRecords = new ArrayList<>();
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.replay(
+          (sequence, creditLineRequestRecord) -> replayedRecords.add(creditLineRequestRecord));
+
+      // expect the end of the log moved after the replayed record
+      assertEquals(List.of(appendedRecord), replayedRecords);
+      assertEquals(RECORD_SIZE, requestLog.usedBytes());
+    }
+  }
+
+  @Test
+  void shouldReplayTheAmountsOfRecordsAppendedByPreviousVersions() throws Exception {
+
+    // given - a record of scale four, without the financial data
+    Path logFile = logDirectory.resolve("credit-line-requests.log");
+    new CreditLineRequestLog(logFile, LOG_CAPACITY).close();
+    UUID customerId = UUID.randomUUID();
+    var requestedDate = CreditLineRequestFixture.MOCKED_REQUESTED_DATE;
+    byte[] unscaledValue = BigInteger.valueOf(12_345_678).toByteArray();
+    ByteBuffer payload =
+        ByteBuffer.allocate(59 + unscaledValue.length)
+            .putLong(0)
+            .putLong(1)
+            .putLong(customerId.getMostSignificantBits())
+            .putLong(customerId.getLeastSignificantBits())
+            .putInt(4)
+            .putLong(requestedDate.toInstant().getEpochSecond())
+            .putInt(requestedDate.toInstant().getNano())
+            .putInt(requestedDate.getOffset().getTotalSeconds())
+            .put((byte) CreditLineStatus.ACCEPTED.ordinal())
+            .putInt(2)
+            .putShort((short) unscaledValue.length)
+            .put(unscaledValue);
+    var checksum = new CRC32C();
+    checksum.update(payload.array());
+    ByteBuffer legacyRecord =
+        ByteBuffer.allocate(8 + payload.capacity())
+            .putInt(payload.capacity())
+            .putInt((int) checksum.getValue())
+            .put(payload.array())
+            .flip();
+    try (var channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      channel.write(legacyRecord, HEADER_SIZE);
+    }
+
+    // act
+    List<CreditLineRequestRecord> replayedRecords = new ArrayList<>();
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.replay(
+          (sequence, creditLineRequestRecord) -> replayedRecords.add(creditLineRequestRecord));
+    }
+
+    // expect 1234.5678 rounded half up to the cent
+    assertEquals(1, replayedRecords.size());
+    var replayedRecord = replayedRecords.get(0);
+    assertEquals(customerId, replayedRecord.getCustomerId());
+    assertEquals(123_457, replayedRecord.getAcceptedCreditLineCents());
+    assertEquals(2, replayedRecord.getAttempts());
+    assertEquals(requestedDate, replayedRecord.getRequestedDate());
+    assertNull(replayedRecord.getFoundingType());
+  }
+
+  @Test
+  void shouldReplayARecordWithoutFoundingType() throws Exception {
+
+    // given
+    Path logFile = logDirectory.resolve("credit-line-requests.log");
+    var appendedRecord = recordOf(null);
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.append(appendedRecord);
+    }
+
+    // act
+    List<CreditLineRequestRecord> replayedRecords = new ArrayList<>();
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.replay(
+          (sequence, creditLineRequestRecord) -> replayedRecords.add(creditLineRequestRecord));
+    }
+
+    // expect
+    assertEquals(List.of(appendedRecord), replayedRecords);
+    assertNull(replayedRecords.get(0).getFoundingType());
+  }
+
+  @Test
+  void shouldStopTheReplayAtARecordLongerThanTheLog() throws Exception {
+
+    // given - the length of the first record is corrupted
+    Path logFile = logDirectory.resolve("credit-line-requests.log");
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.append(recordOf(FoundingType.SME.name()));
+    }
+    try (var channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Integer.MAX_VALUE), HEADER_SIZE);
+    }
+
+    // act
+    List<CreditLineRequestRecord> replayedRecords = new ArrayList<>();
+    try (var requestLog = new CreditLineRequestLog(logFile, LOG_CAPACITY)) {
+      requestLog.replay(
+          (sequence, creditLineRequestRecord) -> replayedRecords.add(creditLineRequestRecord));
+
+      // expect
+      assertTrue(replayedRecords.isEmpty());
+      assertEquals(0, requestLog.usedBytes());
+    }
+  }
+
+  @Test
+  void shouldCountTheBytesOfTheCurrentGenerationOnly() throws Exception {
+
+    // given
+    try (var requestLog =
+        new CreditLineRequestLog(logDirectory.resolve("credit-line-requests.log"), LOG_CAPACITY)) {
+      requestLog.append(recordOf(FoundingType.SME.name()));
+      long usedBytes = requestLog.usedBytes();
+
+      // act
+      requestLog.reset();
+
+      // expect
+      assertEquals(RECORD_SIZE, usedBytes);
+      assertEquals(0, requestLog.usedBytes());
+    }
+  }
+
+  @Test
+  void shouldFailToOpenALogWhoseDirectoryCanNotBeCreated() throws Exception {
+
+    // given
+    Path regularFile = Files.createFile(logDirectory.resolve("not-a-directory"));
+
+    // expect
+    assertThrows(
+        UncheckedIOException.class,
+        () -> new CreditLineRequestLog(regularFile.resolve("credit-line-requests.log"), 1024));
+  }
+
+  private static CreditLineRequestRecord recordOf(String foundingType) {
+    return CreditLineRequestRecord.builder()
+        .customerId(UUID.randomUUID())
+        .acceptedCreditLineCents(1_234_567)
+        .creditLineStatus(CreditLineStatus.ACCEPTED.name())
+        .requestedDate(CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
+        .attempts(1)
+        .foundingType(foundingType)
+        .cashBalanceCents(30_000_001)
+        .monthlyRevenueCents(50_000_002)
+        .requestedCreditLineCents(1_234_567)
+        .build();
+  }
+}
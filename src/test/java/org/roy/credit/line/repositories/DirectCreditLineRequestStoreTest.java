@@ -0,0 +1,547 @@
+package org.roy.credit.line.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.roy.credit.line.constants.Messages;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.utils.Money;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the credit line updates against H2 in PostgreSQL mode, counting the statements sent to the
+ * database by each of them.
+ */
+@ExtendWith(MockitoExtension.class)
+class DirectCreditLineRequestStoreTest {
+
+  private static final String CREATE_TABLE =
+      "CREATE TABLE credit_line_requests ("
+          + " customer_id UUID PRIMARY KEY,"
+          + " accepted_credit_line NUMERIC(38, 2) NOT NULL,"
+          + " credit_line_status VARCHAR(20) NOT NULL,"
+          + " requested_date TIMESTAMP WITH TIME ZONE NOT NULL,"
+          + " attempts INTEGER NOT NULL,"
+          + " founding_type VARCHAR(20),"
+          + " cash_balance NUMERIC(38, 2) DEFAULT 0 NOT NULL,"
+          + " monthly_revenue NUMERIC(38, 2) DEFAULT 0 NOT NULL,"
+          + " requested_credit_line NUMERIC(38, 2) DEFAULT 0 NOT NULL)";
+
+  private static final UUID OTHER_CUSTOMER_ID = UUID.randomUUID();
+
+  /** Counts the attempts, as the decision engine does for every request */
+  private static final Function<Optional<CreditLineRequestRecord>, CreditLineRequestRecord>
+      NEXT_ATTEMPT =
+          lastCreditLineRecord ->
+              nextAttemptOf(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, lastCreditLineRecord);
+
+  /** Counts the attempts of every customer of a batch */
+  private static final Function<
+          Map<UUID, CreditLineRequestRecord>, Collection<CreditLineRequestRecord>>
+      NEXT_ATTEMPTS =
+          lastCreditLineRecords ->
+              Stream.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, OTHER_CUSTOMER_ID)
+                  .map(
+                      customerId ->
+                          nextAttemptOf(
+                              customerId,
+                              Optional.ofNullable(lastCreditLineRecords.get(customerId))))
+                  .toList();
+
+  @Mock private CreditLineRequestRepository creditLineRequestsRepository;
+
+  private final AtomicInteger statements = new AtomicInteger();
+
+  private CreditLineRequestJdbcRepository creditLineRequestJdbcRepository;
+  private CreditLineRequestBatchRepository creditLineRequestBatchRepository;
+  private TransactionTemplate transactionTemplate;
+  private DirectCreditLineRequestStore creditLineRequestStore;
+
+  @BeforeEach
+  void setUp() {
+    var h2DataSource = new JdbcDataSource();
+    h2DataSource.setURL(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+    DataSource dataSource = countingStatements(h2DataSource);
+
+    var jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute(CREATE_TABLE);
+    statements.set(0);
+
+    creditLineRequestJdbcRepository = new CreditLineRequestJdbcRepository(jdbcTemplate);
+    creditLineRequestBatchRepository = new CreditLineRequestBatchRepository(jdbcTemplate);
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    creditLineRequestStore =
+        new DirectCreditLineRequestStore(
+            creditLineRequestsRepository,
+            creditLineRequestJdbcRepository,
+            creditLineRequestBatchRepository,
+            transactionTemplate);
+  }
+
+  @Test
+  void shouldReadTheLastRequestOfACustomerWithoutLockingIt() {
+
+    // given
+    var lastCreditLineRecord =
+        nextAttemptOf(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Optional.empty());
+    when(creditLineRequestsRepository.findById(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .thenReturn(Optional.of(lastCreditLineRecord));
+
+    // act and expect
+    assertEquals(
+        Optional.of(lastCreditLineRecord),
+        creditLineRequestStore.findById(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldStoreTheFirstRequestOfACustomerWithTwoStatements() {
+
+    // act
+    CreditLineRequestRecord storedRecord =
+        creditLineRequestStore.update(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+
+    // expect
+    assertEquals(2, statements.get());
+    assertEquals(1, storedRecord.getAttempts());
+    assertEquals(Optional.of(storedRecord), findStoredRecord());
+  }
+
+  @Test
+  void shouldReplaceTheLastRequestOfACustomerWithTwoStatements() {
+
+    // given
+    creditLineRequestStore.update(
+        CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+    statements.set(0);
+
+    // act
+    CreditLineRequestRecord storedRecord =
+        creditLineRequestStore.update(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+
+    // expect
+    assertEquals(2, statements.get());
+    assertEquals(2, storedRecord.getAttempts());
+    assertEquals(Optional.of(storedRecord), findStoredRecord());
+  }
+
+  @Test
+  void shouldDecideAgainWhenTheFirstRecordOfTheCustomerIsStoredConcurrently() {
+
+    // given
+    var racingStore = storeRacingTheFirstRequest(InvocationOnMock::callRealMethod);
+
+    // act
+    CreditLineRequestRecord storedRecord =
+        racingStore.update(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+
+    // expect the request decided again from the concurrent one
+    assertEquals(2, storedRecord.getAttempts());
+    assertEquals(Optional.of(storedRecord), findStoredRecord());
+  }
+
+  @Test
+  void shouldDecideAgainWhenTheDatabaseRejectsTheFirstRecordStoredConcurrently() {
+
+    // given - a database raising a duplicate key instead of skipping the insert
+    var racingStore =
+        storeRacingTheFirstRequest(
+            invocation -> {
+              throw new DuplicateKeyException("credit_line_requests_pkey");
+            });
+
+    // act
+    CreditLineRequestRecord storedRecord =
+        racingStore.update(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+
+    // expect the request decided again from the concurrent one
+    assertEquals(2, storedRecord.getAttempts());
+    assertEquals(Optional.of(storedRecord), findStoredRecord());
+  }
+
+  @Test
+  void shouldFailTheRequestWhenTheFirstRecordStillConflictsWhenDecidedAgain() {
+
+    // given - the first record of the customer is stored concurrently at each attempt
+    var conflictingJdbcRepository = spy(creditLineRequestJdbcRepository);
+    doReturn(Optional.empty())
+        .when(conflictingJdbcRepository)
+        .findByIdForUpdate(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    doReturn(false)
+        .when(conflictingJdbcRepository)
+        .insertIfAbsent(any(CreditLineRequestRecord.class));
+    var conflictingStore =
+        new DirectCreditLineRequestStore(
+            creditLineRequestsRepository,
+            conflictingJdbcRepository,
+            creditLineRequestBatchRepository,
+            transactionTemplate);
+
+    // act
+    var failure =
+        assertThrows(
+            InternalServerErrorException.class,
+            () ->
+                conflictingStore.update(
+                    CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                    NEXT_ATTEMPT,
+                    Function.identity()));
+
+    // expect
+    assertEquals(Messages.FIRST_REQUEST_NOT_STORED_MSG, failure.getMessage());
+    verify(conflictingJdbcRepository, times(2)).insertIfAbsent(any(CreditLineRequestRecord.class));
+  }
+
+  @Test
+  void shouldRaiseTheDuplicateKeyOfTheFirstRecordWhenDecidedAgain() {
+
+    // given - a database raising a duplicate key at each attempt
+    var conflictingJdbcRepository = spy(creditLineRequestJdbcRepository);
+    doThrow(new DuplicateKeyException("credit_line_requests_pkey"))
+        .when(conflictingJdbcRepository)
+        .insertIfAbsent(any(CreditLineRequestRecord.class));
+    var conflictingStore =
+        new DirectCreditLineRequestStore(
+            creditLineRequestsRepository,
+            conflictingJdbcRepository,
+            creditLineRequestBatchRepository,
+            transactionTemplate);
+
+    // act
+    assertThrows(
+        DuplicateKeyException.class,
+        () ->
+            conflictingStore.update(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                NEXT_ATTEMPT,
+                Function.identity()));
+
+    // expect
+    verify(conflictingJdbcRepository, times(2)).insertIfAbsent(any(CreditLineRequestRecord.class));
+    assertTrue(findStoredRecord().isEmpty());
+  }
+
+  @Test
+  void shouldCountARequestOfAnAcceptedCustomerWithOneStatement() {
+
+    // given
+    creditLineRequestStore.update(
+        CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+    statements.set(0);
+
+    // act
+    OptionalInt counted =
+        creditLineRequestStore.countAcceptedRequest(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            CreditLineRequestFixture.MOCKED_REQUESTED_DATE);
+
+    // expect
+    assertEquals(OptionalInt.of(2), counted);
+    assertEquals(1, statements.get());
+    assertEquals(2, findStoredRecord().orElseThrow().getAttempts());
+  }
+
+  @Test
+  void shouldNotCountARequestOfAnUnknownCustomer() {
+
+    // act and expect
+    assertTrue(
+        creditLineRequestStore
+            .countAcceptedRequest(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
+            .isEmpty());
+  }
+
+  @Test
+  void shouldNotLoseAttemptsOfConcurrentRequestsOfTheSameCustomer() throws Exception {
+
+    // given
+    int threads = 8;
+    int requestsPerThread = 25;
+    var start = new CountDownLatch(1);
+    Callable<Void> requests =
+        () -> {
+          start.await();
+          for (int i = 0; i < requestsPerThread; i++) {
+            creditLineRequestStore.update(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+          }
+          return null;
+        };
+
+    // act
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      List<Future<Void>> futures =
+          IntStream.range(0, threads).mapToObj(i -> executor.submit(requests)).toList();
+      start.countDown();
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    }
+
+    // expect
+    assertEquals(
+        threads * requestsPerThread, findStoredRecord().orElseThrow().getAttempts().intValue());
+  }
+
+  @Test
+  void shouldStoreABatchOfNewAndKnownCustomersWithThreeStatements() {
+
+    // given
+    creditLineRequestStore.update(
+        CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+    statements.set(0);
+
+    // act
+    Collection<CreditLineRequestRecord> storedRecords =
+        creditLineRequestStore.updateAll(
+            List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, OTHER_CUSTOMER_ID),
+            NEXT_ATTEMPTS,
+            Function.identity());
+
+    // expect a locking read, an update batch and an insert batch
+    assertEquals(3, statements.get());
+    assertEquals(
+        List.of(2, 1),
+        storedRecords.stream().map(CreditLineRequestRecord::getAttempts).toList());
+    assertEquals(2, findStoredRecord().orElseThrow().getAttempts());
+    assertEquals(1, findStoredRecord(OTHER_CUSTOMER_ID).orElseThrow().getAttempts());
+  }
+
+  @Test
+  void shouldDecideABatchAgainWhenTheFirstRecordOfACustomerIsStoredConcurrently() {
+
+    // given
+    var racingBatchRepository = spy(creditLineRequestBatchRepository);
+    doAnswer(
+            invocation -> {
+              // The concurrent request runs in its own transaction
+              CompletableFuture.runAsync(
+                      () ->
+                          creditLineRequestStore.update(
+                              OTHER_CUSTOMER_ID,
+                              lastCreditLineRecord ->
+                                  nextAttemptOf(OTHER_CUSTOMER_ID, lastCreditLineRecord),
+                              Function.identity()))
+                  .join();
+              return invocation.callRealMethod();
+            })
+        .doCallRealMethod()
+        .when(racingBatchRepository)
+        .insertAll(anyList());
+    var racingStore =
+        new DirectCreditLineRequestStore(
+            creditLineRequestsRepository,
+            creditLineRequestJdbcRepository,
+            racingBatchRepository,
+            transactionTemplate);
+
+    // act
+    racingStore.updateAll(
+        List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, OTHER_CUSTOMER_ID),
+        NEXT_ATTEMPTS,
+        Function.identity());
+
+    // expect the batch decided again from the concurrent request
+    assertEquals(1, findStoredRecord().orElseThrow().getAttempts());
+    assertEquals(2, findStoredRecord(OTHER_CUSTOMER_ID).orElseThrow().getAttempts());
+  }
+
+  @Test
+  void shouldRaiseTheDuplicateKeyOfABatchWhenDecidedAgain() {
+
+    // given - a database raising a duplicate key at each attempt
+    var conflictingBatchRepository = spy(creditLineRequestBatchRepository);
+    doThrow(new DuplicateKeyException("credit_line_requests_pkey"))
+        .when(conflictingBatchRepository)
+        .insertAll(anyList());
+    var conflictingStore =
+        new DirectCreditLineRequestStore(
+            creditLineRequestsRepository,
+            creditLineRequestJdbcRepository,
+            conflictingBatchRepository,
+            transactionTemplate);
+
+    // act
+    assertThrows(
+        DuplicateKeyException.class,
+        () ->
+            conflictingStore.updateAll(
+                List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, OTHER_CUSTOMER_ID),
+                NEXT_ATTEMPTS,
+                Function.identity()));
+
+    // expect
+    verify(conflictingBatchRepository, times(2)).insertAll(anyList());
+  }
+
+  @Test
+  void shouldNotLoseAttemptsOfConcurrentBatchAndSingleRequests() throws Exception {
+
+    // given
+    int threads = 8;
+    int requestsPerThread = 25;
+    var start = new CountDownLatch(1);
+    Callable<Void> singleRequests =
+        () -> {
+          start.await();
+          for (int i = 0; i < requestsPerThread; i++) {
+            creditLineRequestStore.update(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, NEXT_ATTEMPT, Function.identity());
+          }
+          return null;
+        };
+    Callable<Void> batchRequests =
+        () -> {
+          start.await();
+          for (int i = 0; i < requestsPerThread; i++) {
+            creditLineRequestStore.updateAll(
+                List.of(OTHER_CUSTOMER_ID, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+                NEXT_ATTEMPTS,
+                Function.identity());
+          }
+          return null;
+        };
+
+    // act
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      List<Future<Void>> futures =
+          IntStream.range(0, threads)
+              .mapToObj(i -> executor.submit(i % 2 == 0 ? singleRequests : batchRequests))
+              .toList();
+      start.countDown();
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    }
+
+    // expect every request counted, the customer of the single requests by all threads
+    assertEquals(
+        threads * requestsPerThread, findStoredRecord().orElseThrow().getAttempts().intValue());
+    assertEquals(
+        threads / 2 * requestsPerThread,
+        findStoredRecord(OTHER_CUSTOMER_ID).orElseThrow().getAttempts().intValue());
+  }
+
+  private static CreditLineRequestRecord nextAttemptOf(
+      UUID customerId, Optional<CreditLineRequestRecord> lastCreditLineRecord) {
+    return CreditLineRequestRecord.builder()
+        .customerId(customerId)
+        .acceptedCreditLineCents(Money.centsOfUnits(1_000))
+        .creditLineStatus(CreditLineStatus.ACCEPTED.name())
+        .requestedDate(CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
+        .attempts(lastCreditLineRecord.map(CreditLineRequestRecord::getAttempts).orElse(0) + 1)
+        .build();
+  }
+
+  /**
+   * Store whose first insert of a record runs after a concurrent request stored the first record
+   * of the customer
+   */
+  private DirectCreditLineRequestStore storeRacingTheFirstRequest(Answer<?> insertAfterTheRace) {
+    var racingJdbcRepository = spy(creditLineRequestJdbcRepository);
+    doAnswer(
+            invocation -> {
+              // The concurrent request runs in its own transaction
+              CompletableFuture.runAsync(
+                      () ->
+                          creditLineRequestStore.update(
+                              CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                              NEXT_ATTEMPT,
+                              Function.identity()))
+                  .join();
+              return insertAfterTheRace.answer(invocation);
+            })
+        .doCallRealMethod()
+        .when(racingJdbcRepository)
+        .insertIfAbsent(any(CreditLineRequestRecord.class));
+
+    return new DirectCreditLineRequestStore(
+        creditLineRequestsRepository,
+        racingJdbcRepository,
+        creditLineRequestBatchRepository,
+        transactionTemplate);
+  }
+
+  private Optional<CreditLineRequestRecord> findStoredRecord() {
+    return findStoredRecord(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+  }
+
+  private Optional<CreditLineRequestRecord> findStoredRecord(UUID customerId) {
+    return creditLineRequestJdbcRepository.findByIdForUpdate(customerId);
+  }
+
+  /** Wraps the data source, counting each statement prepared on its connections */
+  private DataSource countingStatements(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection)
+            Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                  if (method.getName().startsWith("prepare")) {
+                    statements.incrementAndGet();
+                  }
+                  try {
+                    return method.invoke(connection, args);
+                  } catch (InvocationTargetException failure) {
+                    throw failure.getCause();
+                  }
+                });
+      }
+    };
+  }
+}
@@ -0,0 +1,194 @@
+package org.roy.credit.line.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Row;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.utils.Money;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Checks the binding and the mapping of the statements, as no embedded database has an R2DBC
+ * driver among the test dependencies
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveCreditLineRequestRepositoryTest {
+
+  private static final OffsetDateTime REQUESTED_DATE =
+      OffsetDateTime.of(2022, 6, 26, 2, 14, 21, 0, ZoneOffset.UTC);
+
+  @InjectMocks private ReactiveCreditLineRequestRepository creditLineRequestRepository;
+  @Mock private DatabaseClient databaseClient;
+
+  @Mock(answer = Answers.RETURNS_SELF)
+  private GenericExecuteSpec executeSpec;
+
+  @Mock private RowsFetchSpec<CreditLineRequestRecord> rowsFetchSpec;
+  @Mock private FetchSpec<Map<String, Object>> fetchSpec;
+  @Mock private Row row;
+  @Captor private ArgumentCaptor<Function<Readable, CreditLineRequestRecord>> rowMapper;
+
+  @Test
+  void shouldMapTheLockedRowOfTheCustomer() {
+
+    // given
+    when(databaseClient.sql(endsWith(" FOR UPDATE"))).thenReturn(executeSpec);
+    when(executeSpec.map(rowMapper.capture())).thenReturn(rowsFetchSpec);
+    when(rowsFetchSpec.one())
+        .thenAnswer(invocation -> Mono.just(rowMapper.getValue().apply(row)));
+    when(row.get("customer_id", UUID.class))
+        .thenReturn(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    when(row.get("accepted_credit_line", BigDecimal.class)).thenReturn(new BigDecimal("10000.00"));
+    when(row.get("credit_line_status", String.class)).thenReturn("ACCEPTED");
+    when(row.get("requested_date", OffsetDateTime.class)).thenReturn(REQUESTED_DATE);
+    when(row.get("attempts", Integer.class)).thenReturn(1);
+    when(row.get("founding_type", String.class)).thenReturn("SME");
+    when(row.get("cash_balance", BigDecimal.class)).thenReturn(new BigDecimal("100000.99"));
+    when(row.get("monthly_revenue", BigDecimal.class)).thenReturn(new BigDecimal("150000.50"));
+    when(row.get("requested_credit_line", BigDecimal.class)).thenReturn(new BigDecimal("10000"));
+
+    // act
+    var storedRecord =
+        creditLineRequestRepository.findByIdForUpdate(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect
+    StepVerifier.create(storedRecord)
+        .assertNext(
+            creditLineRequestRecord -> {
+              assertEquals(
+                  CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                  creditLineRequestRecord.getCustomerId());
+              assertEquals(
+                  Money.centsOfUnits(10_000), creditLineRequestRecord.getAcceptedCreditLineCents());
+              assertEquals("ACCEPTED", creditLineRequestRecord.getCreditLineStatus());
+              assertEquals(
+                  REQUESTED_DATE.toZonedDateTime(), creditLineRequestRecord.getRequestedDate());
+              assertEquals(1, creditLineRequestRecord.getAttempts());
+              assertEquals("SME", creditLineRequestRecord.getFoundingType());
+              assertEquals(10_000_099L, creditLineRequestRecord.getCashBalanceCents());
+              assertEquals(15_000_050L, creditLineRequestRecord.getMonthlyRevenueCents());
+              assertEquals(
+                  Money.centsOfUnits(10_000),
+                  creditLineRequestRecord.getRequestedCreditLineCents());
+            })
+        .verifyComplete();
+    verify(executeSpec).bind("customerId", CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+  }
+
+  @Test
+  void shouldBindEveryColumnOfTheUpdate() {
+
+    // given
+    when(databaseClient.sql(startsWith("UPDATE credit_line_requests SET"))).thenReturn(executeSpec);
+    when(executeSpec.then()).thenReturn(Mono.empty());
+
+    // act
+    StepVerifier.create(creditLineRequestRepository.update(creditLineRequestRecordOf("SME")))
+        .verifyComplete();
+
+    // expect
+    verify(executeSpec).bind("customerId", CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    verify(executeSpec).bind("acceptedCreditLine", new BigDecimal("10000.00"));
+    verify(executeSpec).bind("creditLineStatus", "ACCEPTED");
+    verify(executeSpec).bind("requestedDate", REQUESTED_DATE);
+    verify(executeSpec).bind("attempts", 1);
+    verify(executeSpec).bind("cashBalance", new BigDecimal("100000.99"));
+    verify(executeSpec).bind("monthlyRevenue", new BigDecimal("150000.50"));
+    verify(executeSpec).bind("requestedCreditLine", new BigDecimal("10000.00"));
+    verify(executeSpec).bind("foundingType", "SME");
+  }
+
+  @Test
+  void shouldBindAnUnknownFoundingTypeAsNull() {
+
+    // given
+    when(databaseClient.sql(anyString())).thenReturn(executeSpec);
+    when(executeSpec.then()).thenReturn(Mono.empty());
+
+    // act
+    StepVerifier.create(creditLineRequestRepository.update(creditLineRequestRecordOf(null)))
+        .verifyComplete();
+
+    // expect
+    verify(executeSpec).bindNull("foundingType", String.class);
+    verify(executeSpec, never()).bind("foundingType", "SME");
+  }
+
+  @Test
+  void shouldTellTheFirstRequestWasInserted() {
+
+    // given
+    when(databaseClient.sql(endsWith(" ON CONFLICT DO NOTHING"))).thenReturn(executeSpec);
+    when(executeSpec.fetch()).thenReturn(fetchSpec);
+    when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+    // act and expect
+    StepVerifier.create(
+            creditLineRequestRepository.insertIfAbsent(creditLineRequestRecordOf("SME")))
+        .assertNext(inserted -> assertTrue(inserted))
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldTellTheFirstRequestWasNotInsertedWhenTheCustomerHasOne() {
+
+    // given
+    when(databaseClient.sql(endsWith(" ON CONFLICT DO NOTHING"))).thenReturn(executeSpec);
+    when(executeSpec.fetch()).thenReturn(fetchSpec);
+    when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(0L));
+
+    // act
+    StepVerifier.create(
+            creditLineRequestRepository.insertIfAbsent(creditLineRequestRecordOf("SME")))
+        .assertNext(inserted -> assertFalse(inserted))
+        .verifyComplete();
+
+    // expect
+    verify(executeSpec).bind("customerId", CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    verify(executeSpec).bind("attempts", 1);
+  }
+
+  private static CreditLineRequestRecord creditLineRequestRecordOf(String foundingType) {
+    return CreditLineRequestRecord.builder()
+        .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
+        .acceptedCreditLineCents(Money.centsOfUnits(10_000))
+        .creditLineStatus("ACCEPTED")
+        .requestedDate(REQUESTED_DATE.toZonedDateTime())
+        .attempts(1)
+        .foundingType(foundingType)
+        .cashBalanceCents(10_000_099L)
+        .monthlyRevenueCents(15_000_050L)
+        .requestedCreditLineCents(Money.centsOfUnits(10_000))
+        .build();
+  }
+}
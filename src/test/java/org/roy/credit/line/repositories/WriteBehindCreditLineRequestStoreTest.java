@@ -0,0 +1,315 @@
+package org.roy.credit.line.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.WriteBehindProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindCreditLineRequestStoreTest {
+
+  @TempDir private Path logDirectory;
+
+  @Mock private CreditLineRequestRepository creditLineRequestsRepository;
+  @Mock private CreditLineRequestBatchRepository creditLineRequestBatchRepository;
+
+  @Captor private ArgumentCaptor<List<CreditLineRequestRecord>> storedRecords;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldReadPendingDecisionsAndStoreTheLastOneOfEachCustomerOnFlush() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofKilobytes(64));
+    UUID customerId = UUID.randomUUID();
+
+    // act
+    save(store, recordOf(customerId, CreditLineStatus.REJECTED, 1));
+    save(store, recordOf(customerId, CreditLineStatus.ACCEPTED, 2));
+    var pendingRecord = store.findById(customerId).orElseThrow();
+    store.flushPendingRecords();
+
+    // expect
+    assertEquals(2, pendingRecord.getAttempts());
+    // only the first decision reads the database
+    verify(creditLineRequestsRepository, times(1)).findById(customerId);
+    verify(creditLineRequestBatchRepository).upsertAll(storedRecords.capture());
+    assertEquals(List.of(pendingRecord), storedRecords.getValue());
+    assertEquals(0, meterRegistry.get("credit.line.write.behind.pending").gauge().value());
+    assertEquals(0, meterRegistry.get("credit.line.write.behind.flush.lag").timeGauge().value());
+  }
+
+  @Test
+  void shouldDecideABatchFromThePendingAndTheStoredDecisions() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofKilobytes(64));
+    var pendingRecord = recordOf(UUID.randomUUID(), CreditLineStatus.REJECTED, 1);
+    var storedRecord = recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 2);
+    UUID newCustomerId = UUID.randomUUID();
+    save(store, pendingRecord);
+    when(creditLineRequestsRepository.findAllById(
+            List.of(storedRecord.getCustomerId(), newCustomerId)))
+        .thenReturn(List.of(storedRecord));
+
+    // act
+    Map<UUID, CreditLineRequestRecord> lastCreditLineRecords =
+        store.updateAll(
+            List.of(pendingRecord.getCustomerId(), storedRecord.getCustomerId(), newCustomerId),
+            Function.identity(),
+            decided -> List.of(recordOf(newCustomerId, CreditLineStatus.ACCEPTED, 1)));
+
+    // expect
+    assertEquals(
+        Map.of(
+            pendingRecord.getCustomerId(), pendingRecord,
+            storedRecord.getCustomerId(), storedRecord),
+        lastCreditLineRecords);
+    assertEquals(1, store.findById(newCustomerId).orElseThrow().getAttempts());
+  }
+
+  @Test
+  void shouldReplayTheDecisionsNotStoredBeforeACrash() {
+
+    // given
+    UUID customerId = UUID.randomUUID();
+    var lastRecord = recordOf(customerId, CreditLineStatus.ACCEPTED, 3);
+
+    var crashedStore = storeWithLogSize(DataSize.ofKilobytes(64));
+    save(crashedStore, recordOf(UUID.randomUUID(), CreditLineStatus.REJECTED, 1));
+    save(crashedStore, lastRecord);
+
+    // act
+    var restartedStore = storeWithLogSize(DataSize.ofKilobytes(64));
+    restartedStore.flushPendingRecords();
+
+    // expect
+    verify(creditLineRequestBatchRepository).upsertAll(storedRecords.capture());
+    assertEquals(2, storedRecords.getValue().size());
+    assertTrue(storedRecords.getValue().contains(lastRecord));
+  }
+
+  @Test
+  void shouldNotReplayDecisionsAlreadyStored() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofKilobytes(64));
+    save(store, recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 1));
+    store.flushPendingRecords();
+
+    // act
+    var restartedStore = storeWithLogSize(DataSize.ofKilobytes(64));
+    restartedStore.flushPendingRecords();
+
+    // expect
+    verify(creditLineRequestBatchRepository, times(1)).upsertAll(anyList());
+  }
+
+  @Test
+  void shouldStoreThePendingDecisionsWhenTheLogIsFull() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofBytes(1024));
+    List<CreditLineRequestRecord> records = new ArrayList<>();
+    IntStream.range(0, 40)
+        .forEach(i -> records.add(recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 1)));
+
+    List<Thread> flushingThreads = new ArrayList<>();
+    doAnswer(invocation -> flushingThreads.add(Thread.currentThread()))
+        .when(creditLineRequestBatchRepository)
+        .upsertAll(anyList());
+
+    // act
+    records.forEach(record -> save(store, record));
+    store.flushPendingRecords();
+
+    // expect the full log flushed in the background, not by the requests
+    verify(creditLineRequestBatchRepository, atLeast(2)).upsertAll(storedRecords.capture());
+    assertTrue(flushingThreads.get(0).isVirtual());
+    assertEquals(
+        records,
+        storedRecords.getAllValues().stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparingInt(records::indexOf))
+            .toList());
+  }
+
+  @Test
+  void shouldFailTheRequestsWaitingForAFullLogWhenTheDatabaseIsDown() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofBytes(1024));
+    doThrow(new DataAccessResourceFailureException("Connection refused"))
+        .when(creditLineRequestBatchRepository)
+        .upsertAll(anyList());
+
+    // act
+    var failure =
+        assertThrows(
+            InternalServerErrorException.class,
+            () ->
+                IntStream.range(0, 40)
+                    .forEach(
+                        i ->
+                            save(
+                                store,
+                                recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 1))));
+
+    // expect
+    assertEquals("The write behind log is full", failure.getMessage());
+    verify(creditLineRequestBatchRepository, atLeast(1)).upsertAll(anyList());
+  }
+
+  @Test
+  void shouldFailARequestInterruptedWhileWaitingForAFullLog() {
+
+    // given - a log with room for ten decisions
+    var store = storeWithLogSize(DataSize.ofBytes(1024));
+    IntStream.range(0, 10)
+        .forEach(i -> save(store, recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 1)));
+
+    // act
+    Thread.currentThread().interrupt();
+    var failure =
+        assertThrows(
+            InternalServerErrorException.class,
+            () -> save(store, recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 1)));
+
+    // expect
+    assertTrue(Thread.interrupted());
+    assertEquals("Interrupted waiting for the write behind log", failure.getMessage());
+  }
+
+  @Test
+  void shouldStoreThePendingDecisionsOnShutdown() throws Exception {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofKilobytes(64));
+    var pendingRecord = recordOf(UUID.randomUUID(), CreditLineStatus.ACCEPTED, 1);
+    save(store, pendingRecord);
+
+    // act
+    store.destroy();
+
+    // expect
+    verify(creditLineRequestBatchRepository).upsertAll(storedRecords.capture());
+    assertEquals(List.of(pendingRecord), storedRecords.getValue());
+  }
+
+  @Test
+  void shouldKeepTheDecisionsPendingWhenTheDatabaseIsDown() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofKilobytes(64));
+    UUID customerId = UUID.randomUUID();
+    save(store, recordOf(customerId, CreditLineStatus.ACCEPTED, 1));
+    doThrow(new DataAccessResourceFailureException("Connection refused"))
+        .when(creditLineRequestBatchRepository)
+        .upsertAll(anyList());
+
+    // act
+    store.flushPendingRecords();
+
+    // expect
+    assertTrue(store.findById(customerId).isPresent());
+    assertEquals(1, meterRegistry.get("credit.line.write.behind.pending").gauge().value());
+    assertTrue(
+        meterRegistry.get("credit.line.write.behind.flush.lag").timeGauge().value() > 0);
+  }
+
+  @Test
+  void shouldCountAnAcceptedRequestAgainOnlyWhenTheLastDecisionAcceptedIt() {
+
+    // given
+    var store = storeWithLogSize(DataSize.ofKilobytes(64));
+    UUID acceptedCustomerId = UUID.randomUUID();
+    UUID rejectedCustomerId = UUID.randomUUID();
+    save(store, recordOf(acceptedCustomerId, CreditLineStatus.ACCEPTED, 1));
+    save(store, recordOf(rejectedCustomerId, CreditLineStatus.REJECTED, 1));
+    ZonedDateTime requestedDate = CreditLineRequestFixture.MOCKED_REQUESTED_DATE.plusMinutes(1);
+
+    // act
+    var acceptedAttempts = store.countAcceptedRequest(acceptedCustomerId, requestedDate);
+    var rejectedAttempts = store.countAcceptedRequest(rejectedCustomerId, requestedDate);
+    var unknownAttempts = store.countAcceptedRequest(UUID.randomUUID(), requestedDate);
+
+    // expect
+    assertEquals(OptionalInt.of(2), acceptedAttempts);
+    assertTrue(rejectedAttempts.isEmpty());
+    assertTrue(unknownAttempts.isEmpty());
+    var countedRecord = store.findById(acceptedCustomerId).orElseThrow();
+    assertEquals(2, countedRecord.getAttempts());
+    assertEquals(requestedDate, countedRecord.getRequestedDate());
+    assertEquals(1_234_567, countedRecord.getAcceptedCreditLineCents());
+  }
+
+  private WriteBehindCreditLineRequestStore storeWithLogSize(DataSize logSize) {
+    var properties = new WriteBehindProperties();
+    properties.setLogFile(logDirectory.resolve("credit-line-requests.log"));
+    properties.setLogSize(logSize);
+    properties.setAppendTimeout(Duration.ofMillis(200));
+
+    meterRegistry.clear();
+    return new WriteBehindCreditLineRequestStore(
+        creditLineRequestsRepository, creditLineRequestBatchRepository, properties, meterRegistry);
+  }
+
+  private static void save(
+      WriteBehindCreditLineRequestStore store, CreditLineRequestRecord creditLineRequestRecord) {
+    store.update(
+        creditLineRequestRecord.getCustomerId(),
+        lastCreditLineRecord -> creditLineRequestRecord,
+        Function.identity());
+  }
+
+  private static CreditLineRequestRecord recordOf(
+      UUID customerId, CreditLineStatus creditLineStatus, int attempts) {
+    return CreditLineRequestRecord.builder()
+        .customerId(customerId)
+        .acceptedCreditLineCents(
+            CreditLineStatus.ACCEPTED.equals(creditLineStatus) ? 1_234_567 : 0)
+        .creditLineStatus(creditLineStatus.name())
+        .requestedDate(CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
+        .attempts(attempts)
+        .foundingType(FoundingType.STARTUP.name())
+        .cashBalanceCents(30_000_001)
+        .monthlyRevenueCents(50_000_002)
+        .requestedCreditLineCents(1_234_567)
+        .build();
+  }
+}
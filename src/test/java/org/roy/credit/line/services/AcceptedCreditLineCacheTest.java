@@ -0,0 +1,239 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.CreditLineCacheProperties;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.roy.credit.line.utils.Money;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+@ExtendWith(MockitoExtension.class)
+class AcceptedCreditLineCacheTest {
+
+  private static final String REDIS_KEY =
+      "credit-line:accepted:" + CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID;
+
+  @Mock private StringRedisTemplate stringRedisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldKeepAcceptedCreditLinesOnlyAndCountHitsAndMisses() {
+
+    // given
+    var cache =
+        new AcceptedCreditLineCache(
+            new CreditLineCacheProperties(), stringRedisTemplate, meterRegistry);
+    UUID otherCustomerId = UUID.randomUUID();
+
+    // act
+    cache.put(acceptedRequest());
+    cache.put(
+        CreditLineRequestRecordDao.builder()
+            .customerId(otherCustomerId)
+            .creditLineStatus(CreditLineStatus.REJECTED)
+            .acceptedCreditLineCents(0)
+            .build());
+
+    // expect
+    var acceptedCreditLine =
+        cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID).orElseThrow();
+    assertEquals(CreditLineStatus.ACCEPTED, acceptedCreditLine.getCreditLineStatus());
+    assertEquals(Money.centsOfUnits(10_000), acceptedCreditLine.getAcceptedCreditLineCents());
+    assertTrue(cache.get(otherCustomerId).isEmpty());
+    assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    verifyNoInteractions(stringRedisTemplate);
+  }
+
+  @Test
+  void shouldWriteThroughAndReadThroughTheRedisTier() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.getRedis().setEnabled(true);
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenReturn("10000.00");
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+    var otherNodeCache =
+        new AcceptedCreditLineCache(properties, stringRedisTemplate, new SimpleMeterRegistry());
+
+    // act
+    otherNodeCache.put(acceptedRequest());
+    var firstLookup = cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    var secondLookup = cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect
+    verify(valueOperations).set(REDIS_KEY, "10000.00", properties.getRedis().getTimeToLive());
+    assertEquals(Money.centsOfUnits(10_000), firstLookup.orElseThrow().getAcceptedCreditLineCents());
+    assertEquals(firstLookup, secondLookup);
+    // the second lookup is answered by the memory tier
+    verify(valueOperations, times(1)).get(REDIS_KEY);
+    assertEquals(
+        1,
+        meterRegistry
+            .get("credit.line.accepted.cache.redis")
+            .tag("result", "hit")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void shouldMissWhenTheRedisTierIsDown() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.getRedis().setEnabled(true);
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(REDIS_KEY)).thenThrow(new QueryTimeoutException("Redis timeout"));
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+
+    // act and expect
+    assertTrue(cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID).isEmpty());
+  }
+
+  @Test
+  void shouldCountARedisMissWhenNoNodeStoredTheCreditLine() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.getRedis().setEnabled(true);
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+
+    // act
+    var lookup = cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect
+    assertTrue(lookup.isEmpty());
+    assertEquals(
+        1,
+        meterRegistry
+            .get("credit.line.accepted.cache.redis")
+            .tag("result", "miss")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void shouldKeepTheCreditLineInMemoryWhenTheRedisTierIsDown() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.getRedis().setEnabled(true);
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    doThrow(new QueryTimeoutException("Redis timeout"))
+        .when(valueOperations)
+        .set(REDIS_KEY, "10000.00", properties.getRedis().getTimeToLive());
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+
+    // act
+    cache.put(acceptedRequest());
+
+    // expect
+    assertEquals(
+        Money.centsOfUnits(10_000),
+        cache
+            .get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
+            .orElseThrow()
+            .getAcceptedCreditLineCents());
+  }
+
+  @Test
+  void shouldNotCacheAnythingWhenDisabled() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.setEnabled(false);
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+
+    // act
+    cache.put(acceptedRequest());
+
+    // expect
+    assertTrue(cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID).isEmpty());
+    verifyNoInteractions(stringRedisTemplate);
+  }
+
+  @Test
+  void shouldInvalidateTheReEvaluatedCreditLinesFromBothTiers() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.getRedis().setEnabled(true);
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+    cache.put(acceptedRequest());
+
+    // act
+    cache.invalidate(List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    cache.invalidate(List.of());
+
+    // expect
+    verify(stringRedisTemplate).delete(List.of(REDIS_KEY));
+    assertTrue(cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID).isEmpty());
+  }
+
+  @Test
+  void shouldInvalidateTheMemoryTierWhenTheRedisTierIsDown() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.getRedis().setEnabled(true);
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(stringRedisTemplate.delete(List.of(REDIS_KEY)))
+        .thenThrow(new QueryTimeoutException("Redis timeout"));
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+    cache.put(acceptedRequest());
+
+    // act
+    cache.invalidate(List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    // expect
+    assertTrue(cache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID).isEmpty());
+  }
+
+  @Test
+  void shouldInvalidateNothingWhenDisabled() {
+
+    // given
+    var properties = new CreditLineCacheProperties();
+    properties.setEnabled(false);
+    var cache = new AcceptedCreditLineCache(properties, stringRedisTemplate, meterRegistry);
+
+    // act
+    cache.invalidate(List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    // expect
+    verifyNoInteractions(stringRedisTemplate);
+  }
+
+  private static CreditLineRequestRecordDao acceptedRequest() {
+    return CreditLineRequestRecordDao.builder()
+        .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
+        .creditLineStatus(CreditLineStatus.ACCEPTED)
+        .acceptedCreditLineCents(Money.centsOfUnits(10_000))
+        .requestedDate(CreditLineRequestFixture.MOCKED_REQUESTED_DATE)
+        .attempts(1)
+        .build();
+  }
+}
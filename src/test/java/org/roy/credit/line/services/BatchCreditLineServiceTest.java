@@ -0,0 +1,162 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+import static org.roy.credit.line.fixture.CreditLineRequestFixture.MAX_FAILED_ATTEMPTS;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.fixture.CreditLineEntityFixture;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.models.requests.BatchCreditLineRequestItem;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryWriter;
+import org.roy.credit.line.repositories.CreditLineRequestStore;
+
+@ExtendWith(MockitoExtension.class)
+class BatchCreditLineServiceTest {
+
+  private static final UUID NEW_CUSTOMER_ID = UUID.randomUUID();
+  private static final UUID RATE_LIMITED_CUSTOMER_ID = UUID.randomUUID();
+  private static final UUID REJECTED_CUSTOMER_ID = CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID;
+
+  @InjectMocks private BatchCreditLineServiceImpl batchCreditLineService;
+  @Mock private CreditLineRequestStore creditLineRequestStore;
+  @Mock private RateLimitService rateLimitService;
+  @Mock private CreditLineRequestHistoryWriter creditLineRequestHistory;
+  private final List<CreditLineRequestRecord> storedRecords = new ArrayList<>();
+
+  @Spy
+  private CreditLineDecisionEngine creditLineDecisionEngine =
+      CreditLineStrategyFixture.mockCreditLineDecisionEngine();
+
+  @Test
+  void shouldProcessEveryItemWithAConstantNumberOfCalls() {
+
+    // given
+    List<BatchCreditLineRequestItem> items =
+        List.of(
+            itemOf(NEW_CUSTOMER_ID, CreditLineRequestFixture.mockSmeAcceptableRequest()),
+            itemOf(RATE_LIMITED_CUSTOMER_ID, CreditLineRequestFixture.mockSmeAcceptableRequest()),
+            itemOf(REJECTED_CUSTOMER_ID, CreditLineRequestFixture.mockSmeRejectableRequest()));
+
+    when(rateLimitService.checkRateLimitsFor(
+            List.of(NEW_CUSTOMER_ID, RATE_LIMITED_CUSTOMER_ID, REJECTED_CUSTOMER_ID)))
+        .thenReturn(List.of(true, false, true));
+    givenStoredRecords(
+        List.of(NEW_CUSTOMER_ID, REJECTED_CUSTOMER_ID),
+        Map.of(
+            REJECTED_CUSTOMER_ID,
+            CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_FAILED_ATTEMPTS).orElseThrow()));
+
+    // act
+    List<BatchCreditLineResponseItem> responseItems =
+        batchCreditLineService.requestCreditLines(items);
+
+    // expect
+    assertEquals(CreditLineStatus.ACCEPTED, responseItems.get(0).getCreditLineStatus());
+    assertEquals(new BigDecimal("20000.00"), responseItems.get(0).getAcceptedCreditLine());
+
+    assertNull(responseItems.get(1).getCreditLineStatus());
+    assertEquals(ErrorType.EXCEED_API_QUOTA, responseItems.get(1).getError().getErrorType());
+
+    assertEquals(CreditLineStatus.REJECTED, responseItems.get(2).getCreditLineStatus());
+    assertEquals(SALES_AGENT_MSG, responseItems.get(2).getMessage());
+
+    assertEquals(2, storedRecords.size());
+    verify(rateLimitService)
+        .setRateLimitsFor(Set.of(NEW_CUSTOMER_ID), Set.of(REJECTED_CUSTOMER_ID));
+    verify(creditLineRequestHistory).record(argThat(evaluations -> evaluations.size() == 2));
+  }
+
+  @Test
+  void shouldChainTheRequestsOfTheSameCustomer() {
+
+    // given
+    PostRequestCreditLineRequestBody rejectable =
+        CreditLineRequestFixture.mockSmeRejectableRequest();
+    List<BatchCreditLineRequestItem> items =
+        List.of(itemOf(NEW_CUSTOMER_ID, rejectable), itemOf(NEW_CUSTOMER_ID, rejectable));
+
+    when(rateLimitService.checkRateLimitsFor(anyList())).thenReturn(List.of(true, true));
+    givenStoredRecords(List.of(NEW_CUSTOMER_ID), Map.of());
+
+    // act
+    batchCreditLineService.requestCreditLines(items);
+
+    // expect the second request to count the first failed attempt and a single stored record
+    assertEquals(1, storedRecords.size());
+    assertEquals(2, storedRecords.get(0).getAttempts());
+  }
+
+  @Test
+  void shouldNotTouchTheDatabaseWhenEveryItemIsRateLimited() {
+
+    // given
+    when(rateLimitService.checkRateLimitsFor(anyList())).thenReturn(List.of(false));
+
+    // act
+    List<BatchCreditLineResponseItem> responseItems =
+        batchCreditLineService.requestCreditLines(
+            List.of(
+                itemOf(
+                    RATE_LIMITED_CUSTOMER_ID, CreditLineRequestFixture.mockSmeAcceptableRequest())));
+
+    // expect
+    assertEquals(ErrorType.EXCEED_API_QUOTA, responseItems.get(0).getError().getErrorType());
+    verify(creditLineRequestStore, never()).updateAll(anyList(), any(), any());
+  }
+
+  /** Decide the batch from the given records, keeping the records it stores */
+  private void givenStoredRecords(
+      List<UUID> customerIds, Map<UUID, CreditLineRequestRecord> lastCreditLineRecords) {
+
+    when(creditLineRequestStore.updateAll(eq(customerIds), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              Function<Map<UUID, CreditLineRequestRecord>, Object> decisions =
+                  invocation.getArgument(1);
+              Function<Object, Collection<CreditLineRequestRecord>> toRecords =
+                  invocation.getArgument(2);
+
+              Object decided = decisions.apply(lastCreditLineRecords);
+              storedRecords.addAll(toRecords.apply(decided));
+              return decided;
+            });
+  }
+
+  private static BatchCreditLineRequestItem itemOf(
+      UUID customerId, PostRequestCreditLineRequestBody creditLineRequest) {
+    return BatchCreditLineRequestItem.builder()
+        .customerId(customerId)
+        .foundingType(FoundingType.SME)
+        .creditLineRequest(creditLineRequest)
+        .build();
+  }
+}
@@ -0,0 +1,187 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.configs.BulkDecisionProperties;
+import org.roy.credit.line.configs.RatioProperties;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.models.dtos.CreditLineDecisionColumns;
+import org.roy.credit.line.models.dtos.FinancialDataColumns;
+import org.roy.credit.line.models.dtos.RequesterFinancialData;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.roy.credit.line.services.strategies.founding.type.SmeRequesterStrategy;
+import org.roy.credit.line.services.strategies.founding.type.StartUpRequesterStrategy;
+
+class BulkCreditLineDecisionKernelTest {
+
+  private static final int ROWS = 100_000;
+  private static final int CHUNK_SIZE = 1_000;
+
+  private final BulkCreditLineDecisionKernel kernel =
+      new BulkCreditLineDecisionKernel(
+          CreditLineStrategyFixture.mockRatioProperties(), bulkDecisionProperties());
+
+  @AfterEach
+  void tearDown() {
+    kernel.destroy();
+  }
+
+  @Test
+  void shouldDecideAsTheFoundingTypeStrategies() {
+
+    // given
+    FinancialDataColumns financialData = randomFinancialData(new SplittableRandom(42), false);
+
+    // act
+    CreditLineDecisionColumns decisions = kernel.decide(financialData);
+
+    // expect
+    assertDecidedAsTheStrategies(
+        financialData, decisions, CreditLineStrategyFixture.mockRatioProperties());
+  }
+
+  @Test
+  void shouldDecideAmountsOutOfTheKernelRangeAsTheFoundingTypeStrategies() {
+
+    // given
+    FinancialDataColumns financialData = randomFinancialData(new SplittableRandom(42), true);
+
+    // act
+    CreditLineDecisionColumns decisions = kernel.decide(financialData);
+
+    // expect
+    assertDecidedAsTheStrategies(
+        financialData, decisions, CreditLineStrategyFixture.mockRatioProperties());
+  }
+
+  @Test
+  void shouldDecideWithOtherRatios() {
+
+    // given
+    FinancialDataColumns financialData = randomFinancialData(new SplittableRandom(7), false);
+    var ratios = new RatioProperties();
+    ratios.setMonthlyRevenue(2);
+    ratios.setCashBalance(10);
+    var decisions = CreditLineDecisionColumns.ofSize(financialData.size());
+
+    // act
+    kernel.decide(financialData, ratios, decisions);
+
+    // expect
+    assertDecidedAsTheStrategies(financialData, decisions, ratios);
+  }
+
+  @Test
+  void shouldRejectUnknownFoundingTypes() {
+
+    // given
+    var financialData = FinancialDataColumns.ofSize(ROWS);
+    financialData.foundingTypes()[ROWS - 1] = 2;
+
+    // expect
+    assertThrows(IllegalArgumentException.class, () -> kernel.decide(financialData));
+  }
+
+  @Test
+  void shouldRejectColumnsOfDifferentSizes() {
+
+    // expect
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new FinancialDataColumns(new long[2], new long[2], new long[1], new byte[2]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            kernel.decide(
+                FinancialDataColumns.ofSize(2),
+                CreditLineStrategyFixture.mockRatioProperties(),
+                CreditLineDecisionColumns.ofSize(1)));
+  }
+
+  @Test
+  void shouldRejectRatiosThatAreNotPositive() {
+
+    // given
+    var ratios = new RatioProperties();
+    ratios.setMonthlyRevenue(5);
+    ratios.setCashBalance(0);
+
+    // expect
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            kernel.decide(
+                FinancialDataColumns.ofSize(2), ratios, CreditLineDecisionColumns.ofSize(2)));
+  }
+
+  @Test
+  void shouldHaveABulkDecisionForEveryFoundingType() {
+
+    // expect a new founding type to be added to the kernel loop as well
+    assertEquals(List.of(FoundingType.SME, FoundingType.STARTUP), List.of(FoundingType.values()));
+  }
+
+  private static BulkDecisionProperties bulkDecisionProperties() {
+    var bulkDecisionProperties = new BulkDecisionProperties();
+    bulkDecisionProperties.setParallelism(4);
+    bulkDecisionProperties.setChunkSize(CHUNK_SIZE);
+    return bulkDecisionProperties;
+  }
+
+  /** Amounts around the thresholds of the ratios, and any long when out of range is set */
+  private static FinancialDataColumns randomFinancialData(
+      SplittableRandom random, boolean outOfRange) {
+
+    var financialData = FinancialDataColumns.ofSize(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      long requested = random.nextLong(1, 10_000_000_000L);
+      financialData.requestedCreditLineCents()[i] = requested;
+      financialData.monthlyRevenueCents()[i] = requested * random.nextInt(1, 8) + offBy(random);
+      financialData.cashBalanceCents()[i] = requested * random.nextInt(1, 8) + offBy(random);
+      financialData.foundingTypes()[i] = (byte) random.nextInt(FoundingType.values().length);
+
+      if (outOfRange && random.nextInt(CHUNK_SIZE) == 0) {
+        financialData.requestedCreditLineCents()[i] = random.nextLong();
+        financialData.cashBalanceCents()[i] = random.nextLong();
+      }
+    }
+    return financialData;
+  }
+
+  /** A cent below, at or above the threshold */
+  private static long offBy(SplittableRandom random) {
+    return random.nextInt(-1, 2);
+  }
+
+  private static void assertDecidedAsTheStrategies(
+      FinancialDataColumns financialData,
+      CreditLineDecisionColumns decisions,
+      RatioProperties ratios) {
+
+    var strategies =
+        new CreditLineCalculationStrategyRegistry(
+            List.of(new SmeRequesterStrategy(ratios), new StartUpRequesterStrategy(ratios)));
+
+    for (int i = 0; i < financialData.size(); i++) {
+      long creditLine =
+          strategies
+              .getCreditLineCalculationStrategy(
+                  FoundingType.values()[financialData.foundingTypes()[i]])
+              .getCreditLine(
+                  RequesterFinancialData.builder()
+                      .cashBalanceCents(financialData.cashBalanceCents()[i])
+                      .monthlyRevenueCents(financialData.monthlyRevenueCents()[i])
+                      .requestedCreditLineCents(financialData.requestedCreditLineCents()[i])
+                      .build());
+
+      assertEquals(creditLine, decisions.acceptedCreditLineCents()[i], "row " + i);
+      assertEquals(creditLine != 0, decisions.accepted()[i], "row " + i);
+    }
+  }
+}
@@ -0,0 +1,408 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.roy.credit.line.configs.CreditLineHistoryProperties;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.BadRequestException;
+import org.roy.credit.line.models.daos.CreditLineRequestHistoryDao;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryRepository;
+import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Pages the history stored in H2 in PostgreSQL mode, in a plain table instead of partitions */
+class CreditLineHistoryServiceTest {
+
+  private static final String CREATE_TABLE =
+      "CREATE TABLE credit_line_request_history ("
+          + " id BIGSERIAL PRIMARY KEY,"
+          + " customer_id UUID NOT NULL,"
+          + " requested_date TIMESTAMP WITH TIME ZONE NOT NULL,"
+          + " founding_type VARCHAR(20) NOT NULL,"
+          + " cash_balance NUMERIC(38, 2) NOT NULL,"
+          + " monthly_revenue NUMERIC(38, 2) NOT NULL,"
+          + " requested_credit_line NUMERIC(38, 2) NOT NULL,"
+          + " credit_line_status VARCHAR(20) NOT NULL,"
+          + " accepted_credit_line NUMERIC(38, 2) NOT NULL,"
+          + " attempts INTEGER NOT NULL)";
+
+  private static final String PATH = "/v1/customers/credit-line-requests";
+  private static final ZonedDateTime FIRST_REQUEST =
+      ZonedDateTime.of(2026, 10, 1, 9, 30, 0, 123_456_000, ZoneOffset.UTC);
+
+  // Same date handling as the Spring Boot auto configured ObjectMapper
+  private final ObjectMapper objectMapper =
+      Jackson2ObjectMapperBuilder.json()
+          .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+
+  private final UUID customerId = UUID.randomUUID();
+
+  private JdbcTemplate jdbcTemplate;
+  private CreditLineRequestHistoryRepository historyRepository;
+  private CreditLineHistoryService creditLineHistoryService;
+
+  @BeforeEach
+  void setUp() {
+    var dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute(CREATE_TABLE);
+
+    historyRepository = new CreditLineRequestHistoryRepository(jdbcTemplate);
+    creditLineHistoryService =
+        new CreditLineHistoryServiceImpl(
+            historyRepository,
+            new CreditLineHistoryProperties(),
+            Mappers.getMapper(CreditLineRequestMapper.class),
+            objectMapper);
+  }
+
+  @Test
+  void shouldReadEveryRequestOnceFollowingTheCursors() throws IOException {
+
+    // given
+    List<CreditLineRequestHistoryDao> evaluations = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      // Three requests per requested date, so pages are split between ties
+      evaluations.add(
+          evaluationOf(
+              customerId,
+              FIRST_REQUEST.plusMinutes(i / 3),
+              i % 2 == 0 ? CreditLineStatus.ACCEPTED : CreditLineStatus.REJECTED,
+              FoundingType.SME,
+              i));
+    }
+    historyRepository.insertAll(evaluations);
+    historyRepository.insertAll(
+        List.of(
+            evaluationOf(
+                UUID.randomUUID(), FIRST_REQUEST, CreditLineStatus.ACCEPTED, FoundingType.SME, 1)));
+
+    // act
+    List<JsonNode> items = new ArrayList<>();
+    List<JsonNode> pages = new ArrayList<>();
+    String cursor = null;
+    do {
+      JsonNode page = pageOf(null, null, cursor, 10);
+      pages.add(page);
+      page.get("response").get("items").forEach(items::add);
+      cursor = page.get("response").path("nextCursor").textValue();
+    } while (cursor != null);
+
+    // expect
+    assertEquals(3, pages.size());
+    assertEquals(PATH, pages.get(0).get("path").textValue());
+    assertTrue(pages.get(0).has("utcTimestamp"));
+    assertFalse(pages.get(2).get("response").has("nextCursor"));
+
+    // Newest first, the latest inserted first among the requests of the same date
+    List<Integer> attempts = items.stream().map(item -> item.get("attempts").intValue()).toList();
+    assertEquals(
+        evaluations.stream()
+            .sorted(
+                Comparator.comparing(CreditLineRequestHistoryDao::getRequestedDate)
+                    .thenComparing(CreditLineRequestHistoryDao::getAttempts)
+                    .reversed())
+            .map(CreditLineRequestHistoryDao::getAttempts)
+            .toList(),
+        attempts);
+
+    JsonNode newest = items.get(0);
+    assertEquals("2026-10-01T09:38:00.123456Z", newest.get("requestedDate").textValue());
+    assertEquals(1000.5, newest.get("cashBalance").doubleValue());
+    assertEquals(0.0, items.get(1).get("acceptedCreditLine").doubleValue());
+  }
+
+  @Test
+  void shouldOnlyReadTheRequestsMatchingTheFilters() throws IOException {
+
+    // given
+    historyRepository.insertAll(
+        List.of(
+            evaluationOf(
+                customerId, FIRST_REQUEST, CreditLineStatus.ACCEPTED, FoundingType.SME, 1),
+            evaluationOf(
+                customerId,
+                FIRST_REQUEST.plusDays(1),
+                CreditLineStatus.REJECTED,
+                FoundingType.SME,
+                2),
+            evaluationOf(
+                customerId,
+                FIRST_REQUEST.plusDays(2),
+                CreditLineStatus.ACCEPTED,
+                FoundingType.STARTUP,
+                3),
+            evaluationOf(
+                customerId,
+                FIRST_REQUEST.plusDays(3),
+                CreditLineStatus.ACCEPTED,
+                FoundingType.SME,
+                4)));
+
+    // act
+    JsonNode page = pageOf(CreditLineStatus.ACCEPTED, FoundingType.SME, null, 1);
+    JsonNode nextPage =
+        pageOf(
+            CreditLineStatus.ACCEPTED,
+            FoundingType.SME,
+            page.get("response").get("nextCursor").textValue(),
+            1);
+
+    // expect
+    assertEquals(4, page.get("response").get("items").get(0).get("attempts").intValue());
+    assertEquals(1, nextPage.get("response").get("items").size());
+    assertEquals(1, nextPage.get("response").get("items").get(0).get("attempts").intValue());
+    assertFalse(nextPage.get("response").has("nextCursor"));
+  }
+
+  @Test
+  void shouldReadOnlyTheRequestsOfTheTimeRangeOldestFirst() {
+
+    // given
+    historyRepository.insertAll(
+        List.of(
+            evaluationOf(
+                customerId, FIRST_REQUEST, CreditLineStatus.ACCEPTED, FoundingType.SME, 1),
+            evaluationOf(
+                customerId,
+                FIRST_REQUEST.plusDays(31),
+                CreditLineStatus.REJECTED,
+                FoundingType.SME,
+                2),
+            evaluationOf(
+                customerId,
+                FIRST_REQUEST.plusDays(61),
+                CreditLineStatus.ACCEPTED,
+                FoundingType.SME,
+                3),
+            evaluationOf(
+                UUID.randomUUID(),
+                FIRST_REQUEST.plusDays(31),
+                CreditLineStatus.ACCEPTED,
+                FoundingType.SME,
+                4)));
+
+    // act
+    List<CreditLineRequestHistoryDao> evaluations =
+        historyRepository.findByCustomerId(customerId, FIRST_REQUEST, FIRST_REQUEST.plusDays(61));
+
+    // expect the last requested date excluded
+    assertEquals(
+        List.of(1, 2),
+        evaluations.stream().map(CreditLineRequestHistoryDao::getAttempts).toList());
+    assertEquals(FIRST_REQUEST, evaluations.get(0).getRequestedDate());
+  }
+
+  @Test
+  void shouldPageOnlyTheRequestsOfTheTimeRange() throws IOException {
+
+    // given
+    List<CreditLineRequestHistoryDao> evaluations = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      evaluations.add(
+          evaluationOf(
+              customerId,
+              FIRST_REQUEST.plusMonths(i),
+              CreditLineStatus.ACCEPTED,
+              FoundingType.SME,
+              i));
+    }
+    historyRepository.insertAll(evaluations);
+    ZonedDateTime from = FIRST_REQUEST.plusMonths(1);
+    ZonedDateTime to = FIRST_REQUEST.plusMonths(4);
+
+    // act
+    JsonNode page = pageOf(null, null, from, to, null, 2);
+    JsonNode nextPage =
+        pageOf(null, null, from, to, page.get("response").get("nextCursor").textValue(), 2);
+
+    // expect the requests from the first date on, before the last one
+    List<Integer> attempts = new ArrayList<>();
+    for (JsonNode pageRead : List.of(page, nextPage)) {
+      for (JsonNode item : pageRead.get("response").get("items")) {
+        attempts.add(item.get("attempts").intValue());
+      }
+    }
+    assertEquals(List.of(3, 2, 1), attempts);
+    assertFalse(nextPage.get("response").has("nextCursor"));
+  }
+
+  @Test
+  void shouldRefuseATimeRangeEndingBeforeItStarts() {
+
+    // expect
+    assertThrows(
+        BadRequestException.class,
+        () -> pageOf(null, null, FIRST_REQUEST, FIRST_REQUEST, null, 10));
+  }
+
+  @Test
+  void shouldRefuseCursorsAndLimitsItDidNotGive() {
+
+    // expect
+    assertThrows(BadRequestException.class, () -> pageOf(null, null, "not a cursor", 10));
+    assertThrows(BadRequestException.class, () -> pageOf(null, null, "AAAA", 10));
+    assertThrows(BadRequestException.class, () -> pageOf(null, null, null, 0));
+    assertThrows(BadRequestException.class, () -> pageOf(null, null, null, 501));
+  }
+
+  @Test
+  void shouldLeaveTheResponseUnwrittenWhenTheQueryFails() {
+
+    // given
+    jdbcTemplate.execute("DROP TABLE credit_line_request_history");
+    var response = new ResponseStream();
+
+    // act
+    assertThrows(
+        DataAccessException.class,
+        () ->
+            creditLineHistoryService.writeCreditLineRequests(
+                customerId, null, null, null, null, null, 10, PATH, response));
+
+    // expect
+    // Neither a complete page nor a committed response, the exception handler answers instead
+    assertFalse(response.closed);
+    assertFalse(response.flushed);
+    assertThrows(IOException.class, () -> objectMapper.readTree(response.toByteArray()));
+  }
+
+  @Test
+  void shouldReadAPageOfTheDefaultSizeWithoutLimit() throws IOException {
+
+    // given
+    historyRepository.insertAll(
+        List.of(
+            evaluationOf(
+                customerId, FIRST_REQUEST, CreditLineStatus.ACCEPTED, FoundingType.SME, 1),
+            evaluationOf(
+                customerId, FIRST_REQUEST, CreditLineStatus.REJECTED, FoundingType.SME, 2)));
+
+    // act
+    JsonNode page = pageOf(null, null, null, null);
+
+    // expect
+    assertEquals(2, page.get("response").get("items").size());
+    assertFalse(page.get("response").has("nextCursor"));
+  }
+
+  @Test
+  void shouldFailWithTheIOExceptionOfTheResponseStream() {
+
+    // given
+    List<CreditLineRequestHistoryDao> evaluations = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      // Enough items to overflow the buffer of the generator while the rows are read
+      evaluations.add(
+          evaluationOf(
+              customerId,
+              FIRST_REQUEST.plusMinutes(i),
+              CreditLineStatus.ACCEPTED,
+              FoundingType.SME,
+              i));
+    }
+    historyRepository.insertAll(evaluations);
+    var disconnected = new IOException("Broken pipe");
+    var response =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw disconnected;
+          }
+        };
+
+    // act
+    var exception =
+        assertThrows(
+            IOException.class,
+            () ->
+                creditLineHistoryService.writeCreditLineRequests(
+                    customerId, null, null, null, null, null, 100, PATH, response));
+
+    // expect
+    assertEquals(disconnected, exception);
+  }
+
+  private JsonNode pageOf(
+      CreditLineStatus creditLineStatus, FoundingType foundingType, String cursor, Integer limit)
+      throws IOException {
+
+    return pageOf(creditLineStatus, foundingType, null, null, cursor, limit);
+  }
+
+  private JsonNode pageOf(
+      CreditLineStatus creditLineStatus,
+      FoundingType foundingType,
+      ZonedDateTime from,
+      ZonedDateTime to,
+      String cursor,
+      Integer limit)
+      throws IOException {
+
+    var page = new ByteArrayOutputStream();
+    creditLineHistoryService.writeCreditLineRequests(
+        customerId, creditLineStatus, foundingType, from, to, cursor, limit, PATH, page);
+    return objectMapper.readTree(page.toByteArray());
+  }
+
+  private static CreditLineRequestHistoryDao evaluationOf(
+      UUID customerId,
+      ZonedDateTime requestedDate,
+      CreditLineStatus creditLineStatus,
+      FoundingType foundingType,
+      int attempts) {
+
+    return CreditLineRequestHistoryDao.builder()
+        .customerId(customerId)
+        .requestedDate(requestedDate)
+        .foundingType(foundingType)
+        .cashBalanceCents(100_050)
+        .monthlyRevenueCents(500_000)
+        .requestedCreditLineCents(10_000)
+        .creditLineStatus(creditLineStatus)
+        .acceptedCreditLineCents(creditLineStatus == CreditLineStatus.ACCEPTED ? 10_000 : 0)
+        .attempts(attempts)
+        .build();
+  }
+
+  /** Servlet response stream, closing or flushing it would commit the response */
+  private static class ResponseStream extends ByteArrayOutputStream {
+
+    private boolean closed;
+    private boolean flushed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public void flush() {
+      flushed = true;
+    }
+  }
+}
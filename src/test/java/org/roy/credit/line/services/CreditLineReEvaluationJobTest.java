@@ -0,0 +1,491 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.configs.BulkDecisionProperties;
+import org.roy.credit.line.configs.CreditLineCacheProperties;
+import org.roy.credit.line.configs.ReEvaluationProperties;
+import org.roy.credit.line.entities.ReEvaluationCheckpoint;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.models.dtos.RequesterFinancialData;
+import org.roy.credit.line.models.responses.ReEvaluationProgress;
+import org.roy.credit.line.repositories.CreditLineReEvaluationRepository;
+import org.roy.credit.line.repositories.CreditLineReEvaluationRepository.DecisionChange;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.roy.credit.line.utils.Money;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/** Runs the re-evaluation against H2 in PostgreSQL mode */
+class CreditLineReEvaluationJobTest {
+
+  private static final int ROWS = 1_000;
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private static final String CREATE_TABLES =
+      "CREATE TABLE credit_line_requests ("
+          + " customer_id UUID PRIMARY KEY,"
+          + " accepted_credit_line NUMERIC(38, 2) NOT NULL,"
+          + " credit_line_status VARCHAR(20) NOT NULL,"
+          + " requested_date TIMESTAMP WITH TIME ZONE NOT NULL,"
+          + " attempts INTEGER NOT NULL,"
+          + " founding_type VARCHAR(20),"
+          + " cash_balance NUMERIC(38, 2) DEFAULT 0 NOT NULL,"
+          + " monthly_revenue NUMERIC(38, 2) DEFAULT 0 NOT NULL,"
+          + " requested_credit_line NUMERIC(38, 2) DEFAULT 0 NOT NULL);"
+          + "CREATE TABLE credit_line_re_evaluation_checkpoints ("
+          + " partition_index INTEGER PRIMARY KEY,"
+          + " lower_bound UUID NOT NULL,"
+          + " upper_bound UUID,"
+          + " last_customer_id UUID,"
+          + " scanned_rows BIGINT NOT NULL,"
+          + " changed_rows BIGINT NOT NULL,"
+          + " completed BOOLEAN NOT NULL)";
+
+  private static final String INSERT_REQUEST =
+      "INSERT INTO credit_line_requests (customer_id, accepted_credit_line, credit_line_status,"
+          + " requested_date, attempts, founding_type, cash_balance, monthly_revenue,"
+          + " requested_credit_line) VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?)";
+
+  private final CreditLineCalculationStrategyRegistry strategies =
+      CreditLineStrategyFixture.mockCreditLineCalculationStrategies();
+
+  private final ReEvaluationProperties reEvaluationProperties = new ReEvaluationProperties();
+
+  private JdbcDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private CreditLineReEvaluationRepository reEvaluationRepository;
+  private BulkCreditLineDecisionKernel decisionKernel;
+  private AcceptedCreditLineCache acceptedCreditLineCache;
+  private CreditLineReEvaluationJob reEvaluationJob;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute(CREATE_TABLES);
+
+    reEvaluationProperties.setPartitions(4);
+    reEvaluationProperties.setBatchSize(64);
+
+    var bulkDecisionProperties = new BulkDecisionProperties();
+    bulkDecisionProperties.setParallelism(1);
+    decisionKernel =
+        new BulkCreditLineDecisionKernel(
+            CreditLineStrategyFixture.mockRatioProperties(), bulkDecisionProperties);
+
+    acceptedCreditLineCache =
+        new AcceptedCreditLineCache(
+            new CreditLineCacheProperties(),
+            mock(StringRedisTemplate.class),
+            new SimpleMeterRegistry());
+    reEvaluationRepository = new CreditLineReEvaluationRepository(new JdbcTemplate(dataSource));
+    reEvaluationJob = reEvaluationJobOf(reEvaluationRepository);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    reEvaluationJob.destroy();
+    decisionKernel.destroy();
+  }
+
+  @Test
+  void shouldWriteBackTheDecisionsChangedByTheCurrentRatios() throws InterruptedException {
+
+    // given
+    List<StoredRequest> storedRequests = storeRandomRequests(new SplittableRandom(42));
+    UUID withoutFoundingType = UUID.randomUUID();
+    jdbcTemplate.update(
+        INSERT_REQUEST, withoutFoundingType, 0, "REJECTED", OffsetDateTime.now(), null, 1, 1, 1);
+
+    // act
+    reEvaluationJob.start(false);
+
+    // expect
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    ReEvaluationProgress progress = reEvaluationJob.getProgress();
+    assertEquals("COMPLETED", progress.getState());
+    assertEquals(ROWS, progress.getScannedRows());
+    assertEquals(
+        storedRequests.stream().filter(StoredRequest::stale).count(), progress.getChangedRows());
+    assertEquals(1.0, progress.getCompletion());
+
+    storedRequests.forEach(this::assertDecidedAsTheStrategies);
+    assertEquals(
+        "REJECTED",
+        jdbcTemplate.queryForObject(
+            "SELECT credit_line_status FROM credit_line_requests WHERE customer_id = ?",
+            String.class,
+            withoutFoundingType));
+    assertTrue(
+        reEvaluationRepository.findCheckpoints().stream()
+            .allMatch(ReEvaluationCheckpoint::isCompleted));
+  }
+
+  @Test
+  void shouldInvalidateTheCachedCreditLinesItChanged() throws InterruptedException {
+
+    // given
+    List<StoredRequest> acceptedRequests =
+        storeRandomRequests(new SplittableRandom(3)).stream()
+            .filter(storedRequest -> storedRequest.storedCreditLineCents() > 0)
+            .toList();
+    acceptedRequests.forEach(
+        storedRequest ->
+            acceptedCreditLineCache.put(
+                CreditLineRequestRecordDao.builder()
+                    .customerId(storedRequest.customerId())
+                    .creditLineStatus(CreditLineStatus.ACCEPTED)
+                    .acceptedCreditLineCents(storedRequest.storedCreditLineCents())
+                    .build()));
+
+    // act
+    reEvaluationJob.start(false);
+
+    // expect
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    assertTrue(acceptedRequests.stream().anyMatch(StoredRequest::stale));
+    for (StoredRequest acceptedRequest : acceptedRequests) {
+      assertEquals(
+          acceptedRequest.stale(),
+          acceptedCreditLineCache.get(acceptedRequest.customerId()).isEmpty(),
+          acceptedRequest.customerId().toString());
+    }
+  }
+
+  @Test
+  void shouldResumeAfterTheCheckpoints() throws InterruptedException {
+
+    // given
+    List<StoredRequest> storedRequests = storeRandomRequests(new SplittableRandom(7));
+    List<ReEvaluationCheckpoint> checkpoints = CreditLineReEvaluationJob.partitionsOf(2);
+    checkpoints.get(0).setCompleted(true);
+    UUID lastCustomerId = new UUID(0xC000_0000_0000_0000L, 0);
+    checkpoints.get(1).setLastCustomerId(lastCustomerId);
+    checkpoints.get(1).setScannedRows(123);
+    reEvaluationRepository.replaceCheckpoints(checkpoints);
+
+    // act
+    reEvaluationJob.start(true);
+
+    // expect
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    assertEquals("COMPLETED", reEvaluationJob.getProgress().getState());
+
+    long resumedRows = 0;
+    for (StoredRequest storedRequest : storedRequests) {
+      if (isAfter(storedRequest.customerId(), lastCustomerId)) {
+        assertDecidedAsTheStrategies(storedRequest);
+        resumedRows++;
+      } else {
+        assertStoredDecision(storedRequest, storedRequest.storedCreditLineCents());
+      }
+    }
+    assertEquals(
+        123 + resumedRows, reEvaluationRepository.findCheckpoints().get(1).getScannedRows());
+  }
+
+  @Test
+  void shouldSplitTheCustomerIdsInRangesCoveringThemAll() {
+
+    // act
+    List<ReEvaluationCheckpoint> partitions = CreditLineReEvaluationJob.partitionsOf(4);
+
+    // expect
+    assertEquals(new UUID(0, 0), partitions.get(0).getLowerBound());
+    for (int i = 1; i < partitions.size(); i++) {
+      assertEquals(partitions.get(i - 1).getUpperBound(), partitions.get(i).getLowerBound());
+    }
+    assertEquals(new UUID(0x8000_0000_0000_0000L, 0), partitions.get(2).getLowerBound());
+    assertNull(partitions.get(3).getUpperBound());
+
+    assertEquals(
+        0.5,
+        CreditLineReEvaluationJob.completionOf(
+            partitions.get(3).getLowerBound(), null, new UUID(0xE000_0000_0000_0000L, 0)));
+    assertEquals(
+        1.0,
+        CreditLineReEvaluationJob.completionOf(new UUID(0, 0), null, new UUID(-1L, -1L)),
+        1e-9);
+    assertEquals(
+        0.5,
+        CreditLineReEvaluationJob.completionOf(
+            partitions.get(0).getLowerBound(),
+            partitions.get(0).getUpperBound(),
+            new UUID(0x2000_0000_0000_0000L, 0)));
+    assertThrows(IllegalArgumentException.class, () -> CreditLineReEvaluationJob.partitionsOf(0));
+  }
+
+  @Test
+  void shouldCompleteARunOverNoDecisions() throws InterruptedException {
+
+    // act
+    reEvaluationJob.start(false);
+
+    // expect
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    ReEvaluationProgress progress = reEvaluationJob.getProgress();
+    assertEquals("COMPLETED", progress.getState());
+    assertEquals(0, progress.getScannedRows());
+    assertEquals(1.0, progress.getCompletion());
+  }
+
+  @Test
+  void shouldCompleteAtOnceAResumedRunWithEveryRangeCompleted() throws InterruptedException {
+
+    // given
+    List<ReEvaluationCheckpoint> checkpoints = CreditLineReEvaluationJob.partitionsOf(2);
+    checkpoints.forEach(
+        checkpoint -> {
+          checkpoint.setCompleted(true);
+          checkpoint.setScannedRows(10);
+        });
+    reEvaluationRepository.replaceCheckpoints(checkpoints);
+
+    // act
+    ReEvaluationProgress progress = reEvaluationJob.start(true);
+
+    // expect
+    assertEquals("COMPLETED", progress.getState());
+    assertEquals(20, progress.getScannedRows());
+    assertTrue(reEvaluationJob.awaitTermination(Duration.ZERO));
+  }
+
+  @Test
+  void shouldResumeOnStartupOnlyAnUnfinishedReEvaluation() throws InterruptedException {
+
+    // given
+    reEvaluationProperties.setResumeOnStartup(true);
+    reEvaluationJob.run(null);
+    String stateWithoutCheckpoints = reEvaluationJob.getProgress().getState();
+    List<ReEvaluationCheckpoint> checkpoints = CreditLineReEvaluationJob.partitionsOf(2);
+    checkpoints.get(0).setCompleted(true);
+    reEvaluationRepository.replaceCheckpoints(checkpoints);
+    reEvaluationProperties.setResumeOnStartup(false);
+    reEvaluationJob.run(null);
+    String stateWithoutResume = reEvaluationJob.getProgress().getState();
+    reEvaluationProperties.setResumeOnStartup(true);
+
+    // act
+    reEvaluationJob.run(null);
+
+    // expect
+    assertEquals("IDLE", stateWithoutCheckpoints);
+    assertEquals("IDLE", stateWithoutResume);
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    assertEquals("COMPLETED", reEvaluationJob.getProgress().getState());
+  }
+
+  @Test
+  void shouldWaitForTheBatchesBeingReEvaluatedWhenStopped() throws InterruptedException {
+
+    // given
+    reEvaluationProperties.setPartitions(1);
+    reEvaluationProperties.setShutdownTimeout(Duration.ofMillis(10));
+    var readingBatch = new CountDownLatch(1);
+    var releaseBatch = new CountDownLatch(1);
+    CreditLineReEvaluationRepository slowRepository = spy(reEvaluationRepository);
+    doAnswer(
+            invocation -> {
+              readingBatch.countDown();
+              assertTrue(releaseBatch.await(30, TimeUnit.SECONDS));
+              return invocation.callRealMethod();
+            })
+        .when(slowRepository)
+        .findDecisions(any(), any(), any(), anyInt());
+    reEvaluationJob = reEvaluationJobOf(slowRepository);
+    reEvaluationJob.start(false);
+    assertTrue(readingBatch.await(30, TimeUnit.SECONDS));
+
+    // act
+    ReEvaluationProgress startedAgain = reEvaluationJob.start(false);
+    ReEvaluationProgress stopping = reEvaluationJob.stop();
+    reEvaluationJob.destroy();
+    boolean terminatedBeforeTheBatch = reEvaluationJob.awaitTermination(Duration.ZERO);
+    releaseBatch.countDown();
+
+    // expect
+    assertEquals("RUNNING", startedAgain.getState());
+    assertEquals("STOPPING", stopping.getState());
+    assertFalse(terminatedBeforeTheBatch);
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    assertEquals("STOPPED", reEvaluationJob.getProgress().getState());
+    verify(slowRepository).findDecisions(any(), any(), any(), anyInt());
+  }
+
+  @Test
+  void shouldFailTheRunWhenARangeCanNotBeRead() throws InterruptedException {
+
+    // given
+    reEvaluationProperties.setPartitions(1);
+    CreditLineReEvaluationRepository failingRepository = spy(reEvaluationRepository);
+    doThrow(new DataAccessResourceFailureException("Connection refused"))
+        .doCallRealMethod()
+        .when(failingRepository)
+        .findDecisions(any(), any(), any(), anyInt());
+    reEvaluationJob = reEvaluationJobOf(failingRepository);
+
+    // act
+    reEvaluationJob.start(false);
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    String failedState = reEvaluationJob.getProgress().getState();
+    reEvaluationJob.start(true);
+
+    // expect the failed run to be resumed from its checkpoints
+    assertEquals("FAILED", failedState);
+    assertTrue(reEvaluationJob.awaitTermination(TIMEOUT));
+    assertEquals("COMPLETED", reEvaluationJob.getProgress().getState());
+  }
+
+  @Test
+  void shouldLeaveTheDecisionsChangedByARequestMeanwhile() {
+
+    // given
+    UUID customerId = UUID.randomUUID();
+    OffsetDateTime requestedDate = OffsetDateTime.now();
+    jdbcTemplate.update(
+        INSERT_REQUEST, customerId, 0, "REJECTED", requestedDate, "SME", 1, 1, 1);
+
+    // act
+    int changed =
+        reEvaluationRepository.updateDecisions(
+            List.of(
+                new DecisionChange(
+                    customerId,
+                    requestedDate,
+                    CreditLineStatus.ACCEPTED,
+                    0,
+                    CreditLineStatus.REJECTED)));
+
+    // expect
+    assertEquals(0, changed);
+  }
+
+  private CreditLineReEvaluationJob reEvaluationJobOf(
+      CreditLineReEvaluationRepository reEvaluationRepository) {
+
+    return new CreditLineReEvaluationJob(
+        reEvaluationRepository,
+        decisionKernel,
+        CreditLineStrategyFixture.mockRatioProperties(),
+        reEvaluationProperties,
+        acceptedCreditLineCache,
+        new DataSourceTransactionManager(dataSource),
+        new SimpleMeterRegistry());
+  }
+
+  /** Requests around the thresholds of the ratios, a third of them stored with a stale decision */
+  private List<StoredRequest> storeRandomRequests(SplittableRandom random) {
+    List<StoredRequest> storedRequests = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      FoundingType foundingType = FoundingType.values()[random.nextInt(2)];
+      long requested = random.nextLong(1, 1_000_000_000L);
+      var financialData =
+          RequesterFinancialData.builder()
+              .foundingType(foundingType)
+              .cashBalanceCents(requested * random.nextInt(1, 5) + random.nextInt(-1, 2))
+              .monthlyRevenueCents(requested * random.nextInt(3, 8) + random.nextInt(-1, 2))
+              .requestedCreditLineCents(requested)
+              .build();
+
+      long creditLine = creditLineOf(financialData);
+      boolean stale = random.nextInt(3) == 0;
+      long storedCreditLine = stale ? (creditLine == 0 ? requested : 0) : creditLine;
+
+      var storedRequest =
+          new StoredRequest(
+              new UUID(random.nextLong(), random.nextLong()),
+              financialData,
+              storedCreditLine,
+              stale);
+      jdbcTemplate.update(
+          INSERT_REQUEST,
+          storedRequest.customerId(),
+          Money.toBigDecimal(storedCreditLine),
+          storedCreditLine == 0 ? "REJECTED" : "ACCEPTED",
+          OffsetDateTime.now(),
+          foundingType.name(),
+          Money.toBigDecimal(financialData.getCashBalanceCents()),
+          Money.toBigDecimal(financialData.getMonthlyRevenueCents()),
+          Money.toBigDecimal(financialData.getRequestedCreditLineCents()));
+      storedRequests.add(storedRequest);
+    }
+    return storedRequests;
+  }
+
+  /** Customer ids are ordered as unsigned numbers, unlike {@link UUID#compareTo} */
+  private static boolean isAfter(UUID customerId, UUID other) {
+    int comparison =
+        Long.compareUnsigned(customerId.getMostSignificantBits(), other.getMostSignificantBits());
+    return comparison > 0
+        || comparison == 0
+            && Long.compareUnsigned(
+                    customerId.getLeastSignificantBits(), other.getLeastSignificantBits())
+                > 0;
+  }
+
+  private long creditLineOf(RequesterFinancialData financialData) {
+    return strategies
+        .getCreditLineCalculationStrategy(financialData.getFoundingType())
+        .getCreditLine(financialData);
+  }
+
+  private void assertDecidedAsTheStrategies(StoredRequest storedRequest) {
+    assertStoredDecision(storedRequest, creditLineOf(storedRequest.financialData()));
+  }
+
+  private void assertStoredDecision(StoredRequest storedRequest, long creditLineCents) {
+    var storedDecision =
+        jdbcTemplate.queryForMap(
+            "SELECT accepted_credit_line, credit_line_status FROM credit_line_requests"
+                + " WHERE customer_id = ?",
+            storedRequest.customerId());
+
+    assertEquals(
+        creditLineCents,
+        Money.centsOf((BigDecimal) storedDecision.get("accepted_credit_line")),
+        storedRequest.customerId().toString());
+    assertEquals(
+        creditLineCents == 0 ? "REJECTED" : "ACCEPTED",
+        storedDecision.get("credit_line_status"),
+        storedRequest.customerId().toString());
+  }
+
+  private record StoredRequest(
+      UUID customerId,
+      RequesterFinancialData financialData,
+      long storedCreditLineCents,
+      boolean stale) {}
+}
@@ -0,0 +1,350 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.CreditLineCacheProperties;
+import org.roy.credit.line.configs.CreditLineHistoryProperties;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryWriter;
+import org.roy.credit.line.repositories.CreditLineRequestStore;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics;
+import org.roy.credit.line.services.metrics.LatencyRecorder;
+
+/**
+ * Fires concurrent requests of a few customers, on platform and on virtual threads, against a
+ * store answering each update after a database-like round trip.
+ */
+@ExtendWith(MockitoExtension.class)
+class CreditLineServiceCoalescingTest {
+
+  private static final int CUSTOMERS = 4;
+  private static final int REQUESTS_PER_CUSTOMER = 200;
+  private static final long IO_LATENCY_MILLIS = 2;
+
+  @Mock private RateLimitService rateLimitService;
+
+  private static Stream<Arguments> getExecutors() {
+    return Stream.of(
+        Arguments.of(
+            "platform threads",
+            (Supplier<ExecutorService>) () -> Executors.newFixedThreadPool(64)),
+        Arguments.of(
+            "virtual threads",
+            (Supplier<ExecutorService>) Executors::newVirtualThreadPerTaskExecutor));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("getExecutors")
+  void shouldCountEveryAttemptWithFewerStoreUpdatesThanRequests(
+      String threads, Supplier<ExecutorService> executors) throws Exception {
+
+    // given
+    var store = new LatentCreditLineRequestStore();
+    var creditLineService = creditLineServiceOf(store);
+
+    List<UUID> customerIds = Stream.generate(UUID::randomUUID).limit(CUSTOMERS).toList();
+    var start = new CountDownLatch(1);
+    List<Future<?>> responses = new ArrayList<>();
+
+    // act
+    try (ExecutorService executor = executors.get()) {
+      for (int i = 0; i < REQUESTS_PER_CUSTOMER; i++) {
+        for (UUID customerId : customerIds) {
+          responses.add(
+              executor.submit(
+                  () -> {
+                    start.await();
+                    return creditLineService.requestCreditLine(
+                        customerId,
+                        CreditLineRequestFixture.mockSmeAcceptableRequest(),
+                        FoundingType.SME);
+                  }));
+        }
+      }
+      start.countDown();
+      for (Future<?> response : responses) {
+        response.get();
+      }
+    }
+
+    // expect
+    for (UUID customerId : customerIds) {
+      CreditLineRequestRecord storedRecord = store.records.get(customerId);
+      assertEquals(CreditLineStatus.ACCEPTED.name(), storedRecord.getCreditLineStatus());
+      assertEquals(REQUESTS_PER_CUSTOMER, storedRecord.getAttempts());
+    }
+    int requests = CUSTOMERS * REQUESTS_PER_CUSTOMER;
+    assertTrue(
+        store.updates.get() < requests,
+        () -> store.updates.get() + " store updates for " + requests + " requests");
+  }
+
+  @Test
+  void shouldHandTheLeadOverAfterOneStoreUpdate() throws Exception {
+
+    // given
+    var store = new LatentCreditLineRequestStore();
+    var firstUpdate = new CountDownLatch(1);
+    var leaderAnswered = new CountDownLatch(1);
+    store.beforeUpdate =
+        update -> {
+          if (update == 1) {
+            await(firstUpdate);
+          } else {
+            // A leader deciding every queue would still be running the first request
+            await(leaderAnswered);
+          }
+        };
+    var creditLineService = creditLineServiceOf(store);
+    UUID customerId = UUID.randomUUID();
+
+    // act
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<?> leader = executor.submit(() -> requestCreditLine(creditLineService, customerId));
+      awaitUpdates(store, 1);
+      List<Future<?>> followers = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        followers.add(executor.submit(() -> requestCreditLine(creditLineService, customerId)));
+      }
+      Thread.sleep(50);
+      firstUpdate.countDown();
+      leader.get(5, TimeUnit.SECONDS);
+      leaderAnswered.countDown();
+      for (Future<?> follower : followers) {
+        follower.get(5, TimeUnit.SECONDS);
+      }
+    }
+
+    // expect
+    assertEquals(4, store.records.get(customerId).getAttempts());
+    assertEquals(2, store.updates.get());
+  }
+
+  @Test
+  void shouldFailTheCoalescedRequestsAndGoOnAfterAnError() throws Exception {
+
+    // given
+    var store = new LatentCreditLineRequestStore();
+    var firstUpdate = new CountDownLatch(1);
+    store.beforeUpdate =
+        update -> {
+          if (update == 1) {
+            await(firstUpdate);
+            throw new AssertionError("broken invariant");
+          }
+        };
+    var creditLineService = creditLineServiceOf(store);
+    UUID customerId = UUID.randomUUID();
+
+    // act
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<?> failed = executor.submit(() -> requestCreditLine(creditLineService, customerId));
+      awaitUpdates(store, 1);
+      Future<?> queued = executor.submit(() -> requestCreditLine(creditLineService, customerId));
+      Thread.sleep(50);
+      firstUpdate.countDown();
+
+      // expect
+      var failure =
+          assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(AssertionError.class, failure.getCause());
+      queued.get(5, TimeUnit.SECONDS);
+      requestCreditLine(creditLineService, customerId);
+    }
+
+    assertEquals(2, store.records.get(customerId).getAttempts());
+  }
+
+  @Test
+  void shouldFailEveryCoalescedRequestWithTheCheckedExceptionOfTheStore() throws Exception {
+
+    // given
+    var store = new LatentCreditLineRequestStore();
+    var firstUpdate = new CountDownLatch(1);
+    var storeFailure = new IOException("connection reset");
+    store.beforeUpdate =
+        update -> {
+          if (update == 1) {
+            await(firstUpdate);
+          } else {
+            // A store written in another JVM language can throw checked exceptions
+            sneakyThrow(storeFailure);
+          }
+        };
+    var creditLineService = creditLineServiceOf(store);
+    UUID customerId = UUID.randomUUID();
+
+    // act
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<?> leader = executor.submit(() -> requestCreditLine(creditLineService, customerId));
+      awaitUpdates(store, 1);
+      List<Future<?>> coalesced = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        coalesced.add(executor.submit(() -> requestCreditLine(creditLineService, customerId)));
+      }
+      Thread.sleep(50);
+      firstUpdate.countDown();
+      leader.get(5, TimeUnit.SECONDS);
+
+      // expect
+      for (Future<?> request : coalesced) {
+        var failure =
+            assertThrows(ExecutionException.class, () -> request.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CompletionException.class, failure.getCause());
+        assertEquals(storeFailure, failure.getCause().getCause());
+      }
+    }
+
+    assertEquals(2, store.updates.get());
+    assertEquals(1, store.records.get(customerId).getAttempts());
+  }
+
+  private CreditLineServiceImpl creditLineServiceOf(CreditLineRequestStore store) {
+    var cacheProperties = new CreditLineCacheProperties();
+    cacheProperties.setEnabled(false);
+    return new CreditLineServiceImpl(
+        CreditLineStrategyFixture.mockCreditLineDecisionEngine(),
+        store,
+        rateLimitService,
+        new AcceptedCreditLineCache(cacheProperties, null, new SimpleMeterRegistry()),
+        new CreditLineRequestMetrics(
+            new SimpleMeterRegistry(), new LatencyRecorder(new LatencyRecorderProperties())),
+        disabledHistory());
+  }
+
+  private static Object requestCreditLine(
+      CreditLineServiceImpl creditLineService, UUID customerId) {
+    return creditLineService.requestCreditLine(
+        customerId, CreditLineRequestFixture.mockSmeAcceptableRequest(), FoundingType.SME);
+  }
+
+  private static void awaitUpdates(LatentCreditLineRequestStore store, int updates)
+      throws InterruptedException {
+    while (store.updates.get() < updates) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(interrupted);
+    }
+  }
+
+  @SneakyThrows
+  private static void sneakyThrow(Exception failure) {
+    throw failure;
+  }
+
+  private static CreditLineRequestHistoryWriter disabledHistory() {
+    var historyProperties = new CreditLineHistoryProperties();
+    historyProperties.setEnabled(false);
+    return new CreditLineRequestHistoryWriter(null, historyProperties, new SimpleMeterRegistry());
+  }
+
+  /** One record per customer, each update a locked read and write taking a round trip */
+  private static class LatentCreditLineRequestStore implements CreditLineRequestStore {
+
+    private final Map<UUID, CreditLineRequestRecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger updates = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private IntConsumer beforeUpdate = update -> {};
+
+    @Override
+    public <T> T update(
+        UUID customerId,
+        Function<Optional<CreditLineRequestRecord>, T> decision,
+        Function<T, CreditLineRequestRecord> toRecord) {
+
+      beforeUpdate.accept(updates.incrementAndGet());
+      lock.lock();
+      try {
+        Thread.sleep(IO_LATENCY_MILLIS);
+        T decided = decision.apply(Optional.ofNullable(records.get(customerId)));
+        records.put(customerId, toRecord.apply(decided));
+        return decided;
+      } catch (InterruptedException interrupted) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(interrupted);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public Optional<CreditLineRequestRecord> findById(UUID customerId) {
+      return Optional.ofNullable(records.get(customerId));
+    }
+
+    @Override
+    public <T> T updateAll(
+        Collection<UUID> customerIds,
+        Function<Map<UUID, CreditLineRequestRecord>, T> decisions,
+        Function<T, Collection<CreditLineRequestRecord>> toRecords) {
+
+      lock.lock();
+      try {
+        Map<UUID, CreditLineRequestRecord> lastCreditLineRecords = new HashMap<>();
+        customerIds.stream()
+            .filter(records::containsKey)
+            .forEach(customerId -> lastCreditLineRecords.put(customerId, records.get(customerId)));
+
+        T decided = decisions.apply(lastCreditLineRecords);
+        toRecords.apply(decided).forEach(record -> records.put(record.getCustomerId(), record));
+        return decided;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public OptionalInt countAcceptedRequest(UUID customerId, ZonedDateTime requestedDate) {
+      return OptionalInt.empty();
+    }
+  }
+}
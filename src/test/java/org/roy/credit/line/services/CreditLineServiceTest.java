@@ -1,17 +1,25 @@
 package org.roy.credit.line.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.lenient;
-import static org.roy.credit.line.constants.BusinessRulesConstants.MAX_NUMBER_OF_FAILED_ATTEMPTS;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+import static org.roy.credit.line.fixture.CreditLineRequestFixture.MAX_FAILED_ATTEMPTS;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Assertions;
@@ -19,29 +27,44 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
 import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.enums.FoundingType;
-import org.roy.credit.line.exceptions.RejectedCreditLineException;
 import org.roy.credit.line.fixture.CreditLineEntityFixture;
 import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
 import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
 import org.roy.credit.line.models.responses.PostRequestCreditLineResponseBody;
-import org.roy.credit.line.repositories.CreditLineRequestRepository;
-import org.roy.credit.line.services.mappers.CreditLineRequestMapper;
-import org.roy.credit.line.utils.MathUtils;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryWriter;
+import org.roy.credit.line.repositories.CreditLineRequestStore;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics;
+import org.roy.credit.line.services.metrics.LatencyRecorder;
+import org.roy.credit.line.utils.Money;
+import org.springframework.dao.DataAccessResourceFailureException;
 
 @ExtendWith(MockitoExtension.class)
 class CreditLineServiceTest {
 
   @InjectMocks private CreditLineServiceImpl creditLineService;
-  @Spy private CreditLineRequestMapper mapper = Mappers.getMapper(CreditLineRequestMapper.class);
-  @Mock private CreditLineRequestRepository creditLineRequestsRepository;
+  @Spy
+  private CreditLineDecisionEngine creditLineDecisionEngine =
+      CreditLineStrategyFixture.mockCreditLineDecisionEngine();
+  @Mock private CreditLineRequestStore creditLineRequestStore;
   @Mock private RateLimitService rateLimitService;
+  @Mock private AcceptedCreditLineCache acceptedCreditLineCache;
+  @Mock private CreditLineRequestHistoryWriter creditLineRequestHistory;
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  @Spy
+  private CreditLineRequestMetrics creditLineRequestMetrics =
+      new CreditLineRequestMetrics(
+          meterRegistry, new LatencyRecorder(new LatencyRecorderProperties()));
 
   private static Stream<Arguments> getAcceptableCreditLineRequests() {
 
@@ -69,11 +92,9 @@ class CreditLineServiceTest {
 
     // given
     BigDecimal expectedAcceptedCreditLine =
-        MathUtils.roundFloatTwoPlaces(postRequestCreditLineRequestBody.getRequestedCreditLine());
+        Money.toBigDecimal(postRequestCreditLineRequestBody.getRequestedCreditLineCents());
 
-    lenient()
-        .when(creditLineRequestsRepository.findById(any(UUID.class)))
-        .thenReturn(Optional.empty());
+    givenLastCreditLineRecord(Optional.empty());
 
     doNothing().when(rateLimitService).setRateLimitForAcceptedCredit(any(UUID.class));
 
@@ -85,6 +106,15 @@ class CreditLineServiceTest {
     // expect
     assertEquals(expectedAcceptedCreditLine, acceptedCreditLine.getAcceptedCreditLine());
     Assertions.assertEquals(CreditLineStatus.ACCEPTED, acceptedCreditLine.getCreditLineStatus());
+    verify(creditLineRequestHistory)
+        .record(
+            argThat(
+                evaluations ->
+                    evaluations.size() == 1
+                        && evaluations.get(0).getFoundingType() == foundingType
+                        && evaluations.get(0).getCreditLineStatus() == CreditLineStatus.ACCEPTED
+                        && evaluations.get(0).getRequestedCreditLineCents()
+                            == postRequestCreditLineRequestBody.getRequestedCreditLineCents()));
   }
 
   @ParameterizedTest
@@ -94,18 +124,18 @@ class CreditLineServiceTest {
       FoundingType foundingType) {
 
     // given
-    lenient()
-        .when(creditLineRequestsRepository.findById(any(UUID.class)))
-        .thenReturn(Optional.empty());
+    givenLastCreditLineRecord(Optional.empty());
 
     doNothing().when(rateLimitService).setRateLimitForRejectedCredit(any(UUID.class));
 
-    // act and expect
-    assertThrows(
-        RejectedCreditLineException.class,
-        () ->
-            creditLineService.requestCreditLine(
-                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType));
+    // act
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType);
+
+    // expect
+    assertEquals(CreditLineStatus.REJECTED, postRequestCreditLineResponseBody.getCreditLineStatus());
+    assertNull(postRequestCreditLineResponseBody.getAcceptedCreditLine());
   }
 
   // Accept already accepted
@@ -116,9 +146,7 @@ class CreditLineServiceTest {
       FoundingType foundingType) {
 
     // given
-    lenient()
-        .when(creditLineRequestsRepository.findById(any(UUID.class)))
-        .thenReturn(CreditLineEntityFixture.mockAlreadyAcceptedRequest());
+    givenLastCreditLineRecord(CreditLineEntityFixture.mockAlreadyAcceptedRequest());
 
     doNothing().when(rateLimitService).setRateLimitForAcceptedCredit(any(UUID.class));
 
@@ -141,9 +169,8 @@ class CreditLineServiceTest {
       FoundingType foundingType) {
 
     // given
-    lenient()
-        .when(creditLineRequestsRepository.findById(any(UUID.class)))
-        .thenReturn(CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_NUMBER_OF_FAILED_ATTEMPTS));
+    givenLastCreditLineRecord(
+        CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_FAILED_ATTEMPTS));
 
     doNothing().when(rateLimitService).setRateLimitForAcceptedCredit(any(UUID.class));
 
@@ -164,20 +191,17 @@ class CreditLineServiceTest {
       FoundingType foundingType) {
 
     // given
-    lenient()
-        .when(creditLineRequestsRepository.findById(any(UUID.class)))
-        .thenReturn(CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_NUMBER_OF_FAILED_ATTEMPTS));
+    givenLastCreditLineRecord(
+        CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_FAILED_ATTEMPTS));
 
     // act
-    RejectedCreditLineException exception =
-        assertThrows(
-            RejectedCreditLineException.class,
-            () ->
-                creditLineService.requestCreditLine(
-                    CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType));
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType);
 
     // expect
-    assertEquals(SALES_AGENT_MSG, exception.getCustomMessage());
+    assertEquals(CreditLineStatus.REJECTED, postRequestCreditLineResponseBody.getCreditLineStatus());
+    assertEquals(SALES_AGENT_MSG, postRequestCreditLineResponseBody.getMessage());
   }
 
   // Reject already rejected less than maximum allowed
@@ -188,21 +212,147 @@ class CreditLineServiceTest {
       FoundingType foundingType) {
 
     // given
-    lenient()
-        .when(creditLineRequestsRepository.findById(any(UUID.class)))
-        .thenReturn(CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_NUMBER_OF_FAILED_ATTEMPTS - 1));
+    givenLastCreditLineRecord(
+        CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_FAILED_ATTEMPTS - 1));
 
     doNothing().when(rateLimitService).setRateLimitForRejectedCredit(any(UUID.class));
 
     // act
-    RejectedCreditLineException exception =
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType);
+
+    // expect
+    assertEquals(CreditLineStatus.REJECTED, postRequestCreditLineResponseBody.getCreditLineStatus());
+    assertNull(postRequestCreditLineResponseBody.getMessage());
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMixCreditLineRequests")
+  void shouldAnswerCachedAcceptedCreditLineWithoutReadingTheLastRequest(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType) {
+
+    // given
+    when(acceptedCreditLineCache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .thenReturn(Optional.of(mockCachedAcceptedCreditLine()));
+    when(creditLineRequestStore.countAcceptedRequest(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            postRequestCreditLineRequestBody.getRequestedDate()))
+        .thenReturn(OptionalInt.of(7));
+
+    // act
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType);
+
+    // expect
+    assertEquals(CreditLineStatus.ACCEPTED, postRequestCreditLineResponseBody.getCreditLineStatus());
+    assertEquals(
+        new BigDecimal("10000.00"), postRequestCreditLineResponseBody.getAcceptedCreditLine());
+    verify(creditLineRequestStore, never()).update(any(UUID.class), any(), any());
+    verify(rateLimitService).setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    // the history counts the attempts stored, not the cached ones
+    verify(creditLineRequestHistory)
+        .record(argThat(evaluations -> evaluations.get(0).getAttempts() == 7));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getRejectableCreditLineRequests")
+  void shouldDecideAgainWhenTheCachedAcceptedCreditLineIsNotStored(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType) {
+
+    // given
+    when(acceptedCreditLineCache.get(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .thenReturn(Optional.of(mockCachedAcceptedCreditLine()));
+    when(creditLineRequestStore.countAcceptedRequest(any(UUID.class), any()))
+        .thenReturn(OptionalInt.empty());
+    givenLastCreditLineRecord(Optional.empty());
+
+    // act
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType);
+
+    // expect
+    assertEquals(CreditLineStatus.REJECTED, postRequestCreditLineResponseBody.getCreditLineStatus());
+    verify(acceptedCreditLineCache).put(any(CreditLineRequestRecordDao.class));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMixCreditLineRequests")
+  void shouldTimeEachStageOfTheRequestByOutcome(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType) {
+
+    // given
+    givenLastCreditLineRecord(Optional.empty());
+
+    // act
+    PostRequestCreditLineResponseBody postRequestCreditLineResponseBody =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType);
+
+    // expect
+    String outcome = postRequestCreditLineResponseBody.getCreditLineStatus().name();
+    for (String stage : List.of("read", "save", "mapping")) {
+      assertEquals(
+          1,
+          meterRegistry
+              .get("credit.line.request.stage")
+              .tag("stage", stage)
+              .tag("outcome", outcome)
+              .timer()
+              .count());
+    }
+    assertEquals(
+        1,
+        meterRegistry
+            .get("credit.line.request.evaluation")
+            .tag("founding.type", foundingType.name())
+            .tag("outcome", outcome)
+            .timer()
+            .count());
+  }
+
+  @ParameterizedTest
+  @MethodSource("getAcceptableCreditLineRequests")
+  void shouldRethrowTheStoreFailureToTheRequest(
+      PostRequestCreditLineRequestBody postRequestCreditLineRequestBody,
+      FoundingType foundingType) {
+
+    // given
+    var failure = new DataAccessResourceFailureException("Connection refused");
+    when(creditLineRequestStore.update(any(UUID.class), any(), any())).thenThrow(failure);
+
+    // act
+    var exception =
         assertThrows(
-            RejectedCreditLineException.class,
+            DataAccessResourceFailureException.class,
             () ->
                 creditLineService.requestCreditLine(
                     CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, postRequestCreditLineRequestBody, foundingType));
 
     // expect
-    assertTrue(exception.getCustomMessage().isEmpty());
+    assertEquals(failure, exception);
+  }
+
+  private static CreditLineRequestRecordDao mockCachedAcceptedCreditLine() {
+    return CreditLineRequestRecordDao.builder()
+        .customerId(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)
+        .creditLineStatus(CreditLineStatus.ACCEPTED)
+        .acceptedCreditLineCents(Money.centsOfUnits(10_000))
+        .build();
+  }
+
+  private void givenLastCreditLineRecord(Optional<CreditLineRequestRecord> lastCreditLineRecord) {
+    lenient()
+        .when(creditLineRequestStore.update(any(UUID.class), any(), any()))
+        .then(
+            invocation ->
+                invocation
+                    .<Function<Optional<CreditLineRequestRecord>, ?>>getArgument(1)
+                    .apply(lastCreditLineRecord));
   }
 }
@@ -0,0 +1,155 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.services.strategies.credit.status.CreditRequestStrategyRegistry;
+import org.roy.credit.line.services.strategies.credit.status.NewOrPreviouslyRejectedRequestStrategy;
+import org.roy.credit.line.services.strategies.credit.status.PreviouslyAcceptedStrategy;
+import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategyRegistry;
+import org.roy.credit.line.services.strategies.founding.type.SmeRequesterStrategy;
+import org.roy.credit.line.services.strategies.founding.type.StartUpRequesterStrategy;
+
+@ExtendWith(MockitoExtension.class)
+class CreditLineStrategyRegistryTest {
+
+  private static final int DISPATCHES = 1_000_000;
+
+  private final CreditLineCalculationStrategyRegistry creditLineCalculationStrategies =
+      CreditLineStrategyFixture.mockCreditLineCalculationStrategies();
+  private final CreditRequestStrategyRegistry creditRequestStrategies =
+      CreditLineStrategyFixture.mockCreditRequestStrategies();
+
+  @Test
+  void shouldSelectTheSameStrategyInstanceOfEachFoundingType() {
+
+    // act
+    var smeStrategy =
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.SME);
+    var startUpStrategy =
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.STARTUP);
+
+    // expect
+    assertInstanceOf(SmeRequesterStrategy.class, smeStrategy);
+    assertInstanceOf(StartUpRequesterStrategy.class, startUpStrategy);
+    assertSame(
+        smeStrategy,
+        creditLineCalculationStrategies.getCreditLineCalculationStrategy(FoundingType.SME));
+  }
+
+  @Test
+  void shouldSelectTheStrategyOfEachLastCreditLineStatus() {
+
+    // expect
+    assertInstanceOf(
+        NewOrPreviouslyRejectedRequestStrategy.class,
+        creditRequestStrategies.getCreditRequestStrategy(CreditLineStatus.NONE));
+    assertInstanceOf(
+        NewOrPreviouslyRejectedRequestStrategy.class,
+        creditRequestStrategies.getCreditRequestStrategy(CreditLineStatus.REJECTED));
+    assertInstanceOf(
+        PreviouslyAcceptedStrategy.class,
+        creditRequestStrategies.getCreditRequestStrategy(CreditLineStatus.ACCEPTED));
+  }
+
+  @Test
+  void shouldFailForFoundingTypesWithoutStrategy() {
+
+    // given
+    var registry =
+        new CreditLineCalculationStrategyRegistry(
+            List.of(new SmeRequesterStrategy(CreditLineStrategyFixture.mockRatioProperties())));
+
+    // expect
+    assertThrows(
+        InternalServerErrorException.class,
+        () -> registry.getCreditLineCalculationStrategy(FoundingType.STARTUP));
+  }
+
+  @Test
+  void shouldRejectTwoStrategiesForTheSameFoundingType() {
+
+    // given
+    var ratioProperties = CreditLineStrategyFixture.mockRatioProperties();
+
+    // expect
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            new CreditLineCalculationStrategyRegistry(
+                List.of(
+                    new SmeRequesterStrategy(ratioProperties),
+                    new SmeRequesterStrategy(ratioProperties))));
+  }
+
+  @Test
+  void shouldFailForCreditLineStatusesWithoutStrategy() {
+
+    // given
+    var registry = new CreditRequestStrategyRegistry(List.of(new PreviouslyAcceptedStrategy()));
+
+    // expect
+    assertThrows(
+        InternalServerErrorException.class,
+        () -> registry.getCreditRequestStrategy(CreditLineStatus.REJECTED));
+  }
+
+  @Test
+  void shouldRejectTwoStrategiesForTheSameCreditLineStatus() {
+
+    // expect
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            new CreditRequestStrategyRegistry(
+                List.of(new PreviouslyAcceptedStrategy(), new PreviouslyAcceptedStrategy())));
+  }
+
+  @Test
+  void shouldDispatchStrategiesWithoutAllocating() {
+
+    // given
+    var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().threadId();
+    FoundingType[] foundingTypes = FoundingType.values();
+    CreditLineStatus[] creditLineStatuses = CreditLineStatus.values();
+
+    // Warms up the dispatch, so the measured loop runs compiled code
+    dispatch(foundingTypes, creditLineStatuses);
+
+    // act
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    int dispatched = dispatch(foundingTypes, creditLineStatuses);
+    long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    // expect
+    assertEquals(DISPATCHES, dispatched);
+    assertEquals(0, allocated / DISPATCHES, () -> allocated + " bytes allocated by the dispatch");
+  }
+
+  private int dispatch(FoundingType[] foundingTypes, CreditLineStatus[] creditLineStatuses) {
+    int dispatched = 0;
+    for (int i = 0; i < DISPATCHES; i++) {
+      if (creditLineCalculationStrategies.getCreditLineCalculationStrategy(
+                  foundingTypes[i % foundingTypes.length])
+              != null
+          && creditRequestStrategies.getCreditRequestStrategy(
+                  creditLineStatuses[i % creditLineStatuses.length])
+              != null) {
+        dispatched++;
+      }
+    }
+    return dispatched;
+  }
+}
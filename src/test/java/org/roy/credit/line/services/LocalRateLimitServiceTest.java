@@ -0,0 +1,269 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+
+class LocalRateLimitServiceTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  /** Write run once between the next read of a bucket state and its update */
+  private final AtomicReference<Runnable> racingWrite = new AtomicReference<>();
+  private LocalRateLimitServiceImpl rateLimitService;
+
+  @BeforeEach
+  void setUp() {
+    rateLimitService = new LocalRateLimitServiceImpl(this::currentTimeMillis);
+  }
+
+  @Test
+  void shouldNotLimitUnknownCustomer() {
+    assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldNotLimitUnknownCustomerOnTheSystemClock() {
+    assertTrue(
+        new LocalRateLimitServiceImpl().isAllowed(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldKeepTheOpenAcceptedCreditWindowWhenTheCreditIsAcceptedAgain() {
+
+    // given
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // act
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect - the window still holds the request counted before
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldKeepTheRunningCoolDownWhenTheCreditIsRejectedAgain() {
+
+    // given
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    now.addAndGet(20_000);
+
+    // act
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect - the cool down still ends 30 seconds after the first rejection
+    now.addAndGet(10_000);
+    assertTrue(rateLimitService.isAllowed(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldRetryOnAFreshBucketWhenTheBucketIsEvictedWhileAcceptingTheCredit() {
+
+    // given
+    racingWrite.set(rateLimitService::evictIdleBuckets);
+
+    // act
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect
+    assertEquals(1, rateLimitService.bucketCount());
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    assertFalse(rateLimitService.isAllowed(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldRetryOnAFreshBucketWhenTheBucketIsEvictedWhileRejectingTheCredit() {
+
+    // given
+    racingWrite.set(rateLimitService::evictIdleBuckets);
+
+    // act
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect
+    assertEquals(1, rateLimitService.bucketCount());
+    assertFalse(rateLimitService.isAllowed(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldCheckTheLatestStateWhenTheBucketChangesWhileCountingTheRequest() {
+
+    // given
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    racingWrite.set(
+        () ->
+            rateLimitService.setRateLimitForRejectedCredit(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    // act
+    boolean allowed = rateLimitService.isAllowed(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // expect - the rejection written meanwhile started a cool down
+    assertFalse(allowed);
+  }
+
+  @Test
+  void shouldThrowTooManyRequestsExceptionWhenHitApiAfterAcceptedMoreThan3timesIn2Minutes() {
+
+    // given
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // act and expect
+    assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldNotThrowTooManyRequestsExceptionWhenAcceptedCreditWindowIsOver() {
+
+    // given
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    // act
+    now.addAndGet(120_000);
+
+    // expect
+    assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldThrowTooManyRequestsExceptionWhenHitApiAfterRejectedLessThan30Seconds() {
+
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    now.addAndGet(29_999);
+
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldNotThrowTooManyRequestsExceptionWhenHitApiAfterRejectedMoreThan30Seconds() {
+
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    now.addAndGet(30_000);
+
+    assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldSetTheRateLimitsOfABatchOneCustomerAtATime() {
+
+    // given
+    UUID acceptedCustomerId = UUID.randomUUID();
+
+    // act
+    rateLimitService.setRateLimitsFor(
+        List.of(acceptedCustomerId), List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    // expect
+    assertEquals(2, rateLimitService.bucketCount());
+    assertTrue(rateLimitService.isAllowed(acceptedCustomerId));
+    assertFalse(rateLimitService.isAllowed(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldCheckTheRateLimitOfEachRequestOfABatch() {
+
+    // given
+    UUID acceptedCustomerId = UUID.randomUUID();
+    rateLimitService.setRateLimitsFor(
+        List.of(acceptedCustomerId), List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    // act
+    var allowed =
+        rateLimitService.checkRateLimitsFor(
+            List.of(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                acceptedCustomerId,
+                UUID.randomUUID()));
+
+    // expect
+    assertEquals(List.of(false, true, true), allowed);
+  }
+
+  @Test
+  void shouldEvictOnlyIdleBuckets() {
+
+    // given
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    rateLimitService.evictIdleBuckets();
+    assertEquals(1, rateLimitService.bucketCount());
+
+    // act
+    now.addAndGet(30_000);
+    rateLimitService.evictIdleBuckets();
+
+    // expect
+    assertEquals(0, rateLimitService.bucketCount());
+  }
+
+  @Test
+  void shouldAllowAtMostThreeRequestsPerAcceptedCreditWindowUnderConcurrency() throws Exception {
+
+    // given - a customer whose credit line was just accepted
+    rateLimitService.setRateLimitForAcceptedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+
+    // act
+    for (int i = 0; i < 64; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                try {
+                  rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+                  return true;
+                } catch (TooManyRequestsException exception) {
+                  return false;
+                }
+              }));
+    }
+    start.countDown();
+
+    long allowed = 0;
+    for (Future<Boolean> result : results) {
+      allowed += Boolean.TRUE.equals(result.get()) ? 1 : 0;
+    }
+    executor.shutdown();
+
+    // expect - the accepted request plus the two allowed by the window
+    assertEquals(2, allowed);
+  }
+
+  private long currentTimeMillis() {
+    Runnable write = racingWrite.getAndSet(null);
+    if (write != null) {
+      write.run();
+    }
+    return now.get();
+  }
+}
@@ -0,0 +1,107 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.roy.credit.line.services.codecs.RedisIntegerSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+class RateLimitCodecsTest {
+
+  private final RedisIntegerSerializer integerSerializer = new RedisIntegerSerializer();
+
+  @Test
+  void shouldEncodeKeyAsStatusPrefixAndRawCustomerIdBytes() {
+
+    byte[] key =
+        RateLimitKeyCodec.encode(
+            CreditLineStatus.REJECTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    assertEquals(RateLimitKeyCodec.KEY_LENGTH, key.length);
+    assertEquals('R', key[0]);
+    assertEquals(
+        Optional.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+        RateLimitKeyCodec.decode(CreditLineStatus.REJECTED, key));
+    assertEquals(Optional.empty(), RateLimitKeyCodec.decode(CreditLineStatus.ACCEPTED, key));
+  }
+
+  @Test
+  void shouldEncodeKeysOfOtherStatusesWithTheirOwnPrefix() {
+
+    byte[] key =
+        RateLimitKeyCodec.encode(
+            CreditLineStatus.NONE, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    assertEquals('N', key[0]);
+    assertEquals(
+        Optional.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+        RateLimitKeyCodec.decode(CreditLineStatus.NONE, key));
+  }
+
+  @Test
+  void shouldRoundTripKeysOfExtremeCustomerIds() {
+
+    UUID customerId = new UUID(-1L, Long.MIN_VALUE);
+
+    assertEquals(
+        Optional.of(customerId),
+        RateLimitKeyCodec.decode(
+            CreditLineStatus.ACCEPTED,
+            RateLimitKeyCodec.encode(CreditLineStatus.ACCEPTED, customerId)));
+  }
+
+  @Test
+  void shouldEncodeAndDecodeLegacyJsonKeys() {
+
+    byte[] legacyKey =
+        RateLimitKeyCodec.encodeLegacy(
+            CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    assertArrayEquals(
+        ("\"ACCEPTED-" + CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID + "\"")
+            .getBytes(StandardCharsets.UTF_8),
+        legacyKey);
+    assertEquals(
+        Optional.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+        RateLimitKeyCodec.decode(CreditLineStatus.ACCEPTED, legacyKey));
+    assertEquals(
+        Optional.empty(),
+        RateLimitKeyCodec.decode(
+            CreditLineStatus.ACCEPTED, "\"ACCEPTED-not-an-id\"".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 3, 10, 120_000, -7, Integer.MAX_VALUE, Integer.MIN_VALUE})
+  void shouldWriteIntegersAsRedisDecimalDigits(int value) {
+
+    byte[] serialized = integerSerializer.serialize(value);
+
+    assertArrayEquals(Integer.toString(value).getBytes(StandardCharsets.US_ASCII), serialized);
+    assertEquals(value, integerSerializer.deserialize(serialized));
+  }
+
+  @Test
+  void shouldHandleMissingAndInvalidIntegerValues() {
+
+    assertEquals(Integer.class, integerSerializer.getTargetType());
+    assertNull(integerSerializer.serialize(null));
+    assertNull(integerSerializer.deserialize(null));
+    assertThrows(
+        SerializationException.class,
+        () -> integerSerializer.deserialize("1.5".getBytes(StandardCharsets.US_ASCII)));
+    assertThrows(
+        SerializationException.class,
+        () -> integerSerializer.deserialize("2147483648".getBytes(StandardCharsets.US_ASCII)));
+  }
+}
@@ -0,0 +1,163 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.configs.RedisConfig;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.LuaRedisStandIn;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.roy.credit.line.services.codecs.RateLimitKeyCodec;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitServiceConcurrencyTest {
+
+  private static final int CONCURRENT_REQUESTS = 64;
+
+  @Mock private RedisTemplate<byte[], Integer> redisTemplate;
+
+  private final RedisScript<Long> rateLimitScript = new RedisConfig().rateLimitScript();
+  private LuaRedisStandIn redis;
+  private RateLimitServiceImpl rateLimitService;
+
+  @BeforeEach
+  void setUp() {
+    redis = new LuaRedisStandIn(rateLimitScript.getScriptAsString());
+    rateLimitService =
+        new RateLimitServiceImpl(
+            redisTemplate,
+            rateLimitScript,
+            new RejectedCreditNearCache(new RateLimitProperties(), null),
+            new RateLimitProperties(),
+            new SimpleMeterRegistry());
+
+    when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any()))
+        .thenAnswer(
+            invocation ->
+                redis.eval(
+                    invocation.<List<byte[]>>getArgument(1).stream()
+                        .map(RateLimitServiceConcurrencyTest::asString)
+                        .toList(),
+                    Stream.of(invocation.getArgument(2), invocation.getArgument(3))
+                        .map(String::valueOf)
+                        .toList()));
+  }
+
+  @Test
+  void shouldAllowAtMostThreeRequestsPerAcceptedCreditWindowUnderConcurrency() throws Exception {
+
+    // given - a customer whose credit line was just accepted
+    redis.set(acceptedKey(), "1", 120_000);
+
+    // act
+    long allowedRequests = countAllowedConcurrentRequests();
+
+    // expect - the accepted request plus the two allowed by the window
+    assertEquals(2, allowedRequests);
+    assertEquals("3", redis.get(acceptedKey()));
+  }
+
+  @Test
+  void shouldAllowNoRequestDuringRejectedCreditCoolDownUnderConcurrency() throws Exception {
+
+    // given
+    redis.set(acceptedKey(), "1", 120_000);
+    redis.set(
+        asString(
+            RateLimitServiceImpl.keyOf(
+                CreditLineStatus.REJECTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)),
+        "0",
+        30_000);
+
+    // act and expect
+    assertEquals(0, countAllowedConcurrentRequests());
+    assertEquals("1", redis.get(acceptedKey()));
+  }
+
+  @Test
+  void shouldHonourLegacyAcceptedCreditWindowWhenReadingLegacyKeys() throws Exception {
+
+    // given - a window opened by a previous version of the service
+    var properties = new RateLimitProperties();
+    properties.setReadLegacyKeys(true);
+    rateLimitService =
+        new RateLimitServiceImpl(
+            redisTemplate,
+            rateLimitScript,
+            new RejectedCreditNearCache(properties, null),
+            properties,
+            new SimpleMeterRegistry());
+    String legacyAcceptedKey =
+        asString(
+            RateLimitKeyCodec.encodeLegacy(
+                CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    redis.set(legacyAcceptedKey, "1", 120_000);
+
+    // act and expect
+    assertEquals(2, countAllowedConcurrentRequests());
+    assertEquals("3", redis.get(legacyAcceptedKey));
+  }
+
+  private long countAllowedConcurrentRequests() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+
+    Callable<Boolean> request =
+        () -> {
+          start.await();
+          try {
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+            return true;
+          } catch (TooManyRequestsException exception) {
+            return false;
+          }
+        };
+
+    for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+      results.add(executor.submit(request));
+    }
+    start.countDown();
+
+    long allowed = 0;
+    for (Future<Boolean> result : results) {
+      allowed += Boolean.TRUE.equals(result.get()) ? 1 : 0;
+    }
+    executor.shutdown();
+
+    return allowed;
+  }
+
+  private static String acceptedKey() {
+    return asString(
+        RateLimitServiceImpl.keyOf(
+            CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  private static String asString(byte[] key) {
+    return new String(key, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -1,28 +1,91 @@
 package org.roy.credit.line.services;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.roy.credit.line.configs.RateLimitProperties;
 import org.roy.credit.line.enums.CreditLineStatus;
 import org.roy.credit.line.exceptions.TooManyRequestsException;
 import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
 @ExtendWith(MockitoExtension.class)
 class RateLimitServiceTest {
 
+  private static final UUID REJECTED_CUSTOMER_ID = UUID.randomUUID();
+  private static final String RATE_LIMIT_SCRIPT = "return 1";
+  private static final String RATE_LIMIT_SCRIPT_SHA = "e0e1f9fabfc9d4800c877a703b823ac0578ff8db";
+
   @InjectMocks private RateLimitServiceImpl rateLimitService;
-  @Mock private RedisTemplate<String, Integer> redisTemplate;
-  @Mock private ValueOperations<String, Integer> valueOperations;
+  @Mock private RedisTemplate<byte[], Integer> redisTemplate;
+  @Mock private ValueOperations<byte[], Integer> valueOperations;
+  @Mock private RedisScript<Long> rateLimitScript;
+  @Spy private RateLimitProperties rateLimitProperties = new RateLimitProperties();
+  @Spy private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+  private RedisConnection connection;
+
+  @Spy
+  private RejectedCreditNearCache rejectedCreditNearCache =
+      new RejectedCreditNearCache(new RateLimitProperties(), null);
+
+  @Test
+  void shouldPreloadTheRateLimitScriptIntoTheRedisScriptCache() {
+    when(rateLimitScript.getScriptAsString()).thenReturn(RATE_LIMIT_SCRIPT);
+    when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<?>>any()))
+        .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+
+    rateLimitService.loadRateLimitScript();
+
+    verify(connection.scriptingCommands())
+        .scriptLoad(RATE_LIMIT_SCRIPT.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldStartWithoutThePreloadedScriptWhenRedisIsDown() {
+    when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<?>>any()))
+        .thenThrow(new RedisConnectionFailureException("MOCK"));
+
+    assertDoesNotThrow(rateLimitService::loadRateLimitScript);
+  }
 
   @Test
   void shouldSuccessfullySetRateLimitForAcceptedCredit() {
@@ -57,40 +120,196 @@ class RateLimitServiceTest {
   }
 
   @Test
-  void shouldThrowTooManyRequestsExceptionWhenHitApiAfterRejectedLessThan30Seconds() {
-    when(redisTemplate.hasKey(any())).thenReturn(Boolean.TRUE);
+  void shouldThrowTooManyRequestsExceptionWhenRateLimitScriptDeniesTheRequest() {
+    mockRateLimitScriptResult(0L);
+
     assertThrows(
         TooManyRequestsException.class,
         () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
   }
 
   @Test
-  void shouldNotThrowTooManyRequestsExceptionWhenHitApiAfterRejectedMoreThan30Seconds() {
-    when(redisTemplate.hasKey(any())).thenReturn(Boolean.FALSE);
-    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(redisTemplate.opsForValue().get(RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID)))
-        .thenReturn(null);
+  void shouldNotThrowTooManyRequestsExceptionWhenRateLimitScriptAllowsTheRequest() {
+    mockRateLimitScriptResult(1L);
 
     assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
   }
 
   @Test
-  void shouldThrowTooManyRequestsExceptionWhenHitApiAfterAcceptedMoreThan3timesIn2Minutes() {
-    when(redisTemplate.hasKey(any())).thenReturn(Boolean.FALSE);
-    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(redisTemplate.opsForValue().get(RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))).thenReturn(3);
+  void shouldCheckBothRateLimitKeysInASingleScriptCall() {
+    mockRateLimitScriptResult(1L);
+
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    verify(redisTemplate)
+        .execute(
+            eq(rateLimitScript),
+            argThat(
+                keys ->
+                    keysEqual(
+                        keys,
+                        RateLimitServiceImpl.keyOf(CreditLineStatus.REJECTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+                        RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))),
+            eq(3),
+            eq(120_000));
+    verifyNoMoreInteractions(redisTemplate);
+  }
+
+  @Test
+  void shouldAlsoCheckLegacyRateLimitKeysWhileRollingOutBinaryKeys() {
+    rateLimitProperties.setReadLegacyKeys(true);
+    mockRateLimitScriptResult(1L);
+
+    rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    verify(redisTemplate)
+        .execute(
+            eq(rateLimitScript),
+            argThat(
+                keys ->
+                    keysEqual(
+                        keys,
+                        RateLimitServiceImpl.keyOf(CreditLineStatus.REJECTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+                        RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID),
+                        "\"REJECTED-18eee9c2-f577-11ec-b939-0242ac120002\"".getBytes(StandardCharsets.UTF_8),
+                        "\"ACCEPTED-18eee9c2-f577-11ec-b939-0242ac120002\"".getBytes(StandardCharsets.UTF_8))),
+            eq(3),
+            eq(120_000));
+  }
+
+  @Test
+  void shouldAnswerFromNearCacheWithoutCallingRedisDuringRejectedCreditCoolDown() {
+    rejectedCreditNearCache.put(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
 
     assertThrows(
         TooManyRequestsException.class,
         () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    verifyNoInteractions(redisTemplate);
   }
 
   @Test
-  void shouldNotThrowTooManyRequestsExceptionWhenHitApiAfterAcceptedLessThan3timesIn2Minutes() {
-    when(redisTemplate.hasKey(any())).thenReturn(Boolean.FALSE);
+  void shouldKeepRejectedCreditCoolDownFoundOnRedisInTheNearCache() {
+    mockRateLimitScriptResult(-25_000L);
+
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    verify(redisTemplate, times(1)).execute(eq(rateLimitScript), anyList(), any(), any());
+  }
+
+  @Test
+  void shouldNotKeepAnExhaustedAcceptedCreditWindowInTheNearCache() {
+    mockRateLimitScriptResult(0L);
+
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    assertFalse(rejectedCreditNearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldStartNearCacheCoolDownWhenRejectedCreditRateLimitIsSet() {
     when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(redisTemplate.opsForValue().get(RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))).thenReturn(1);
+    when(valueOperations.setIfAbsent(any(), any(), any(Duration.class))).thenReturn(Boolean.TRUE);
 
-    assertDoesNotThrow(() -> rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    rateLimitService.setRateLimitForRejectedCredit(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    assertTrue(rejectedCreditNearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldCheckTheRateLimitsOfABatchInOnePipeline() {
+    UUID coolingDownCustomerId = UUID.randomUUID();
+    UUID exhaustedCustomerId = UUID.randomUUID();
+    rejectedCreditNearCache.put(coolingDownCustomerId, Duration.ofSeconds(30));
+    when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<?>>any()))
+        .thenReturn(List.of(1L, -20_000L, 0L));
+
+    List<Boolean> allowed =
+        rateLimitService.checkRateLimitsFor(
+            List.of(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+                coolingDownCustomerId,
+                REJECTED_CUSTOMER_ID,
+                exhaustedCustomerId));
+
+    assertEquals(List.of(true, false, false, false), allowed);
+    assertTrue(rejectedCreditNearCache.isCoolingDown(REJECTED_CUSTOMER_ID));
+    verify(redisTemplate, times(1)).executePipelined(ArgumentMatchers.<RedisCallback<?>>any());
+  }
+
+  @Test
+  void shouldReloadTheScriptAndRetryTheBatchPipelineAfterANoScriptReply() {
+    when(rateLimitScript.getSha1()).thenReturn(RATE_LIMIT_SCRIPT_SHA);
+    when(rateLimitScript.getScriptAsString()).thenReturn(RATE_LIMIT_SCRIPT);
+    when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<?>>any()))
+        .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+    when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<?>>any()))
+        .thenThrow(new RedisPipelineException(new IllegalStateException("NOSCRIPT")))
+        .thenAnswer(pipelinedOnConnection(List.of(1L)));
+
+    List<Boolean> allowed =
+        rateLimitService.checkRateLimitsFor(
+            List.of(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+
+    assertEquals(List.of(true), allowed);
+    verify(connection.scriptingCommands())
+        .scriptLoad(RATE_LIMIT_SCRIPT.getBytes(StandardCharsets.UTF_8));
+    verify(connection.scriptingCommands())
+        .evalSha(eq(RATE_LIMIT_SCRIPT_SHA), eq(ReturnType.INTEGER), eq(2), any(byte[][].class));
+  }
+
+  @Test
+  void shouldSetTheRateLimitsOfABatchInOnePipeline() {
+    UUID acceptedCustomerId = UUID.randomUUID();
+    when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<?>>any()))
+        .thenAnswer(pipelinedOnConnection(List.of(true, true)));
+
+    rateLimitService.setRateLimitsFor(List.of(acceptedCustomerId), List.of(REJECTED_CUSTOMER_ID));
+
+    assertTrue(rejectedCreditNearCache.isCoolingDown(REJECTED_CUSTOMER_ID));
+    assertFalse(rejectedCreditNearCache.isCoolingDown(acceptedCustomerId));
+    verify(connection.stringCommands())
+        .set(
+            aryEq(RateLimitServiceImpl.keyOf(CreditLineStatus.REJECTED, REJECTED_CUSTOMER_ID)),
+            aryEq("0".getBytes(StandardCharsets.US_ASCII)),
+            any(),
+            eq(SetOption.ifAbsent()));
+    verify(connection.stringCommands())
+        .set(
+            aryEq(RateLimitServiceImpl.keyOf(CreditLineStatus.ACCEPTED, acceptedCustomerId)),
+            aryEq("1".getBytes(StandardCharsets.US_ASCII)),
+            any(),
+            eq(SetOption.ifAbsent()));
+  }
+
+  private Answer<List<Object>> pipelinedOnConnection(List<Object> results) {
+    return invocation -> {
+      invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+      return results;
+    };
+  }
+
+  private void mockRateLimitScriptResult(Long result) {
+    when(redisTemplate.execute(eq(rateLimitScript), anyList(), any(), any())).thenReturn(result);
+  }
+
+  private static boolean keysEqual(List<byte[]> keys, byte[]... expectedKeys) {
+    if (keys.size() != expectedKeys.length) {
+      return false;
+    }
+
+    for (int i = 0; i < expectedKeys.length; i++) {
+      if (!Arrays.equals(expectedKeys[i], keys.get(i))) {
+        return false;
+      }
+    }
+
+    return true;
   }
 }
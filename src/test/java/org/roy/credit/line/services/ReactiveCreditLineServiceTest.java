@@ -0,0 +1,191 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+import static org.roy.credit.line.fixture.CreditLineRequestFixture.MAX_FAILED_ATTEMPTS;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.exceptions.InternalServerErrorException;
+import org.roy.credit.line.exceptions.RejectedCreditLineException;
+import org.roy.credit.line.fixture.CreditLineEntityFixture;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.models.daos.CreditLineRequestRecordDao;
+import org.roy.credit.line.repositories.ReactiveCreditLineRequestRepository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCreditLineServiceTest {
+
+  @InjectMocks private ReactiveCreditLineServiceImpl creditLineService;
+  @Mock private ReactiveCreditLineRequestRepository creditLineRequestsRepository;
+  @Mock private ReactiveRateLimitService rateLimitService;
+  @Mock private TransactionalOperator transactionalOperator;
+
+  @Spy
+  private CreditLineDecisionEngine creditLineDecisionEngine =
+      CreditLineStrategyFixture.mockCreditLineDecisionEngine();
+
+  @BeforeEach
+  void setUp() {
+    // The transaction is left to the database, the statements run as they are
+    when(transactionalOperator.transactional(
+            ArgumentMatchers.<Mono<CreditLineRequestRecordDao>>any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  void shouldAcceptNewCreditLineRequest() {
+
+    // given
+    when(creditLineRequestsRepository.findByIdForUpdate(any(UUID.class)))
+        .thenReturn(Mono.empty());
+    when(creditLineRequestsRepository.insertIfAbsent(any(CreditLineRequestRecord.class)))
+        .thenReturn(Mono.just(true));
+    when(rateLimitService.setRateLimitForAcceptedCredit(any(UUID.class))).thenReturn(Mono.empty());
+
+    // act
+    var acceptedCreditLine =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            CreditLineRequestFixture.mockSmeAcceptableRequest(),
+            FoundingType.SME);
+
+    // expect
+    StepVerifier.create(acceptedCreditLine)
+        .assertNext(
+            response -> {
+              assertEquals(CreditLineStatus.ACCEPTED, response.getCreditLineStatus());
+              assertEquals(new BigDecimal("20000.00"), response.getAcceptedCreditLine());
+            })
+        .verifyComplete();
+    verify(rateLimitService, never()).setRateLimitForRejectedCredit(any(UUID.class));
+  }
+
+  @Test
+  void shouldRejectAlreadyRejectedCreditLineRequestWithSalesAgentMessage() {
+
+    // given
+    when(creditLineRequestsRepository.findByIdForUpdate(any(UUID.class)))
+        .thenReturn(
+            Mono.just(
+                CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_FAILED_ATTEMPTS)
+                    .orElseThrow()));
+    when(creditLineRequestsRepository.update(any(CreditLineRequestRecord.class)))
+        .thenReturn(Mono.empty());
+    when(rateLimitService.setRateLimitForRejectedCredit(any(UUID.class))).thenReturn(Mono.empty());
+
+    // act
+    var rejectedCreditLine =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            CreditLineRequestFixture.mockSmeRejectableRequest(),
+            FoundingType.SME);
+
+    // expect
+    StepVerifier.create(rejectedCreditLine)
+        .expectErrorSatisfies(
+            exception -> {
+              assertEquals(RejectedCreditLineException.class, exception.getClass());
+              assertEquals(
+                  SALES_AGENT_MSG, ((RejectedCreditLineException) exception).getCustomMessage());
+            })
+        .verify();
+    verify(creditLineRequestsRepository).update(any(CreditLineRequestRecord.class));
+  }
+
+  @Test
+  void shouldNotSetTheRateLimitWhenTheRequestIsNotStored() {
+
+    // given
+    when(creditLineRequestsRepository.findByIdForUpdate(any(UUID.class)))
+        .thenReturn(Mono.empty());
+    when(creditLineRequestsRepository.insertIfAbsent(any(CreditLineRequestRecord.class)))
+        .thenReturn(Mono.error(new IllegalStateException("connection closed")));
+
+    // act
+    var creditLine =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            CreditLineRequestFixture.mockSmeAcceptableRequest(),
+            FoundingType.SME);
+
+    // expect
+    StepVerifier.create(creditLine).expectError(IllegalStateException.class).verify();
+    verify(rateLimitService, never()).setRateLimitForAcceptedCredit(any(UUID.class));
+  }
+
+  @Test
+  void shouldDecideAgainFromTheFirstRequestStoredConcurrently() {
+
+    // given
+    var concurrentCreditLineRecord =
+        CreditLineEntityFixture.mockAlreadyRejectedRequest(MAX_FAILED_ATTEMPTS).orElseThrow();
+    when(creditLineRequestsRepository.findByIdForUpdate(any(UUID.class)))
+        .thenReturn(Mono.empty())
+        .thenReturn(Mono.just(concurrentCreditLineRecord));
+    when(creditLineRequestsRepository.insertIfAbsent(any(CreditLineRequestRecord.class)))
+        .thenReturn(Mono.just(false));
+    when(creditLineRequestsRepository.update(any(CreditLineRequestRecord.class)))
+        .thenReturn(Mono.empty());
+    when(rateLimitService.setRateLimitForRejectedCredit(any(UUID.class))).thenReturn(Mono.empty());
+
+    // act
+    var rejectedCreditLine =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            CreditLineRequestFixture.mockSmeRejectableRequest(),
+            FoundingType.SME);
+
+    // expect the attempts of the concurrent request counted
+    StepVerifier.create(rejectedCreditLine)
+        .expectErrorSatisfies(
+            exception ->
+                assertEquals(
+                    SALES_AGENT_MSG, ((RejectedCreditLineException) exception).getCustomMessage()))
+        .verify();
+    verify(creditLineRequestsRepository).update(any(CreditLineRequestRecord.class));
+  }
+
+  @Test
+  void shouldFailWhenTheFirstRequestCanNotBeStoredTwice() {
+
+    // given
+    when(creditLineRequestsRepository.findByIdForUpdate(any(UUID.class)))
+        .thenReturn(Mono.empty());
+    when(creditLineRequestsRepository.insertIfAbsent(any(CreditLineRequestRecord.class)))
+        .thenReturn(Mono.just(false));
+
+    // act
+    var creditLine =
+        creditLineService.requestCreditLine(
+            CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID,
+            CreditLineRequestFixture.mockSmeAcceptableRequest(),
+            FoundingType.SME);
+
+    // expect
+    StepVerifier.create(creditLine).expectError(InternalServerErrorException.class).verify();
+    verify(creditLineRequestsRepository, times(2))
+        .insertIfAbsent(any(CreditLineRequestRecord.class));
+    verify(rateLimitService, never()).setRateLimitForAcceptedCredit(any(UUID.class));
+  }
+}
@@ -0,0 +1,52 @@
+package org.roy.credit.line.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import reactor.test.StepVerifier;
+
+class ReactiveLocalRateLimitServiceTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final ReactiveLocalRateLimitServiceImpl rateLimitService =
+      new ReactiveLocalRateLimitServiceImpl(new LocalRateLimitServiceImpl(now::get));
+
+  @Test
+  void shouldLimitTheRequestsDuringTheRejectedCreditCoolDown() {
+
+    // act
+    StepVerifier.create(
+            rateLimitService.setRateLimitForRejectedCredit(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+
+    // expect
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .expectError(TooManyRequestsException.class)
+        .verify();
+  }
+
+  @Test
+  void shouldCountTheRequestsOfTheAcceptedCreditWindow() {
+
+    // act
+    StepVerifier.create(
+            rateLimitService.setRateLimitForAcceptedCredit(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+
+    // expect - the accepted request plus the two allowed by the window
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .expectError(TooManyRequestsException.class)
+        .verify();
+  }
+}
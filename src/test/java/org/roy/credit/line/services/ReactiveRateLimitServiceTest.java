@@ -0,0 +1,123 @@
+package org.roy.credit.line.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.exceptions.TooManyRequestsException;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveRateLimitServiceTest {
+
+  @InjectMocks private ReactiveRateLimitServiceImpl rateLimitService;
+  @Mock private ReactiveRedisTemplate<byte[], Integer> reactiveRedisTemplate;
+  @Mock private ReactiveValueOperations<byte[], Integer> valueOperations;
+  @Mock private RedisScript<Long> rateLimitScript;
+  @Spy private RateLimitProperties rateLimitProperties = new RateLimitProperties();
+
+  @Spy
+  private RejectedCreditNearCache rejectedCreditNearCache =
+      new RejectedCreditNearCache(new RateLimitProperties(), null);
+
+  @Test
+  void shouldAllowRequestWhenTheScriptAllowsIt() {
+
+    // given
+    when(reactiveRedisTemplate.execute(eq(rateLimitScript), anyList(), anyList()))
+        .thenReturn(Flux.just(1L));
+
+    // act and expect
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldRememberTheCoolDownReturnedByTheScript() {
+
+    // given
+    when(reactiveRedisTemplate.execute(eq(rateLimitScript), anyList(), anyList()))
+        .thenReturn(Flux.just(-20_000L));
+
+    // act
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .expectError(TooManyRequestsException.class)
+        .verify();
+
+    // expect the next check to be answered by the near cache
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .expectError(TooManyRequestsException.class)
+        .verify();
+    verify(reactiveRedisTemplate).execute(eq(rateLimitScript), anyList(), anyList());
+  }
+
+  @Test
+  void shouldOpenTheWindowOfAcceptedCredits() {
+
+    // given
+    when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.setIfAbsent(any(byte[].class), eq(1), eq(Duration.ofMinutes(2))))
+        .thenReturn(Mono.just(Boolean.TRUE));
+
+    // act and expect
+    StepVerifier.create(
+            rateLimitService.setRateLimitForAcceptedCredit(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldStartTheCoolDownOfRejectedCredits() {
+
+    // given
+    when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.setIfAbsent(any(byte[].class), eq(0), eq(Duration.ofSeconds(30))))
+        .thenReturn(Mono.just(Boolean.TRUE));
+
+    // act
+    StepVerifier.create(
+            rateLimitService.setRateLimitForRejectedCredit(
+                CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .verifyComplete();
+
+    // expect
+    verify(rejectedCreditNearCache)
+        .startCoolDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
+  }
+
+  @Test
+  void shouldNotCallRedisDuringAKnownCoolDown() {
+
+    // given
+    rejectedCreditNearCache.put(
+        CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
+
+    // act and expect
+    StepVerifier.create(
+            rateLimitService.checkRateLimitFor(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID))
+        .expectError(TooManyRequestsException.class)
+        .verify();
+    verifyNoInteractions(reactiveRedisTemplate);
+  }
+}
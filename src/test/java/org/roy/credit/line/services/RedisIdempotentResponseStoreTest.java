@@ -0,0 +1,89 @@
+package org.roy.credit.line.services;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.IdempotencyProperties;
+import org.roy.credit.line.services.caches.IdempotentResponse;
+import org.roy.credit.line.services.caches.RedisIdempotentResponseStore;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpStatus;
+
+@ExtendWith(MockitoExtension.class)
+class RedisIdempotentResponseStoreTest {
+
+  private static final String KEY = "customer:5f0c7d4e-1c7b-4f55-9a51-2a8d6f1d1a77";
+  private static final byte[] REDIS_KEY = ("credit-line:idempotency:v2:" + KEY).getBytes(UTF_8);
+
+  private static final byte[] FINGERPRINT =
+      IdempotentResponse.fingerprint("SME", "{}".getBytes(UTF_8));
+
+  @Mock private RedisTemplate<byte[], byte[]> idempotentResponseTemplate;
+  @Mock private ValueOperations<byte[], byte[]> valueOperations;
+
+  private final IdempotencyProperties idempotencyProperties = new IdempotencyProperties();
+
+  private RedisIdempotentResponseStore idempotentResponseStore;
+
+  @BeforeEach
+  void setUp() {
+    when(idempotentResponseTemplate.opsForValue()).thenReturn(valueOperations);
+    idempotentResponseStore =
+        new RedisIdempotentResponseStore(idempotentResponseTemplate, idempotencyProperties);
+  }
+
+  @Test
+  void shouldKeepTheEncodedResponseUntilItExpires() {
+
+    // given
+    var idempotentResponse =
+        new IdempotentResponse(
+            HttpStatus.ACCEPTED.value(), FINGERPRINT, "{}".getBytes(UTF_8));
+
+    // act
+    idempotentResponseStore.save(KEY, idempotentResponse);
+
+    // expect
+    verify(valueOperations)
+        .set(
+            aryEq(REDIS_KEY),
+            aryEq(idempotentResponse.encode()),
+            eq(idempotencyProperties.getTimeToLive()));
+  }
+
+  @Test
+  void shouldDecodeTheStoredResponse() {
+
+    // given
+    var idempotentResponse =
+        new IdempotentResponse(HttpStatus.OK.value(), FINGERPRINT, "{}".getBytes(UTF_8));
+    when(valueOperations.get(aryEq(REDIS_KEY))).thenReturn(idempotentResponse.encode());
+
+    // act
+    var storedResponse = idempotentResponseStore.find(KEY).orElseThrow();
+
+    // expect
+    assertEquals(idempotentResponse.status(), storedResponse.status());
+    assertArrayEquals(idempotentResponse.fingerprint(), storedResponse.fingerprint());
+    assertArrayEquals(idempotentResponse.body(), storedResponse.body());
+  }
+
+  @Test
+  void shouldFindNothingForAnUnknownKey() {
+
+    // act and expect
+    assertTrue(idempotentResponseStore.find(KEY).isEmpty());
+  }
+}
@@ -0,0 +1,120 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.enums.NearCacheSyncMode;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class RejectedCreditNearCacheTest {
+
+  @Mock private StringRedisTemplate stringRedisTemplate;
+
+  @Test
+  void shouldBroadcastStartedCoolDownWhenSyncModeIsPubSub() {
+
+    // given
+    var properties = new RateLimitProperties();
+    properties.getNearCache().setSyncMode(NearCacheSyncMode.PUBSUB);
+    var nearCache = new RejectedCreditNearCache(properties, stringRedisTemplate);
+
+    // act
+    nearCache.startCoolDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
+
+    // expect
+    assertTrue(nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    verify(stringRedisTemplate)
+        .convertAndSend(
+            eq(properties.getNearCache().getChannel()),
+            startsWith(CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID + ":"));
+  }
+
+  @Test
+  void shouldNotBroadcastStartedCoolDownWhenSyncModeIsNone() {
+
+    var nearCache = new RejectedCreditNearCache(new RateLimitProperties(), stringRedisTemplate);
+
+    nearCache.startCoolDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
+
+    verifyNoInteractions(stringRedisTemplate);
+  }
+
+  @Test
+  void shouldApplyCoolDownBroadcastByAnotherNode() {
+
+    var nearCache = new RejectedCreditNearCache(new RateLimitProperties(), stringRedisTemplate);
+    long expiresAt = System.currentTimeMillis() + 30_000;
+
+    nearCache.onCoolDownMessage(CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID + ":" + expiresAt);
+
+    assertTrue(nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldIgnoreExpiredAndMalformedCoolDownMessages() {
+
+    var nearCache = new RejectedCreditNearCache(new RateLimitProperties(), stringRedisTemplate);
+
+    nearCache.onCoolDownMessage(CreditLineRequestFixture.MOCKED_STRING_CUSTOMER_ID + ":1");
+    nearCache.onCoolDownMessage("not-a-cool-down");
+
+    assertFalse(nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+    verifyNoInteractions(stringRedisTemplate);
+  }
+
+  @Test
+  void shouldExpireAtTheLastCoolDownKeptForTheCustomer() {
+
+    var tickerNanos = new AtomicLong();
+    var nearCache =
+        new RejectedCreditNearCache(
+            new RateLimitProperties(), stringRedisTemplate, tickerNanos::get);
+    nearCache.startCoolDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofMinutes(5));
+
+    nearCache.put(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofMillis(50));
+    tickerNanos.addAndGet(Duration.ofMillis(49).toNanos());
+    boolean coolingDownBeforeItExpires =
+        nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+    tickerNanos.addAndGet(Duration.ofMillis(1).toNanos());
+
+    assertTrue(coolingDownBeforeItExpires);
+    assertFalse(nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldForgetInvalidatedCoolDown() {
+
+    var nearCache = new RejectedCreditNearCache(new RateLimitProperties(), stringRedisTemplate);
+    nearCache.startCoolDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
+
+    nearCache.invalidate(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID);
+
+    assertFalse(nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+
+  @Test
+  void shouldNeverReportCoolDownWhenDisabled() {
+
+    var properties = new RateLimitProperties();
+    properties.getNearCache().setEnabled(false);
+    var nearCache = new RejectedCreditNearCache(properties, stringRedisTemplate);
+
+    nearCache.startCoolDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID, Duration.ofSeconds(30));
+
+    assertFalse(nearCache.isCoolingDown(CreditLineRequestFixture.MOCKED_UUID_CUSTOMER_ID));
+  }
+}
@@ -2,7 +2,6 @@ package org.roy.credit.line.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-import java.math.BigDecimal;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,10 +10,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
 import org.roy.credit.line.models.dtos.RequesterFinancialData;
 import org.roy.credit.line.services.strategies.founding.type.CreditLineCalculationStrategy;
-import org.roy.credit.line.utils.MathUtils;
 import org.roy.credit.line.services.strategies.founding.type.StartUpRequesterStrategy;
+import org.roy.credit.line.utils.Money;
 
 @ExtendWith(MockitoExtension.class)
 class StartUpRequesterStrategyTest {
@@ -25,25 +25,22 @@ class StartUpRequesterStrategyTest {
   static void setUpMocks() {
 
     mockedStartUpCreditLineStrategy =
-        StartUpRequesterStrategy.builder()
-            .monthlyRevenueRatio(CreditLineRequestFixture.MONTHLY_REVENUE_RATIO)
-            .cashBalanceRatio(CreditLineRequestFixture.CASH_BALANCE_RATIO)
-            .build();
+        new StartUpRequesterStrategy(CreditLineStrategyFixture.mockRatioProperties());
   }
 
   private static Stream<Arguments> getRejectStartUpCreditLineTestCases() {
     return Stream.of(
         // Monthly Revenue < Cash Balance - Recommended credit = 50_000F
         Arguments.of(
-            51_000F, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_GREATER_CASH_BALANCE),
+            Money.centsOfUnits(51_000), CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_GREATER_CASH_BALANCE),
 
         // Monthly Revenue = Cash Balance - Recommended credit = 50_000F
         Arguments.of(
-            51_000F, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE),
+            Money.centsOfUnits(51_000), CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE),
 
         // Monthly Revenue > Cash Balance Recommended credit = 30_000F
         Arguments.of(
-            31_000F,
+            Money.centsOfUnits(31_000),
             CreditLineRequestFixture.MOCKED_START_UP_GREATER_MONTHLY_REVENUE,
             CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE));
   }
@@ -52,58 +49,56 @@ class StartUpRequesterStrategyTest {
     return Stream.of(
         // Monthly Revenue < Cash Balance - Recommended credit = 50_000F
         Arguments.of(
-            5_000F, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_GREATER_CASH_BALANCE),
+            Money.centsOfUnits(5_000), CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_GREATER_CASH_BALANCE),
 
         // Monthly Revenue = Cash Balance - Recommended credit = 50_000F
         Arguments.of(
-            5_000F, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE),
+            Money.centsOfUnits(5_000), CreditLineRequestFixture.MOCKED_START_UP_SMALLER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE),
 
         // Monthly Revenue > Cash Balance Recommended credit = 30_000F
         Arguments.of(
-            5_000F, CreditLineRequestFixture.MOCKED_START_UP_GREATER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE));
+            Money.centsOfUnits(5_000), CreditLineRequestFixture.MOCKED_START_UP_GREATER_MONTHLY_REVENUE, CreditLineRequestFixture.MOCKED_START_UP_SMALLER_CASH_BALANCE));
   }
 
   @ParameterizedTest
   @MethodSource("getRejectStartUpCreditLineTestCases")
   void shouldRejectStartUpCreditRequestBasedOnMonthlyRevenue(
-      Float requestedCredit, Float monthlyRevenue, Float cashBalance) {
+      long requestedCredit, long monthlyRevenue, long cashBalance) {
 
     // given
     RequesterFinancialData requesterFinancialData =
         RequesterFinancialData.builder()
-            .requestedCreditLine(requestedCredit)
-            .monthlyRevenue(monthlyRevenue)
-            .cashBalance(cashBalance)
+            .requestedCreditLineCents(requestedCredit)
+            .monthlyRevenueCents(monthlyRevenue)
+            .cashBalanceCents(cashBalance)
             .build();
 
     // act
-    BigDecimal rejectedCreditLineRequest =
+    long rejectedCreditLineRequest =
         mockedStartUpCreditLineStrategy.getCreditLine(requesterFinancialData);
 
     // expect
-    assertEquals(BigDecimal.ZERO, rejectedCreditLineRequest);
+    assertEquals(0, rejectedCreditLineRequest);
   }
 
   @ParameterizedTest
   @MethodSource("getAcceptStartUpCreditLineTestCases")
   void shouldAcceptStartUpCreditRequestBasedOnMonthlyRevenue(
-      Float requestedCredit, Float monthlyRevenue, Float cashBalance) {
+      long requestedCredit, long monthlyRevenue, long cashBalance) {
 
     // given
-    BigDecimal expectedAcceptedCreditLine = MathUtils.roundFloatTwoPlaces(requestedCredit);
-
     RequesterFinancialData requesterFinancialData =
         RequesterFinancialData.builder()
-            .requestedCreditLine(requestedCredit)
-            .monthlyRevenue(monthlyRevenue)
-            .cashBalance(cashBalance)
+            .requestedCreditLineCents(requestedCredit)
+            .monthlyRevenueCents(monthlyRevenue)
+            .cashBalanceCents(cashBalance)
             .build();
 
     // act
-    BigDecimal acceptedCreditLineRequest =
+    long acceptedCreditLineRequest =
         mockedStartUpCreditLineStrategy.getCreditLine(requesterFinancialData);
 
     // expect
-    assertEquals(expectedAcceptedCreditLine, acceptedCreditLineRequest);
+    assertEquals(requestedCredit, acceptedCreditLineRequest);
   }
 }
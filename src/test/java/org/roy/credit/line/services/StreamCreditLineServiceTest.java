@@ -0,0 +1,190 @@
+package org.roy.credit.line.services;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roy.credit.line.enums.CreditLineStatus;
+import org.roy.credit.line.enums.ErrorType;
+import org.roy.credit.line.models.requests.BatchCreditLineRequestItem;
+import org.roy.credit.line.models.responses.BatchCreditLineResponseItem;
+
+@ExtendWith(MockitoExtension.class)
+class StreamCreditLineServiceTest {
+
+  private static final int CHUNK_SIZE = 4;
+  private static final String VALID_LINE =
+      "{\"customerId\":\"%s\",\"foundingType\":\"SME\",\"cashBalance\":100000.0,"
+          + "\"monthlyRevenue\":100000.0,\"requestedCreditLine\":1000.0,"
+          + "\"requestedDate\":\"2022-06-26T02:14:21.120Z\"}\n";
+
+  @Mock private BatchCreditLineService batchCreditLineService;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+  private final List<Integer> chunkSizes = new ArrayList<>();
+  private StreamCreditLineServiceImpl streamCreditLineService;
+
+  @BeforeEach
+  void setUp() {
+    streamCreditLineService =
+        new StreamCreditLineServiceImpl(
+            batchCreditLineService,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            objectMapper,
+            CHUNK_SIZE);
+  }
+
+  @Test
+  void shouldAnswerEveryLineInOrderEvaluatingTheStreamInChunks() throws Exception {
+
+    // given
+    mockAcceptingBatchService();
+    int requests = 1_000;
+    InputStream ndjsonRequests =
+        new SequenceInputStream(
+            Collections.enumeration(
+                IntStream.range(0, requests)
+                    .mapToObj(i -> (InputStream) lineOf(String.format(VALID_LINE, uuidOf(i))))
+                    .toList()));
+    var ndjsonResults = new ByteArrayOutputStream();
+
+    // act
+    streamCreditLineService.requestCreditLines(ndjsonRequests, ndjsonResults);
+
+    // expect
+    List<BatchCreditLineResponseItem> results = resultsOf(ndjsonResults);
+    assertEquals(requests, results.size());
+    for (int i = 0; i < requests; i++) {
+      assertEquals(uuidOf(i), results.get(i).getCustomerId());
+    }
+    assertTrue(chunkSizes.stream().allMatch(size -> size <= CHUNK_SIZE));
+  }
+
+  @Test
+  void shouldAnswerInvalidLinesWithAnErrorAndGoOn() throws Exception {
+
+    // given
+    mockAcceptingBatchService();
+    String ndjson =
+        String.format(VALID_LINE, uuidOf(0))
+            + "{\"customerId\":\"" + uuidOf(1) + "\",\"foundingType\":\"FAKE\"}\n"
+            + "{\"customerId\":\"" + uuidOf(2) + "\",\"cashBalance\":1,\"monthlyRevenue\":1,"
+            + "\"requestedCreditLine\":1}\n"
+            + "{\"customerId\":\"" + uuidOf(3) + "\",\"foundingType\":\"SME\"}\n"
+            + String.format(VALID_LINE, uuidOf(4));
+    var ndjsonResults = new ByteArrayOutputStream();
+
+    // act
+    streamCreditLineService.requestCreditLines(lineOf(ndjson), ndjsonResults);
+
+    // expect
+    List<BatchCreditLineResponseItem> results = resultsOf(ndjsonResults);
+    assertEquals(5, results.size());
+    assertEquals(CreditLineStatus.ACCEPTED, results.get(0).getCreditLineStatus());
+    assertEquals(ErrorType.MISMATCH_REQUEST, results.get(1).getError().getErrorType());
+    assertEquals(ErrorType.MISMATCH_REQUEST, results.get(2).getError().getErrorType());
+    assertEquals(uuidOf(2), results.get(2).getCustomerId());
+    // A line without its amounts does not map to a request
+    assertEquals(ErrorType.MISMATCH_REQUEST, results.get(3).getError().getErrorType());
+    assertEquals(uuidOf(4), results.get(4).getCustomerId());
+  }
+
+  @Test
+  void shouldAnswerAChunkOfInvalidLinesWithoutCallingTheBatchService() throws Exception {
+
+    // given
+    var defaultChunkStreamService =
+        new StreamCreditLineServiceImpl(
+            batchCreditLineService,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            objectMapper);
+    String ndjson = "{\"customerId\":\"" + uuidOf(0) + "\"}\n";
+    var ndjsonResults = new ByteArrayOutputStream();
+
+    // act
+    defaultChunkStreamService.requestCreditLines(lineOf(ndjson), ndjsonResults);
+
+    // expect
+    List<BatchCreditLineResponseItem> results = resultsOf(ndjsonResults);
+    assertEquals(1, results.size());
+    assertEquals(ErrorType.MISMATCH_REQUEST, results.get(0).getError().getErrorType());
+    verifyNoInteractions(batchCreditLineService);
+  }
+
+  @Test
+  void shouldStopAtAMalformedLine() throws Exception {
+
+    // given
+    mockAcceptingBatchService();
+    String ndjson = String.format(VALID_LINE, uuidOf(0)) + "{not json\n";
+    var ndjsonResults = new ByteArrayOutputStream();
+
+    // act
+    streamCreditLineService.requestCreditLines(lineOf(ndjson), ndjsonResults);
+
+    // expect
+    List<BatchCreditLineResponseItem> results = resultsOf(ndjsonResults);
+    assertEquals(2, results.size());
+    assertEquals(CreditLineStatus.ACCEPTED, results.get(0).getCreditLineStatus());
+    assertNull(results.get(1).getCustomerId());
+    assertEquals(ErrorType.MISMATCH_REQUEST, results.get(1).getError().getErrorType());
+  }
+
+  private void mockAcceptingBatchService() {
+    when(batchCreditLineService.requestCreditLines(anyList()))
+        .then(
+            invocation -> {
+              List<BatchCreditLineRequestItem> items = invocation.getArgument(0);
+              chunkSizes.add(items.size());
+              return items.stream()
+                  .map(
+                      item ->
+                          BatchCreditLineResponseItem.builder()
+                              .customerId(item.getCustomerId())
+                              .creditLineStatus(CreditLineStatus.ACCEPTED)
+                              .build())
+                  .toList();
+            });
+  }
+
+  private List<BatchCreditLineResponseItem> resultsOf(ByteArrayOutputStream ndjsonResults)
+      throws Exception {
+    String output = ndjsonResults.toString(UTF_8);
+    assertTrue(output.endsWith("\n"));
+
+    List<BatchCreditLineResponseItem> results = new ArrayList<>();
+    for (String line : output.split("\n")) {
+      results.add(objectMapper.readValue(line, BatchCreditLineResponseItem.class));
+    }
+    return results;
+  }
+
+  private static ByteArrayInputStream lineOf(String line) {
+    return new ByteArrayInputStream(line.getBytes(UTF_8));
+  }
+
+  private static UUID uuidOf(int i) {
+    return new UUID(0, i);
+  }
+}
@@ -0,0 +1,207 @@
+package org.roy.credit.line.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.roy.credit.line.configs.CreditLineCacheProperties;
+import org.roy.credit.line.configs.CreditLineHistoryProperties;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.configs.RateLimitProperties;
+import org.roy.credit.line.entities.CreditLineRequestRecord;
+import org.roy.credit.line.enums.FoundingType;
+import org.roy.credit.line.fixture.CreditLineRequestFixture;
+import org.roy.credit.line.fixture.CreditLineStrategyFixture;
+import org.roy.credit.line.repositories.CreditLineRequestHistoryWriter;
+import org.roy.credit.line.repositories.CreditLineRequestStore;
+import org.roy.credit.line.services.caches.AcceptedCreditLineCache;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics;
+import org.roy.credit.line.services.metrics.LatencyRecorder;
+import org.roy.credit.line.services.caches.RejectedCreditNearCache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Runs the request pipeline on virtual threads, with repository and Redis calls blocking like real
+ * I/O, and fails if any virtual thread blocks while pinned to its carrier thread.
+ */
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadPinningTest {
+
+  private static final String VIRTUAL_THREAD_PINNED = "jdk.VirtualThreadPinned";
+  private static final Duration IO_LATENCY = Duration.ofMillis(5);
+  private static final int REQUESTS = 200;
+
+  @Mock private CreditLineRequestStore creditLineRequestStore;
+  @Mock private RedisTemplate<byte[], Integer> redisTemplate;
+  @Mock private ValueOperations<byte[], Integer> valueOperations;
+  @Mock private RedisScript<Long> rateLimitScript;
+
+  private RateLimitService rateLimitService;
+  private CreditLineService creditLineService;
+
+  @BeforeEach
+  void setUp() {
+    // Locked read, decision and write, each I/O blocking like a database round trip
+    lenient()
+        .when(creditLineRequestStore.update(any(UUID.class), any(), any()))
+        .then(
+            invocation -> {
+              sleep(IO_LATENCY);
+              Object decided =
+                  invocation
+                      .<Function<Optional<CreditLineRequestRecord>, ?>>getArgument(1)
+                      .apply(Optional.empty());
+              invocation.<Function<Object, CreditLineRequestRecord>>getArgument(2).apply(decided);
+              sleep(IO_LATENCY);
+              return decided;
+            });
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    lenient()
+        .when(valueOperations.setIfAbsent(any(), anyInt(), any(Duration.class)))
+        .then(blocking(Boolean.TRUE));
+    lenient()
+        .when(
+            redisTemplate.execute(
+                ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any()))
+        .then(blocking(1L));
+
+    rateLimitService =
+        new RateLimitServiceImpl(
+            redisTemplate,
+            rateLimitScript,
+            new RejectedCreditNearCache(new RateLimitProperties(), null),
+            new RateLimitProperties(),
+            new SimpleMeterRegistry());
+    creditLineService =
+        new CreditLineServiceImpl(
+            CreditLineStrategyFixture.mockCreditLineDecisionEngine(),
+            creditLineRequestStore,
+            rateLimitService,
+            new AcceptedCreditLineCache(
+                new CreditLineCacheProperties(), null, new SimpleMeterRegistry()),
+            new CreditLineRequestMetrics(
+                new SimpleMeterRegistry(),
+                new LatencyRecorder(new LatencyRecorderProperties())),
+            disabledHistory());
+  }
+
+  @Test
+  void shouldNotPinVirtualThreadsWhileProcessingCreditLineRequests() throws Exception {
+
+    // given
+    var processed = new AtomicInteger();
+
+    // act
+    List<RecordedEvent> pinnedEvents =
+        recordPinnedEvents(
+            () -> {
+              UUID customerId = UUID.randomUUID();
+              boolean acceptable = customerId.getLeastSignificantBits() % 2 == 0;
+              var request =
+                  acceptable
+                      ? CreditLineRequestFixture.mockSmeAcceptableRequest()
+                      : CreditLineRequestFixture.mockStartURejectableRequest();
+              var foundingType = acceptable ? FoundingType.SME : FoundingType.STARTUP;
+
+              if (rateLimitService.isAllowed(customerId)) {
+                creditLineService.requestCreditLine(customerId, request, foundingType);
+              }
+              processed.incrementAndGet();
+            });
+
+    // expect
+    assertEquals(REQUESTS, processed.get());
+    assertTrue(pinnedEvents.isEmpty(), () -> "Pinned virtual threads: " + pinnedEvents);
+  }
+
+  @Test
+  void shouldDetectVirtualThreadsBlockingInsideMonitors() throws Exception {
+
+    // given
+    Object monitor = new Object();
+
+    // act
+    List<RecordedEvent> pinnedEvents =
+        recordPinnedEvents(
+            () -> {
+              synchronized (monitor) {
+                sleep(Duration.ofMillis(1));
+              }
+            });
+
+    // expect
+    assertFalse(pinnedEvents.isEmpty());
+  }
+
+  private static List<RecordedEvent> recordPinnedEvents(Runnable request) throws Exception {
+    List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+
+    try (var recording = new RecordingStream()) {
+      recording.enable(VIRTUAL_THREAD_PINNED).withThreshold(Duration.ZERO).withStackTrace();
+      recording.onEvent(VIRTUAL_THREAD_PINNED, pinnedEvents::add);
+      recording.startAsync();
+
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        List<Future<?>> futures =
+            IntStream.range(0, REQUESTS)
+                .<Future<?>>mapToObj(i -> executor.submit(request))
+                .toList();
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      }
+
+      // Flushes the recording, so every event emitted by the requests is delivered
+      recording.stop();
+    }
+
+    return pinnedEvents;
+  }
+
+  private static <T> Answer<T> blocking(T result) {
+    return invocation -> {
+      sleep(IO_LATENCY);
+      return result;
+    };
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static CreditLineRequestHistoryWriter disabledHistory() {
+    var historyProperties = new CreditLineHistoryProperties();
+    historyProperties.setEnabled(false);
+    return new CreditLineRequestHistoryWriter(null, historyProperties, new SimpleMeterRegistry());
+  }
+}
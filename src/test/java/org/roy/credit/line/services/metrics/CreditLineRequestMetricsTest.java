@@ -0,0 +1,48 @@
+package org.roy.credit.line.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.enums.RequestOutcome;
+
+class CreditLineRequestMetricsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CreditLineRequestMetrics creditLineRequestMetrics =
+      new CreditLineRequestMetrics(
+          meterRegistry, new LatencyRecorder(new LatencyRecorderProperties()));
+
+  @Test
+  void shouldCountTheRequestsAnsweredWithEachOutcome() {
+
+    // act
+    creditLineRequestMetrics.recordRequest(RequestOutcome.ACCEPTED, 1_000_000);
+    creditLineRequestMetrics.recordRequest(RequestOutcome.TOO_MANY_REQUESTS, 2_000_000);
+    creditLineRequestMetrics.recordRequest(RequestOutcome.TOO_MANY_REQUESTS, 4_000_000);
+
+    // expect
+    var accepted =
+        meterRegistry
+            .get("credit.line.request")
+            .tag("outcome", RequestOutcome.ACCEPTED.getTag())
+            .timer();
+    var tooManyRequests =
+        meterRegistry
+            .get("credit.line.request")
+            .tag("outcome", RequestOutcome.TOO_MANY_REQUESTS.getTag())
+            .timer();
+    assertEquals(1, accepted.count());
+    assertEquals(2, tooManyRequests.count());
+    assertEquals(6, tooManyRequests.totalTime(TimeUnit.MILLISECONDS));
+    assertEquals(
+        0,
+        meterRegistry
+            .get("credit.line.request")
+            .tag("outcome", RequestOutcome.REJECTED.getTag())
+            .timer()
+            .count());
+  }
+}
@@ -0,0 +1,111 @@
+package org.roy.credit.line.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.configs.LatencyRecorderProperties;
+import org.roy.credit.line.services.metrics.CreditLineRequestMetrics.Stage;
+
+class LatencyRecorderTest {
+
+  private static final int RECORDS = 1_000_000;
+
+  @Test
+  void shouldPublishTheDistributionOfEachStageAndResetItOnEveryInterval() {
+
+    // given
+    var latencyRecorder = new LatencyRecorder(enabledProperties());
+    for (int i = 1; i <= 100; i++) {
+      latencyRecorder.record(Stage.READ, TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    latencyRecorder.record(Stage.SAVE, TimeUnit.MINUTES.toNanos(5));
+
+    // act
+    latencyRecorder.publishInterval();
+    Histogram read = latencyRecorder.getLastIntervals().get(Stage.READ);
+    Histogram save = latencyRecorder.getLastIntervals().get(Stage.SAVE);
+    latencyRecorder.publishInterval();
+
+    // expect
+    assertEquals(100, read.getTotalCount());
+    assertEquals(
+        TimeUnit.MILLISECONDS.toNanos(99),
+        read.getValueAtPercentile(99.0),
+        TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(1, save.getTotalCount());
+    assertTrue(save.getMaxValue() <= TimeUnit.SECONDS.toNanos(31), "clamped to the 30s range");
+    assertTrue(LatencyRecorder.percentileDistributionOf(read).contains("#[Mean"));
+    assertEquals(0, latencyRecorder.getLastIntervals().get(Stage.READ).getTotalCount());
+  }
+
+  @Test
+  void shouldLogOnlyTheStagesRecordedDuringTheInterval() {
+
+    // given
+    var properties = enabledProperties();
+    properties.setLogIntervals(true);
+    var latencyRecorder = new LatencyRecorder(properties);
+    latencyRecorder.record(Stage.SAVE, TimeUnit.MILLISECONDS.toNanos(3));
+
+    // act
+    latencyRecorder.publishInterval();
+
+    // expect
+    assertEquals(1, latencyRecorder.getLastIntervals().get(Stage.SAVE).getTotalCount());
+    assertEquals(0, latencyRecorder.getLastIntervals().get(Stage.READ).getTotalCount());
+  }
+
+  @Test
+  void shouldRecordNothingWhenDisabled() {
+
+    // given
+    var latencyRecorder = new LatencyRecorder(new LatencyRecorderProperties());
+
+    // act
+    latencyRecorder.record(Stage.READ, 1_000);
+    latencyRecorder.publishInterval();
+
+    // expect
+    assertTrue(latencyRecorder.getLastIntervals().isEmpty());
+  }
+
+  @Test
+  void shouldRecordWithoutAllocating() {
+
+    // given
+    var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().threadId();
+    var latencyRecorder = new LatencyRecorder(enabledProperties());
+
+    // Warms up the recording, so the measured loop runs compiled code
+    record(latencyRecorder);
+
+    // act
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    record(latencyRecorder);
+    long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    // expect
+    assertEquals(0, allocated / RECORDS, () -> allocated + " bytes allocated by the recording");
+  }
+
+  private static void record(LatencyRecorder latencyRecorder) {
+    Stage[] stages = Stage.values();
+    for (int i = 0; i < RECORDS; i++) {
+      latencyRecorder.record(stages[i % stages.length], i * 1_000L);
+    }
+  }
+
+  private static LatencyRecorderProperties enabledProperties() {
+    var properties = new LatencyRecorderProperties();
+    properties.setEnabled(true);
+    properties.setLogIntervals(false);
+    properties.setHighestTrackableLatency(Duration.ofSeconds(30));
+    return properties;
+  }
+}
@@ -0,0 +1,264 @@
+package org.roy.credit.line.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.models.requests.PostRequestCreditLineRequestBody;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** Random amounts checked against the same arithmetic on BigDecimals */
+class MoneyTest {
+
+  private static final int SAMPLES = 100_000;
+  private static final long SEED = 42;
+  private static final int[] RATIOS = {1, 3, 5, 7, Integer.MAX_VALUE};
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @Test
+  void shouldParseAmountsToTheCentsOfTheirBigDecimal() {
+
+    // given
+    var random = new SplittableRandom(SEED);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      String amount = randomAmount(random);
+
+      // act
+      long cents = parse(amount);
+
+      // expect
+      assertEquals(reference(amount), cents, amount);
+      assertEquals(reference(amount), Money.centsOf(new BigDecimal(amount)), amount);
+    }
+  }
+
+  @Test
+  void shouldTurnCentsBackIntoTheSameAmount() {
+
+    // given
+    var random = new SplittableRandom(SEED);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      long cents = random.nextLong();
+
+      // act
+      BigDecimal amount = Money.toBigDecimal(cents);
+
+      // expect
+      assertEquals(2, amount.scale());
+      assertEquals(cents, Money.centsOf(amount));
+      assertEquals(cents, parse(amount.toPlainString()));
+    }
+  }
+
+  @Test
+  void shouldCompareFractionsAsTheBigDecimalProduct() {
+
+    // given
+    var random = new SplittableRandom(SEED);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      long base = random.nextBoolean() ? random.nextLong() : random.nextLong(0, 1L << 40);
+      int ratio = RATIOS[random.nextInt(RATIOS.length)];
+      // Amounts around the fraction of the base, and anywhere in the range of cents
+      long amount =
+          random.nextBoolean() ? base / ratio + random.nextLong(-2, 3) : random.nextLong();
+
+      // act
+      boolean atMostFraction = Money.isAtMostFractionOf(amount, base, ratio);
+
+      // expect
+      boolean expected =
+          BigDecimal.valueOf(amount)
+                  .multiply(BigDecimal.valueOf(ratio))
+                  .compareTo(BigDecimal.valueOf(base))
+              <= 0;
+      assertEquals(expected, atMostFraction, amount + " * " + ratio + " <= " + base);
+    }
+  }
+
+  @Test
+  void shouldAcceptAmountsAtExactlyTheFractionOfTheBase() {
+
+    // given, a threshold a float cannot hold: 3355443.25 / 5 = 671088.65
+    long monthlyRevenue = parse("3355443.25");
+    long atThreshold = parse("671088.65");
+    long aboveThreshold = atThreshold + 1;
+
+    // expect
+    assertTrue(Money.isAtMostFractionOf(atThreshold, monthlyRevenue, 5));
+    assertFalse(Money.isAtMostFractionOf(aboveThreshold, monthlyRevenue, 5));
+    assertTrue(Money.isAtMostFractionOf(Long.MIN_VALUE, Long.MIN_VALUE, 1));
+    assertFalse(Money.isAtMostFractionOf(Long.MAX_VALUE, Long.MAX_VALUE, 2));
+    assertTrue(Money.isAtMostFractionOf(Long.MIN_VALUE, Long.MIN_VALUE, Integer.MAX_VALUE));
+  }
+
+  @Test
+  void shouldRejectAmountsOutOfTheRangeOfCents() {
+
+    // given
+    String maxAmount = Money.toBigDecimal(Long.MAX_VALUE).toPlainString();
+    String aboveMaxAmount = "92233720368547758.08";
+    String roundedAboveMaxAmount = maxAmount + "5";
+
+    // expect
+    assertEquals(Long.MAX_VALUE, parse(maxAmount));
+    assertThrows(ArithmeticException.class, () -> parse(aboveMaxAmount));
+    assertThrows(ArithmeticException.class, () -> parse(roundedAboveMaxAmount));
+    assertThrows(ArithmeticException.class, () -> parse("92233720368547759"));
+    assertThrows(ArithmeticException.class, () -> Money.centsOf(new BigDecimal(aboveMaxAmount)));
+    assertThrows(ArithmeticException.class, () -> Money.centsOfUnits(Long.MAX_VALUE / 100 + 1));
+    assertThrows(NumberFormatException.class, () -> parse("1.0.0"));
+    assertThrows(NumberFormatException.class, () -> parse("-."));
+  }
+
+  @Test
+  void shouldReadRequestBodyAmountsToTheCentsOfTheirBigDecimal() throws Exception {
+
+    // given
+    var random = new SplittableRandom(SEED);
+
+    for (int i = 0; i < SAMPLES / 10; i++) {
+      String cashBalance = randomAmount(random);
+      String monthlyRevenue = exponentNotationOf(new BigDecimal(randomAmount(random)));
+      long requestedCreditLine = random.nextLong(1L << 40);
+
+      // act
+      PostRequestCreditLineRequestBody body =
+          objectMapper.readValue(
+              "{\"cashBalance\":"
+                  + cashBalance
+                  + ",\"monthlyRevenue\":\""
+                  + monthlyRevenue
+                  + "\",\"requestedCreditLine\":"
+                  + requestedCreditLine
+                  + "}",
+              PostRequestCreditLineRequestBody.class);
+
+      // expect
+      assertEquals(reference(cashBalance), body.getCashBalanceCents(), cashBalance);
+      assertEquals(reference(monthlyRevenue), body.getMonthlyRevenueCents(), monthlyRevenue);
+      assertEquals(requestedCreditLine * 100, body.getRequestedCreditLineCents());
+    }
+  }
+
+  @Test
+  void shouldParseAmountsWithAnExplicitPositiveSign() {
+
+    // expect
+    assertEquals(150_099, parse("+1500.99"));
+    assertEquals(100, parse("+1"));
+  }
+
+  @Test
+  void shouldRejectMissingAndNullAmountsAndAmountsThatAreNotNumbers() {
+
+    // expect
+    var nullAmount = assertThrows(
+        MismatchedInputException.class,
+        () ->
+            objectMapper.readValue(
+                "{\"cashBalance\":null,\"monthlyRevenue\":1,\"requestedCreditLine\":1}",
+                PostRequestCreditLineRequestBody.class));
+    assertEquals("An amount can not be null", nullAmount.getOriginalMessage());
+    assertThrows(
+        MismatchedInputException.class,
+        () ->
+            objectMapper.readValue(
+                "{\"monthlyRevenue\":1,\"requestedCreditLine\":1}",
+                PostRequestCreditLineRequestBody.class));
+    assertThrows(
+        InvalidFormatException.class,
+        () ->
+            objectMapper.readValue(
+                "{\"cashBalance\":\"a lot\"}", PostRequestCreditLineRequestBody.class));
+    assertThrows(
+        MismatchedInputException.class,
+        () ->
+            objectMapper.readValue(
+                "{\"cashBalance\":true}", PostRequestCreditLineRequestBody.class));
+  }
+
+  @Test
+  void shouldReadTheAmountsRecoveredByADeserializationProblemHandler() throws Exception {
+
+    // given
+    var lenientObjectMapper =
+        objectMapper
+            .copy()
+            .addHandler(
+                new DeserializationProblemHandler() {
+                  @Override
+                  public Object handleWeirdStringValue(
+                      DeserializationContext context,
+                      Class<?> targetType,
+                      String valueToConvert,
+                      String failureMsg) {
+                    return 100L;
+                  }
+
+                  @Override
+                  public Object handleUnexpectedToken(
+                      DeserializationContext context,
+                      JavaType targetType,
+                      JsonToken token,
+                      JsonParser parser,
+                      String failureMsg) {
+                    return 200L;
+                  }
+                });
+
+    // act
+    PostRequestCreditLineRequestBody body =
+        lenientObjectMapper.readValue(
+            "{\"cashBalance\":\"a lot\",\"monthlyRevenue\":true,\"requestedCreditLine\":1}",
+            PostRequestCreditLineRequestBody.class);
+
+    // expect
+    assertEquals(100, body.getCashBalanceCents());
+    assertEquals(200, body.getMonthlyRevenueCents());
+  }
+
+  /** A plain decimal amount of up to 15 digits and 5 decimal places */
+  private static String randomAmount(SplittableRandom random) {
+    long units = random.nextLong((long) Math.pow(10, random.nextInt(1, 16)));
+    int fractionDigits = random.nextInt(6);
+    String sign = random.nextBoolean() ? "" : "-";
+    if (fractionDigits == 0) {
+      return sign + units;
+    }
+
+    long fraction = random.nextLong((long) Math.pow(10, fractionDigits));
+    return sign + units + "." + String.format("%0" + fractionDigits + "d", fraction);
+  }
+
+  private static String exponentNotationOf(BigDecimal amount) {
+    return amount.unscaledValue() + "E-" + amount.scale();
+  }
+
+  private static long parse(String amount) {
+    return Money.parseCents(amount.toCharArray(), 0, amount.length());
+  }
+
+  private static long reference(String amount) {
+    return new BigDecimal(amount)
+        .setScale(2, RoundingMode.HALF_UP)
+        .unscaledValue()
+        .longValueExact();
+  }
+}
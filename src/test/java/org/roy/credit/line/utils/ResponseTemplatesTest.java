@@ -0,0 +1,167 @@
+package org.roy.credit.line.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.roy.credit.line.constants.Messages.SALES_AGENT_MSG;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.roy.credit.line.models.responses.ContractResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ResponseTemplatesTest {
+
+  private static final String PATH = "/v1/request-credit-line";
+  private static final long NOW = 1_656_209_661_120L;
+
+  // Same date handling as the Spring Boot auto configured ObjectMapper
+  private final ObjectMapper objectMapper =
+      Jackson2ObjectMapperBuilder.json()
+          .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+  private final AtomicLong currentTimeMillis = new AtomicLong(NOW);
+  private final ResponseTemplates responseTemplates =
+      new ResponseTemplates(objectMapper, currentTimeMillis::get);
+
+  @Test
+  void shouldWriteTheSameTooManyRequestsBodyAsTheObjectMapper() throws Exception {
+
+    // given
+    var response = new MockHttpServletResponse();
+
+    // act
+    responseTemplates.writeTooManyRequests(requestOf(PATH), response);
+
+    // expect
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+    assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+    assertArrayEquals(
+        serialized(ContractResponses.tooManyRequests(PATH)), response.getContentAsByteArray());
+  }
+
+  @Test
+  void shouldWriteTheSameRejectedBodiesAsTheObjectMapper() throws Exception {
+
+    // given
+    var withoutMessage = new MockHttpServletResponse();
+    var withMessage = new MockHttpServletResponse();
+
+    // act
+    responseTemplates.writeRejected("", requestOf(PATH), withoutMessage);
+    responseTemplates.writeRejected(SALES_AGENT_MSG, requestOf(PATH), withMessage);
+
+    // expect
+    assertEquals(HttpStatus.OK.value(), withoutMessage.getStatus());
+    assertArrayEquals(
+        serialized(ContractResponses.rejected(null, PATH)), withoutMessage.getContentAsByteArray());
+    assertArrayEquals(
+        serialized(ContractResponses.rejected(SALES_AGENT_MSG, PATH)),
+        withMessage.getContentAsByteArray());
+  }
+
+  @Test
+  void shouldPatchTheCurrentTimestampAndEscapedPath() throws Exception {
+
+    // given
+    var first = new MockHttpServletResponse();
+    var second = new MockHttpServletResponse();
+    String path = "/v1/\"quoted\"";
+
+    // act
+    responseTemplates.writeTooManyRequests(requestOf(PATH), first);
+    currentTimeMillis.addAndGet(1_001);
+    responseTemplates.writeTooManyRequests(requestOf(path), second);
+
+    // expect
+    assertNotEquals(first.getContentAsString(), second.getContentAsString());
+    assertArrayEquals(
+        serialized(ContractResponses.tooManyRequests(path)), second.getContentAsByteArray());
+  }
+
+  @Test
+  void shouldNotStartWithAnObjectMapperWritingDatesAsNumbers() {
+
+    // given
+    var epochMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    // act and expect
+    assertThrows(
+        IllegalStateException.class,
+        () -> new ResponseTemplates(epochMapper, currentTimeMillis::get));
+  }
+
+  @Test
+  void shouldNotStartWithAnObjectMapperLeavingThePathOut() {
+
+    // given
+    var pathlessMapper = objectMapper.copy().addMixIn(ContractResponse.class, WithoutPath.class);
+
+    // act and expect
+    assertThrows(
+        IllegalStateException.class,
+        () -> new ResponseTemplates(pathlessMapper, currentTimeMillis::get));
+  }
+
+  @Test
+  void shouldNotStartWhenTheResponsesCanNotBeSerialized() throws Exception {
+
+    // given
+    var failingMapper = mock(ObjectMapper.class);
+    when(failingMapper.writeValueAsBytes(any(ContractResponse.class)))
+        .thenThrow(new JsonMappingException(null, "no serializer"));
+
+    // act and expect
+    assertThrows(
+        IllegalStateException.class,
+        () -> new ResponseTemplates(failingMapper, currentTimeMillis::get));
+  }
+
+  @Test
+  void shouldNotStartWhenTheTimestampsCanNotBeSerialized() throws Exception {
+
+    // given
+    var failingMapper = mock(ObjectMapper.class);
+    when(failingMapper.writeValueAsBytes(any(ContractResponse.class)))
+        .thenReturn("{}".getBytes(UTF_8));
+    when(failingMapper.writeValueAsBytes(any(ZonedDateTime.class)))
+        .thenThrow(new JsonMappingException(null, "no serializer"));
+
+    // act and expect
+    assertThrows(
+        IllegalStateException.class,
+        () -> new ResponseTemplates(failingMapper, currentTimeMillis::get));
+  }
+
+  private byte[] serialized(ContractResponse<?> contractResponse) throws Exception {
+    contractResponse.setUtcTimestamp(
+        ZonedDateTime.ofInstant(Instant.ofEpochMilli(currentTimeMillis.get()), ZoneOffset.UTC));
+    return objectMapper.writeValueAsBytes(contractResponse);
+  }
+
+  private static MockHttpServletRequest requestOf(String path) {
+    var request = new MockHttpServletRequest("POST", path);
+    request.setServletPath(path);
+    return request;
+  }
+
+  @JsonIgnoreProperties("path")
+  private abstract static class WithoutPath {}
+}